@@ -0,0 +1,480 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.AsyncProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.ResourceBundle;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * <p>文件服务器异步接口</p>
+ * <p>通过 {@link FileSystem#async()} 获取，所有操作提交至线程池执行并返回 {@link CompletableFuture}；
+ * 与同步接口一致，操作失败时结果为 {@code false} 或 {@code null}（已记录日志），仅任务被拒绝或执行中抛出未捕获异常时异常完成</p>
+ * <p>并发约定：
+ * <ul>
+ *     <li>{@link FileSystem#isThreadSafe()} 为 {@code true} 的实现（MinIO、FastDFS）中任务并行执行，并发度由线程池决定</li>
+ *     <li>其余实现（FTP、SFTP为单连接）中任务按提交顺序串行执行，不会阻塞线程池中的其他线程；
+ *     异步任务未完成前不要在同一实例上直接调用同步接口</li>
+ *     <li>已提交但未完成的任务数超过 {@link AsyncProperty#getMaxPending()} 时，新任务以 {@link RejectedExecutionException} 异常完成</li>
+ * </ul></p>
+ * <p>传入的输入流、输出流由任务在执行线程中读写，任务完成前调用方不可关闭</p>
+ * <p>配置 {@link AsyncProperty#getVirtualThreads()} 或传入虚拟线程池（见 {@link VirtualThreads}）时，每个任务运行在独立的虚拟线程上；
+ * 单连接实现的串行化不占用锁，排队中的任务不会阻塞任何线程</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class AsyncFileSystem<T, F> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncFileSystem.class);
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final FileSystem<T, F> fileSystem;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final int maxPending;
+    private final Semaphore pending;
+    private volatile boolean closed = false;
+
+    /**
+     * 创建异步接口
+     * @param fileSystem 文件服务器实例
+     * @param executor 执行任务的线程池，为空则按配置创建内部线程池并在关闭时销毁
+     */
+    public AsyncFileSystem(FileSystem<T, F> fileSystem, Executor executor) {
+        if (fileSystem == null) {
+            throw new IllegalArgumentException(message.getString("fs.async.valid.not.null"));
+        }
+        this.fileSystem = fileSystem;
+        AsyncProperty property = fileSystem.property.getAsync();
+        Integer maxPending = property == null ? null : property.getMaxPending();
+        this.maxPending = maxPending == null || maxPending <= 0 ? AsyncProperty.DEFAULT_MAX_PENDING : maxPending;
+        this.pending = new Semaphore(this.maxPending);
+        Executor target = executor;
+        if (target == null) {
+            this.ownedExecutor = createExecutor(fileSystem, property);
+            target = this.ownedExecutor;
+        } else {
+            this.ownedExecutor = null;
+        }
+        this.executor = fileSystem.isThreadSafe() ? target : new SerialExecutor(target);
+    }
+
+    private static ExecutorService createExecutor(FileSystem<?, ?> fileSystem, AsyncProperty property) {
+        String alias = fileSystem.property.getAlias() == null ? "default" : fileSystem.property.getAlias();
+        if (property != null && Boolean.TRUE.equals(property.getVirtualThreads())) {
+            if (VirtualThreads.isSupported()) {
+                return VirtualThreads.newVirtualThreadPerTaskExecutor("fs-async-" + alias + "-");
+            }
+            log.warn(message.getString("fs.async.virtual.not.supported")
+                    .replace("${alias}", alias)
+                    .replace("${version}", String.valueOf(System.getProperty("java.version"))));
+        }
+        Integer threads = property == null ? null : property.getThreads();
+        int size = !fileSystem.isThreadSafe() ? 1 : threads == null || threads <= 0 ? AsyncProperty.DEFAULT_THREADS : threads;
+        return Executors.newFixedThreadPool(size, new NamedThreadFactory(alias));
+    }
+
+    /**
+     * @return 对应的同步实例
+     */
+    public FileSystem<T, F> getFileSystem() {
+        return fileSystem;
+    }
+
+    /**
+     * <p>提交自定义操作</p>
+     * <p>用于调用具体实现的专有方法，同样遵循并发约定</p>
+     * @param operation 操作
+     * @param <R> 结果类型
+     * @return 结果
+     */
+    public <R> CompletableFuture<R> submit(Function<? super FileSystem<T, F>, ? extends R> operation) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new RejectedExecutionException(message.getString("fs.async.rejected.closed")
+                    .replace("${alias}", String.valueOf(fileSystem.property.getAlias()))));
+            return future;
+        }
+        if (!pending.tryAcquire()) {
+            future.completeExceptionally(new RejectedExecutionException(message.getString("fs.async.rejected.full")
+                    .replace("${alias}", String.valueOf(fileSystem.property.getAlias()))
+                    .replace("${maxPending}", Integer.toString(maxPending))));
+            return future;
+        }
+        Task<R> task = new Task<>(future, operation);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.reject(e);
+        }
+        return future;
+    }
+
+    /**
+     * 列出目录下的文件
+     * @see FileSystem#list(String)
+     */
+    public CompletableFuture<List<FileInfo<F>>> list(String path) {
+        return submit(fs -> fs.list(path));
+    }
+
+    /**
+     * 列出目录下的文件
+     * @see FileSystem#list(String, boolean, boolean, int)
+     */
+    public CompletableFuture<List<FileInfo<F>>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+        return submit(fs -> fs.list(path, deepFind, flatPrint, maxDepth));
+    }
+
+    /**
+     * 查询文件
+     * @see FileSystem#peekFile(String, String)
+     */
+    public CompletableFuture<FileInfo<F>> peekFile(String path, String filename) {
+        return submit(fs -> fs.peekFile(path, filename));
+    }
+
+    /**
+     * 上传文件，通过输入流
+     * @see FileSystem#upload(InputStream, StringBuffer, StringBuffer)
+     */
+    public CompletableFuture<Boolean> upload(InputStream input, StringBuffer path, StringBuffer filename) {
+        return submit(fs -> fs.upload(input, path, filename));
+    }
+
+    /**
+     * 上传文件，通过字节
+     * @see FileSystem#upload(byte[], StringBuffer, StringBuffer)
+     */
+    public CompletableFuture<Boolean> upload(byte[] bytes, StringBuffer path, StringBuffer filename) {
+        return submit(fs -> fs.upload(bytes, path, filename));
+    }
+
+    /**
+     * 上传文件，通过文件对象
+     * @see FileSystem#upload(File, StringBuffer, StringBuffer)
+     */
+    public CompletableFuture<Boolean> upload(File file, StringBuffer path, StringBuffer filename) {
+        return submit(fs -> fs.upload(file, path, filename));
+    }
+
+    /**
+     * 上传文件，通过Base64
+     * @see FileSystem#upload(String, StringBuffer, StringBuffer)
+     */
+    public CompletableFuture<Boolean> upload(String base64, StringBuffer path, StringBuffer filename) {
+        return submit(fs -> fs.upload(base64, path, filename));
+    }
+
+    /**
+     * 上传文件，通过输入流
+     * @see FileSystem#upload(InputStream, String, String)
+     */
+    public CompletableFuture<Boolean> upload(InputStream input, String path, String filename) {
+        return submit(fs -> fs.upload(input, path, filename));
+    }
+
+    /**
+     * 上传文件，通过字节
+     * @see FileSystem#upload(byte[], String, String)
+     */
+    public CompletableFuture<Boolean> upload(byte[] bytes, String path, String filename) {
+        return submit(fs -> fs.upload(bytes, path, filename));
+    }
+
+    /**
+     * 上传文件，通过文件对象
+     * @see FileSystem#upload(File, String, String)
+     */
+    public CompletableFuture<Boolean> upload(File file, String path, String filename) {
+        return submit(fs -> fs.upload(file, path, filename));
+    }
+
+    /**
+     * 上传文件，通过Base64
+     * @see FileSystem#upload(String, String, String)
+     */
+    public CompletableFuture<Boolean> upload(String base64, String path, String filename) {
+        return submit(fs -> fs.upload(base64, path, filename));
+    }
+
+    /**
+     * 根据给定路径创建至目录
+     * @see FileSystem#createDirectory(String)
+     */
+    public CompletableFuture<Boolean> createDirectory(String path) {
+        return submit(fs -> fs.createDirectory(path));
+    }
+
+    /**
+     * 下载为Base64
+     * @see FileSystem#downloadBase64(String, String)
+     */
+    public CompletableFuture<String> downloadBase64(String path, String filename) {
+        return submit(fs -> fs.downloadBase64(path, filename));
+    }
+
+    /**
+     * 下载为临时文件
+     * @see FileSystem#downloadFile(String, String)
+     */
+    public CompletableFuture<File> downloadFile(String path, String filename) {
+        return submit(fs -> fs.downloadFile(path, filename));
+    }
+
+    /**
+     * 下载至指定文件
+     * @see FileSystem#downloadFile(String, String, File)
+     */
+    public CompletableFuture<File> downloadFile(String path, String filename, File destFile) {
+        return submit(fs -> fs.downloadFile(path, filename, destFile));
+    }
+
+    /**
+     * 下载为字节
+     * @see FileSystem#downloadBytes(String, String)
+     */
+    public CompletableFuture<byte[]> downloadBytes(String path, String filename) {
+        return submit(fs -> fs.downloadBytes(path, filename));
+    }
+
+    /**
+     * 下载并写入输出流
+     * @see FileSystem#download(String, String, OutputStream)
+     */
+    public CompletableFuture<Boolean> download(String path, String filename, OutputStream output) {
+        return submit(fs -> fs.download(path, filename, output));
+    }
+
+    /**
+     * 下载并写入文件通道
+     * @see FileSystem#download(String, String, FileChannel)
+     */
+    public CompletableFuture<Boolean> download(String path, String filename, FileChannel channel) {
+        return submit(fs -> fs.download(path, filename, channel));
+    }
+
+    /**
+     * 下载指定范围为字节
+     * @see FileSystem#downloadRange(String, String, long, long)
+     */
+    public CompletableFuture<byte[]> downloadRange(String path, String filename, long offset, long length) {
+        return submit(fs -> fs.downloadRange(path, filename, offset, length));
+    }
+
+    /**
+     * 下载指定范围并写入输出流
+     * @see FileSystem#downloadRange(String, String, long, long, OutputStream)
+     */
+    public CompletableFuture<Boolean> downloadRange(String path, String filename, long offset, long length, OutputStream output) {
+        return submit(fs -> fs.downloadRange(path, filename, offset, length, output));
+    }
+
+    /**
+     * 批量上传文件
+     * @see FileSystem#uploadAll(Collection)
+     */
+    public CompletableFuture<List<BatchResult<UploadRequest>>> uploadAll(Collection<UploadRequest> requests) {
+        return submit(fs -> fs.uploadAll(requests));
+    }
+
+    /**
+     * 删除文件
+     * @see FileSystem#deleteFile(String, String)
+     */
+    public CompletableFuture<Boolean> deleteFile(String path, String filename) {
+        return submit(fs -> fs.deleteFile(path, filename));
+    }
+
+    /**
+     * 批量删除文件
+     * @see FileSystem#deleteAll(Collection)
+     */
+    public CompletableFuture<List<BatchResult<String>>> deleteAll(Collection<String> paths) {
+        return submit(fs -> fs.deleteAll(paths));
+    }
+
+    /**
+     * 删除目录下的所有文件
+     * @see FileSystem#deleteByPrefix(String)
+     */
+    public CompletableFuture<List<BatchResult<String>>> deleteByPrefix(String path) {
+        return submit(fs -> fs.deleteByPrefix(path));
+    }
+
+    /**
+     * @return 已提交但未完成的任务数
+     */
+    public int getPendingCount() {
+        return maxPending - pending.availablePermits();
+    }
+
+    /**
+     * <p>停止接收新任务，等待已提交的任务完成（最长30秒），并销毁内部线程池</p>
+     * <p>不会断开同步实例的连接，由 {@link FileSystem#close()} 调用时会在断开连接前执行</p>
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            if (pending.tryAcquire(maxPending, CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                pending.release(maxPending);
+            } else {
+                log.warn(message.getString("fs.async.close.timeout")
+                        .replace("${alias}", String.valueOf(fileSystem.property.getAlias()))
+                        .replace("${pending}", Integer.toString(getPendingCount())));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * 单个异步任务，无论成功、失败或被拒绝都只归还一次排队名额，且在结果完成前归还
+     */
+    private final class Task<R> implements Runnable {
+
+        private final CompletableFuture<R> future;
+        private final Function<? super FileSystem<T, F>, ? extends R> operation;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        Task(CompletableFuture<R> future, Function<? super FileSystem<T, F>, ? extends R> operation) {
+            this.future = future;
+            this.operation = operation;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                finish();
+                return;
+            }
+            R result;
+            try {
+                result = operation.apply(fileSystem);
+            } catch (Throwable e) {
+                reject(e);
+                return;
+            }
+            finish();
+            future.complete(result);
+        }
+
+        void reject(Throwable e) {
+            finish();
+            future.completeExceptionally(e);
+        }
+
+        private void finish() {
+            if (finished.compareAndSet(false, true)) {
+                pending.release();
+            }
+        }
+
+    }
+
+    /**
+     * 将任务按提交顺序逐个交给线程池执行，同一时间最多占用一个线程
+     */
+    private static final class SerialExecutor implements Executor {
+
+        private final Executor delegate;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        SerialExecutor(Executor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.offer(task);
+            try {
+                schedule();
+            } catch (RejectedExecutionException e) {
+                if (tasks.remove(task)) {
+                    throw e;
+                }
+            }
+        }
+
+        private void schedule() {
+            if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    delegate.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+            } finally {
+                scheduled.set(false);
+                try {
+                    schedule();
+                } catch (RejectedExecutionException e) {
+                    rejectAll(e);
+                }
+            }
+        }
+
+        @SuppressWarnings("rawtypes")
+        private void rejectAll(RejectedExecutionException e) {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                if (task instanceof AsyncFileSystem.Task) {
+                    ((AsyncFileSystem.Task) task).reject(e);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * 内部线程池使用的守护线程工厂
+     */
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String alias) {
+            this.prefix = "fs-async-" + alias + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
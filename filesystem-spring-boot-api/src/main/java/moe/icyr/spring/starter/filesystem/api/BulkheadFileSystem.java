@@ -0,0 +1,336 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
+import moe.icyr.spring.starter.filesystem.api.entity.BulkheadProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * <p>限制同时进行的操作数的文件服务器，后端响应变慢时避免调用方线程全部阻塞在文件服务器调用中</p>
+ * <p>达到上限时最多等待配置的时长，仍无空位则抛出 {@link BulkheadFullException}，操作不会被执行</p>
+ * <p>读取流占用的名额在流关闭时释放；批量操作整体占用一个名额；同一线程持有未关闭的流时再次调用会额外占用名额</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class BulkheadFileSystem<T, F> extends ForwardingFileSystem<T, F> {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkheadFileSystem.class);
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    private final int maxConcurrent;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * 使用被装饰实例配置中的 {@link BulkheadProperty} 创建
+     * @param delegate 被装饰的实例
+     */
+    public BulkheadFileSystem(FileSystem<T, F> delegate) {
+        this(delegate, maxConcurrentOf(delegate), maxWaitMillisOf(delegate));
+    }
+
+    /**
+     * @param delegate 被装饰的实例
+     * @param maxConcurrent 同时进行的最大操作数，需&gt;0
+     * @param maxWaitMillis 达到上限时的最长等待时长（毫秒），需&gt;=0
+     */
+    public BulkheadFileSystem(FileSystem<T, F> delegate, int maxConcurrent, long maxWaitMillis) {
+        super(delegate);
+        if (maxConcurrent <= 0 || maxWaitMillis < 0) {
+            throw new IllegalArgumentException(message.getString("fs.bulkhead.valid.fail")
+                    .replace("${maxConcurrent}", Integer.toString(maxConcurrent))
+                    .replace("${maxWaitMillis}", Long.toString(maxWaitMillis)));
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    private static int maxConcurrentOf(FileSystem<?, ?> delegate) {
+        BulkheadProperty property = delegate == null ? null : delegate.property.getBulkhead();
+        Integer maxConcurrent = property == null ? null : property.getMaxConcurrent();
+        return maxConcurrent == null ? 0 : maxConcurrent;
+    }
+
+    private static long maxWaitMillisOf(FileSystem<?, ?> delegate) {
+        BulkheadProperty property = delegate == null ? null : delegate.property.getBulkhead();
+        Long maxWaitMillis = property == null ? null : property.getMaxWaitMillis();
+        return maxWaitMillis == null ? BulkheadProperty.DEFAULT_MAX_WAIT_MILLIS : maxWaitMillis;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * @return 正在进行的操作数（含未关闭的读取流）
+     */
+    public int getActiveCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * @return 正在等待空位的调用数
+     */
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    /**
+     * @return 累计拒绝次数
+     */
+    public long getRejectedCount() {
+        return rejections.sum();
+    }
+
+    @Override
+    public List<FileInfo<F>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+        return guard(() -> super.list(path, deepFind, flatPrint, maxDepth));
+    }
+
+    @Override
+    public CloseableIterator<FileInfo<F>> listIterator(String path, boolean deepFind, int maxDepth) {
+        return guard(() -> super.listIterator(path, deepFind, maxDepth));
+    }
+
+    @Override
+    public List<FileInfo<F>> listParallel(String path, boolean flatPrint, int maxDepth, int parallelism) {
+        return guard(() -> super.listParallel(path, flatPrint, maxDepth, parallelism));
+    }
+
+    @Override
+    public FileInfo<F> peekFile(String path, String filename) {
+        return guard(() -> super.peekFile(path, filename));
+    }
+
+    @Override
+    public boolean upload(InputStream input, StringBuffer path, StringBuffer filename) {
+        return guard(() -> super.upload(input, path, filename));
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, StringBuffer path, StringBuffer filename) {
+        return guard(() -> super.upload(bytes, path, filename));
+    }
+
+    @Override
+    public boolean upload(File file, StringBuffer path, StringBuffer filename) {
+        return guard(() -> super.upload(file, path, filename));
+    }
+
+    @Override
+    public boolean upload(String base64, StringBuffer path, StringBuffer filename) {
+        return guard(() -> super.upload(base64, path, filename));
+    }
+
+    @Override
+    public boolean upload(InputStream input, String path, String filename) {
+        return guard(() -> super.upload(input, path, filename));
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, String path, String filename) {
+        return guard(() -> super.upload(bytes, path, filename));
+    }
+
+    @Override
+    public boolean upload(File file, String path, String filename) {
+        return guard(() -> super.upload(file, path, filename));
+    }
+
+    @Override
+    public boolean upload(String base64, String path, String filename) {
+        return guard(() -> super.upload(base64, path, filename));
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, StringBuffer path, StringBuffer filename, String encoding) {
+        return guard(() -> super.uploadEncoded(input, path, filename, encoding));
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, String path, String filename, String encoding) {
+        return guard(() -> super.uploadEncoded(input, path, filename, encoding));
+    }
+
+    @Override
+    public List<BatchResult<UploadRequest>> uploadAll(Collection<UploadRequest> requests, int parallelism) {
+        return guard(() -> super.uploadAll(requests, parallelism));
+    }
+
+    @Override
+    public boolean appenderUpload(String base64, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return guard(() -> super.appenderUpload(base64, path, filename, fileSize, fileOffset));
+    }
+
+    @Override
+    public boolean appenderUpload(byte[] bytes, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return guard(() -> super.appenderUpload(bytes, path, filename, fileSize, fileOffset));
+    }
+
+    @Override
+    public boolean appenderUpload(InputStream input, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return guard(() -> super.appenderUpload(input, path, filename, fileSize, fileOffset));
+    }
+
+    @Override
+    public List<BatchResult<String>> deleteAll(Collection<String> paths, int parallelism) {
+        return guard(() -> super.deleteAll(paths, parallelism));
+    }
+
+    @Override
+    public List<BatchResult<String>> deleteByPrefix(String path) {
+        return guard(() -> super.deleteByPrefix(path));
+    }
+
+    @Override
+    public boolean deleteFile(String path, String filename) {
+        return guard(() -> super.deleteFile(path, filename));
+    }
+
+    @Override
+    public boolean createDirectory(String path) {
+        return guard(() -> super.createDirectory(path));
+    }
+
+    @Override
+    public File downloadFile(String path, String filename) {
+        return guard(() -> super.downloadFile(path, filename));
+    }
+
+    @Override
+    public File downloadFile(String path, String filename, File destFile) {
+        return guard(() -> super.downloadFile(path, filename, destFile));
+    }
+
+    @Override
+    public boolean download(String path, String filename, FileChannel channel) {
+        return guard(() -> super.download(path, filename, channel));
+    }
+
+    @Override
+    public boolean download(String path, String filename, OutputStream output) {
+        return guard(() -> super.download(path, filename, output));
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename) {
+        return guardStream(() -> super.openInputStream(path, filename));
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
+        return guardStream(() -> super.openInputStream(path, filename, offset, length));
+    }
+
+    @Override
+    public String getChecksum(String path, String filename, ChecksumAlgorithm algorithm) {
+        return guard(() -> super.getChecksum(path, filename, algorithm));
+    }
+
+    @Override
+    public String getContentEncoding(String path, String filename) {
+        return guard(() -> super.getContentEncoding(path, filename));
+    }
+
+    private void acquire() {
+        boolean acquired;
+        if (maxWaitMillis == 0) {
+            acquired = permits.tryAcquire();
+        } else {
+            waiting.incrementAndGet();
+            try {
+                acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+        if (!acquired) {
+            rejections.increment();
+            String msg = message.getString("fs.bulkhead.full")
+                    .replace("${alias}", String.valueOf(property.getAlias()))
+                    .replace("${maxConcurrent}", Integer.toString(maxConcurrent))
+                    .replace("${maxWaitMillis}", Long.toString(maxWaitMillis));
+            log.debug(msg);
+            throw new BulkheadFullException(msg, property.getAlias(), maxConcurrent, maxWaitMillis);
+        }
+    }
+
+    private boolean guard(BooleanSupplier call) {
+        acquire();
+        try {
+            return call.getAsBoolean();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private <R> R guard(Supplier<R> call) {
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 打开成功时名额由流持有，关闭时释放
+     */
+    private InputStream guardStream(Supplier<InputStream> call) {
+        acquire();
+        InputStream input;
+        try {
+            input = call.get();
+        } catch (RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+        if (input == null) {
+            permits.release();
+            return null;
+        }
+        return new FilterInputStream(input) {
+            private boolean closed = false;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    permits.release();
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,45 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+/**
+ * 并发隔离已满，操作被 {@link BulkheadFileSystem} 拒绝时抛出，操作未被执行
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String alias;
+    private final int maxConcurrent;
+    private final long maxWaitMillis;
+
+    public BulkheadFullException(String message, String alias, int maxConcurrent, long maxWaitMillis) {
+        super(message);
+        this.alias = alias;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * @return 被拒绝的实例的配置别名
+     */
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * @return 同时进行的最大操作数
+     */
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return 拒绝前等待的时长（毫秒）
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+}
@@ -0,0 +1,290 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>熔断器：连续失败达到阈值后打开，打开期间直接拒绝调用，等待一段时间后半开，只放行一次探测调用</p>
+ * <p>探测成功则关闭，失败则重新打开；只有连接失败与网络层异常（见 {@link FileSystem#isRetryable(Throwable)}）计为失败，
+ * 文件不存在等服务端的正常应答说明服务可用，计为成功</p>
+ * <p>由 {@link CircuitBreakerFileSystem} 使用，失败由文件服务器实现在重试结束后上报</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        /**
+         * 正常放行
+         */
+        CLOSED,
+        /**
+         * 直接拒绝
+         */
+        OPEN,
+        /**
+         * 只放行一次探测调用
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * 状态变化监听器，在引起变化的线程中同步回调
+     */
+    @FunctionalInterface
+    public interface StateListener {
+        /**
+         * @param breaker 熔断器
+         * @param from 原状态
+         * @param to 新状态
+         */
+        void onStateChange(CircuitBreaker breaker, State from, State to);
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicReference<Thread> probe = new AtomicReference<>();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder opens = new LongAdder();
+    private volatile long openedAt;
+    private volatile StateListener[] listeners = new StateListener[0];
+
+    /**
+     * @param name 名称，一般为配置别名，用于日志与事件
+     * @param failureThreshold 打开前的连续失败次数，需&gt;0
+     * @param openMillis 打开后转为半开前的等待时长（毫秒），需&gt;=0
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        if (failureThreshold <= 0 || openMillis < 0) {
+            throw new IllegalArgumentException(message.getString("fs.circuit.valid.fail")
+                    .replace("${failureThreshold}", Integer.toString(failureThreshold))
+                    .replace("${openMillis}", Long.toString(openMillis)));
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public long getOpenMillis() {
+        return openMillis;
+    }
+
+    /**
+     * @return 当前状态，打开已超过等待时长但尚无调用时仍为 {@link State#OPEN}
+     */
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * @return 当前连续失败次数
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * @return 累计拒绝次数
+     */
+    public long getRejectedCount() {
+        return rejections.sum();
+    }
+
+    /**
+     * @return 累计打开次数（含探测失败后的重新打开）
+     */
+    public long getOpenedCount() {
+        return opens.sum();
+    }
+
+    /**
+     * @return 打开状态下距离转为半开的剩余时长（毫秒），其他状态为0
+     */
+    public long getRemainingOpenMillis() {
+        if (state.get() != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openMillis - (System.currentTimeMillis() - openedAt));
+    }
+
+    /**
+     * 注册状态变化监听器
+     * @param listener 监听器
+     * @return this
+     */
+    public synchronized CircuitBreaker addListener(StateListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException(message.getString("fs.circuit.listener.valid.not.null"));
+        }
+        StateListener[] copy = Arrays.copyOf(listeners, listeners.length + 1);
+        copy[copy.length - 1] = listener;
+        listeners = copy;
+        return this;
+    }
+
+    /**
+     * 移除状态变化监听器
+     * @param listener 监听器
+     * @return this
+     */
+    public synchronized CircuitBreaker removeListener(StateListener listener) {
+        List<StateListener> copy = new ArrayList<>(Arrays.asList(listeners));
+        if (copy.remove(listener)) {
+            listeners = copy.toArray(new StateListener[0]);
+        }
+        return this;
+    }
+
+    /**
+     * @return 已注册的状态变化监听器
+     */
+    public List<StateListener> getListeners() {
+        return Collections.unmodifiableList(Arrays.asList(listeners));
+    }
+
+    /**
+     * <p>调用前获取许可</p>
+     * <p>打开已超过等待时长时转为半开，由当前线程作为探测调用；获取到探测许可的线程需在调用结束后调用 {@link #release()}</p>
+     * @return 允许调用与否，不允许时计入拒绝次数
+     */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis || !transition(State.OPEN, State.HALF_OPEN)) {
+                // 等待中，或其他线程已先转为半开
+                if (state.get() != State.HALF_OPEN) {
+                    rejections.increment();
+                    return false;
+                }
+            }
+        }
+        if (probe.compareAndSet(null, Thread.currentThread())) {
+            if (state.get() == State.HALF_OPEN) {
+                return true;
+            }
+            // 探测已结束，状态已变化
+            probe.compareAndSet(Thread.currentThread(), null);
+            return tryAcquire();
+        }
+        rejections.increment();
+        return false;
+    }
+
+    /**
+     * 调用结束，当前线程的探测调用未上报结果时（如未经过网络的调用）释放探测许可，由下一次调用重新探测
+     */
+    public void release() {
+        probe.compareAndSet(Thread.currentThread(), null);
+    }
+
+    /**
+     * 上报一次成功，清零连续失败次数，半开时关闭
+     */
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        if (transition(State.HALF_OPEN, State.CLOSED)) {
+            probe.set(null);
+        }
+    }
+
+    /**
+     * 上报一次失败，连续失败达到阈值时打开，半开时重新打开
+     * @param error 异常
+     */
+    public void onFailure(Throwable error) {
+        int failures = consecutiveFailures.incrementAndGet();
+        State current = state.get();
+        if (current == State.HALF_OPEN || (current == State.CLOSED && failures >= failureThreshold)) {
+            // 已打开时不刷新打开时间，打开前发起的调用陆续失败不会推迟半开
+            openedAt = System.currentTimeMillis();
+            if (transition(current, State.OPEN)) {
+                opens.increment();
+                probe.set(null);
+                logOpened(failures, error);
+            }
+        }
+    }
+
+    /**
+     * 重置为关闭状态
+     */
+    public void reset() {
+        consecutiveFailures.set(0);
+        State current = state.get();
+        if (current != State.CLOSED && transition(current, State.CLOSED)) {
+            probe.set(null);
+        }
+    }
+
+    private void logOpened(int failures, Throwable error) {
+        log.warn(message.getString("fs.circuit.opened")
+                .replace("${name}", String.valueOf(name))
+                .replace("${failures}", Integer.toString(failures))
+                .replace("${openMillis}", Long.toString(openMillis))
+                .replace("${error}", String.valueOf(error)));
+    }
+
+    private boolean transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) {
+            return false;
+        }
+        if (to != State.OPEN) {
+            log.info(message.getString("fs.circuit.transition")
+                    .replace("${name}", String.valueOf(name))
+                    .replace("${from}", from.name())
+                    .replace("${to}", to.name()));
+        }
+        for (StateListener listener : listeners) {
+            try {
+                listener.onStateChange(this, from, to);
+            } catch (RuntimeException e) {
+                log.warn(message.getString("fs.circuit.listener.fail")
+                        .replace("${listener}", String.valueOf(listener))
+                        .replace("${name}", String.valueOf(name)), e);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CircuitBreaker.class.getSimpleName() + "[", "]")
+                .add("name='" + name + "'")
+                .add("state=" + state.get())
+                .add("failureThreshold=" + failureThreshold)
+                .add("openMillis=" + openMillis)
+                .toString();
+    }
+
+}
@@ -0,0 +1,260 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
+import moe.icyr.spring.starter.filesystem.api.entity.CircuitBreakerProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * <p>带熔断的文件服务器，后端不可用时快速失败，避免每次调用都等待连接超时与重试</p>
+ * <p>熔断器设置至被装饰的实例，由其在操作结束时上报成功或失败，见 {@link FileSystem#setCircuitBreaker(CircuitBreaker)}；
+ * 打开期间抛出 {@link CircuitBreakerOpenException}，操作不会被执行</p>
+ * <p>读取流只计入打开，读取过程中的失败不计入；批量操作整体作为一次调用放行，其中各项操作分别上报</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class CircuitBreakerFileSystem<T, F> extends ForwardingFileSystem<T, F> {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreakerFileSystem.class);
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    private final CircuitBreaker breaker;
+
+    /**
+     * 使用被装饰实例配置中的 {@link CircuitBreakerProperty} 创建
+     * @param delegate 被装饰的实例
+     */
+    public CircuitBreakerFileSystem(FileSystem<T, F> delegate) {
+        this(delegate, new CircuitBreaker(delegate == null ? null : delegate.property.getAlias(),
+                failureThresholdOf(delegate), openMillisOf(delegate)));
+    }
+
+    /**
+     * @param delegate 被装饰的实例
+     * @param breaker 熔断器
+     */
+    public CircuitBreakerFileSystem(FileSystem<T, F> delegate, CircuitBreaker breaker) {
+        super(delegate);
+        if (breaker == null) {
+            throw new IllegalArgumentException(message.getString("fs.circuit.valid.not.null"));
+        }
+        this.breaker = breaker;
+        delegate.setCircuitBreaker(breaker);
+    }
+
+    private static int failureThresholdOf(FileSystem<?, ?> delegate) {
+        CircuitBreakerProperty property = delegate == null ? null : delegate.property.getCircuitBreaker();
+        Integer failureThreshold = property == null ? null : property.getFailureThreshold();
+        return failureThreshold == null ? 0 : failureThreshold;
+    }
+
+    private static long openMillisOf(FileSystem<?, ?> delegate) {
+        CircuitBreakerProperty property = delegate == null ? null : delegate.property.getCircuitBreaker();
+        Long openMillis = property == null ? null : property.getOpenMillis();
+        return openMillis == null ? CircuitBreakerProperty.DEFAULT_OPEN_MILLIS : openMillis;
+    }
+
+    /**
+     * @return 熔断器，可注册状态变化监听器
+     */
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    @Override
+    public List<FileInfo<F>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+        return guard(() -> super.list(path, deepFind, flatPrint, maxDepth));
+    }
+
+    @Override
+    public CloseableIterator<FileInfo<F>> listIterator(String path, boolean deepFind, int maxDepth) {
+        return guard(() -> super.listIterator(path, deepFind, maxDepth));
+    }
+
+    @Override
+    public List<FileInfo<F>> listParallel(String path, boolean flatPrint, int maxDepth, int parallelism) {
+        return guard(() -> super.listParallel(path, flatPrint, maxDepth, parallelism));
+    }
+
+    @Override
+    public FileInfo<F> peekFile(String path, String filename) {
+        return guard(() -> super.peekFile(path, filename));
+    }
+
+    @Override
+    public boolean upload(InputStream input, StringBuffer path, StringBuffer filename) {
+        return guard(() -> super.upload(input, path, filename));
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, StringBuffer path, StringBuffer filename) {
+        return guard(() -> super.upload(bytes, path, filename));
+    }
+
+    @Override
+    public boolean upload(File file, StringBuffer path, StringBuffer filename) {
+        return guard(() -> super.upload(file, path, filename));
+    }
+
+    @Override
+    public boolean upload(String base64, StringBuffer path, StringBuffer filename) {
+        return guard(() -> super.upload(base64, path, filename));
+    }
+
+    @Override
+    public boolean upload(InputStream input, String path, String filename) {
+        return guard(() -> super.upload(input, path, filename));
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, String path, String filename) {
+        return guard(() -> super.upload(bytes, path, filename));
+    }
+
+    @Override
+    public boolean upload(File file, String path, String filename) {
+        return guard(() -> super.upload(file, path, filename));
+    }
+
+    @Override
+    public boolean upload(String base64, String path, String filename) {
+        return guard(() -> super.upload(base64, path, filename));
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, StringBuffer path, StringBuffer filename, String encoding) {
+        return guard(() -> super.uploadEncoded(input, path, filename, encoding));
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, String path, String filename, String encoding) {
+        return guard(() -> super.uploadEncoded(input, path, filename, encoding));
+    }
+
+    @Override
+    public List<BatchResult<UploadRequest>> uploadAll(Collection<UploadRequest> requests, int parallelism) {
+        return guard(() -> super.uploadAll(requests, parallelism));
+    }
+
+    @Override
+    public boolean appenderUpload(String base64, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return guard(() -> super.appenderUpload(base64, path, filename, fileSize, fileOffset));
+    }
+
+    @Override
+    public boolean appenderUpload(byte[] bytes, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return guard(() -> super.appenderUpload(bytes, path, filename, fileSize, fileOffset));
+    }
+
+    @Override
+    public boolean appenderUpload(InputStream input, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return guard(() -> super.appenderUpload(input, path, filename, fileSize, fileOffset));
+    }
+
+    @Override
+    public List<BatchResult<String>> deleteAll(Collection<String> paths, int parallelism) {
+        return guard(() -> super.deleteAll(paths, parallelism));
+    }
+
+    @Override
+    public List<BatchResult<String>> deleteByPrefix(String path) {
+        return guard(() -> super.deleteByPrefix(path));
+    }
+
+    @Override
+    public boolean deleteFile(String path, String filename) {
+        return guard(() -> super.deleteFile(path, filename));
+    }
+
+    @Override
+    public boolean createDirectory(String path) {
+        return guard(() -> super.createDirectory(path));
+    }
+
+    @Override
+    public File downloadFile(String path, String filename) {
+        return guard(() -> super.downloadFile(path, filename));
+    }
+
+    @Override
+    public File downloadFile(String path, String filename, File destFile) {
+        return guard(() -> super.downloadFile(path, filename, destFile));
+    }
+
+    @Override
+    public boolean download(String path, String filename, FileChannel channel) {
+        return guard(() -> super.download(path, filename, channel));
+    }
+
+    @Override
+    public boolean download(String path, String filename, OutputStream output) {
+        return guard(() -> super.download(path, filename, output));
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename) {
+        return guard(() -> super.openInputStream(path, filename));
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
+        return guard(() -> super.openInputStream(path, filename, offset, length));
+    }
+
+    @Override
+    public String getChecksum(String path, String filename, ChecksumAlgorithm algorithm) {
+        return guard(() -> super.getChecksum(path, filename, algorithm));
+    }
+
+    @Override
+    public String getContentEncoding(String path, String filename) {
+        return guard(() -> super.getContentEncoding(path, filename));
+    }
+
+    private void acquire() {
+        if (breaker.tryAcquire()) {
+            return;
+        }
+        CircuitBreaker.State state = breaker.getState();
+        long remaining = breaker.getRemainingOpenMillis();
+        String msg = message.getString("fs.circuit.open")
+                .replace("${alias}", String.valueOf(property.getAlias()))
+                .replace("${state}", state.name())
+                .replace("${remaining}", Long.toString(remaining));
+        log.debug(msg);
+        throw new CircuitBreakerOpenException(msg, property.getAlias(), state, remaining);
+    }
+
+    private boolean guard(BooleanSupplier call) {
+        acquire();
+        try {
+            return call.getAsBoolean();
+        } finally {
+            breaker.release();
+        }
+    }
+
+    private <R> R guard(Supplier<R> call) {
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            breaker.release();
+        }
+    }
+
+}
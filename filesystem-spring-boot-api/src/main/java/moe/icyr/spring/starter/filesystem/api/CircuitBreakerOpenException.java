@@ -0,0 +1,45 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+/**
+ * 熔断器处于打开状态，操作被 {@link CircuitBreakerFileSystem} 拒绝时抛出，操作未被执行
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String alias;
+    private final CircuitBreaker.State state;
+    private final long remainingOpenMillis;
+
+    public CircuitBreakerOpenException(String message, String alias, CircuitBreaker.State state, long remainingOpenMillis) {
+        super(message);
+        this.alias = alias;
+        this.state = state;
+        this.remainingOpenMillis = remainingOpenMillis;
+    }
+
+    /**
+     * @return 被拒绝的实例的配置别名
+     */
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * @return 拒绝时熔断器的状态，半开时表示已有探测调用在进行
+     */
+    public CircuitBreaker.State getState() {
+        return state;
+    }
+
+    /**
+     * @return 距离转为半开的剩余时长（毫秒），半开时为0
+     */
+    public long getRemainingOpenMillis() {
+        return remainingOpenMillis;
+    }
+
+}
@@ -0,0 +1,58 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>需要关闭的迭代器</p>
+ * <p>迭代过程中可能占用连接、目录句柄等资源，遍历完成或提前结束时都需调用 {@link #close()}</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public interface CloseableIterator<E> extends Iterator<E>, AutoCloseable {
+
+    /**
+     * 释放迭代占用的资源，重复调用无副作用
+     */
+    @Override
+    void close();
+
+    /**
+     * 包装普通迭代器
+     * @param iterator 迭代器
+     * @param onClose 关闭时执行，可为NULL
+     * @param <E> 元素类型
+     * @return 可关闭的迭代器
+     */
+    static <E> CloseableIterator<E> of(Iterator<E> iterator, Runnable onClose) {
+        return new CloseableIterator<E>() {
+            private boolean closed = false;
+
+            @Override
+            public boolean hasNext() {
+                return !closed && iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                if (closed) {
+                    throw new NoSuchElementException();
+                }
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                if (onClose != null) {
+                    onClose.run();
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,835 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
+import moe.icyr.spring.starter.filesystem.api.entity.CompressionProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumAlgorithm;
+import moe.icyr.spring.starter.filesystem.api.io.CompressingInputStream;
+import moe.icyr.spring.starter.filesystem.api.io.CompressionCodec;
+import moe.icyr.spring.starter.filesystem.api.io.RangeInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * <p>上传时压缩、下载时解压的文件服务器，适用于JSON、CSV等压缩率高而链路带宽受限的场景</p>
+ * <p>按文件后缀与文件头跳过已压缩的内容（压缩包、图片、音视频、Office文档等），原样上传；
+ * 压缩编码由支持的实现记录在文件的元数据中（见 {@link FileSystem#isContentEncodingSupported()}），
+ * 其他实现（FTP、SFTP）写入同目录下的旁路文件 {@code 文件名.fscodec}，列出时隐藏</p>
+ * <p>下载时先读取文件头，与压缩格式相符时才查询压缩编码并解压，未压缩的文件不增加请求；
+ * 单连接的实现在查询前关闭已打开的流，查询后重新打开</p>
+ * <p>原样上传（跳过的后缀或已压缩的内容）时清除同名文件此前记录的压缩编码：元数据随上传覆盖，旁路文件一并删除</p>
+ * <p>文件大小、指纹与文件服务器的校验和均为压缩后的数据，压缩的文件不比对校验和；appender上传不压缩；
+ * {@link #deleteAll(Collection)} 不删除旁路文件，{@link #deleteByPrefix(String)} 会一并删除</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class CompressingFileSystem<T, F> extends ForwardingFileSystem<T, F> {
+
+    private static final Logger log = LoggerFactory.getLogger(CompressingFileSystem.class);
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    /**
+     * 记录压缩编码的旁路文件后缀
+     */
+    public static final String SIDECAR_SUFFIX = ".fscodec";
+    /**
+     * 默认不压缩的文件后缀
+     */
+    public static final Set<String> DEFAULT_SKIP_EXTENSIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "gz", "tgz", "zip", "7z", "rar", "bz2", "xz", "zst", "lz4", "br", "jar", "war", "apk",
+            "docx", "xlsx", "pptx", "odt", "ods", "odp",
+            "jpg", "jpeg", "png", "gif", "webp", "avif", "heic",
+            "mp3", "aac", "ogg", "flac", "mp4", "mkv", "avi", "mov", "webm", "woff", "woff2")));
+    /**
+     * 除压缩算法自身的格式外，文件头表明已压缩的格式：zip、xz、bzip2、7z、rar、png、jpeg、gif
+     */
+    private static final byte[][] COMPRESSED_MAGICS = {
+            {0x50, 0x4b, 0x03, 0x04},
+            {(byte) 0xfd, 0x37, 0x7a, 0x58},
+            {0x42, 0x5a, 0x68},
+            {0x37, 0x7a, (byte) 0xbc, (byte) 0xaf},
+            {0x52, 0x61, 0x72, 0x21},
+            {(byte) 0x89, 0x50, 0x4e, 0x47},
+            {(byte) 0xff, (byte) 0xd8, (byte) 0xff},
+            {0x47, 0x49, 0x46, 0x38}
+    };
+    private static final int SIDECAR_MAX_LENGTH = 64;
+
+    private final CompressionCodec codec;
+    private final Integer level;
+    private final Set<String> skipExtensions;
+    private volatile Boolean peekSupported;
+
+    /**
+     * 使用被装饰实例配置中的 {@link CompressionProperty} 创建，压缩算法不可用时回退为gzip并忽略配置的压缩级别
+     * @param delegate 被装饰的实例
+     * @throws IllegalArgumentException 压缩级别不是该算法支持的级别
+     */
+    public CompressingFileSystem(FileSystem<T, F> delegate) {
+        this(delegate, codecOf(delegate), levelOf(delegate), skipExtensionsOf(delegate));
+    }
+
+    /**
+     * @param delegate 被装饰的实例
+     * @param codec 压缩算法
+     * @param level 压缩级别，为NULL时使用默认级别
+     * @param skipExtensions 不压缩的文件后缀（不含点，不区分大小写），为NULL时使用 {@link #DEFAULT_SKIP_EXTENSIONS}
+     * @throws IllegalArgumentException 压缩算法不可用，或压缩级别不是该算法支持的级别（见 {@link CompressionCodec#isValidLevel(Integer)}）
+     */
+    public CompressingFileSystem(FileSystem<T, F> delegate, CompressionCodec codec, Integer level, Collection<String> skipExtensions) {
+        super(delegate);
+        if (codec == null || !codec.isAvailable()) {
+            throw new IllegalArgumentException(message.getString("fs.compression.valid.fail")
+                    .replace("${codec}", String.valueOf(codec)));
+        }
+        if (!codec.isValidLevel(level)) {
+            throw new IllegalArgumentException(message.getString("fs.compression.level.invalid")
+                    .replace("${codec}", codec.getName())
+                    .replace("${level}", String.valueOf(level)));
+        }
+        this.codec = codec;
+        this.level = level;
+        Set<String> extensions = new HashSet<>();
+        for (String extension : skipExtensions == null ? DEFAULT_SKIP_EXTENSIONS : skipExtensions) {
+            if (extension != null && !extension.trim().isEmpty()) {
+                extensions.add(extension.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        this.skipExtensions = Collections.unmodifiableSet(extensions);
+    }
+
+    private static CompressionCodec codecOf(FileSystem<?, ?> delegate) {
+        CompressionProperty property = delegate == null ? null : delegate.property.getCompression();
+        String name = property == null || property.getCodec() == null ? CompressionProperty.DEFAULT_CODEC : property.getCodec();
+        CompressionCodec codec = CompressionCodec.of(name);
+        if (codec == null || !codec.isAvailable()) {
+            log.warn(message.getString("fs.compression.codec.unavailable")
+                    .replace("${codec}", name));
+            return CompressionCodec.GZIP;
+        }
+        return codec;
+    }
+
+    /**
+     * 压缩算法回退为gzip时配置的级别不再适用，忽略
+     */
+    private static Integer levelOf(FileSystem<?, ?> delegate) {
+        CompressionProperty property = delegate == null ? null : delegate.property.getCompression();
+        if (property == null || property.getLevel() == null) {
+            return null;
+        }
+        String name = property.getCodec() == null ? CompressionProperty.DEFAULT_CODEC : property.getCodec();
+        CompressionCodec codec = CompressionCodec.of(name);
+        if (codec == null || !codec.isAvailable()) {
+            log.warn(message.getString("fs.compression.level.ignored")
+                    .replace("${codec}", name)
+                    .replace("${level}", property.getLevel().toString()));
+            return null;
+        }
+        return property.getLevel();
+    }
+
+    private static Set<String> skipExtensionsOf(FileSystem<?, ?> delegate) {
+        CompressionProperty property = delegate == null ? null : delegate.property.getCompression();
+        Set<String> extensions = new HashSet<>(DEFAULT_SKIP_EXTENSIONS);
+        if (property != null && property.getSkipExtensions() != null) {
+            extensions.addAll(property.getSkipExtensions());
+        }
+        return extensions;
+    }
+
+    /**
+     * @return 压缩算法
+     */
+    public CompressionCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * @return 压缩级别，为NULL时使用默认级别
+     */
+    public Integer getLevel() {
+        return level;
+    }
+
+    /**
+     * @return 不压缩的文件后缀
+     */
+    public Set<String> getSkipExtensions() {
+        return skipExtensions;
+    }
+
+    /**
+     * 下载的是解压后的数据，大小与文件服务器记录的不一致
+     */
+    @Override
+    public boolean isContentTransformed() {
+        return true;
+    }
+
+    @Override
+    public List<FileInfo<F>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+        return hideSidecars(super.list(path, deepFind, flatPrint, maxDepth));
+    }
+
+    @Override
+    public CloseableIterator<FileInfo<F>> listIterator(String path, boolean deepFind, int maxDepth) {
+        CloseableIterator<FileInfo<F>> iterator = super.listIterator(path, deepFind, maxDepth);
+        if (iterator == null || isContentEncodingSupported()) {
+            return iterator;
+        }
+        return CloseableIterator.of(new Iterator<FileInfo<F>>() {
+            private FileInfo<F> next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && iterator.hasNext()) {
+                    FileInfo<F> info = iterator.next();
+                    if (!isSidecar(info)) {
+                        next = info;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public FileInfo<F> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                FileInfo<F> info = next;
+                next = null;
+                return info;
+            }
+        }, iterator::close);
+    }
+
+    @Override
+    public List<FileInfo<F>> listParallel(String path, boolean flatPrint, int maxDepth, int parallelism) {
+        return hideSidecars(super.listParallel(path, flatPrint, maxDepth, parallelism));
+    }
+
+    @Override
+    public boolean upload(InputStream input, StringBuffer path, StringBuffer filename) {
+        if (input == null || path == null || filename == null) {
+            return super.upload(input, path, filename);
+        }
+        return compressAndUpload(input, path, filename, (in, encoding) -> isContentEncodingSupported()
+                ? super.uploadEncoded(in, path, filename, encoding) : super.upload(in, path, filename));
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, StringBuffer path, StringBuffer filename) {
+        if (bytes == null) {
+            return super.upload(bytes, path, filename);
+        }
+        return upload(new ByteArrayInputStream(bytes), path, filename);
+    }
+
+    @Override
+    public boolean upload(File file, StringBuffer path, StringBuffer filename) {
+        return uploadClosing(openFile(file, path, filename), input -> upload(input, path, filename));
+    }
+
+    @Override
+    public boolean upload(String base64, StringBuffer path, StringBuffer filename) {
+        return uploadClosing(_base64ToStream(base64, path, filename), input -> upload(input, path, filename));
+    }
+
+    @Override
+    public boolean upload(InputStream input, String path, String filename) {
+        if (input == null || path == null || filename == null) {
+            return super.upload(input, path, filename);
+        }
+        return compressAndUpload(input, path, filename, (in, encoding) -> isContentEncodingSupported()
+                ? super.uploadEncoded(in, path, filename, encoding) : super.upload(in, path, filename));
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, String path, String filename) {
+        if (bytes == null) {
+            return super.upload(bytes, path, filename);
+        }
+        return upload(new ByteArrayInputStream(bytes), path, filename);
+    }
+
+    @Override
+    public boolean upload(File file, String path, String filename) {
+        return uploadClosing(openFile(file, path, filename), input -> upload(input, path, filename));
+    }
+
+    @Override
+    public boolean upload(String base64, String path, String filename) {
+        return uploadClosing(_base64ToStream(base64, path, filename), input -> upload(input, path, filename));
+    }
+
+    /**
+     * <p>需在上传时写入元数据或需预知长度的实现（MinIO、FastDFS）在调用线程中逐个上传，其他实现在打开各文件的流时压缩，
+     * 全部上传后再写入旁路文件</p>
+     */
+    @Override
+    public List<BatchResult<UploadRequest>> uploadAll(Collection<UploadRequest> requests, int parallelism) {
+        if (requests == null) {
+            return super.uploadAll(null, parallelism);
+        }
+        if (isContentEncodingSupported() || isUploadLengthRequired()) {
+            List<BatchResult<UploadRequest>> results = new ArrayList<>(requests.size());
+            for (UploadRequest request : requests) {
+                if (request == null) {
+                    results.add(BatchResult.failure(null, null));
+                    continue;
+                }
+                try (InputStream input = request.openStream()) {
+                    boolean b = upload(input, request.getPath(), request.getFilename());
+                    results.add(b ? BatchResult.success(request) : BatchResult.failure(request, null));
+                } catch (Exception e) {
+                    log.error(message.getString("fs.upload.fail.io")
+                            .replace("${path}", String.valueOf(request.getPath()))
+                            .replace("${filename}", String.valueOf(request.getFilename()))
+                            .replace("${length}", "-1"), e);
+                    results.add(BatchResult.failure(request, e));
+                }
+            }
+            return results;
+        }
+        Map<UploadRequest, UploadRequest> originals = new IdentityHashMap<>(requests.size());
+        List<UploadRequest> compressing = new ArrayList<>(requests.size());
+        for (UploadRequest request : requests) {
+            UploadRequest wrapped = request == null ? null : new CompressedUploadRequest(request);
+            originals.put(wrapped, request);
+            compressing.add(wrapped);
+        }
+        List<BatchResult<UploadRequest>> results = super.uploadAll(compressing, parallelism);
+        if (results == null) {
+            return null;
+        }
+        List<BatchResult<UploadRequest>> mapped = new ArrayList<>(results.size());
+        for (BatchResult<UploadRequest> result : results) {
+            UploadRequest item = result.getItem();
+            UploadRequest original = originals.getOrDefault(item, item);
+            boolean success = result.isSuccess();
+            if (success && item instanceof CompressingFileSystem.CompressedUploadRequest) {
+                success = ((CompressingFileSystem<?, ?>.CompressedUploadRequest) item).compressed
+                        ? writeSidecar(item.getPath(), item.getFilename())
+                        : removeStaleSidecar(item.getPath(), item.getFilename());
+            }
+            mapped.add(new BatchResult<>(original, success, result.getError()));
+        }
+        return mapped;
+    }
+
+    @Override
+    public File downloadFile(String path, String filename) {
+        File dest = createTempDownloadFile(filename);
+        if (dest == null) {
+            return null;
+        }
+        return downloadFile(path, filename, dest);
+    }
+
+    @Override
+    public File downloadFile(String path, String filename, File destFile) {
+        boolean created = false;
+        boolean success = false;
+        try (FileChannel channel = FileChannel.open(destFile.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            created = true;
+            success = download(path, filename, channel);
+        } catch (Exception e) {
+            log.error(message.getString("fs.download.fail.io"), e);
+        }
+        if (!success) {
+            if (created) {
+                try {
+                    Files.deleteIfExists(destFile.toPath());
+                } catch (Exception ignored) {}
+            }
+            return null;
+        }
+        return destFile;
+    }
+
+    /**
+     * 解压后写入通道，不关闭通道
+     */
+    @Override
+    public boolean download(String path, String filename, FileChannel channel) {
+        if (channel == null) {
+            return false;
+        }
+        return download(path, filename, Channels.newOutputStream(channel));
+    }
+
+    @Override
+    public boolean download(String path, String filename, OutputStream output) {
+        if (output == null) {
+            return false;
+        }
+        try (InputStream input = openInputStream(path, filename)) {
+            if (input == null) {
+                return false;
+            }
+            copy(input, output);
+            return true;
+        } catch (Exception e) {
+            log.error(message.getString("fs.download.fail.stream")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return false;
+        }
+    }
+
+    /**
+     * 压缩的文件不比对校验和，文件服务器记录的是压缩后的数据
+     */
+    @Override
+    public String getChecksum(String path, String filename, ChecksumAlgorithm algorithm) {
+        String checksum = super.getChecksum(path, filename, algorithm);
+        if (checksum == null) {
+            return null;
+        }
+        return getContentEncoding(path, filename) == null ? checksum : null;
+    }
+
+    /**
+     * 不支持在文件上记录的实现读取旁路文件
+     */
+    @Override
+    public String getContentEncoding(String path, String filename) {
+        if (isContentEncodingSupported()) {
+            return super.getContentEncoding(path, filename);
+        }
+        try (InputStream input = super.openInputStream(path, filename + SIDECAR_SUFFIX)) {
+            if (input == null) {
+                return null;
+            }
+            byte[] bytes = new byte[SIDECAR_MAX_LENGTH];
+            int n = readFully(input, bytes);
+            String encoding = new String(bytes, 0, n, StandardCharsets.UTF_8).trim();
+            return encoding.isEmpty() ? null : encoding;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename) {
+        InputStream raw = super.openInputStream(path, filename);
+        if (raw == null) {
+            return null;
+        }
+        PushbackInputStream input = new PushbackInputStream(raw, CompressionCodec.MAGIC_LENGTH);
+        try {
+            byte[] head = new byte[CompressionCodec.MAGIC_LENGTH];
+            if (CompressionCodec.detect(head, readHead(input, head)) == null) {
+                return input;
+            }
+            if (isThreadSafe()) {
+                return decode(path, filename, input, recordedCodec(path, filename));
+            }
+            // 单连接的实现在读取流关闭前不能进行其他操作
+            closeQuietly(input);
+            CompressionCodec recorded = recordedCodec(path, filename);
+            return decode(path, filename, super.openInputStream(path, filename), recorded);
+        } catch (IOException e) {
+            closeQuietly(input);
+            log.error(message.getString("fs.compression.download.fail")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return null;
+        }
+    }
+
+    /**
+     * 压缩的文件需从头解压后跳过，未压缩的文件直接读取范围
+     */
+    @Override
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
+        if (offset == 0 && length < 0) {
+            return openInputStream(path, filename);
+        }
+        if (length == 0 || !isValidRange(offset)) {
+            return super.openInputStream(path, filename, offset, length);
+        }
+        CompressionCodec recorded = sniffCodec(path, filename);
+        if (recorded == null) {
+            return super.openInputStream(path, filename, offset, length);
+        }
+        InputStream input = null;
+        try {
+            input = decode(path, filename, super.openInputStream(path, filename), recorded);
+            if (input == null) {
+                return null;
+            }
+            RangeInputStream.skipFully(input, offset);
+            if (length < 0) {
+                return input;
+            }
+            RangeInputStream range = new RangeInputStream(input, length);
+            return new FilterInputStream(range) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } catch (IOException e) {
+                        // 读满范围后提前关闭，单连接的实现可能报告传输未完成，不视为失败
+                        if (!range.isEof()) {
+                            throw e;
+                        }
+                    }
+                }
+            };
+        } catch (IOException e) {
+            closeQuietly(input);
+            log.error(message.getString("fs.compression.download.fail")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return null;
+        }
+    }
+
+    /**
+     * 旁路文件随文件一并删除
+     */
+    @Override
+    public boolean deleteFile(String path, String filename) {
+        if (isContentEncodingSupported()) {
+            return super.deleteFile(path, filename);
+        }
+        boolean compressed = sniffCodec(path, filename) != null;
+        if (!super.deleteFile(path, filename)) {
+            return false;
+        }
+        if (compressed) {
+            super.deleteFile(path, filename + SIDECAR_SUFFIX);
+        }
+        return true;
+    }
+
+    private boolean compressAndUpload(InputStream input, Object path, Object filename, EncodedUpload call) {
+        if (!isCompressible(String.valueOf(filename))) {
+            return uploadRaw(input, path, filename, call);
+        }
+        PushbackInputStream sniffed = new PushbackInputStream(input, CompressionCodec.MAGIC_LENGTH);
+        byte[] head = new byte[CompressionCodec.MAGIC_LENGTH];
+        String encoding = isContentEncodingSupported() ? codec.getName() : null;
+        long sourceBytes;
+        long compressedBytes;
+        boolean uploaded;
+        try {
+            if (isCompressedContent(head, readHead(sniffed, head))) {
+                return uploadRaw(sniffed, path, filename, call);
+            }
+            if (isUploadLengthRequired()) {
+                // 压缩后的长度未知，先写入临时文件
+                File temp = File.createTempFile("fs-compress", ".tmp");
+                try {
+                    try (OutputStream output = codec.compress(new FileOutputStream(temp), level)) {
+                        sourceBytes = copy(sniffed, output);
+                    }
+                    compressedBytes = temp.length();
+                    try (InputStream compressed = new FileInputStream(temp)) {
+                        uploaded = call.upload(compressed, encoding);
+                    }
+                } finally {
+                    Files.deleteIfExists(temp.toPath());
+                }
+            } else {
+                CompressingInputStream compressed = new CompressingInputStream(sniffed, codec, level);
+                uploaded = call.upload(compressed, encoding);
+                sourceBytes = compressed.getSourceBytes();
+                compressedBytes = compressed.getCompressedBytes();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error(message.getString("fs.compression.upload.fail")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return false;
+        }
+        if (!uploaded) {
+            return false;
+        }
+        log.debug(message.getString("fs.compression.upload.success")
+                .replace("${path}", String.valueOf(path))
+                .replace("${filename}", String.valueOf(filename))
+                .replace("${codec}", codec.getName())
+                .replace("${source}", Long.toString(sourceBytes))
+                .replace("${compressed}", Long.toString(compressedBytes)));
+        return encoding != null || writeSidecar(String.valueOf(path), String.valueOf(filename));
+    }
+
+    /**
+     * 原样上传，记录在文件上的压缩编码随上传清除，同名文件此前压缩上传时写入的旁路文件一并删除
+     */
+    private boolean uploadRaw(InputStream input, Object path, Object filename, EncodedUpload call) {
+        return call.upload(input, null) && removeStaleSidecar(String.valueOf(path), String.valueOf(filename));
+    }
+
+    /**
+     * 删除同名文件此前压缩上传时写入的旁路文件，否则原样上传的文件下载时会按旁路文件记录的算法解压；
+     * 无法查询文件信息的实现直接删除，失败时删除已上传的文件
+     */
+    private boolean removeStaleSidecar(String path, String filename) {
+        if (isContentEncodingSupported()) {
+            return true;
+        }
+        String sidecar = filename + SIDECAR_SUFFIX;
+        if (super.peekFile(path, sidecar) == null) {
+            if (!isPeekSupported(path, filename)) {
+                // 旁路文件不存在时删除失败，忽略
+                super.deleteFile(path, sidecar);
+            }
+            return true;
+        }
+        if (super.deleteFile(path, sidecar)) {
+            return true;
+        }
+        log.error(message.getString("fs.compression.sidecar.stale")
+                .replace("${path}", String.valueOf(path))
+                .replace("${filename}", String.valueOf(filename)));
+        super.deleteFile(path, filename);
+        return false;
+    }
+
+    /**
+     * 以刚上传的文件判断被装饰的实例能否查询文件信息，只判断一次
+     */
+    private boolean isPeekSupported(String path, String filename) {
+        Boolean supported = peekSupported;
+        if (supported == null) {
+            supported = super.peekFile(path, filename) != null;
+            peekSupported = supported;
+        }
+        return supported;
+    }
+
+    /**
+     * 写入旁路文件，失败时删除已上传的文件
+     */
+    private boolean writeSidecar(String path, String filename) {
+        byte[] bytes = codec.getName().getBytes(StandardCharsets.UTF_8);
+        if (super.upload(new ByteArrayInputStream(bytes), path, filename + SIDECAR_SUFFIX)) {
+            return true;
+        }
+        log.error(message.getString("fs.compression.sidecar.fail")
+                .replace("${path}", String.valueOf(path))
+                .replace("${filename}", String.valueOf(filename))
+                .replace("${codec}", codec.getName()));
+        super.deleteFile(path, filename);
+        return false;
+    }
+
+    /**
+     * 只读取文件头判断是否可能已压缩，相符时再查询记录的压缩编码
+     * @return 记录的压缩算法，未压缩或读取失败时为NULL
+     */
+    private CompressionCodec sniffCodec(String path, String filename) {
+        byte[] head = new byte[CompressionCodec.MAGIC_LENGTH];
+        int n;
+        try (InputStream input = super.openInputStream(path, filename, 0, head.length)) {
+            if (input == null) {
+                return null;
+            }
+            n = readFully(input, head);
+        } catch (IOException e) {
+            return null;
+        }
+        return CompressionCodec.detect(head, n) == null ? null : recordedCodec(path, filename);
+    }
+
+    private CompressionCodec recordedCodec(String path, String filename) {
+        String encoding = getContentEncoding(path, filename);
+        if (encoding == null) {
+            return null;
+        }
+        CompressionCodec recorded = CompressionCodec.of(encoding);
+        if (recorded == null || !recorded.isAvailable()) {
+            log.warn(message.getString("fs.compression.encoding.unknown")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename))
+                    .replace("${encoding}", encoding));
+            return null;
+        }
+        return recorded;
+    }
+
+    private static InputStream decode(String path, String filename, InputStream input, CompressionCodec recorded) throws IOException {
+        if (input == null || recorded == null) {
+            return input;
+        }
+        try {
+            return recorded.decompress(input);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(input);
+            throw e;
+        }
+    }
+
+    private boolean isCompressible(String filename) {
+        int index = filename.lastIndexOf('.');
+        return index < 0 || !skipExtensions.contains(filename.substring(index + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean isCompressedContent(byte[] head, int length) {
+        if (CompressionCodec.detect(head, length) != null) {
+            return true;
+        }
+        for (byte[] magic : COMPRESSED_MAGICS) {
+            if (length >= magic.length) {
+                boolean matched = true;
+                for (int i = 0; i < magic.length && matched; i++) {
+                    matched = head[i] == magic[i];
+                }
+                if (matched) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isSidecar(FileInfo<F> info) {
+        return info != null && info.getFilename() != null && info.getFilename().endsWith(SIDECAR_SUFFIX);
+    }
+
+    private List<FileInfo<F>> hideSidecars(List<FileInfo<F>> infos) {
+        if (infos == null || isContentEncodingSupported()) {
+            return infos;
+        }
+        List<FileInfo<F>> visible = new ArrayList<>(infos.size());
+        for (FileInfo<F> info : infos) {
+            if (!isSidecar(info)) {
+                visible.add(info);
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * 读取文件头后退回，不消耗数据
+     */
+    private static int readHead(PushbackInputStream input, byte[] head) throws IOException {
+        int n = readFully(input, head);
+        if (n > 0) {
+            input.unread(head, 0, n);
+        }
+        return n;
+    }
+
+    private static int readFully(InputStream input, byte[] bytes) throws IOException {
+        int n = 0;
+        while (n < bytes.length) {
+            int read = input.read(bytes, n, bytes.length - n);
+            if (read < 0) {
+                break;
+            }
+            n += read;
+        }
+        return n;
+    }
+
+    private static void closeQuietly(InputStream input) {
+        if (input == null) {
+            return;
+        }
+        try {
+            input.close();
+        } catch (IOException ignored) {}
+    }
+
+    /**
+     * 上传由该实例打开的流，完成后关闭
+     */
+    private static boolean uploadClosing(InputStream input, UploadCall call) {
+        if (input == null) {
+            return false;
+        }
+        try {
+            return call.upload(input);
+        } finally {
+            closeQuietly(input);
+        }
+    }
+
+    private static InputStream openFile(File file, Object path, Object filename) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new FileInputStream(file);
+        } catch (IOException e) {
+            log.error(message.getString("fs.upload.fail.io")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename))
+                    .replace("${length}", Long.toString(file.length())), e);
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface UploadCall {
+        boolean upload(InputStream input);
+    }
+
+    @FunctionalInterface
+    private interface EncodedUpload {
+        /**
+         * @param input 上传的流
+         * @param encoding 需记录在文件上的压缩编码，为NULL时不记录
+         */
+        boolean upload(InputStream input, String encoding);
+    }
+
+    /**
+     * 打开流时压缩的上传请求，记录是否已压缩以便写入旁路文件
+     */
+    private final class CompressedUploadRequest extends UploadRequest {
+
+        private final UploadRequest request;
+        private volatile boolean compressed = false;
+
+        CompressedUploadRequest(UploadRequest request) {
+            this.request = request;
+            setPath(request.getPath());
+            setFilename(request.getFilename());
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            InputStream input = request.openStream();
+            if (input == null || getFilename() == null || !isCompressible(getFilename())) {
+                return input;
+            }
+            PushbackInputStream sniffed = new PushbackInputStream(input, CompressionCodec.MAGIC_LENGTH);
+            try {
+                byte[] head = new byte[CompressionCodec.MAGIC_LENGTH];
+                if (isCompressedContent(head, readHead(sniffed, head))) {
+                    compressed = false;
+                    return sniffed;
+                }
+                InputStream stream = new CompressingInputStream(sniffed, codec, level);
+                compressed = true;
+                return stream;
+            } catch (IOException | RuntimeException e) {
+                closeQuietly(sniffed);
+                throw e;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return request.toString();
+        }
+
+    }
+
+}
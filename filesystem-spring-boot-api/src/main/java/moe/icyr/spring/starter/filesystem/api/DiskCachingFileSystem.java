@@ -0,0 +1,518 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.DiskCacheProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import moe.icyr.spring.starter.filesystem.api.io.RangeInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * <p>将下载的文件缓存至本地磁盘的文件服务器，重复下载时直接读取本地文件</p>
+ * <p>每次下载前通过 {@link #peekFile(String, String)} 获取文件指纹（见 {@link FileInfo#getFingerprint()}），
+ * 以路径、文件名与指纹作为缓存键，文件在服务器上变化后自然不再命中；不支持指纹的实现（如FTP）直接转发不缓存；
+ * 下载后以文件服务器记录的大小校验，被装饰的实例会转换内容时（见 {@link #isContentTransformed()}）只依据指纹</p>
+ * <p>缓存文件先写入临时文件后原子移动至缓存目录，总大小超过上限时淘汰最久未访问的文件；
+ * 多个线程同时下载同一未缓存的文件时只会从服务器拉取一次；不小于阈值的文件使用内存映射读取</p>
+ * <p>启动时会加载缓存目录中已有的文件，多个实例请勿共用同一目录</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class DiskCachingFileSystem<T, F> extends ForwardingFileSystem<T, F> {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskCachingFileSystem.class);
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+    private final long maximumSize;
+    private final long mmapThreshold;
+    /**
+     * 缓存键 -&gt; 文件大小，按访问顺序排列；缓存目录中文件的移动与删除均在该对象的锁内进行
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> fetching = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long currentSize = 0;
+
+    /**
+     * 使用被装饰实例配置中的 {@link DiskCacheProperty} 创建，未配置的项使用默认值
+     * @param delegate 被装饰的实例
+     */
+    public DiskCachingFileSystem(FileSystem<T, F> delegate) {
+        this(delegate, directoryOf(delegate), maximumSizeOf(delegate.property.getDiskCache()),
+                mmapThresholdOf(delegate.property.getDiskCache()));
+    }
+
+    /**
+     * @param delegate 被装饰的实例
+     * @param directory 缓存目录，不存在时自动创建
+     * @param maximumSize 缓存总大小上限（字节），需&gt;0
+     * @param mmapThreshold 使用内存映射读取的文件大小阈值（字节），需&gt;=0
+     */
+    public DiskCachingFileSystem(FileSystem<T, F> delegate, Path directory, long maximumSize, long mmapThreshold) {
+        super(delegate);
+        if (directory == null || maximumSize <= 0 || mmapThreshold < 0) {
+            throw new IllegalArgumentException(message.getString("fs.disk.cache.valid.fail")
+                    .replace("${directory}", String.valueOf(directory))
+                    .replace("${maximumSize}", Long.toString(maximumSize))
+                    .replace("${mmapThreshold}", Long.toString(mmapThreshold)));
+        }
+        this.directory = directory.toAbsolutePath();
+        this.maximumSize = maximumSize;
+        this.mmapThreshold = mmapThreshold;
+        try {
+            Files.createDirectories(this.directory);
+            load();
+        } catch (IOException e) {
+            throw new IllegalArgumentException(message.getString("fs.disk.cache.directory.fail")
+                    .replace("${directory}", this.directory.toString()), e);
+        }
+    }
+
+    private static Path directoryOf(FileSystem<?, ?> delegate) {
+        DiskCacheProperty property = delegate.property.getDiskCache();
+        if (property != null && property.getDirectory() != null && !property.getDirectory().trim().isEmpty()) {
+            return Paths.get(property.getDirectory().trim());
+        }
+        String alias = delegate.property.getAlias() == null ? "default" : delegate.property.getAlias().replaceAll("[^A-Za-z0-9._-]", "_");
+        return Paths.get(System.getProperty("java.io.tmpdir"), "filesystem-cache", alias);
+    }
+
+    private static long maximumSizeOf(DiskCacheProperty property) {
+        Long maximumSize = property == null ? null : property.getMaximumSize();
+        return maximumSize == null ? DiskCacheProperty.DEFAULT_MAXIMUM_SIZE : maximumSize;
+    }
+
+    private static long mmapThresholdOf(DiskCacheProperty property) {
+        Long mmapThreshold = property == null ? null : property.getMmapThreshold();
+        return mmapThreshold == null ? DiskCacheProperty.DEFAULT_MMAP_THRESHOLD : mmapThreshold;
+    }
+
+    /**
+     * 按最后修改时间加载已有的缓存文件，删除上次未完成的临时文件
+     */
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.filter(Files::isRegularFile).forEach(files::add);
+        }
+        List<Path> cached = new ArrayList<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                Files.deleteIfExists(file);
+            } else {
+                cached.add(file);
+            }
+        }
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path file : cached) {
+            modified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        cached.sort(Comparator.comparing(modified::get));
+        synchronized (entries) {
+            for (Path file : cached) {
+                long size = Files.size(file);
+                entries.put(file.getFileName().toString(), size);
+                currentSize += size;
+            }
+            evict();
+        }
+    }
+
+    @Override
+    public boolean download(String path, String filename, OutputStream output) {
+        if (output == null) {
+            return false;
+        }
+        Path cached;
+        try {
+            cached = cached(path, filename);
+        } catch (IOException e) {
+            return false;
+        }
+        if (cached == null) {
+            return super.download(path, filename, output);
+        }
+        FileChannel source;
+        try {
+            source = FileChannel.open(cached, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // 读取前被淘汰
+            return super.download(path, filename, output);
+        }
+        try (FileChannel channel = source) {
+            long size = channel.size();
+            if (size >= mmapThreshold) {
+                WritableByteChannel target = Channels.newChannel(output);
+                for (long position = 0; position < size; ) {
+                    long length = Math.min(size - position, Integer.MAX_VALUE);
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                    position += length;
+                }
+            } else {
+                Files.copy(cached, output);
+            }
+            return true;
+        } catch (IOException e) {
+            log.error(message.getString("fs.disk.cache.read.fail")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean download(String path, String filename, FileChannel channel) {
+        if (channel == null) {
+            return false;
+        }
+        Path cached;
+        try {
+            cached = cached(path, filename);
+        } catch (IOException e) {
+            return false;
+        }
+        if (cached == null) {
+            return super.download(path, filename, channel);
+        }
+        FileChannel source;
+        try {
+            source = FileChannel.open(cached, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return super.download(path, filename, channel);
+        }
+        try (FileChannel input = source) {
+            long size = input.size();
+            long position = 0;
+            while (position < size) {
+                long n = input.transferTo(position, size - position, channel);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+            }
+            return true;
+        } catch (IOException e) {
+            log.error(message.getString("fs.disk.cache.read.fail")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return false;
+        }
+    }
+
+    /**
+     * 未缓存时会先将整个文件下载至缓存目录后再打开
+     */
+    @Override
+    public InputStream openInputStream(String path, String filename) {
+        Path cached;
+        try {
+            cached = cached(path, filename);
+        } catch (IOException e) {
+            return null;
+        }
+        if (cached == null) {
+            return super.openInputStream(path, filename);
+        }
+        try {
+            return Files.newInputStream(cached);
+        } catch (IOException e) {
+            return super.openInputStream(path, filename);
+        }
+    }
+
+    /**
+     * 已缓存时从缓存文件读取，未缓存时直接转发范围读取而不下载整个文件
+     */
+    @Override
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
+        if (!isValidRange(offset)) {
+            return null;
+        }
+        Path cached = null;
+        if (path != null && filename != null) {
+            FileInfo<F> info = super.peekFile(path, filename);
+            if (info != null && info.getFingerprint() != null) {
+                cached = lookup(keyOf(path, filename, info.getFingerprint()));
+            }
+        }
+        if (cached == null) {
+            return super.openInputStream(path, filename, offset, length);
+        }
+        try {
+            FileChannel channel = FileChannel.open(cached, StandardOpenOption.READ);
+            channel.position(offset);
+            hits.increment();
+            InputStream input = Channels.newInputStream(channel);
+            return length < 0 ? input : new RangeInputStream(input, length);
+        } catch (IOException e) {
+            return super.openInputStream(path, filename, offset, length);
+        }
+    }
+
+    @Override
+    public File downloadFile(String path, String filename) {
+        File dest = createTempDownloadFile(filename);
+        if (dest == null) {
+            return null;
+        }
+        return downloadFile(path, filename, dest);
+    }
+
+    @Override
+    public File downloadFile(String path, String filename, File destFile) {
+        Path cached;
+        try {
+            cached = cached(path, filename);
+        } catch (IOException e) {
+            return null;
+        }
+        if (cached == null) {
+            return super.downloadFile(path, filename, destFile);
+        }
+        try {
+            Files.copy(cached, destFile.toPath());
+            return destFile;
+        } catch (FileAlreadyExistsException e) {
+            log.error(message.getString("fs.download.fail.io"), e);
+            return null;
+        } catch (IOException e) {
+            if (Files.notExists(cached)) {
+                return super.downloadFile(path, filename, destFile);
+            }
+            log.error(message.getString("fs.download.fail.io"), e);
+            return null;
+        }
+    }
+
+    /**
+     * 获取缓存文件，未缓存时下载至缓存目录
+     * @return 缓存文件，不支持指纹或文件超过缓存上限时返回NULL，调用方应直接转发
+     * @throws IOException 下载失败（错误已由被装饰的实例记录）
+     */
+    private Path cached(String path, String filename) throws IOException {
+        if (path == null || filename == null) {
+            return null;
+        }
+        FileInfo<F> info = super.peekFile(path, filename);
+        // 内容经过转换时记录的大小为存储的大小，不能用于校验
+        Long expectedSize = isContentTransformed() ? null : info == null ? null : info.getSize();
+        if (info == null || info.getFingerprint() == null || !info.isFile()
+                || (expectedSize != null && expectedSize > maximumSize)) {
+            return null;
+        }
+        String key = keyOf(path, filename, info.getFingerprint());
+        Path file = lookup(key);
+        if (file != null) {
+            hits.increment();
+            return file;
+        }
+        CompletableFuture<Path> future = new CompletableFuture<>();
+        CompletableFuture<Path> running = fetching.putIfAbsent(key, future);
+        if (running != null) {
+            hits.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+        try {
+            // 获取锁之前其他线程可能已完成下载
+            file = lookup(key);
+            if (file == null) {
+                misses.increment();
+                file = fetch(key, path, filename, expectedSize);
+            }
+            future.complete(file);
+            return file;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            fetching.remove(key, future);
+        }
+    }
+
+    private Path lookup(String key) {
+        Path file = directory.resolve(key);
+        synchronized (entries) {
+            Long size = entries.get(key);
+            if (size == null) {
+                return null;
+            }
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+            entries.remove(key);
+            currentSize -= size;
+            return null;
+        }
+    }
+
+    private Path fetch(String key, String path, String filename, Long expectedSize) throws IOException {
+        Path temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+        try {
+            boolean success;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                success = super.download(path, filename, channel);
+            }
+            if (!success) {
+                throw new IOException(message.getString("fs.disk.cache.fetch.fail")
+                        .replace("${path}", path)
+                        .replace("${filename}", filename));
+            }
+            long size = Files.size(temp);
+            if ((expectedSize != null && size != expectedSize) || size > maximumSize) {
+                // 下载期间文件被修改，内容与指纹不符，不缓存
+                log.debug(message.getString("fs.disk.cache.fetch.changed")
+                        .replace("${path}", path)
+                        .replace("${filename}", filename));
+                return null;
+            }
+            Path file = directory.resolve(key);
+            synchronized (entries) {
+                try {
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Long previous = entries.put(key, size);
+                currentSize += size - (previous == null ? 0 : previous);
+                evict();
+            }
+            return file;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 淘汰最久未访问的文件直至总大小不超过上限，需在 {@link #entries} 的锁内调用
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (currentSize > maximumSize && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            currentSize -= eldest.getValue();
+            evictions.increment();
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                log.warn(message.getString("fs.disk.cache.delete.fail")
+                        .replace("${file}", eldest.getKey()), e);
+            }
+        }
+    }
+
+    private static String keyOf(String path, String filename, String fingerprint) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] hash = digest.digest((FileSystem.normalizeDirectory(path) + "\n" + filename + "\n" + fingerprint)
+                .getBytes(StandardCharsets.UTF_8));
+        char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            chars[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 删除所有缓存文件
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            for (String key : entries.keySet()) {
+                try {
+                    Files.deleteIfExists(directory.resolve(key));
+                } catch (IOException e) {
+                    log.warn(message.getString("fs.disk.cache.delete.fail")
+                            .replace("${file}", key), e);
+                }
+            }
+            entries.clear();
+            currentSize = 0;
+        }
+    }
+
+    /**
+     * @return 命中次数（包含等待其他线程下载完成的次数）
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return 未命中并从服务器下载的次数
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return 因超过缓存上限而淘汰的文件数
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return 当前缓存文件数
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return 当前缓存文件总大小（字节）
+     */
+    public long getCurrentSize() {
+        synchronized (entries) {
+            return currentSize;
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getMmapThreshold() {
+        return mmapThreshold;
+    }
+
+}
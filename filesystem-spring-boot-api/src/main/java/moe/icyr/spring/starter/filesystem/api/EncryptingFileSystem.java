@@ -0,0 +1,517 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
+import moe.icyr.spring.starter.filesystem.api.entity.EncryptionProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import moe.icyr.spring.starter.filesystem.api.io.AesGcmHeader;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumAlgorithm;
+import moe.icyr.spring.starter.filesystem.api.io.DecryptingInputStream;
+import moe.icyr.spring.starter.filesystem.api.io.EncryptingInputStream;
+import moe.icyr.spring.starter.filesystem.api.io.RangeInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * <p>上传时在客户端加密、下载时解密的文件服务器，使用分帧的AES-GCM（格式见 {@link AesGcmHeader}），
+ * 加解密均为流式处理，内存占用只与帧长度有关，不会将整个文件读入内存</p>
+ * <p>范围读取只下载并解密覆盖该范围的帧；需预知上传长度的实现（MinIO、FastDFS）由明文长度计算加密后的长度，不写入临时文件</p>
+ * <p>文件大小、指纹与文件服务器的校验和均为加密后的数据，不比对校验和；appender上传无法追加到已加密的文件，直接失败；
+ * 默认拒绝读取未加密的文件，见 {@link EncryptionProperty#getAllowPlaintext()}</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class EncryptingFileSystem<T, F> extends ForwardingFileSystem<T, F> {
+
+    private static final Logger log = LoggerFactory.getLogger(EncryptingFileSystem.class);
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    private final SecretKey key;
+    private final int frameSize;
+    private final boolean allowPlaintext;
+
+    /**
+     * 使用被装饰实例配置中的 {@link EncryptionProperty} 创建
+     * @param delegate 被装饰的实例
+     */
+    public EncryptingFileSystem(FileSystem<T, F> delegate) {
+        this(delegate, keyOf(delegate), frameSizeOf(delegate), allowPlaintextOf(delegate));
+    }
+
+    /**
+     * @param delegate 被装饰的实例
+     * @param key AES密钥，长度为16、24或32字节
+     * @param frameSize 每帧明文长度
+     * @param allowPlaintext 是否允许读取未加密的文件
+     */
+    public EncryptingFileSystem(FileSystem<T, F> delegate, SecretKey key, int frameSize, boolean allowPlaintext) {
+        super(delegate);
+        byte[] encoded = key == null ? null : key.getEncoded();
+        if (encoded == null || (encoded.length != 16 && encoded.length != 24 && encoded.length != 32)
+                || !AesGcmHeader.isValidFrameSize(frameSize)) {
+            throw new IllegalArgumentException(message.getString("fs.encryption.valid.fail")
+                    .replace("${frameSize}", Integer.toString(frameSize))
+                    .replace("${min}", Integer.toString(AesGcmHeader.MIN_FRAME_SIZE))
+                    .replace("${max}", Integer.toString(AesGcmHeader.MAX_FRAME_SIZE)));
+        }
+        this.key = key;
+        this.frameSize = frameSize;
+        this.allowPlaintext = allowPlaintext;
+    }
+
+    private static SecretKey keyOf(FileSystem<?, ?> delegate) {
+        EncryptionProperty property = delegate == null ? null : delegate.property.getEncryption();
+        if (property == null || property.getKey() == null) {
+            return null;
+        }
+        try {
+            return new SecretKeySpec(Base64.getDecoder().decode(property.getKey().trim()), "AES");
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int frameSizeOf(FileSystem<?, ?> delegate) {
+        EncryptionProperty property = delegate == null ? null : delegate.property.getEncryption();
+        return property == null || property.getFrameSize() == null ? AesGcmHeader.DEFAULT_FRAME_SIZE : property.getFrameSize();
+    }
+
+    private static boolean allowPlaintextOf(FileSystem<?, ?> delegate) {
+        EncryptionProperty property = delegate == null ? null : delegate.property.getEncryption();
+        return property != null && Boolean.TRUE.equals(property.getAllowPlaintext());
+    }
+
+    /**
+     * @return 每帧明文长度
+     */
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    /**
+     * @return 是否允许读取未加密的文件
+     */
+    public boolean isAllowPlaintext() {
+        return allowPlaintext;
+    }
+
+    /**
+     * 下载的是解密后的数据，大小与文件服务器记录的不一致
+     */
+    @Override
+    public boolean isContentTransformed() {
+        return true;
+    }
+
+    @Override
+    public boolean upload(InputStream input, StringBuffer path, StringBuffer filename) {
+        if (input == null) {
+            return super.upload(input, path, filename);
+        }
+        return encryptAndUpload(input, lengthOf(input), path, filename, in -> super.upload(in, path, filename));
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, StringBuffer path, StringBuffer filename) {
+        if (bytes == null) {
+            return super.upload(bytes, path, filename);
+        }
+        return encryptAndUpload(new ByteArrayInputStream(bytes), bytes.length, path, filename, in -> super.upload(in, path, filename));
+    }
+
+    @Override
+    public boolean upload(File file, StringBuffer path, StringBuffer filename) {
+        return uploadClosing(openFile(file, path, filename), input -> encryptAndUpload(input, file.length(), path, filename,
+                in -> super.upload(in, path, filename)));
+    }
+
+    @Override
+    public boolean upload(String base64, StringBuffer path, StringBuffer filename) {
+        // 解码流的available()为解码后的总长度
+        return uploadClosing(_base64ToStream(base64, path, filename), input -> encryptAndUpload(input, availableOf(input), path, filename,
+                in -> super.upload(in, path, filename)));
+    }
+
+    @Override
+    public boolean upload(InputStream input, String path, String filename) {
+        if (input == null) {
+            return super.upload(input, path, filename);
+        }
+        return encryptAndUpload(input, lengthOf(input), path, filename, in -> super.upload(in, path, filename));
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, String path, String filename) {
+        if (bytes == null) {
+            return super.upload(bytes, path, filename);
+        }
+        return encryptAndUpload(new ByteArrayInputStream(bytes), bytes.length, path, filename, in -> super.upload(in, path, filename));
+    }
+
+    @Override
+    public boolean upload(File file, String path, String filename) {
+        return uploadClosing(openFile(file, path, filename), input -> encryptAndUpload(input, file.length(), path, filename,
+                in -> super.upload(in, path, filename)));
+    }
+
+    @Override
+    public boolean upload(String base64, String path, String filename) {
+        return uploadClosing(_base64ToStream(base64, path, filename), input -> encryptAndUpload(input, availableOf(input), path, filename,
+                in -> super.upload(in, path, filename)));
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, StringBuffer path, StringBuffer filename, String encoding) {
+        if (input == null) {
+            return super.uploadEncoded(input, path, filename, encoding);
+        }
+        return encryptAndUpload(input, lengthOf(input), path, filename, in -> super.uploadEncoded(in, path, filename, encoding));
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, String path, String filename, String encoding) {
+        if (input == null) {
+            return super.uploadEncoded(input, path, filename, encoding);
+        }
+        return encryptAndUpload(input, lengthOf(input), path, filename, in -> super.uploadEncoded(in, path, filename, encoding));
+    }
+
+    @Override
+    public List<BatchResult<UploadRequest>> uploadAll(Collection<UploadRequest> requests, int parallelism) {
+        if (requests == null) {
+            return super.uploadAll(null, parallelism);
+        }
+        Map<UploadRequest, UploadRequest> originals = new IdentityHashMap<>(requests.size());
+        List<UploadRequest> encrypting = new ArrayList<>(requests.size());
+        for (UploadRequest request : requests) {
+            UploadRequest wrapped = request == null ? null : new EncryptedUploadRequest(request);
+            originals.put(wrapped, request);
+            encrypting.add(wrapped);
+        }
+        List<BatchResult<UploadRequest>> results = super.uploadAll(encrypting, parallelism);
+        if (results == null) {
+            return null;
+        }
+        List<BatchResult<UploadRequest>> mapped = new ArrayList<>(results.size());
+        for (BatchResult<UploadRequest> result : results) {
+            UploadRequest original = originals.getOrDefault(result.getItem(), result.getItem());
+            mapped.add(new BatchResult<>(original, result.isSuccess(), result.getError()));
+        }
+        return mapped;
+    }
+
+    /**
+     * 无法追加到已加密的文件，直接失败
+     */
+    @Override
+    public boolean appenderUpload(String base64, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return appenderUnsupported(path, filename);
+    }
+
+    /**
+     * 无法追加到已加密的文件，直接失败
+     */
+    @Override
+    public boolean appenderUpload(byte[] bytes, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return appenderUnsupported(path, filename);
+    }
+
+    /**
+     * 无法追加到已加密的文件，直接失败
+     */
+    @Override
+    public boolean appenderUpload(InputStream input, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return appenderUnsupported(path, filename);
+    }
+
+    @Override
+    public File downloadFile(String path, String filename) {
+        File dest = createTempDownloadFile(filename);
+        if (dest == null) {
+            return null;
+        }
+        return downloadFile(path, filename, dest);
+    }
+
+    @Override
+    public File downloadFile(String path, String filename, File destFile) {
+        boolean created = false;
+        boolean success = false;
+        try (FileChannel channel = FileChannel.open(destFile.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            created = true;
+            success = download(path, filename, channel);
+        } catch (Exception e) {
+            log.error(message.getString("fs.download.fail.io"), e);
+        }
+        if (!success) {
+            if (created) {
+                try {
+                    Files.deleteIfExists(destFile.toPath());
+                } catch (Exception ignored) {}
+            }
+            return null;
+        }
+        return destFile;
+    }
+
+    /**
+     * 解密后写入通道，不关闭通道
+     */
+    @Override
+    public boolean download(String path, String filename, FileChannel channel) {
+        if (channel == null) {
+            return false;
+        }
+        return download(path, filename, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * 认证失败时已写入的部分均为通过认证的明文，返回false
+     */
+    @Override
+    public boolean download(String path, String filename, OutputStream output) {
+        if (output == null) {
+            return false;
+        }
+        try (InputStream input = openInputStream(path, filename)) {
+            if (input == null) {
+                return false;
+            }
+            copy(input, output);
+            return true;
+        } catch (Exception e) {
+            log.error(message.getString("fs.encryption.download.fail")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return false;
+        }
+    }
+
+    /**
+     * 文件服务器记录的是加密后的数据，不比对校验和
+     */
+    @Override
+    public String getChecksum(String path, String filename, ChecksumAlgorithm algorithm) {
+        return null;
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename) {
+        InputStream raw = super.openInputStream(path, filename);
+        if (raw == null) {
+            return null;
+        }
+        PushbackInputStream input = new PushbackInputStream(raw, AesGcmHeader.MAGIC_LENGTH);
+        try {
+            byte[] head = new byte[AesGcmHeader.MAGIC_LENGTH];
+            int n = readFully(input, head);
+            if (n > 0) {
+                input.unread(head, 0, n);
+            }
+            if (!AesGcmHeader.matches(head, n)) {
+                if (allowPlaintext) {
+                    return input;
+                }
+                closeQuietly(input);
+                return plaintextRejected(path, filename);
+            }
+            return new DecryptingInputStream(input, key);
+        } catch (IOException e) {
+            closeQuietly(input);
+            log.error(message.getString("fs.encryption.download.fail")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return null;
+        }
+    }
+
+    /**
+     * 先读取文件头，再只读取覆盖该范围的帧，多读取一个字节用于判断最后一帧
+     */
+    @Override
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
+        if (offset == 0 && length < 0) {
+            return openInputStream(path, filename);
+        }
+        if (length == 0 || !isValidRange(offset)) {
+            return super.openInputStream(path, filename, offset, length);
+        }
+        byte[] bytes = new byte[AesGcmHeader.LENGTH];
+        int n;
+        InputStream input = null;
+        try {
+            try (InputStream head = super.openInputStream(path, filename, 0, bytes.length)) {
+                if (head == null) {
+                    return null;
+                }
+                n = readFully(head, bytes);
+            }
+            if (!AesGcmHeader.matches(bytes, n)) {
+                return allowPlaintext ? super.openInputStream(path, filename, offset, length) : plaintextRejected(path, filename);
+            }
+            AesGcmHeader header = AesGcmHeader.parse(bytes, n);
+            long size = header.getFrameSize();
+            long firstFrame = offset / size;
+            long frames = -1;
+            long encryptedLength = -1;
+            if (length > 0 && length <= Long.MAX_VALUE - offset) {
+                frames = (offset + length - 1) / size - firstFrame + 1;
+                encryptedLength = frames * (size + AesGcmHeader.TAG_LENGTH) + 1;
+            }
+            input = super.openInputStream(path, filename, header.frameOffset(firstFrame), encryptedLength);
+            if (input == null) {
+                return null;
+            }
+            input = new DecryptingInputStream(input, header, key, firstFrame, frames);
+            RangeInputStream.skipFully(input, offset - firstFrame * size);
+            return length < 0 ? input : new RangeInputStream(input, length);
+        } catch (IOException e) {
+            closeQuietly(input);
+            log.error(message.getString("fs.encryption.download.fail")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return null;
+        }
+    }
+
+    private boolean encryptAndUpload(InputStream input, long length, Object path, Object filename, UploadCall call) {
+        EncryptingInputStream encrypted;
+        try {
+            encrypted = new EncryptingInputStream(input, key, frameSize, length);
+        } catch (IOException e) {
+            log.error(message.getString("fs.encryption.upload.fail")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return false;
+        }
+        return call.upload(encrypted);
+    }
+
+    /**
+     * 需预知上传长度的实现以 {@link InputStream#available()} 作为明文长度，其他实现不需要
+     */
+    private long lengthOf(InputStream input) {
+        return isUploadLengthRequired() ? availableOf(input) : -1;
+    }
+
+    private static long availableOf(InputStream input) {
+        try {
+            return input.available();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private boolean appenderUnsupported(Object path, Object filename) {
+        log.error(message.getString("fs.encryption.appender.unsupported")
+                .replace("${path}", String.valueOf(path))
+                .replace("${filename}", String.valueOf(filename)));
+        return false;
+    }
+
+    private static InputStream plaintextRejected(Object path, Object filename) {
+        log.error(message.getString("fs.encryption.plaintext.rejected")
+                .replace("${path}", String.valueOf(path))
+                .replace("${filename}", String.valueOf(filename)));
+        return null;
+    }
+
+    private static int readFully(InputStream input, byte[] bytes) throws IOException {
+        int n = 0;
+        while (n < bytes.length) {
+            int read = input.read(bytes, n, bytes.length - n);
+            if (read < 0) {
+                break;
+            }
+            n += read;
+        }
+        return n;
+    }
+
+    private static void closeQuietly(InputStream input) {
+        if (input == null) {
+            return;
+        }
+        try {
+            input.close();
+        } catch (IOException ignored) {}
+    }
+
+    /**
+     * 上传由该实例打开的流，完成后关闭
+     */
+    private static boolean uploadClosing(InputStream input, UploadCall call) {
+        if (input == null) {
+            return false;
+        }
+        try {
+            return call.upload(input);
+        } finally {
+            closeQuietly(input);
+        }
+    }
+
+    private static InputStream openFile(File file, Object path, Object filename) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new FileInputStream(file);
+        } catch (IOException e) {
+            log.error(message.getString("fs.upload.fail.io")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename))
+                    .replace("${length}", Long.toString(file.length())), e);
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface UploadCall {
+        boolean upload(InputStream input);
+    }
+
+    /**
+     * 打开流时加密的上传请求
+     */
+    private final class EncryptedUploadRequest extends UploadRequest {
+
+        private final UploadRequest request;
+
+        EncryptedUploadRequest(UploadRequest request) {
+            this.request = request;
+            setPath(request.getPath());
+            setFilename(request.getFilename());
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            InputStream input = request.openStream();
+            if (input == null) {
+                return null;
+            }
+            try {
+                return new EncryptingInputStream(input, key, frameSize, lengthOf(input));
+            } catch (IOException | RuntimeException e) {
+                closeQuietly(input);
+                throw e;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return request.toString();
+        }
+
+    }
+
+}
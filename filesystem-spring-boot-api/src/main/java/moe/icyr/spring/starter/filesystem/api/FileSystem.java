@@ -1,17 +1,37 @@
 package moe.icyr.spring.starter.filesystem.api;
 
+import moe.icyr.spring.starter.filesystem.api.entity.BatchProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
+import moe.icyr.spring.starter.filesystem.api.entity.ChecksumResult;
 import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
 import moe.icyr.spring.starter.filesystem.api.entity.FileSystemProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import moe.icyr.spring.starter.filesystem.api.io.Base64Streams;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumAlgorithm;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumInputStream;
+import moe.icyr.spring.starter.filesystem.api.io.CompressionCodec;
+import moe.icyr.spring.starter.filesystem.api.io.DirectBufferPool;
+import moe.icyr.spring.starter.filesystem.api.io.RangeInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
-import java.util.Base64;
-import java.util.List;
-import java.util.ResourceBundle;
-import java.util.regex.Pattern;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 文件服务器连接器
@@ -22,25 +42,53 @@ import java.util.regex.Pattern;
 public abstract class FileSystem<T, F> implements AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(FileSystem.class);
-    private static final Pattern base64UrlPrefixPattern = Pattern.compile("^data:\\w+/?\\w*;base64,");
-    private static final String base64UrlPrefixReplaceString = "data:\\w+/?\\w*;base64,";
     private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final long LIST_POLL_MILLIS = 50;
 
     /**
      * 该实例的配置类
      */
     protected final FileSystemProperty property;
 
+    private Executor asyncExecutor;
+    private AsyncFileSystem<T, F> asyncFileSystem;
+    private final AtomicBoolean connectAttempted = new AtomicBoolean(false);
+    private final LongAdder reconnects = new LongAdder();
+    private volatile RetryPolicy retryPolicy;
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retryDelayMillis = new LongAdder();
+    private volatile CircuitBreaker circuitBreaker;
+    private final ThreadLocal<Throwable[]> retryScope = new ThreadLocal<>();
+    private volatile ProgressListener[] progressListeners = new ProgressListener[0];
+    private volatile long progressIntervalMillis = 1000;
+
     /**
      * 验证配置并创建连接
      * @param property 配置文件
      */
     public FileSystem(FileSystemProperty property) {
         this.property = validateProperty(property);
+        this.retryPolicy = RetryPolicy.of(this.property.getRetry());
         this.init(this.property);
         this.connect();
     }
 
+    /**
+     * 验证配置，可选择不立即创建连接
+     * @param property 配置文件
+     * @param connect 是否创建连接，为 {@code false} 时由子类在构造完成后自行连接
+     * @since 1.4
+     */
+    protected FileSystem(FileSystemProperty property, boolean connect) {
+        this.property = validateProperty(property);
+        this.retryPolicy = RetryPolicy.of(this.property.getRetry());
+        this.init(this.property);
+        if (connect) {
+            this.connect();
+        }
+    }
+
     /**
      * 校验配置
      * @param property 配置
@@ -92,326 +140,1894 @@ public abstract class FileSystem<T, F> implements AutoCloseable {
     public abstract void disconnect();
 
     /**
-     * 列出文件(夹)
-     * @param path 绝对路径
-     * @return 文件(夹)信息列表，若没有这个目录、文件服务器连接失败、或其他异常则返回NULL
+     * 由实现在每次尝试建立连接时调用，首次之后的调用均计为重新连接（包含连接失败后的重试）
+     * @since 1.4
      */
-    public List<FileInfo<F>> list(String path) {
-        return list(path, false, false, -1);
+    protected final void recordConnect() {
+        if (!connectAttempted.compareAndSet(false, true)) {
+            reconnects.increment();
+        }
     }
 
     /**
-     * 列出文件(夹)
-     * @param path 绝对路径
-     * @param deepFind 是否读取子文件
-     * @param flatPrint 是否扁平化输出
-     * @param maxDepth 当deepFind为true时，限制最大深度，需&gt;=0，&lt;0为不限制
-     * @return 文件(夹)信息列表，若没有这个目录、文件服务器连接失败、或其他异常则返回NULL
+     * @return 创建后重新连接（包含连接失败后的重试）的次数
+     * @since 1.4
      */
-    public abstract List<FileInfo<F>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth);
+    public long getReconnectCount() {
+        return reconnects.sum();
+    }
 
     /**
-     * 查询文件信息
-     * @param path 绝对路径
-     * @param filename 文件名
-     * @return 文件信息对象
+     * @return 失败重试策略，默认按配置中的 {@link moe.icyr.spring.starter.filesystem.api.entity.RetryProperty} 创建
+     * @since 1.4
      */
-    public FileInfo<F> peekFile(String path, String filename) {
-        return null;
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
     }
 
     /**
-     * <p>上传文件，通过输入流</p>
-     * <p>提供给特殊需求使用的方法</p>
-     * @param input 需要上传的流
-     * @param path 目标文件绝对路径
-     * @param filename 目标文件名称
-     * @return 上传成功与否
+     * <p>设置失败重试策略，之后的调用生效</p>
+     * <p>只有幂等的操作会重试：列出、查询、创建目录、删除、打开读取流（只重试打开，不重试读取过程），
+     * 以及流未被读取过或可回到开头的上传；批量操作不重试</p>
+     * @param retryPolicy 重试策略，不重试时使用 {@link RetryPolicy#NONE}
+     * @return this
+     * @since 1.4
      */
-    public boolean upload(InputStream input, StringBuffer path, StringBuffer filename) {
-        return upload(input, path.toString(), filename.toString());
+    public FileSystem<T, F> setRetryPolicy(RetryPolicy retryPolicy) {
+        if (retryPolicy == null) {
+            throw new IllegalArgumentException(message.getString("fs.retry.policy.valid.not.null"));
+        }
+        this.retryPolicy = retryPolicy;
+        return this;
     }
 
     /**
-     * <p>上传文件，通过字节</p>
-     * <p>提供给特殊需求使用的方法</p>
-     * @param bytes 需要上传的字节
-     * @param path 目标文件绝对路径
-     * @param filename 目标文件名称
-     * @return 上传成功与否
+     * @return 累计重试次数（包含连接的重试）
+     * @since 1.4
      */
-    public boolean upload(byte[] bytes, StringBuffer path, StringBuffer filename) {
-        return _upload(bytes, path, filename);
+    public long getRetryCount() {
+        return retries.sum();
     }
 
     /**
-     * <p>上传文件，通过文件对象</p>
-     * <p>提供给特殊需求使用的方法</p>
-     * @param file 需要上传的文件
-     * @param path 目标文件绝对路径
-     * @param filename 目标文件名称
-     * @return 上传成功与否
+     * @return 重试前累计等待的时长（毫秒）
+     * @since 1.4
      */
-    public boolean upload(File file, StringBuffer path, StringBuffer filename) {
-        return _upload(file, path, filename);
+    public long getRetryDelayMillis() {
+        return retryDelayMillis.sum();
     }
 
     /**
-     * <p>上传文件，通过Base64</p>
-     * <p>提供给特殊需求使用的方法</p>
-     * @param base64 需要上传的Base64
-     * @param path 目标文件绝对路径
-     * @param filename 目标文件名称
-     * @return 上传成功与否
+     * @return 接收失败上报的熔断器，未设置时为NULL
+     * @since 1.4
      */
-    public boolean upload(String base64, StringBuffer path, StringBuffer filename) {
-        return _upload(base64, path, filename);
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
     }
 
     /**
-     * 上传文件，通过输入流
-     * @param input 需要上传的流
-     * @param path 目标文件绝对路径
-     * @param filename 目标文件名称
-     * @return 上传成功与否
+     * <p>设置接收失败上报的熔断器，一般由 {@link CircuitBreakerFileSystem} 设置</p>
+     * <p>经过 {@link #retry} 的操作结束时上报：成功，或以不可重试的异常失败（服务端有应答）计为成功；
+     * 重试结束后仍以可重试的异常失败（连接失败、网络层异常）计为失败</p>
+     * @param circuitBreaker 熔断器，为NULL时不上报
+     * @return this
+     * @since 1.4
      */
-    public abstract boolean upload(InputStream input, String path, String filename);
+    public FileSystem<T, F> setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+        return this;
+    }
 
     /**
-     * 上传文件，通过字节
-     * @param bytes 需要上传的字节
-     * @param path 目标文件绝对路径
-     * @param filename 目标文件名称
-     * @return 上传成功与否
+     * <p>判断失败时的异常是否可重试</p>
+     * <p>默认由重试策略判断，实现可追加其客户端特有的连接类异常</p>
+     * @param error 异常
+     * @return 可重试与否
+     * @since 1.4
      */
-    public boolean upload(byte[] bytes, String path, String filename) {
-        return _upload(bytes, path, filename);
+    protected boolean isRetryable(Throwable error) {
+        return retryPolicy.isRetryable(error);
     }
 
     /**
-     * <p>上传文件，通过文件对象</p>
-     * <p>提供给特殊需求使用的方法</p>
-     * @param file 需要上传的文件
-     * @param path 目标文件绝对路径
-     * @param filename 目标文件名称
-     * @return 上传成功与否
+     * 在等待后、再次尝试前调用，单连接的实现在此断开已失效的连接，由再次尝试时重新连接
+     * @param error 上次失败时的异常
+     * @since 1.4
      */
-    public boolean upload(File file, String path, String filename) {
-        return _upload(file, path, filename);
+    protected void prepareRetry(Throwable error) {
     }
 
     /**
-     * 上传文件，通过Base64
-     * @param base64 需要上传的Base64
-     * @param path 目标文件绝对路径
-     * @param filename 目标文件名称
-     * @return 上传成功与否
+     * 按重试策略执行操作，异常可重试且未达到最大尝试次数时等待后再次执行
+     * @param operation 操作名称，用于日志
+     * @param call 操作，失败时需抛出异常
+     * @return 操作结果
+     * @throws Exception 最后一次尝试的异常，或不可重试的异常
+     * @since 1.4
      */
-    public boolean upload(String base64, String path, String filename) {
-        return _upload(base64, path, filename);
+    protected final <R> R retry(String operation, Callable<R> call) throws Exception {
+        return retry(operation, call, null);
     }
 
-    private boolean _upload(byte[] bytes, Object path, Object filename) {
-        try (ByteArrayInputStream stream = new ByteArrayInputStream(bytes)) {
-            if (path instanceof StringBuffer && filename instanceof StringBuffer) {
-                return upload(stream, (StringBuffer) path, (StringBuffer) filename);
-            } else if (path instanceof String && filename instanceof String) {
-                return upload(stream, (String) path, (String) filename);
-            } else {
-                return false;
-            }
+    /**
+     * 按重试策略执行操作，已产生副作用（如已向调用方的输出流写入数据）时不再重试
+     * @param operation 操作名称，用于日志
+     * @param call 操作，失败时需抛出异常
+     * @param replayable 失败后能否再次执行，为NULL时总是可以
+     * @return 操作结果
+     * @throws Exception 最后一次尝试的异常，或不可重试的异常
+     * @since 1.4
+     */
+    protected final <R> R retry(String operation, Callable<R> call, BooleanSupplier replayable) throws Exception {
+        Throwable[] scope = retryScope.get();
+        if (scope != null) {
+            // 嵌套在其他重试中（如操作中的重新连接），结果由最外层上报
+            return retryAttempts(operation, call, replayable, scope, false);
+        }
+        scope = new Throwable[1];
+        retryScope.set(scope);
+        try {
+            R result = retryAttempts(operation, call, replayable, scope, true);
+            reportOutcome(scope[0]);
+            return result;
         } catch (Exception e) {
-            log.error(message.getString("fs.upload.fail.io")
-                    .replace("${path}", String.valueOf(path))
-                    .replace("${filename}", String.valueOf(filename))
-                    .replace("${length}", bytes == null ? "-1" : Integer.toString(bytes.length)), e);
+            reportOutcome(scope[0]);
+            throw e;
+        } finally {
+            retryScope.remove();
         }
-        return false;
     }
 
-    private boolean _upload(File file, Object path, Object filename) {
-        try (FileInputStream fileInputStream = new FileInputStream(file);) {
-            if (path instanceof StringBuffer && filename instanceof StringBuffer) {
-                return upload(fileInputStream, (StringBuffer) path, (StringBuffer) filename);
-            } else if (path instanceof String && filename instanceof String) {
-                return upload(fileInputStream, (String) path, (String) filename);
-            } else {
-                return false;
+    /**
+     * @param scope 最外层重试的失败，重试结束后仍以可重试的异常失败时记录
+     * @param outermost 是否最外层，最外层每次尝试前清除嵌套重试记录的失败
+     */
+    private <R> R retryAttempts(String operation, Callable<R> call, BooleanSupplier replayable,
+                                Throwable[] scope, boolean outermost) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            if (outermost) {
+                scope[0] = null;
             }
-        } catch (Exception e) {
-            String size;
             try {
-                size = String.valueOf(file.length());
-            } catch (Throwable ignored) {
-                size = "";
+                return call.call();
+            } catch (Exception e) {
+                RetryPolicy policy = this.retryPolicy;
+                boolean retryable = isRetryable(e);
+                if (attempt >= policy.getMaxAttempts() || !retryable
+                        || (replayable != null && !replayable.getAsBoolean())) {
+                    if (retryable || outermost) {
+                        scope[0] = retryable ? e : null;
+                    }
+                    throw e;
+                }
+                long delay = policy.backoffMillis(attempt);
+                log.warn(message.getString("fs.retry.attempt")
+                        .replace("${operation}", operation)
+                        .replace("${attempt}", Integer.toString(attempt))
+                        .replace("${maxAttempts}", Integer.toString(policy.getMaxAttempts()))
+                        .replace("${delay}", Long.toString(delay))
+                        .replace("${error}", String.valueOf(e)));
+                retries.increment();
+                retryDelayMillis.add(delay);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    e.addSuppressed(ie);
+                    throw e;
+                }
+                prepareRetry(e);
             }
-            log.error(message.getString("fs.upload.fail.io")
-                    .replace("${path}", String.valueOf(path))
-                    .replace("${filename}", String.valueOf(filename))
-                    .replace("${length}", size), e);
         }
-        return false;
     }
 
-    private boolean _upload(String base64, Object path, Object filename) {
-        byte[] bytes = _base64ToBytes(base64, path, filename);
-        if (bytes == null) {
-            return false;
+    private void reportOutcome(Throwable failure) {
+        CircuitBreaker breaker = this.circuitBreaker;
+        if (breaker == null) {
+            return;
         }
-        if (path instanceof StringBuffer && filename instanceof StringBuffer) {
-            return upload(bytes, (StringBuffer) path, (StringBuffer) filename);
-        } else if (path instanceof String && filename instanceof String) {
-            return upload(bytes, (String) path, (String) filename);
+        if (failure == null) {
+            breaker.onSuccess();
         } else {
-            return false;
+            breaker.onFailure(failure);
         }
     }
 
-    protected byte[] _base64ToBytes(String base64, Object path, Object filename) {
-        if (base64UrlPrefixPattern.matcher(base64).find()) {
-            base64 = base64.replaceFirst(base64UrlPrefixReplaceString, "");
-        }
-        try {
-            return Base64.getDecoder().decode(base64);
-        } catch (Exception e) {
-            log.error(message.getString("fs.upload.fail.base64")
-                    .replace("${path}", String.valueOf(path))
-                    .replace("${filename}", String.valueOf(filename)), e);
-            return null;
-        }
+    /**
+     * 按重试策略执行上传，传入操作的流未被读取过或可回到开头时才重试
+     * @param operation 操作名称，用于日志
+     * @param input 待上传的流
+     * @param call 上传操作，需使用传入的流，失败时需抛出异常
+     * @return 操作结果
+     * @throws Exception 最后一次尝试的异常，或不可重试的异常
+     * @since 1.4
+     */
+    protected final <R> R retry(String operation, InputStream input, UploadCall<R> call) throws Exception {
+        ReplayableInputStream replayable = new ReplayableInputStream(input);
+        return retry(operation, () -> call.upload(replayable), replayable::rewind);
     }
 
     /**
-     * 根据给定路径创建至目录
-     * @param path 绝对路径
-     * @return 创建成功与否
+     * 可重试的上传操作
+     * @since 1.4
      */
-    public abstract boolean createDirectory(String path);
+    @FunctionalInterface
+    protected interface UploadCall<R> {
+        R upload(InputStream input) throws Exception;
+    }
 
     /**
-     * 下载为Base64
-     * @param path 绝对路径
-     * @param filename 文件名
-     * @return Base64
+     * <p>实例是否可被多个线程同时调用</p>
+     * <p>单连接的实现（FTP、SFTP）返回 {@code false}，异步接口会将其任务串行执行</p>
+     * @return 线程安全与否
+     * @since 1.4
      */
-    public String downloadBase64(String path, String filename) {
-        byte[] bytes = downloadBytes(path, filename);
-        if (bytes == null) {
-            return null;
-        }
-        return new String(Base64.getEncoder().encode(bytes));
+    public boolean isThreadSafe() {
+        return false;
     }
 
     /**
-     * 下载为临时文件
-     * @param path 绝对路径
-     * @param filename 文件名
-     * @return 文件
+     * <p>通过输入流上传时，是否以 {@link InputStream#available()} 作为文件总长度</p>
+     * <p>返回 {@code true} 的实现（MinIO、FastDFS）需要传入能返回准确剩余长度的流，长度未知时调用方需先缓存至文件</p>
+     * @return 是否依赖输入流长度
+     * @since 1.4
      */
-    public File downloadFile(String path, String filename) {
-        File dest;
-        try {
-            String destFilename;
-            String destFileSuffix;
-            if (filename == null) {
-                destFilename = "FileSystemUtilTempDownload";
-                destFileSuffix = ".bin";
-            } else {
-                String[] split = filename.split("/");
-                String name;
-                if (split.length > 1) {
-                    name = split[split.length - 1];
-                } else {
-                    name = filename;
-                }
-                if (name.contains(".")) {
-                    destFilename = name.substring(0, name.lastIndexOf("."));
-                    destFileSuffix = "." + name.substring(name.lastIndexOf(".") + 1);
-                } else {
-                    destFilename = name;
-                    destFileSuffix = ".bin";
-                }
-            }
-            dest = File.createTempFile(destFilename, destFileSuffix);
-        } catch (Exception e) {
-            log.error(message.getString("fs.download.fail.io"), e);
-            return null;
-        }
-        return downloadFile(path, filename, dest);
+    public boolean isUploadLengthRequired() {
+        return false;
     }
 
     /**
-     * 下载为文件
-     * @param path 绝对路径
-     * @param filename 文件名
-     * @return 文件
+     * <p>能否在文件上记录压缩编码（见 {@link #uploadEncoded(InputStream, StringBuffer, StringBuffer, String)}）</p>
+     * <p>返回 {@code true} 的实现（MinIO用户元数据、FastDFS元数据）在上传时一并写入；其他实现由 {@link CompressingFileSystem} 使用旁路文件记录</p>
+     * @return 能否记录压缩编码
+     * @since 1.4
      */
-    public File downloadFile(String path, String filename, File destFile) {
-        byte[] bytes = downloadBytes(path, filename);
-        if (bytes == null) {
-            return null;
+    public boolean isContentEncodingSupported() {
+        return false;
+    }
+
+    /**
+     * <p>下载的内容是否经过转换（如解压、解密），与文件服务器记录的大小不一致</p>
+     * <p>返回 {@code true} 时 {@link #peekFile(String, String)} 的大小为存储的大小，不能用于校验下载的长度；
+     * {@link CompressingFileSystem}、{@link EncryptingFileSystem} 返回 {@code true}</p>
+     * @return 下载的内容是否经过转换
+     * @since 1.4
+     */
+    public boolean isContentTransformed() {
+        return false;
+    }
+
+    /**
+     * <p>获取该实例的异步接口</p>
+     * <p>首次调用时创建，使用 {@link #setAsyncExecutor(Executor)} 设置的线程池，未设置则按配置创建内部线程池；实例关闭时一并关闭</p>
+     * @return 异步接口
+     * @since 1.4
+     */
+    public synchronized AsyncFileSystem<T, F> async() {
+        if (asyncFileSystem == null) {
+            asyncFileSystem = new AsyncFileSystem<>(this, asyncExecutor);
         }
-        try {
-            return Files.write(destFile.toPath(), bytes, StandardOpenOption.CREATE_NEW).toFile();
-        } catch (Exception e) {
-            log.error(message.getString("fs.download.fail.io"), e);
-            return null;
+        return asyncFileSystem;
+    }
+
+    /**
+     * <p>使用指定线程池创建新的异步接口</p>
+     * <p>返回的对象不由该实例管理，使用完毕后需自行关闭</p>
+     * @param executor 线程池
+     * @return 异步接口
+     * @since 1.4
+     */
+    public AsyncFileSystem<T, F> async(Executor executor) {
+        return new AsyncFileSystem<>(this, executor);
+    }
+
+    /**
+     * @return {@link #async()} 使用的线程池，未设置时为NULL
+     * @since 1.4
+     */
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * 设置 {@link #async()} 使用的线程池，需在首次调用 {@link #async()} 前设置
+     * @param asyncExecutor 线程池
+     * @return this
+     * @since 1.4
+     */
+    public FileSystem<T, F> setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+        return this;
+    }
+
+    /**
+     * <p>注册传输进度监听器</p>
+     * <p>实现在单个文件的上传、下载过程中回调（目前为FTP、SFTP），批量操作不回调；未注册监听器时不产生额外开销</p>
+     * @param listener 监听器
+     * @return this
+     * @since 1.4
+     */
+    public synchronized FileSystem<T, F> addProgressListener(ProgressListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException(message.getString("fs.progress.listener.valid.not.null"));
         }
+        ProgressListener[] listeners = Arrays.copyOf(progressListeners, progressListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        progressListeners = listeners;
+        return this;
     }
 
     /**
-     * 下载为字节数组
-     * @param path 绝对路径
-     * @param filename 文件名
-     * @return 字节数组
+     * 移除传输进度监听器
+     * @param listener 监听器
+     * @return this
+     * @since 1.4
      */
-    public byte[] downloadBytes(String path, String filename) {
-        ByteArrayOutputStream stream = downloadStream(path, filename);
-        if (stream == null) {
-            return null;
+    public synchronized FileSystem<T, F> removeProgressListener(ProgressListener listener) {
+        List<ProgressListener> listeners = new ArrayList<>(Arrays.asList(progressListeners));
+        if (listeners.remove(listener)) {
+            progressListeners = listeners.toArray(new ProgressListener[0]);
         }
-        return stream.toByteArray();
+        return this;
     }
 
     /**
-     * 下载为字节流
-     * @param path 绝对路径
-     * @param filename 文件名
-     * @return 字节流
+     * @return 已注册的传输进度监听器
+     * @since 1.4
      */
-    public abstract ByteArrayOutputStream downloadStream(String path, String filename);
+    public List<ProgressListener> getProgressListeners() {
+        return Collections.unmodifiableList(Arrays.asList(progressListeners));
+    }
 
     /**
-     * 删除文件
-     * @param path 绝对路径
-     * @param filename 文件名
-     * @return 成功与否
+     * @return 传输进度的回调间隔（毫秒）
+     * @since 1.4
      */
-    public abstract boolean deleteFile(String path, String filename);
+    public long getProgressInterval() {
+        return progressIntervalMillis;
+    }
 
     /**
-     * 关闭连接
+     * 设置传输进度的回调间隔，默认1000毫秒
+     * @param progressInterval 间隔（毫秒），为0时每次读写均回调
+     * @return this
+     * @since 1.4
      */
-    @Override
-    public void close() {
-        this.disconnect();
+    public FileSystem<T, F> setProgressInterval(long progressInterval) {
+        if (progressInterval < 0) {
+            throw new IllegalArgumentException(message.getString("fs.progress.interval.valid.fail"));
+        }
+        this.progressIntervalMillis = progressInterval;
+        return this;
     }
 
     /**
-     * 为可能的断点续传提供接口支持
-     * @param base64 BASE64
-     * @param path 绝对路径
+     * 由实现在传输开始时调用
+     * @param direction 传输方向
+     * @param path 路径
+     * @param filename 文件名
+     * @param totalBytes 总字节数，未知时为-1
+     * @return 进度，未注册监听器时为NULL，后续调用 {@link #reportProgress}、{@link #finishProgress} 时可直接传入
+     * @since 1.4
+     */
+    protected TransferProgress startProgress(TransferProgress.Direction direction, String path, String filename, long totalBytes) {
+        ProgressListener[] listeners = progressListeners;
+        if (listeners.length == 0) {
+            return null;
+        }
+        return new TransferProgress(direction, path, filename, totalBytes, listeners,
+                TimeUnit.MILLISECONDS.toNanos(progressIntervalMillis));
+    }
+
+    /**
+     * 更新已传输的字节数
+     * @param progress 进度，为NULL时忽略
+     * @param transferredBytes 已传输的总字节数
+     * @since 1.4
+     */
+    protected static void reportProgress(TransferProgress progress, long transferredBytes) {
+        if (progress != null) {
+            progress.update(transferredBytes);
+        }
+    }
+
+    /**
+     * 结束传输，重复调用时忽略
+     * @param progress 进度，为NULL时忽略
+     * @param success 是否成功
+     * @since 1.4
+     */
+    protected static void finishProgress(TransferProgress progress, boolean success) {
+        if (progress != null) {
+            progress.finish(success);
+        }
+    }
+
+    /**
+     * 包装下载的输入流，读取时更新进度，读取至末尾或关闭时结束传输
+     * @param input 输入流
+     * @param progress 进度，为NULL时原样返回
+     * @return 输入流
+     * @since 1.4
+     */
+    protected static InputStream trackProgress(InputStream input, TransferProgress progress) {
+        if (input == null || progress == null) {
+            finishProgress(progress, false);
+            return input;
+        }
+        return new ProgressInputStream(input, progress);
+    }
+
+    /**
+     * 列出文件(夹)
+     * @param path 绝对路径
+     * @return 文件(夹)信息列表，若没有这个目录、文件服务器连接失败、或其他异常则返回NULL
+     */
+    public List<FileInfo<F>> list(String path) {
+        return list(path, false, false, -1);
+    }
+
+    /**
+     * 列出文件(夹)
+     * @param path 绝对路径
+     * @param deepFind 是否读取子文件
+     * @param flatPrint 是否扁平化输出
+     * @param maxDepth 当deepFind为true时，限制最大深度，需&gt;=0，&lt;0为不限制
+     * @return 文件(夹)信息列表，若没有这个目录、文件服务器连接失败、或其他异常则返回NULL
+     */
+    public abstract List<FileInfo<F>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth);
+
+    /**
+     * 惰性列出目录下的文件(夹)，不读取子目录
+     * @param path 绝对路径
+     * @return 文件(夹)信息流，需关闭；若没有这个目录、文件服务器连接失败、或其他异常则返回NULL
+     * @see #listStream(String, boolean, int)
+     * @since 1.4
+     */
+    public Stream<FileInfo<F>> listStream(String path) {
+        return listStream(path, false, -1);
+    }
+
+    /**
+     * <p>惰性列出文件(夹)，以扁平化方式输出</p>
+     * <p>见 {@link #listIterator(String, boolean, int)}，流关闭时释放迭代占用的资源，建议使用try-with-resources</p>
+     * @param path 绝对路径
+     * @param deepFind 是否读取子文件
+     * @param maxDepth 当deepFind为true时，限制最大深度，需&gt;=0，&lt;0为不限制
+     * @return 文件(夹)信息流，需关闭；若没有这个目录、文件服务器连接失败、或其他异常则返回NULL
+     * @since 1.4
+     */
+    public Stream<FileInfo<F>> listStream(String path, boolean deepFind, int maxDepth) {
+        CloseableIterator<FileInfo<F>> iterator = listIterator(path, deepFind, maxDepth);
+        if (iterator == null) {
+            return null;
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * <p>惰性列出文件(夹)，以扁平化方式输出</p>
+     * <p>输出顺序与 {@link #list(String, boolean, boolean, int)} 扁平化输出一致（先序遍历），但只在迭代到时才读取对应目录，
+     * 已输出的元素不会被保留，可随时停止迭代而不读取剩余部分</p>
+     * <p>迭代中途读取失败（包括子目录列出失败）时抛出 {@link UncheckedIOException}；对于单连接的实现（如FTP、SFTP），迭代器关闭之前不要在同一实例上进行其他操作</p>
+     * @param path 绝对路径
+     * @param deepFind 是否读取子文件
+     * @param maxDepth 当deepFind为true时，限制最大深度，需&gt;=0，&lt;0为不限制
+     * @return 迭代器，需关闭；若没有这个目录、文件服务器连接失败、或其他异常则返回NULL
+     * @since 1.4
+     */
+    public CloseableIterator<FileInfo<F>> listIterator(String path, boolean deepFind, int maxDepth) {
+        CloseableIterator<FileInfo<F>> root = listDirectory(path);
+        if (root == null) {
+            return null;
+        }
+        return new TreeIterator(root, deepFind, maxDepth);
+    }
+
+    /**
+     * <p>惰性列出单个目录下的文件(夹)，供 {@link #listIterator(String, boolean, int)} 逐个目录调用</p>
+     * <p>默认调用 {@link #list(String)} 一次读取整个目录，实现可覆盖为分页读取</p>
+     * @param path 绝对路径
+     * @return 迭代器，若没有这个目录、文件服务器连接失败、或其他异常则返回NULL
+     * @since 1.4
+     */
+    protected CloseableIterator<FileInfo<F>> listDirectory(String path) {
+        List<FileInfo<F>> files = list(path);
+        return files == null ? null : CloseableIterator.of(files.iterator(), null);
+    }
+
+    /**
+     * 按目录逐层展开的先序遍历，目录在被迭代越过后才读取
+     */
+    private final class TreeIterator implements CloseableIterator<FileInfo<F>> {
+
+        private final Deque<CloseableIterator<FileInfo<F>>> stack = new ArrayDeque<>();
+        private final boolean deepFind;
+        private final int maxDepth;
+        private FileInfo<F> next;
+        private FileInfo<F> pendingDirectory;
+
+        TreeIterator(CloseableIterator<FileInfo<F>> root, boolean deepFind, int maxDepth) {
+            this.stack.push(root);
+            this.deepFind = deepFind;
+            this.maxDepth = maxDepth;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (pendingDirectory != null) {
+                FileInfo<F> directory = pendingDirectory;
+                pendingDirectory = null;
+                String childPath = childPathOf(directory);
+                CloseableIterator<FileInfo<F>> children = listDirectory(childPath);
+                if (children == null) {
+                    // 不能跳过该目录，否则调用方无法区分空目录与读取失败
+                    String error = message.getString("fs.list.iterator.error").replace("${path}", childPath);
+                    throw new UncheckedIOException(error, new IOException(error));
+                }
+                stack.push(children);
+            }
+            while (!stack.isEmpty()) {
+                CloseableIterator<FileInfo<F>> top = stack.peek();
+                if (top.hasNext()) {
+                    next = top.next();
+                    if (deepFind && next.isDirectory() && (maxDepth < 0 || stack.size() <= maxDepth)) {
+                        pendingDirectory = next;
+                    }
+                    return true;
+                }
+                stack.pop().close();
+            }
+            return false;
+        }
+
+        @Override
+        public FileInfo<F> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            FileInfo<F> current = next;
+            next = null;
+            return current;
+        }
+
+        @Override
+        public void close() {
+            pendingDirectory = null;
+            next = null;
+            while (!stack.isEmpty()) {
+                stack.pop().close();
+            }
+        }
+
+    }
+
+    /**
+     * <p>并行递归列出文件(夹)，使用配置的并发数 {@link BatchProperty#getListParallelism()}</p>
+     * @param path 绝对路径
+     * @param flatPrint 是否扁平化输出
+     * @param maxDepth 限制最大深度，需&gt;=0，&lt;0为不限制
+     * @return 文件(夹)信息列表，若没有这个目录、文件服务器连接失败、或其他异常则返回NULL
+     * @see #listParallel(String, boolean, int, int)
+     * @since 1.4
+     */
+    public List<FileInfo<F>> listParallel(String path, boolean flatPrint, int maxDepth) {
+        return listParallel(path, flatPrint, maxDepth, listParallelism());
+    }
+
+    /**
+     * <p>并行递归列出文件(夹)</p>
+     * <p>待读取的子目录放入共享队列，由调用线程与至多 {@code parallelism - 1} 个临时线程取出读取，新发现的子目录放回队首，
+     * 空闲的线程会取走其他线程发现的目录；线程安全的实现共用当前实例，其余实现通过 {@link #openSession()} 各自使用独立的连接（通道）</p>
+     * <p>全部读取完成后按先序组装，输出（树形或扁平化）与 {@code list(path, true, flatPrint, maxDepth)} 一致；
+     * 子目录读取失败时与串行方式相同，该目录的子项为NULL</p>
+     * @param path 绝对路径
+     * @param flatPrint 是否扁平化输出
+     * @param maxDepth 限制最大深度，需&gt;=0，&lt;0为不限制
+     * @param parallelism 并发数，&lt;=1时在调用线程中依次读取
+     * @return 文件(夹)信息列表，若没有这个目录、文件服务器连接失败、或其他异常则返回NULL
+     * @since 1.4
+     */
+    public List<FileInfo<F>> listParallel(String path, boolean flatPrint, int maxDepth, int parallelism) {
+        List<FileInfo<F>> root = list(path);
+        if (root == null) {
+            return null;
+        }
+        BlockingDeque<ListTask<F>> tasks = new LinkedBlockingDeque<>();
+        AtomicInteger pending = new AtomicInteger();
+        if (maxDepth < 0 || maxDepth >= 1) {
+            pushDirectories(tasks, pending, root, 1);
+        }
+        int workers = Math.min(Math.max(1, parallelism), Math.max(1, pending.get()));
+        try {
+            runWorkers(workers, "fs-list-", session -> walk(session, tasks, pending, maxDepth));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.error(message.getString("fs.list.parallel.error")
+                    .replace("${path}", path), e.getCause());
+            return null;
+        }
+        if (pending.get() > 0) {
+            // 所有线程均异常退出
+            return null;
+        }
+        if (!flatPrint) {
+            return root;
+        }
+        List<FileInfo<F>> files = new ArrayList<>();
+        flatten(root, files);
+        return files;
+    }
+
+    private int listParallelism() {
+        BatchProperty batch = property.getBatch();
+        Integer parallelism = batch == null ? null : batch.getListParallelism();
+        return parallelism == null || parallelism <= 0 ? 1 : parallelism;
+    }
+
+    /**
+     * <p>{@link #list(String, boolean, boolean, int)} 递归读取时是否改用 {@link #listParallel(String, boolean, int)}</p>
+     * @return 配置的 {@link BatchProperty#getListParallelism()} &gt;1
+     * @since 1.4
+     */
+    protected boolean isListParallel() {
+        return listParallelism() > 1;
+    }
+
+    private static <F> void walk(FileSystem<?, F> session, BlockingDeque<ListTask<F>> tasks, AtomicInteger pending,
+                                 int maxDepth) throws InterruptedException {
+        while (pending.get() > 0) {
+            ListTask<F> task = tasks.pollFirst(LIST_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (task == null) {
+                continue;
+            }
+            try {
+                List<FileInfo<F>> children = session.list(childPathOf(task.directory));
+                task.directory.setChildren(children);
+                if (children != null && (maxDepth < 0 || task.depth + 1 <= maxDepth)) {
+                    pushDirectories(tasks, pending, children, task.depth + 1);
+                }
+            } catch (RuntimeException e) {
+                log.error(message.getString("fs.list.parallel.error")
+                        .replace("${path}", childPathOf(task.directory)), e);
+            } finally {
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 倒序放入队首，使各线程大致按先序读取，队列长度保持在较小范围
+     */
+    private static <F> void pushDirectories(BlockingDeque<ListTask<F>> tasks, AtomicInteger pending, List<FileInfo<F>> files, int depth) {
+        for (int i = files.size() - 1; i >= 0; i--) {
+            FileInfo<F> file = files.get(i);
+            if (file.isDirectory()) {
+                pending.incrementAndGet();
+                tasks.offerFirst(new ListTask<>(file, depth));
+            }
+        }
+    }
+
+    private static <F> void flatten(Collection<FileInfo<F>> files, List<FileInfo<F>> out) {
+        for (FileInfo<F> file : files) {
+            out.add(file);
+            Collection<FileInfo<F>> children = file.getChildren();
+            if (children != null) {
+                file.setChildren(null);
+                flatten(children, out);
+            }
+        }
+    }
+
+    private static String childPathOf(FileInfo<?> directory) {
+        String dir = directory.getAbsolutePath();
+        return dir == null ? directory.getFilename()
+                : dir.endsWith("/") ? dir + directory.getFilename() : dir + "/" + directory.getFilename();
+    }
+
+    private static final class ListTask<F> {
+
+        private final FileInfo<F> directory;
+        private final int depth;
+
+        ListTask(FileInfo<F> directory, int depth) {
+            this.directory = directory;
+            this.depth = depth;
+        }
+
+    }
+
+    /**
+     * 查询文件信息
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 文件信息对象
+     */
+    public FileInfo<F> peekFile(String path, String filename) {
+        return null;
+    }
+
+    /**
+     * <p>上传文件，通过输入流</p>
+     * <p>提供给特殊需求使用的方法</p>
+     * @param input 需要上传的流
+     * @param path 目标文件绝对路径
+     * @param filename 目标文件名称
+     * @return 上传成功与否
+     */
+    public boolean upload(InputStream input, StringBuffer path, StringBuffer filename) {
+        return upload(input, path.toString(), filename.toString());
+    }
+
+    /**
+     * <p>上传文件，通过字节</p>
+     * <p>提供给特殊需求使用的方法</p>
+     * @param bytes 需要上传的字节
+     * @param path 目标文件绝对路径
+     * @param filename 目标文件名称
+     * @return 上传成功与否
+     */
+    public boolean upload(byte[] bytes, StringBuffer path, StringBuffer filename) {
+        return _upload(bytes, path, filename);
+    }
+
+    /**
+     * <p>上传文件，通过文件对象</p>
+     * <p>提供给特殊需求使用的方法</p>
+     * @param file 需要上传的文件
+     * @param path 目标文件绝对路径
+     * @param filename 目标文件名称
+     * @return 上传成功与否
+     */
+    public boolean upload(File file, StringBuffer path, StringBuffer filename) {
+        return _upload(file, path, filename);
+    }
+
+    /**
+     * <p>上传文件，通过Base64</p>
+     * <p>提供给特殊需求使用的方法</p>
+     * @param base64 需要上传的Base64
+     * @param path 目标文件绝对路径
+     * @param filename 目标文件名称
+     * @return 上传成功与否
+     */
+    public boolean upload(String base64, StringBuffer path, StringBuffer filename) {
+        return _upload(base64, path, filename);
+    }
+
+    /**
+     * 上传文件，通过输入流
+     * @param input 需要上传的流
+     * @param path 目标文件绝对路径
+     * @param filename 目标文件名称
+     * @return 上传成功与否
+     */
+    public abstract boolean upload(InputStream input, String path, String filename);
+
+    /**
+     * 上传文件，通过字节
+     * @param bytes 需要上传的字节
+     * @param path 目标文件绝对路径
+     * @param filename 目标文件名称
+     * @return 上传成功与否
+     */
+    public boolean upload(byte[] bytes, String path, String filename) {
+        return _upload(bytes, path, filename);
+    }
+
+    /**
+     * <p>上传文件，通过文件对象</p>
+     * <p>提供给特殊需求使用的方法</p>
+     * @param file 需要上传的文件
+     * @param path 目标文件绝对路径
+     * @param filename 目标文件名称
+     * @return 上传成功与否
+     */
+    public boolean upload(File file, String path, String filename) {
+        return _upload(file, path, filename);
+    }
+
+    /**
+     * 上传文件，通过Base64
+     * @param base64 需要上传的Base64
+     * @param path 目标文件绝对路径
+     * @param filename 目标文件名称
+     * @return 上传成功与否
+     */
+    public boolean upload(String base64, String path, String filename) {
+        return _upload(base64, path, filename);
+    }
+
+    /**
+     * <p>上传文件，同时计算校验和，并与文件服务器提供的校验和比对（见 {@link #getChecksum}）</p>
+     * <p>校验和在数据流经时计算，不会再次下载；比对只需查询一次文件信息，文件服务器不提供该算法时不比对</p>
+     * @param input 需要上传的流
+     * @param path 目标文件绝对路径，上传后由实现写入实际路径（如FastDFS）
+     * @param filename 目标文件名称，上传后由实现写入实际名称（如FastDFS）
+     * @param algorithm 校验和算法
+     * @return 上传及校验结果
+     * @since 1.4
+     */
+    public ChecksumResult upload(InputStream input, StringBuffer path, StringBuffer filename, ChecksumAlgorithm algorithm) {
+        if (input == null || algorithm == null) {
+            return ChecksumResult.failure(algorithm);
+        }
+        ChecksumInputStream checked = new ChecksumInputStream(input, algorithm);
+        if (!upload(checked, path, filename)) {
+            return ChecksumResult.failure(algorithm);
+        }
+        return verifyChecksum("upload", path.toString(), filename.toString(), checked);
+    }
+
+    /**
+     * <p>上传文件，同时计算校验和，并与文件服务器提供的校验和比对（见 {@link #getChecksum}）</p>
+     * <p>校验和在数据流经时计算，不会再次下载；比对只需查询一次文件信息，文件服务器不提供该算法时不比对</p>
+     * @param input 需要上传的流
+     * @param path 目标文件绝对路径
+     * @param filename 目标文件名称
+     * @param algorithm 校验和算法
+     * @return 上传及校验结果
+     * @since 1.4
+     */
+    public ChecksumResult upload(InputStream input, String path, String filename, ChecksumAlgorithm algorithm) {
+        if (input == null || algorithm == null) {
+            return ChecksumResult.failure(algorithm);
+        }
+        ChecksumInputStream checked = new ChecksumInputStream(input, algorithm);
+        if (!upload(checked, path, filename)) {
+            return ChecksumResult.failure(algorithm);
+        }
+        return verifyChecksum("upload", path, filename, checked);
+    }
+
+    /**
+     * <p>上传已压缩的文件，并在文件上记录压缩编码</p>
+     * <p>默认忽略压缩编码直接上传，仅 {@link #isContentEncodingSupported()} 的实现会记录</p>
+     * @param input 需要上传的流
+     * @param path 目标文件绝对路径，上传后由实现写入实际路径（如FastDFS）
+     * @param filename 目标文件名称，上传后由实现写入实际名称（如FastDFS）
+     * @param encoding 压缩编码（见 {@link CompressionCodec#getName()}），为NULL时不记录
+     * @return 上传成功与否
+     * @since 1.4
+     */
+    public boolean uploadEncoded(InputStream input, StringBuffer path, StringBuffer filename, String encoding) {
+        return upload(input, path, filename);
+    }
+
+    /**
+     * <p>上传已压缩的文件，并在文件上记录压缩编码</p>
+     * <p>默认忽略压缩编码直接上传，仅 {@link #isContentEncodingSupported()} 的实现会记录</p>
+     * @param input 需要上传的流
+     * @param path 目标文件绝对路径
+     * @param filename 目标文件名称
+     * @param encoding 压缩编码（见 {@link CompressionCodec#getName()}），为NULL时不记录
+     * @return 上传成功与否
+     * @since 1.4
+     */
+    public boolean uploadEncoded(InputStream input, String path, String filename, String encoding) {
+        return upload(input, path, filename);
+    }
+
+    private boolean _upload(byte[] bytes, Object path, Object filename) {
+        try (ByteArrayInputStream stream = new ByteArrayInputStream(bytes)) {
+            if (path instanceof StringBuffer && filename instanceof StringBuffer) {
+                return upload(stream, (StringBuffer) path, (StringBuffer) filename);
+            } else if (path instanceof String && filename instanceof String) {
+                return upload(stream, (String) path, (String) filename);
+            } else {
+                return false;
+            }
+        } catch (Exception e) {
+            log.error(message.getString("fs.upload.fail.io")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename))
+                    .replace("${length}", bytes == null ? "-1" : Integer.toString(bytes.length)), e);
+        }
+        return false;
+    }
+
+    private boolean _upload(File file, Object path, Object filename) {
+        try (FileInputStream fileInputStream = new FileInputStream(file);) {
+            if (path instanceof StringBuffer && filename instanceof StringBuffer) {
+                return upload(fileInputStream, (StringBuffer) path, (StringBuffer) filename);
+            } else if (path instanceof String && filename instanceof String) {
+                return upload(fileInputStream, (String) path, (String) filename);
+            } else {
+                return false;
+            }
+        } catch (Exception e) {
+            String size;
+            try {
+                size = String.valueOf(file.length());
+            } catch (Throwable ignored) {
+                size = "";
+            }
+            log.error(message.getString("fs.upload.fail.io")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename))
+                    .replace("${length}", size), e);
+        }
+        return false;
+    }
+
+    private boolean _upload(String base64, Object path, Object filename) {
+        InputStream decoded = _base64ToStream(base64, path, filename);
+        if (decoded == null) {
+            return false;
+        }
+        String length = "-1";
+        try (InputStream stream = decoded) {
+            length = Integer.toString(stream.available());
+            if (path instanceof StringBuffer && filename instanceof StringBuffer) {
+                return upload(stream, (StringBuffer) path, (StringBuffer) filename);
+            } else if (path instanceof String && filename instanceof String) {
+                return upload(stream, (String) path, (String) filename);
+            } else {
+                return false;
+            }
+        } catch (Exception e) {
+            log.error(message.getString("fs.upload.fail.io")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename))
+                    .replace("${length}", length), e);
+        }
+        return false;
+    }
+
+    /**
+     * <p>将Base64转换为解码流，格式错误时记录日志并返回null</p>
+     * <p>解码流直接读取原字符串，{@link InputStream#available()} 为解码后的总长度</p>
+     * @param base64 Base64字符串或Data URI
+     * @param path 绝对路径，用于日志
+     * @param filename 文件名，用于日志
+     * @return 解码流
+     * @since 1.4
+     */
+    protected InputStream _base64ToStream(String base64, Object path, Object filename) {
+        try {
+            return Base64Streams.decode(base64);
+        } catch (Exception e) {
+            log.error(message.getString("fs.upload.fail.base64")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return null;
+        }
+    }
+
+    protected byte[] _base64ToBytes(String base64, Object path, Object filename) {
+        InputStream decoded = _base64ToStream(base64, path, filename);
+        if (decoded == null) {
+            return null;
+        }
+        try (InputStream stream = decoded) {
+            byte[] bytes = new byte[stream.available()];
+            int offset = 0;
+            int len;
+            while (offset < bytes.length && -1 != (len = stream.read(bytes, offset, bytes.length - offset))) {
+                offset += len;
+            }
+            return bytes;
+        } catch (Exception e) {
+            log.error(message.getString("fs.upload.fail.base64")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return null;
+        }
+    }
+
+    /**
+     * <p>批量上传文件，使用配置的并发数 {@link BatchProperty#getParallelism()}</p>
+     * @param requests 待上传的文件
+     * @return 与传入顺序一致的逐项结果
+     * @see #uploadAll(Collection, int)
+     * @since 1.4
+     */
+    public List<BatchResult<UploadRequest>> uploadAll(Collection<UploadRequest> requests) {
+        return uploadAll(requests, batchParallelism());
+    }
+
+    /**
+     * <p>批量上传文件</p>
+     * <p>按目标目录分组，每个目录只创建（切换）一次；分组后按并发数切分为若干批次，
+     * 由调用线程与至多 {@code parallelism - 1} 个临时线程同时处理，线程安全的实现共用当前实例，
+     * 其余实现通过 {@link #openSession()} 各自使用独立的连接（通道）</p>
+     * <p>单项失败不影响其他项；所有项处理完成后返回，输入流均会被关闭</p>
+     * @param requests 待上传的文件
+     * @param parallelism 并发数，&lt;=1时在调用线程中依次上传
+     * @return 与传入顺序一致的逐项结果
+     * @since 1.4
+     */
+    public List<BatchResult<UploadRequest>> uploadAll(Collection<UploadRequest> requests, int parallelism) {
+        return runBatch(requests, parallelism, "fs.batch.upload.finished",
+                request -> request == null || request.getFilename() == null || request.getFilename().trim().isEmpty() ? null : request.getPath(),
+                this::prepareUploadDirectory,
+                FileSystem::uploadGroup);
+    }
+
+    /**
+     * <p>批量删除文件，使用配置的并发数 {@link BatchProperty#getParallelism()}</p>
+     * @param paths 文件完整路径（目录与文件名以/连接）
+     * @return 与传入顺序一致的逐项结果
+     * @see #deleteAll(Collection, int)
+     * @since 1.4
+     */
+    public List<BatchResult<String>> deleteAll(Collection<String> paths) {
+        return deleteAll(paths, batchParallelism());
+    }
+
+    /**
+     * <p>批量删除文件</p>
+     * <p>按所在目录分组，由 {@link #deleteGroup(String, List)} 批量删除，分组与并发方式同 {@link #uploadAll(Collection, int)}</p>
+     * @param paths 文件完整路径（目录与文件名以/连接）
+     * @param parallelism 并发数，&lt;=1时在调用线程中依次删除
+     * @return 与传入顺序一致的逐项结果
+     * @since 1.4
+     */
+    public List<BatchResult<String>> deleteAll(Collection<String> paths, int parallelism) {
+        return runBatch(paths, parallelism, "fs.batch.delete.finished",
+                FileSystem::parentOf,
+                path -> true,
+                (session, path, group) -> {
+                    List<String> filenames = new ArrayList<>(group.size());
+                    for (String item : group) {
+                        filenames.add(filenameOf(item));
+                    }
+                    List<BatchResult<String>> deleted = session.deleteGroup(path, filenames);
+                    List<BatchResult<String>> results = new ArrayList<>(group.size());
+                    for (int i = 0; i < group.size(); i++) {
+                        BatchResult<String> result = i < deleted.size() ? deleted.get(i) : null;
+                        results.add(result == null ? BatchResult.failure(group.get(i), null)
+                                : new BatchResult<>(group.get(i), result.isSuccess(), result.getError()));
+                    }
+                    return results;
+                });
+    }
+
+    /**
+     * <p>删除目录下的所有文件（包含子目录中的文件）</p>
+     * <p>默认先递归列出再调用 {@link #deleteAll(Collection)}，目录本身保留；对象存储实现按对象名前缀删除</p>
+     * @param path 目录绝对路径
+     * @return 逐项结果，列出失败时返回NULL
+     * @since 1.4
+     */
+    public List<BatchResult<String>> deleteByPrefix(String path) {
+        List<FileInfo<F>> files = list(path, true, true, -1);
+        if (files == null) {
+            return null;
+        }
+        List<String> paths = new ArrayList<>();
+        for (FileInfo<F> file : files) {
+            if (file.isFile()) {
+                String dir = file.getAbsolutePath() == null ? path : file.getAbsolutePath();
+                paths.add(dir.endsWith("/") ? dir + file.getFilename() : dir + "/" + file.getFilename());
+            }
+        }
+        return deleteAll(paths);
+    }
+
+    private int batchParallelism() {
+        BatchProperty batch = property.getBatch();
+        Integer parallelism = batch == null ? null : batch.getParallelism();
+        return parallelism == null || parallelism <= 0 ? BatchProperty.DEFAULT_PARALLELISM : parallelism;
+    }
+
+    /**
+     * 批量操作的通用流程：按目录分组、准备目录、切分批次并由调用线程与临时线程同时处理
+     * @param input 请求项
+     * @param parallelism 并发数
+     * @param finishedKey 完成时的日志
+     * @param directoryOf 请求项所在目录，返回NULL表示请求项无效
+     * @param prepare 每个目录处理前调用一次，返回false时该目录下的请求项均失败
+     * @param operation 在指定会话上处理同一目录下的一批请求项
+     */
+    private <I> List<BatchResult<I>> runBatch(Collection<I> input, int parallelism, String finishedKey,
+                                              Function<I, String> directoryOf, Predicate<String> prepare,
+                                              GroupOperation<T, F, I> operation) {
+        if (input == null || input.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<I> items = new ArrayList<>(input);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        BatchResult<I>[] results = new BatchResult[items.size()];
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        Map<String, String> directories = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            I item = items.get(i);
+            String dir = item == null ? null : directoryOf.apply(item);
+            if (dir == null || dir.trim().isEmpty()) {
+                results[i] = BatchResult.failure(item, new IllegalArgumentException(message.getString("fs.batch.request.invalid")
+                        .replace("${request}", String.valueOf(item))));
+                continue;
+            }
+            String key = normalizeDirectory(dir);
+            directories.putIfAbsent(key, dir);
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+        int chunkSize = parallelism <= 1 ? Integer.MAX_VALUE : Math.max(1, (items.size() + parallelism - 1) / parallelism);
+        Queue<Chunk> chunks = new ConcurrentLinkedQueue<>();
+        for (Map.Entry<String, List<Integer>> entry : groups.entrySet()) {
+            String path = directories.get(entry.getKey());
+            List<Integer> group = entry.getValue();
+            if (!prepare.test(path)) {
+                IOException error = new IOException(message.getString("fs.batch.mkdir.fail")
+                        .replace("${path}", path));
+                for (Integer index : group) {
+                    results[index] = BatchResult.failure(items.get(index), error);
+                }
+                continue;
+            }
+            for (int from = 0; from < group.size(); from += chunkSize) {
+                chunks.add(new Chunk(path, group.subList(from, Math.min(group.size(), from + chunkSize))));
+            }
+        }
+        int workers = Math.min(parallelism, chunks.size());
+        try {
+            runWorkers(workers, "fs-batch-", session -> drain(session, chunks, items, results, operation));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error(message.getString("fs.batch.worker.error"), e.getCause());
+        }
+        int succeeded = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = BatchResult.failure(items.get(i), new CancellationException(message.getString("fs.batch.not.executed")));
+            } else if (results[i].isSuccess()) {
+                succeeded++;
+            }
+        }
+        log.debug(message.getString(finishedKey)
+                .replace("${succeeded}", Integer.toString(succeeded))
+                .replace("${total}", Integer.toString(results.length))
+                .replace("${groups}", Integer.toString(groups.size()))
+                .replace("${parallelism}", Integer.toString(Math.max(1, workers))));
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    /**
+     * 由调用线程与 {@code workers - 1} 个临时线程同时执行任务，线程安全的实现共用当前实例，其余实现在临时线程中通过 {@link #openSession()} 创建各自的会话，
+     * 无法创建时该线程直接结束，由其他线程完成剩余工作；任一线程异常结束或调用线程被中断时取消其余临时线程
+     * @param workers 线程数，&lt;=1时只在调用线程中执行
+     * @param threadPrefix 临时线程名称前缀
+     * @param task 在指定会话上执行的任务
+     * @throws InterruptedException 调用线程被中断
+     * @throws ExecutionException 临时线程异常结束
+     */
+    private void runWorkers(int workers, String threadPrefix, SessionTask<T, F> task) throws InterruptedException, ExecutionException {
+        if (workers <= 1) {
+            task.run(this);
+            return;
+        }
+        String alias = property.getAlias() == null ? "default" : property.getAlias();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers - 1, r -> {
+            Thread thread = new Thread(r, threadPrefix + alias + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<?>> futures = new ArrayList<>();
+        boolean completed = false;
+        try {
+            for (int i = 1; i < workers; i++) {
+                futures.add(pool.submit(() -> {
+                    FileSystem<T, F> session = isThreadSafe() ? this : openSession();
+                    if (session == null) {
+                        // 无法创建额外连接时由其他线程处理剩余工作
+                        return null;
+                    }
+                    try {
+                        task.run(session);
+                    } finally {
+                        if (session != this) {
+                            session.disconnect();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            task.run(this);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                futures.forEach(future -> future.cancel(true));
+            }
+            pool.shutdownNow();
+        }
+    }
+
+    private static <T, F, I> void drain(FileSystem<T, F> session, Queue<Chunk> chunks, List<I> items,
+                                        BatchResult<I>[] results, GroupOperation<T, F, I> operation) {
+        Chunk chunk;
+        while ((chunk = chunks.poll()) != null) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            List<I> group = new ArrayList<>(chunk.indexes.size());
+            for (Integer index : chunk.indexes) {
+                group.add(items.get(index));
+            }
+            List<BatchResult<I>> groupResults;
+            try {
+                groupResults = operation.apply(session, chunk.path, group);
+            } catch (RuntimeException e) {
+                log.error(message.getString("fs.batch.worker.error"), e);
+                groupResults = new ArrayList<>();
+                for (I item : group) {
+                    groupResults.add(BatchResult.failure(item, e));
+                }
+            }
+            for (int i = 0; i < group.size(); i++) {
+                results[chunk.indexes.get(i)] = i < groupResults.size() ? groupResults.get(i) : BatchResult.failure(group.get(i), null);
+            }
+        }
+    }
+
+    static String normalizeDirectory(String path) {
+        String dir = path.trim().replace("\\", "/");
+        while (dir.length() > 1 && dir.endsWith("/")) {
+            dir = dir.substring(0, dir.length() - 1);
+        }
+        return dir;
+    }
+
+    private static String parentOf(String path) {
+        String normalized = path.replace("\\", "/");
+        int index = normalized.lastIndexOf('/');
+        if (index < 0 || index == normalized.length() - 1) {
+            return null;
+        }
+        return index == 0 ? "/" : normalized.substring(0, index);
+    }
+
+    private static String filenameOf(String path) {
+        String normalized = path.replace("\\", "/");
+        return normalized.substring(normalized.lastIndexOf('/') + 1);
+    }
+
+    @FunctionalInterface
+    private interface SessionTask<T, F> {
+        void run(FileSystem<T, F> session) throws InterruptedException;
+    }
+
+    @FunctionalInterface
+    private interface GroupOperation<T, F, I> {
+        List<BatchResult<I>> apply(FileSystem<T, F> session, String path, List<I> group);
+    }
+
+    private static final class Chunk {
+
+        private final String path;
+        private final List<Integer> indexes;
+
+        Chunk(String path, List<Integer> indexes) {
+            this.path = path;
+            this.indexes = indexes;
+        }
+
+    }
+
+    /**
+     * <p>批量上传前为每个目标目录调用一次</p>
+     * <p>默认不做处理，由 {@link #upload(InputStream, String, String)} 自行处理目录；
+     * 需要切换或创建目录的实现应在此创建目录，使 {@link #uploadGroup(String, List)} 无需重复检查</p>
+     * @param path 目标目录
+     * @return 成功与否，失败时该目录下的文件均不上传
+     * @since 1.4
+     */
+    protected boolean prepareUploadDirectory(String path) {
+        return true;
+    }
+
+    /**
+     * <p>上传同一目录下的一批文件，目录已由 {@link #prepareUploadDirectory(String)} 处理</p>
+     * <p>默认逐个调用 {@link #upload(InputStream, String, String)}，实现可覆盖以复用目录状态</p>
+     * @param path 目标目录
+     * @param requests 该目录下的文件
+     * @return 与 {@code requests} 顺序一致的结果
+     * @since 1.4
+     */
+    protected List<BatchResult<UploadRequest>> uploadGroup(String path, List<UploadRequest> requests) {
+        List<BatchResult<UploadRequest>> results = new ArrayList<>(requests.size());
+        for (UploadRequest request : requests) {
+            try (InputStream input = request.openStream()) {
+                boolean b = upload(input, request.getPath(), request.getFilename());
+                results.add(b ? BatchResult.success(request) : BatchResult.failure(request, null));
+            } catch (Exception e) {
+                log.error(message.getString("fs.upload.fail.io")
+                        .replace("${path}", String.valueOf(request.getPath()))
+                        .replace("${filename}", String.valueOf(request.getFilename()))
+                        .replace("${length}", "-1"), e);
+                results.add(BatchResult.failure(request, e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * <p>为批量操作创建额外的会话</p>
+     * <p>仅非线程安全的实现会被调用，返回的实例使用独立的连接（通道），用完后调用 {@link #disconnect()} 释放；
+     * 默认返回NULL，批量操作只使用当前实例；实现需通过 {@link #inheritSettings(FileSystem)} 复制运行时设置</p>
+     * @return 新会话，无法创建时返回NULL
+     * @since 1.4
+     */
+    protected FileSystem<T, F> openSession() {
+        return null;
+    }
+
+    /**
+     * 将运行时设置的重试策略、熔断器、进度监听器及回调间隔复制至 {@link #openSession()} 创建的会话，使会话与当前实例行为一致
+     * @param session 新会话，可为NULL
+     * @return 传入的会话
+     * @since 1.4
+     */
+    protected <S extends FileSystem<?, ?>> S inheritSettings(S session) {
+        FileSystem<?, ?> target = session;
+        if (target != null) {
+            target.retryPolicy = this.retryPolicy;
+            target.circuitBreaker = this.circuitBreaker;
+            target.progressListeners = this.progressListeners;
+            target.progressIntervalMillis = this.progressIntervalMillis;
+        }
+        return session;
+    }
+
+    /**
+     * <p>删除同一目录下的一批文件</p>
+     * <p>默认逐个调用 {@link #deleteFile(String, String)}，实现可覆盖为批量或流水线方式</p>
+     * @param path 所在目录
+     * @param filenames 文件名
+     * @return 与 {@code filenames} 顺序一致的结果
+     * @since 1.4
+     */
+    protected List<BatchResult<String>> deleteGroup(String path, List<String> filenames) {
+        List<BatchResult<String>> results = new ArrayList<>(filenames.size());
+        for (String filename : filenames) {
+            try {
+                results.add(deleteFile(path, filename) ? BatchResult.success(filename) : BatchResult.failure(filename, null));
+            } catch (RuntimeException e) {
+                results.add(BatchResult.failure(filename, e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 根据给定路径创建至目录
+     * @param path 绝对路径
+     * @return 创建成功与否
+     */
+    public abstract boolean createDirectory(String path);
+
+    /**
+     * 下载为Base64
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return Base64
+     */
+    public String downloadBase64(String path, String filename) {
+        StringWriter writer = new StringWriter();
+        if (!downloadBase64(path, filename, writer)) {
+            return null;
+        }
+        return writer.toString();
+    }
+
+    /**
+     * <p>下载为Base64并写入输出流</p>
+     * <p>边下载边编码，不会将整个文件读入内存；下载失败时输出流中可能已写入部分内容；该方法不会关闭输出流</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @param output 输出流
+     * @return 成功与否
+     * @since 1.4
+     */
+    public boolean downloadBase64(String path, String filename, OutputStream output) {
+        if (output == null) {
+            return false;
+        }
+        return _downloadBase64(path, filename, Base64Streams.encode(output));
+    }
+
+    /**
+     * <p>下载为Base64并写入Writer</p>
+     * <p>边下载边编码，不会将整个文件读入内存；下载失败时Writer中可能已写入部分内容；该方法不会关闭Writer</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @param writer 字符输出
+     * @return 成功与否
+     * @since 1.4
+     */
+    public boolean downloadBase64(String path, String filename, Writer writer) {
+        if (writer == null) {
+            return false;
+        }
+        return _downloadBase64(path, filename, Base64Streams.encode(writer));
+    }
+
+    private boolean _downloadBase64(String path, String filename, OutputStream encoder) {
+        if (!download(path, filename, encoder)) {
+            return false;
+        }
+        try {
+            encoder.close();
+            return true;
+        } catch (IOException e) {
+            log.error(message.getString("fs.download.fail.stream")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return false;
+        }
+    }
+
+    /**
+     * 下载为临时文件
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 文件
+     */
+    public File downloadFile(String path, String filename) {
+        File dest = createTempDownloadFile(filename);
+        if (dest == null) {
+            return null;
+        }
+        return downloadFile(path, filename, dest);
+    }
+
+    /**
+     * 按文件名后缀生成临时文件路径，文件本身不会被创建
+     * @param filename 文件名
+     * @return 临时文件，失败时返回NULL
+     * @since 1.4
+     */
+    protected static File createTempDownloadFile(String filename) {
+        File dest;
+        try {
+            String destFilename;
+            String destFileSuffix;
+            if (filename == null) {
+                destFilename = "FileSystemUtilTempDownload";
+                destFileSuffix = ".bin";
+            } else {
+                String[] split = filename.split("/");
+                String name;
+                if (split.length > 1) {
+                    name = split[split.length - 1];
+                } else {
+                    name = filename;
+                }
+                if (name.contains(".")) {
+                    destFilename = name.substring(0, name.lastIndexOf("."));
+                    destFileSuffix = "." + name.substring(name.lastIndexOf(".") + 1);
+                } else {
+                    destFilename = name;
+                    destFileSuffix = ".bin";
+                }
+            }
+            // createTempFile要求前缀至少3个字符
+            while (destFilename.length() < 3) {
+                destFilename = destFilename.concat("_");
+            }
+            dest = File.createTempFile(destFilename, destFileSuffix);
+            // createTempFile会预先创建空文件，下载时以CREATE_NEW方式写入，需先删除
+            Files.deleteIfExists(dest.toPath());
+        } catch (Exception e) {
+            log.error(message.getString("fs.download.fail.io"), e);
+            return null;
+        }
+        return dest;
+    }
+
+    /**
+     * 下载为文件
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @param destFile 目标文件，不可预先创建
+     * @return 文件
+     */
+    public File downloadFile(String path, String filename, File destFile) {
+        boolean created = false;
+        boolean success = false;
+        try (FileChannel channel = FileChannel.open(destFile.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            created = true;
+            success = download(path, filename, channel);
+        } catch (Exception e) {
+            log.error(message.getString("fs.download.fail.io"), e);
+        }
+        if (!success) {
+            if (!created) {
+                return null;
+            }
+            try {
+                Files.deleteIfExists(destFile.toPath());
+            } catch (Exception ignored) {}
+            return null;
+        }
+        return destFile;
+    }
+
+    /**
+     * <p>下载并从通道当前位置开始写入给定的文件通道，数据不经过整文件大小的堆内存</p>
+     * <p>方法不会关闭传入的通道，完成后通道位置移动至写入数据之后</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @param channel 目标文件通道
+     * @return 下载成功与否
+     */
+    public boolean download(String path, String filename, FileChannel channel) {
+        if (channel == null) {
+            return false;
+        }
+        try (InputStream input = openInputStream(path, filename)) {
+            if (input == null) {
+                return false;
+            }
+            long length = transfer(input, channel);
+            log.debug(message.getString("fs.download.success")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename))
+                    .replace("${length}", Long.toString(length)));
+            return true;
+        } catch (Exception e) {
+            log.error(message.getString("fs.download.fail.stream")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return false;
+        }
+    }
+
+    /**
+     * 下载为字节数组
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 字节数组
+     */
+    public byte[] downloadBytes(String path, String filename) {
+        ByteArrayOutputStream stream = downloadStream(path, filename);
+        if (stream == null) {
+            return null;
+        }
+        return stream.toByteArray();
+    }
+
+    /**
+     * <p>下载为字节流</p>
+     * <p style="color:orange">会将整个文件读入内存，大文件请使用 {@link #download(String, String, OutputStream)} 或 {@link #openInputStream(String, String)}</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 字节流
+     */
+    public ByteArrayOutputStream downloadStream(String path, String filename) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        if (!download(path, filename, stream)) {
+            return null;
+        }
+        return stream;
+    }
+
+    /**
+     * <p>下载并写入给定的输出流，不会在内存中缓存整个文件</p>
+     * <p>方法不会关闭传入的输出流</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @param output 目标输出流
+     * @return 下载成功与否
+     */
+    public boolean download(String path, String filename, OutputStream output) {
+        if (output == null) {
+            return false;
+        }
+        try (InputStream input = openInputStream(path, filename)) {
+            if (input == null) {
+                return false;
+            }
+            long length = copy(input, output);
+            log.debug(message.getString("fs.download.success")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename))
+                    .replace("${length}", Long.toString(length)));
+            return true;
+        } catch (Exception e) {
+            log.error(message.getString("fs.download.fail.stream")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return false;
+        }
+    }
+
+    /**
+     * <p>下载并写入给定的输出流，同时计算校验和，并与文件服务器提供的校验和比对（见 {@link #getChecksum}）</p>
+     * <p>方法不会关闭传入的输出流；校验和不一致时数据已写入输出流，由调用方根据结果丢弃</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @param output 目标输出流
+     * @param algorithm 校验和算法
+     * @return 下载及校验结果
+     * @since 1.4
+     */
+    public ChecksumResult download(String path, String filename, OutputStream output, ChecksumAlgorithm algorithm) {
+        if (output == null || algorithm == null) {
+            return ChecksumResult.failure(algorithm);
+        }
+        ChecksumInputStream checked;
+        try (InputStream input = openInputStream(path, filename)) {
+            if (input == null) {
+                return ChecksumResult.failure(algorithm);
+            }
+            checked = new ChecksumInputStream(input, algorithm);
+            copy(checked, output);
+        } catch (Exception e) {
+            log.error(message.getString("fs.download.fail.stream")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return ChecksumResult.failure(algorithm);
+        }
+        return verifyChecksum("download", path, filename, checked);
+    }
+
+    /**
+     * <p>获取文件服务器记录的文件校验和，用于传输后的比对</p>
+     * <p>默认不提供；MinIO提供MD5（非分片上传的ETag）及对象上记录的 {@code x-amz-checksum-*}，FastDFS提供CRC32</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @param algorithm 校验和算法
+     * @return 小写十六进制的校验和，不提供该算法或查询失败时为NULL
+     * @since 1.4
+     */
+    public String getChecksum(String path, String filename, ChecksumAlgorithm algorithm) {
+        return null;
+    }
+
+    /**
+     * 获取上传时记录在文件上的压缩编码
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 压缩编码（见 {@link CompressionCodec#getName()}），未记录、不支持或查询失败时为NULL
+     * @since 1.4
+     */
+    public String getContentEncoding(String path, String filename) {
+        return null;
+    }
+
+    private ChecksumResult verifyChecksum(String direction, String path, String filename, ChecksumInputStream checked) {
+        String actual = checked.getChecksum();
+        String expected = getChecksum(path, filename, checked.getAlgorithm());
+        ChecksumResult result = new ChecksumResult(true, checked.getAlgorithm(), actual, checked.getCount(), expected);
+        if (Boolean.FALSE.equals(result.getVerified())) {
+            log.warn(message.getString("fs.checksum.mismatch")
+                    .replace("${direction}", direction)
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename))
+                    .replace("${algorithm}", checked.getAlgorithm().name())
+                    .replace("${actual}", actual)
+                    .replace("${expected}", expected));
+        }
+        return result;
+    }
+
+    /**
+     * <p>打开文件的读取流，数据在读取时才从文件服务器拉取</p>
+     * <p style="color:orange">调用方必须关闭返回的流；对于单连接的实现（如FTP、SFTP），流关闭之前不要在同一实例上进行其他操作</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 读取流，若文件不存在、文件服务器连接失败、或其他异常则返回NULL
+     */
+    public abstract InputStream openInputStream(String path, String filename);
+
+    /**
+     * <p>打开文件指定范围的读取流</p>
+     * <p>默认实现打开整个文件的读取流后跳过起始位置之前的内容，具体实现应覆盖该方法使用服务器的范围读取</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @param offset 起始位置，需&gt;=0，超出文件末尾时返回空的流
+     * @param length 读取长度，&lt;0为读取至文件末尾
+     * @return 读取流，若参数无效、文件不存在、文件服务器连接失败、或其他异常则返回NULL
+     * @since 1.4
+     */
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
+        if (!isValidRange(offset)) {
+            return null;
+        }
+        if (offset == 0 && length < 0) {
+            return openInputStream(path, filename);
+        }
+        InputStream input = openInputStream(path, filename);
+        if (input == null) {
+            return null;
+        }
+        try {
+            RangeInputStream.skipFully(input, offset);
+        } catch (IOException e) {
+            log.error(message.getString("fs.download.fail.stream")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            try {
+                input.close();
+            } catch (IOException ignored) {}
+            return null;
+        }
+        return length < 0 ? input : new RangeInputStream(input, length);
+    }
+
+    /**
+     * 校验范围读取的起始位置
+     * @param offset 起始位置
+     * @return 是否有效，无效时已记录日志
+     * @since 1.4
+     */
+    protected static boolean isValidRange(long offset) {
+        if (offset < 0) {
+            log.error(message.getString("fs.download.range.invalid")
+                    .replace("${offset}", Long.toString(offset)));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * <p>下载文件指定范围的内容为字节数组</p>
+     * <p style="color:orange">范围内的内容会全部读入内存，读取至文件末尾时请注意文件大小</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @param offset 起始位置，需&gt;=0
+     * @param length 读取长度，&lt;0为读取至文件末尾
+     * @return 字节数组，超出文件末尾时为空数组，失败时返回NULL
+     * @since 1.4
+     */
+    public byte[] downloadRange(String path, String filename, long offset, long length) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(length < 0 ? 32 : (int) Math.min(length, COPY_BUFFER_SIZE));
+        if (!downloadRange(path, filename, offset, length, stream)) {
+            return null;
+        }
+        return stream.toByteArray();
+    }
+
+    /**
+     * <p>下载文件指定范围的内容并写入给定的输出流</p>
+     * <p>方法不会关闭传入的输出流</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @param offset 起始位置，需&gt;=0
+     * @param length 读取长度，&lt;0为读取至文件末尾
+     * @param output 目标输出流
+     * @return 下载成功与否
+     * @since 1.4
+     */
+    public boolean downloadRange(String path, String filename, long offset, long length, OutputStream output) {
+        if (output == null) {
+            return false;
+        }
+        if (length == 0) {
+            return isValidRange(offset);
+        }
+        try (InputStream input = openInputStream(path, filename, offset, length)) {
+            if (input == null) {
+                return false;
+            }
+            long copied = copy(input, output);
+            log.debug(message.getString("fs.download.range.success")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename))
+                    .replace("${offset}", Long.toString(offset))
+                    .replace("${length}", Long.toString(copied)));
+            return true;
+        } catch (Exception e) {
+            log.error(message.getString("fs.download.fail.stream")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return false;
+        }
+    }
+
+    /**
+     * <p>将输入流写入文件通道</p>
+     * <p>输入流本身基于文件通道时使用 {@link FileChannel#transferFrom} 由系统直接搬运，否则借用 {@link DirectBufferPool} 的堆外缓冲区写入，避免额外的堆内存复制</p>
+     * @param input 输入流，不会被关闭
+     * @param channel 文件通道，从当前位置开始写入，完成后位置移动至写入数据之后
+     * @return 写入的字节数
+     * @throws IOException 读写异常
+     */
+    protected static long transfer(InputStream input, FileChannel channel) throws IOException {
+        long start = channel.position();
+        long position = start;
+        ReadableByteChannel source = Channels.newChannel(input);
+        if (source instanceof FileChannel) {
+            long n;
+            while ((n = channel.transferFrom(source, position, DirectBufferPool.BUFFER_SIZE * 16L)) > 0) {
+                position += n;
+            }
+        } else {
+            ByteBuffer buffer = DirectBufferPool.acquire();
+            try {
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                    buffer.clear();
+                }
+            } finally {
+                DirectBufferPool.release(buffer);
+            }
+        }
+        channel.position(position);
+        return position - start;
+    }
+
+    /**
+     * 将输入流复制到输出流
+     * @param input 输入流
+     * @param output 输出流
+     * @return 复制的字节数
+     * @throws IOException 读写异常
+     */
+    protected static long copy(InputStream input, OutputStream output) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long count = 0;
+        int len;
+        while (-1 != (len = input.read(buffer))) {
+            output.write(buffer, 0, len);
+            count += len;
+        }
+        return count;
+    }
+
+    /**
+     * 删除文件
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 成功与否
+     */
+    public abstract boolean deleteFile(String path, String filename);
+
+    /**
+     * 关闭连接
+     */
+    @Override
+    public void close() {
+        AsyncFileSystem<T, F> async;
+        synchronized (this) {
+            async = this.asyncFileSystem;
+            this.asyncFileSystem = null;
+        }
+        if (async != null) {
+            async.close();
+        }
+        this.disconnect();
+    }
+
+    /**
+     * 为可能的断点续传提供接口支持
+     * @param base64 BASE64
+     * @param path 绝对路径
      * @param filename 文件名
      * @param fileSize 当前块大小
      * @param fileOffset 从文件该偏移量处继续上传
      * @return 成功与否
      */
     public boolean appenderUpload(String base64, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
-        byte[] bytes = _base64ToBytes(base64, path.toString(), filename.toString());
-        if (bytes == null) {
+        InputStream decoded = _base64ToStream(base64, path.toString(), filename.toString());
+        if (decoded == null) {
             return false;
         }
-        return appenderUpload(bytes, path, filename, fileSize, fileOffset);
+        try (InputStream stream = decoded) {
+            return appenderUpload(stream, path, filename, fileSize, fileOffset);
+        } catch (Exception e) {
+            log.error(message.getString("fs.upload.fail.io")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename))
+                    .replace("${length}", Long.toString(fileSize)), e);
+        }
+        return false;
     }
 
     /**
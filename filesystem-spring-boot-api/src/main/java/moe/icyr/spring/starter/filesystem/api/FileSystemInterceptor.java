@@ -0,0 +1,39 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+/**
+ * <p>文件服务器操作拦截器，通过 {@link InterceptingFileSystem} 在每次操作前后回调，可用于追踪、审计等</p>
+ * <p>多个拦截器时 {@link #before} 按注册顺序调用，{@link #after}、{@link #error} 按相反顺序调用；
+ * 回调抛出的异常会被记录并忽略，不影响操作本身</p>
+ * <p>实现返回失败（{@code false} 或NULL）时调用 {@link #after}，{@link FileSystemOperation#isSuccess()} 为false；
+ * 只有操作抛出未捕获的异常时才调用 {@link #error}</p>
+ * <p>回调在执行操作的线程上同步调用，请避免耗时操作；需要改变操作结果（如缓存）时请继承 {@link ForwardingFileSystem}</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public interface FileSystemInterceptor {
+
+    /**
+     * 操作开始前
+     * @param operation 操作信息
+     */
+    default void before(FileSystemOperation operation) {
+    }
+
+    /**
+     * 操作返回后
+     * @param operation 操作信息
+     * @param result 操作的返回值，{@code boolean} 返回值为 {@link Boolean}
+     */
+    default void after(FileSystemOperation operation, Object result) {
+    }
+
+    /**
+     * 操作抛出异常后，异常会继续抛出给调用方
+     * @param operation 操作信息
+     * @param error 异常
+     */
+    default void error(FileSystemOperation operation, Throwable error) {
+    }
+
+}
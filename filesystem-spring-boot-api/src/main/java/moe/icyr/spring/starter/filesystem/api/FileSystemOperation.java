@@ -0,0 +1,132 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>一次文件服务器操作的信息，传递给 {@link FileSystemInterceptor}</p>
+ * <p>每次操作创建一个实例，同一操作的各回调收到的是同一实例，可通过 {@link #setAttribute(String, Object)} 在回调之间传递数据（如追踪的Span）</p>
+ * <p>非线程安全，请勿在回调之外保存</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public final class FileSystemOperation {
+
+    private final String name;
+    private String path;
+    private final String filename;
+    private long bytes;
+    private final long startNanos;
+    private long elapsedNanos = -1;
+    private boolean success;
+    private Map<String, Object> attributes;
+
+    FileSystemOperation(String name, String path, String filename, long bytes) {
+        this.name = name;
+        this.path = path;
+        this.filename = filename;
+        this.bytes = bytes;
+        this.startNanos = System.nanoTime();
+    }
+
+    void finish(boolean success) {
+        this.elapsedNanos = System.nanoTime() - startNanos;
+        this.success = success;
+    }
+
+    void setPath(String path) {
+        this.path = path;
+    }
+
+    void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    void addBytes(long n) {
+        this.bytes = Math.max(bytes, 0) + n;
+    }
+
+    /**
+     * @return 操作名称，与 {@link FileSystem} 的方法名一致，如 {@code upload}、{@code download}、{@code list}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 路径，上传完成后为实现回写的实际路径（如FastDFS），批量操作为NULL
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return 文件名，不涉及文件名的操作为NULL
+     */
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * @return 传输的字节数，未知时为-1；下载在完成后才可知，读取流的操作在打开时无法得知
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return 开始时的 {@link System#nanoTime()}
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * @return 耗时（纳秒），操作完成前为-1
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return 耗时（毫秒），操作完成前为-1
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * @return 是否成功（返回值为 {@code true} 或非NULL），操作完成前为false
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public Object getAttribute(String key) {
+        return attributes == null ? null : attributes.get(key);
+    }
+
+    public FileSystemOperation setAttribute(String key, Object value) {
+        if (attributes == null) {
+            attributes = new HashMap<>(4);
+        }
+        attributes.put(key, value);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", FileSystemOperation.class.getSimpleName() + "[", "]")
+                .add("name='" + name + "'")
+                .add("path='" + path + "'")
+                .add("filename='" + filename + "'")
+                .add("bytes=" + bytes)
+                .add("elapsedNanos=" + elapsedNanos)
+                .add("success=" + success)
+                .toString();
+    }
+
+}
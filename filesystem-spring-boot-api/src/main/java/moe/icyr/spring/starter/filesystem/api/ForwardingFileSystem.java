@@ -0,0 +1,349 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import moe.icyr.spring.starter.filesystem.api.entity.FileSystemProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumAlgorithm;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.List;
+import java.util.ResourceBundle;
+
+/**
+ * <p>将所有操作转发至另一实例的文件服务器，用于在不修改具体实现的情况下附加功能（如缓存）</p>
+ * <p>子类覆盖需要附加功能的方法即可；连接由被装饰的实例管理，关闭该实例时一并关闭被装饰的实例</p>
+ * <p>{@code downloadBytes}、{@code downloadStream}、{@code downloadBase64} 等由其他方法组合而成的方法不转发，
+ * 仍调用该实例的 {@link #download(String, String, OutputStream)}，子类只需覆盖基础方法</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class ForwardingFileSystem<T, F> extends FileSystem<T, F> {
+
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    /**
+     * 被装饰的实例
+     */
+    protected final FileSystem<T, F> delegate;
+
+    /**
+     * 使用被装饰实例的配置创建，不会创建新的连接
+     * @param delegate 被装饰的实例
+     */
+    public ForwardingFileSystem(FileSystem<T, F> delegate) {
+        super(requireDelegate(delegate).property, false);
+        this.delegate = delegate;
+    }
+
+    private static <T, F> FileSystem<T, F> requireDelegate(FileSystem<T, F> delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException(message.getString("fs.forwarding.valid.not.null"));
+        }
+        return delegate;
+    }
+
+    /**
+     * @return 被装饰的实例
+     */
+    public FileSystem<T, F> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    protected void init(FileSystemProperty property) {
+    }
+
+    @Override
+    protected boolean connect() {
+        return delegate.connect();
+    }
+
+    @Override
+    public T getFileSystemHolder() {
+        return delegate.getFileSystemHolder();
+    }
+
+    @Override
+    public void disconnect() {
+        delegate.disconnect();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return delegate.isThreadSafe();
+    }
+
+    @Override
+    public long getReconnectCount() {
+        return delegate.getReconnectCount();
+    }
+
+    /**
+     * 重试由被装饰的实例执行
+     */
+    @Override
+    public RetryPolicy getRetryPolicy() {
+        return delegate.getRetryPolicy();
+    }
+
+    @Override
+    public FileSystem<T, F> setRetryPolicy(RetryPolicy retryPolicy) {
+        delegate.setRetryPolicy(retryPolicy);
+        return this;
+    }
+
+    @Override
+    public long getRetryCount() {
+        return delegate.getRetryCount();
+    }
+
+    @Override
+    public long getRetryDelayMillis() {
+        return delegate.getRetryDelayMillis();
+    }
+
+    /**
+     * 设置至被装饰的实例，失败由其上报
+     */
+    @Override
+    public CircuitBreaker getCircuitBreaker() {
+        return delegate.getCircuitBreaker();
+    }
+
+    @Override
+    public FileSystem<T, F> setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        delegate.setCircuitBreaker(circuitBreaker);
+        return this;
+    }
+
+    /**
+     * 注册至被装饰的实例，传输由其执行
+     */
+    @Override
+    public FileSystem<T, F> addProgressListener(ProgressListener listener) {
+        delegate.addProgressListener(listener);
+        return this;
+    }
+
+    @Override
+    public FileSystem<T, F> removeProgressListener(ProgressListener listener) {
+        delegate.removeProgressListener(listener);
+        return this;
+    }
+
+    @Override
+    public List<ProgressListener> getProgressListeners() {
+        return delegate.getProgressListeners();
+    }
+
+    @Override
+    public long getProgressInterval() {
+        return delegate.getProgressInterval();
+    }
+
+    @Override
+    public FileSystem<T, F> setProgressInterval(long progressInterval) {
+        delegate.setProgressInterval(progressInterval);
+        return this;
+    }
+
+    @Override
+    public boolean isUploadLengthRequired() {
+        return delegate.isUploadLengthRequired();
+    }
+
+    @Override
+    public boolean isContentEncodingSupported() {
+        return delegate.isContentEncodingSupported();
+    }
+
+    @Override
+    public boolean isContentTransformed() {
+        return delegate.isContentTransformed();
+    }
+
+    @Override
+    public List<FileInfo<F>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+        return delegate.list(path, deepFind, flatPrint, maxDepth);
+    }
+
+    @Override
+    public CloseableIterator<FileInfo<F>> listIterator(String path, boolean deepFind, int maxDepth) {
+        return delegate.listIterator(path, deepFind, maxDepth);
+    }
+
+    @Override
+    protected CloseableIterator<FileInfo<F>> listDirectory(String path) {
+        return delegate.listDirectory(path);
+    }
+
+    @Override
+    public List<FileInfo<F>> listParallel(String path, boolean flatPrint, int maxDepth, int parallelism) {
+        return delegate.listParallel(path, flatPrint, maxDepth, parallelism);
+    }
+
+    @Override
+    public FileInfo<F> peekFile(String path, String filename) {
+        return delegate.peekFile(path, filename);
+    }
+
+    @Override
+    public boolean upload(InputStream input, StringBuffer path, StringBuffer filename) {
+        return delegate.upload(input, path, filename);
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, StringBuffer path, StringBuffer filename) {
+        return delegate.upload(bytes, path, filename);
+    }
+
+    @Override
+    public boolean upload(File file, StringBuffer path, StringBuffer filename) {
+        return delegate.upload(file, path, filename);
+    }
+
+    @Override
+    public boolean upload(String base64, StringBuffer path, StringBuffer filename) {
+        return delegate.upload(base64, path, filename);
+    }
+
+    @Override
+    public boolean upload(InputStream input, String path, String filename) {
+        return delegate.upload(input, path, filename);
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, StringBuffer path, StringBuffer filename, String encoding) {
+        return delegate.uploadEncoded(input, path, filename, encoding);
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, String path, String filename, String encoding) {
+        return delegate.uploadEncoded(input, path, filename, encoding);
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, String path, String filename) {
+        return delegate.upload(bytes, path, filename);
+    }
+
+    @Override
+    public boolean upload(File file, String path, String filename) {
+        return delegate.upload(file, path, filename);
+    }
+
+    @Override
+    public boolean upload(String base64, String path, String filename) {
+        return delegate.upload(base64, path, filename);
+    }
+
+    @Override
+    public List<BatchResult<UploadRequest>> uploadAll(Collection<UploadRequest> requests, int parallelism) {
+        return delegate.uploadAll(requests, parallelism);
+    }
+
+    @Override
+    public List<BatchResult<String>> deleteAll(Collection<String> paths, int parallelism) {
+        return delegate.deleteAll(paths, parallelism);
+    }
+
+    @Override
+    public List<BatchResult<String>> deleteByPrefix(String path) {
+        return delegate.deleteByPrefix(path);
+    }
+
+    @Override
+    public boolean createDirectory(String path) {
+        return delegate.createDirectory(path);
+    }
+
+    @Override
+    public File downloadFile(String path, String filename) {
+        return delegate.downloadFile(path, filename);
+    }
+
+    @Override
+    public File downloadFile(String path, String filename, File destFile) {
+        return delegate.downloadFile(path, filename, destFile);
+    }
+
+    @Override
+    public boolean download(String path, String filename, FileChannel channel) {
+        return delegate.download(path, filename, channel);
+    }
+
+    @Override
+    public boolean download(String path, String filename, OutputStream output) {
+        return delegate.download(path, filename, output);
+    }
+
+    @Override
+    public String getChecksum(String path, String filename, ChecksumAlgorithm algorithm) {
+        return delegate.getChecksum(path, filename, algorithm);
+    }
+
+    @Override
+    public String getContentEncoding(String path, String filename) {
+        return delegate.getContentEncoding(path, filename);
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename) {
+        return delegate.openInputStream(path, filename);
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
+        return delegate.openInputStream(path, filename, offset, length);
+    }
+
+    @Override
+    public boolean deleteFile(String path, String filename) {
+        return delegate.deleteFile(path, filename);
+    }
+
+    @Override
+    public boolean appenderUpload(String base64, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return delegate.appenderUpload(base64, path, filename, fileSize, fileOffset);
+    }
+
+    @Override
+    public boolean appenderUpload(byte[] bytes, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return delegate.appenderUpload(bytes, path, filename, fileSize, fileOffset);
+    }
+
+    @Override
+    public boolean appenderUpload(InputStream input, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return delegate.appenderUpload(input, path, filename, fileSize, fileOffset);
+    }
+
+    /**
+     * 关闭该实例的异步接口后关闭被装饰的实例
+     */
+    @Override
+    public void close() {
+        super.close();
+        delegate.close();
+    }
+
+    /**
+     * 供子类统计写入通道的字节数
+     * @param channel 通道，可为NULL
+     * @return 通道的当前位置，无法获取时返回-1
+     */
+    protected static long positionOf(FileChannel channel) {
+        if (channel == null) {
+            return -1;
+        }
+        try {
+            return channel.position();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+}
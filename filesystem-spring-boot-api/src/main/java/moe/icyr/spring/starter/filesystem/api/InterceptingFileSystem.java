@@ -0,0 +1,337 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumAlgorithm;
+import moe.icyr.spring.starter.filesystem.api.io.CountingInputStream;
+import moe.icyr.spring.starter.filesystem.api.io.CountingOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * <p>在每次操作前后调用 {@link FileSystemInterceptor} 的文件服务器</p>
+ * <p>拦截器在创建时固定为数组，每次操作只创建一个 {@link FileSystemOperation}；读取流的操作只拦截打开流</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class InterceptingFileSystem<T, F> extends ForwardingFileSystem<T, F> {
+
+    private static final Logger log = LoggerFactory.getLogger(InterceptingFileSystem.class);
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    private final FileSystemInterceptor[] interceptors;
+
+    /**
+     * @param delegate 被装饰的实例
+     * @param interceptors 拦截器，按顺序调用
+     */
+    public InterceptingFileSystem(FileSystem<T, F> delegate, List<? extends FileSystemInterceptor> interceptors) {
+        super(delegate);
+        if (interceptors == null || interceptors.isEmpty() || interceptors.contains(null)) {
+            throw new IllegalArgumentException(message.getString("fs.intercepting.valid.fail"));
+        }
+        this.interceptors = interceptors.toArray(new FileSystemInterceptor[0]);
+    }
+
+    /**
+     * @return 拦截器数量
+     */
+    public int getInterceptorCount() {
+        return interceptors.length;
+    }
+
+    @Override
+    public List<FileInfo<F>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+        return intercept(new FileSystemOperation("list", path, null, -1),
+                () -> super.list(path, deepFind, flatPrint, maxDepth));
+    }
+
+    @Override
+    public CloseableIterator<FileInfo<F>> listIterator(String path, boolean deepFind, int maxDepth) {
+        return intercept(new FileSystemOperation("listIterator", path, null, -1),
+                () -> super.listIterator(path, deepFind, maxDepth));
+    }
+
+    @Override
+    public List<FileInfo<F>> listParallel(String path, boolean flatPrint, int maxDepth, int parallelism) {
+        return intercept(new FileSystemOperation("listParallel", path, null, -1),
+                () -> super.listParallel(path, flatPrint, maxDepth, parallelism));
+    }
+
+    @Override
+    public FileInfo<F> peekFile(String path, String filename) {
+        return intercept(new FileSystemOperation("peekFile", path, filename, -1),
+                () -> super.peekFile(path, filename));
+    }
+
+    @Override
+    public boolean upload(InputStream input, StringBuffer path, StringBuffer filename) {
+        FileSystemOperation operation = operation("upload", path, filename, -1);
+        CountingInputStream counted = input == null ? null : new CountingInputStream(input, operation::addBytes);
+        return interceptUpload(operation, path, () -> super.upload(counted, path, filename));
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, StringBuffer path, StringBuffer filename) {
+        return interceptUpload(operation("upload", path, filename, bytes == null ? -1 : bytes.length), path,
+                () -> super.upload(bytes, path, filename));
+    }
+
+    @Override
+    public boolean upload(File file, StringBuffer path, StringBuffer filename) {
+        return interceptUpload(operation("upload", path, filename, file == null ? -1 : file.length()), path,
+                () -> super.upload(file, path, filename));
+    }
+
+    @Override
+    public boolean upload(String base64, StringBuffer path, StringBuffer filename) {
+        return interceptUpload(operation("upload", path, filename, -1), path,
+                () -> super.upload(base64, path, filename));
+    }
+
+    @Override
+    public boolean upload(InputStream input, String path, String filename) {
+        FileSystemOperation operation = new FileSystemOperation("upload", path, filename, -1);
+        CountingInputStream counted = input == null ? null : new CountingInputStream(input, operation::addBytes);
+        return intercept(operation, () -> super.upload(counted, path, filename));
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, String path, String filename) {
+        return intercept(new FileSystemOperation("upload", path, filename, bytes == null ? -1 : bytes.length),
+                () -> super.upload(bytes, path, filename));
+    }
+
+    @Override
+    public boolean upload(File file, String path, String filename) {
+        return intercept(new FileSystemOperation("upload", path, filename, file == null ? -1 : file.length()),
+                () -> super.upload(file, path, filename));
+    }
+
+    @Override
+    public boolean upload(String base64, String path, String filename) {
+        return intercept(new FileSystemOperation("upload", path, filename, -1),
+                () -> super.upload(base64, path, filename));
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, StringBuffer path, StringBuffer filename, String encoding) {
+        FileSystemOperation operation = operation("upload", path, filename, -1);
+        CountingInputStream counted = input == null ? null : new CountingInputStream(input, operation::addBytes);
+        return interceptUpload(operation, path, () -> super.uploadEncoded(counted, path, filename, encoding));
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, String path, String filename, String encoding) {
+        FileSystemOperation operation = new FileSystemOperation("upload", path, filename, -1);
+        CountingInputStream counted = input == null ? null : new CountingInputStream(input, operation::addBytes);
+        return intercept(operation, () -> super.uploadEncoded(counted, path, filename, encoding));
+    }
+
+    @Override
+    public List<BatchResult<UploadRequest>> uploadAll(Collection<UploadRequest> requests, int parallelism) {
+        return intercept(new FileSystemOperation("uploadAll", null, null, -1),
+                () -> super.uploadAll(requests, parallelism));
+    }
+
+    @Override
+    public boolean appenderUpload(String base64, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return interceptUpload(operation("appenderUpload", path, filename, -1), path,
+                () -> super.appenderUpload(base64, path, filename, fileSize, fileOffset));
+    }
+
+    @Override
+    public boolean appenderUpload(byte[] bytes, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return interceptUpload(operation("appenderUpload", path, filename, bytes == null ? -1 : bytes.length), path,
+                () -> super.appenderUpload(bytes, path, filename, fileSize, fileOffset));
+    }
+
+    @Override
+    public boolean appenderUpload(InputStream input, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return interceptUpload(operation("appenderUpload", path, filename, fileSize < 0 ? -1 : fileSize), path,
+                () -> super.appenderUpload(input, path, filename, fileSize, fileOffset));
+    }
+
+    @Override
+    public List<BatchResult<String>> deleteAll(Collection<String> paths, int parallelism) {
+        return intercept(new FileSystemOperation("deleteAll", null, null, -1),
+                () -> super.deleteAll(paths, parallelism));
+    }
+
+    @Override
+    public List<BatchResult<String>> deleteByPrefix(String path) {
+        return intercept(new FileSystemOperation("deleteByPrefix", path, null, -1),
+                () -> super.deleteByPrefix(path));
+    }
+
+    @Override
+    public boolean deleteFile(String path, String filename) {
+        return intercept(new FileSystemOperation("deleteFile", path, filename, -1),
+                () -> super.deleteFile(path, filename));
+    }
+
+    @Override
+    public boolean createDirectory(String path) {
+        return intercept(new FileSystemOperation("createDirectory", path, null, -1),
+                () -> super.createDirectory(path));
+    }
+
+    @Override
+    public File downloadFile(String path, String filename) {
+        FileSystemOperation operation = new FileSystemOperation("downloadFile", path, filename, -1);
+        return intercept(operation, () -> downloaded(operation, super.downloadFile(path, filename)));
+    }
+
+    @Override
+    public File downloadFile(String path, String filename, File destFile) {
+        FileSystemOperation operation = new FileSystemOperation("downloadFile", path, filename, -1);
+        return intercept(operation, () -> downloaded(operation, super.downloadFile(path, filename, destFile)));
+    }
+
+    @Override
+    public boolean download(String path, String filename, FileChannel channel) {
+        FileSystemOperation operation = new FileSystemOperation("download", path, filename, -1);
+        return intercept(operation, () -> {
+            long start = positionOf(channel);
+            boolean success = super.download(path, filename, channel);
+            long end = positionOf(channel);
+            if (start >= 0 && end >= start) {
+                operation.setBytes(end - start);
+            }
+            return success;
+        });
+    }
+
+    @Override
+    public boolean download(String path, String filename, OutputStream output) {
+        FileSystemOperation operation = new FileSystemOperation("download", path, filename, -1);
+        CountingOutputStream counted = output == null ? null : new CountingOutputStream(output, operation::addBytes);
+        return intercept(operation, () -> super.download(path, filename, counted));
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename) {
+        return intercept(new FileSystemOperation("openInputStream", path, filename, -1),
+                () -> super.openInputStream(path, filename));
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
+        return intercept(new FileSystemOperation("openInputStream", path, filename, length < 0 ? -1 : length),
+                () -> super.openInputStream(path, filename, offset, length));
+    }
+
+    @Override
+    public String getChecksum(String path, String filename, ChecksumAlgorithm algorithm) {
+        return intercept(new FileSystemOperation("getChecksum", path, filename, -1),
+                () -> super.getChecksum(path, filename, algorithm));
+    }
+
+    @Override
+    public String getContentEncoding(String path, String filename) {
+        return intercept(new FileSystemOperation("getContentEncoding", path, filename, -1),
+                () -> super.getContentEncoding(path, filename));
+    }
+
+    private static FileSystemOperation operation(String name, StringBuffer path, StringBuffer filename, long bytes) {
+        return new FileSystemOperation(name, path == null ? null : path.toString(),
+                filename == null ? null : filename.toString(), bytes);
+    }
+
+    /**
+     * 上传后以实现回写的路径更新操作信息
+     */
+    private boolean interceptUpload(FileSystemOperation operation, StringBuffer path, BooleanSupplier call) {
+        return intercept(operation, () -> {
+            boolean success = call.getAsBoolean();
+            if (path != null) {
+                operation.setPath(path.toString());
+            }
+            return success;
+        });
+    }
+
+    private boolean intercept(FileSystemOperation operation, BooleanSupplier call) {
+        before(operation);
+        boolean success;
+        try {
+            success = call.getAsBoolean();
+        } catch (RuntimeException | Error e) {
+            operation.finish(false);
+            error(operation, e);
+            throw e;
+        }
+        operation.finish(success);
+        after(operation, success ? Boolean.TRUE : Boolean.FALSE);
+        return success;
+    }
+
+    private <R> R intercept(FileSystemOperation operation, Supplier<R> call) {
+        before(operation);
+        R result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            operation.finish(false);
+            error(operation, e);
+            throw e;
+        }
+        operation.finish(result != null);
+        after(operation, result);
+        return result;
+    }
+
+    private void before(FileSystemOperation operation) {
+        for (FileSystemInterceptor interceptor : interceptors) {
+            try {
+                interceptor.before(operation);
+            } catch (RuntimeException e) {
+                warn(interceptor, operation, e);
+            }
+        }
+    }
+
+    private void after(FileSystemOperation operation, Object result) {
+        for (int i = interceptors.length - 1; i >= 0; i--) {
+            try {
+                interceptors[i].after(operation, result);
+            } catch (RuntimeException e) {
+                warn(interceptors[i], operation, e);
+            }
+        }
+    }
+
+    private void error(FileSystemOperation operation, Throwable error) {
+        for (int i = interceptors.length - 1; i >= 0; i--) {
+            try {
+                interceptors[i].error(operation, error);
+            } catch (RuntimeException e) {
+                warn(interceptors[i], operation, e);
+            }
+        }
+    }
+
+    private static void warn(FileSystemInterceptor interceptor, FileSystemOperation operation, Exception e) {
+        log.warn(message.getString("fs.intercepting.callback.fail")
+                .replace("${interceptor}", interceptor.getClass().getName())
+                .replace("${operation}", operation.getName()), e);
+    }
+
+    private static File downloaded(FileSystemOperation operation, File file) {
+        if (file != null) {
+            operation.setBytes(file.length());
+        }
+        return file;
+    }
+
+}
@@ -0,0 +1,105 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>已确认存在的目录</p>
+ * <p>上传前创建目录需要逐级检查，记录已确认存在的目录后，重复上传至同一目录时可跳过检查；
+ * 目录可能被其他客户端删除，使用方需在操作失败时调用 {@link #remove(String)} 使其失效</p>
+ * <p>线程安全，超过上限时淘汰最久未访问的目录</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class KnownDirectories {
+
+    /**
+     * 默认最多记录的目录数
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+    private final Map<String, Boolean> directories;
+
+    public KnownDirectories() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize 最多记录的目录数
+     */
+    public KnownDirectories(int maximumSize) {
+        this.directories = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * @param path 目录绝对路径
+     * @return 是否已确认存在
+     */
+    public boolean contains(String path) {
+        if (path == null) {
+            return false;
+        }
+        String dir = normalize(path);
+        synchronized (directories) {
+            return directories.get(dir) != null;
+        }
+    }
+
+    /**
+     * 记录目录及其所有上级目录
+     * @param path 目录绝对路径
+     */
+    public void add(String path) {
+        if (path == null) {
+            return;
+        }
+        String dir = normalize(path);
+        synchronized (directories) {
+            for (int index = dir.lastIndexOf('/'); index > 0; index = dir.lastIndexOf('/', index - 1)) {
+                directories.put(dir.substring(0, index), Boolean.TRUE);
+            }
+            directories.put(dir, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * 移除目录及其下的所有子目录
+     * @param path 目录绝对路径
+     */
+    public void remove(String path) {
+        if (path == null) {
+            return;
+        }
+        String dir = normalize(path);
+        String prefix = "/".equals(dir) ? "/" : dir + "/";
+        synchronized (directories) {
+            directories.keySet().removeIf(known -> known.equals(dir) || known.startsWith(prefix));
+        }
+    }
+
+    public void clear() {
+        synchronized (directories) {
+            directories.clear();
+        }
+    }
+
+    /**
+     * 规范化路径，统一分隔符、合并连续的分隔符并去除末尾的分隔符
+     * @param path 路径
+     * @return 规范化后的路径
+     */
+    public static String normalize(String path) {
+        String dir = path.trim().replace("\\", "/").replaceAll("/{2,}", "/");
+        while (dir.length() > 1 && dir.endsWith("/")) {
+            dir = dir.substring(0, dir.length() - 1);
+        }
+        return dir;
+    }
+
+}
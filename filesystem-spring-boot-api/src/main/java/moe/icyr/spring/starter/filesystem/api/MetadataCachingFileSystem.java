@@ -0,0 +1,384 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
+import moe.icyr.spring.starter.filesystem.api.entity.CacheProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>缓存 {@link #list(String, boolean, boolean, int)} 与 {@link #peekFile(String, String)} 结果的文件服务器</p>
+ * <p>以规范化后的路径为键，条数超过上限时淘汰最久未访问的条目，写入超过有效时长后下次访问时重新查询；
+ * 通过该实例进行的上传、删除、创建目录会使对应目录及其上级目录的缓存失效，其他客户端的修改只能等待过期</p>
+ * <p>查询失败（返回NULL）的结果不会被缓存；返回的列表为副本，但其中的 {@link FileInfo} 与缓存共用，请勿修改</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class MetadataCachingFileSystem<T, F> extends ForwardingFileSystem<T, F> {
+
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entry> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    /**
+     * 每次失效时递增，查询期间发生失效时丢弃查询结果，避免写入旧数据
+     */
+    private long generation = 0;
+
+    /**
+     * 使用被装饰实例配置中的 {@link CacheProperty} 创建，未配置的项使用默认值
+     * @param delegate 被装饰的实例
+     */
+    public MetadataCachingFileSystem(FileSystem<T, F> delegate) {
+        this(delegate, maximumSizeOf(delegate.property.getCache()), ttlMillisOf(delegate.property.getCache()));
+    }
+
+    /**
+     * @param delegate 被装饰的实例
+     * @param maximumSize 最大缓存条数，需&gt;0
+     * @param ttlMillis 缓存有效时长（毫秒），需&gt;0
+     */
+    public MetadataCachingFileSystem(FileSystem<T, F> delegate, int maximumSize, long ttlMillis) {
+        super(delegate);
+        if (maximumSize <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException(message.getString("fs.cache.valid.fail")
+                    .replace("${maximumSize}", Integer.toString(maximumSize))
+                    .replace("${ttlMillis}", Long.toString(ttlMillis)));
+        }
+        this.maximumSize = maximumSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > MetadataCachingFileSystem.this.maximumSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static int maximumSizeOf(CacheProperty property) {
+        Integer maximumSize = property == null ? null : property.getMaximumSize();
+        return maximumSize == null ? CacheProperty.DEFAULT_MAXIMUM_SIZE : maximumSize;
+    }
+
+    private static long ttlMillisOf(CacheProperty property) {
+        Long ttlMillis = property == null ? null : property.getTtlMillis();
+        return ttlMillis == null ? CacheProperty.DEFAULT_TTL_MILLIS : ttlMillis;
+    }
+
+    @Override
+    public List<FileInfo<F>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+        if (path == null) {
+            return super.list(path, deepFind, flatPrint, maxDepth);
+        }
+        String dir = FileSystem.normalizeDirectory(path);
+        String key = deepFind ? "list:" + flatPrint + ":" + Math.max(-1, maxDepth) + ":" + dir : "list::" + dir;
+        long[] generation = new long[1];
+        @SuppressWarnings("unchecked")
+        List<FileInfo<F>> cached = (List<FileInfo<F>>) lookup(key, generation);
+        if (cached != null) {
+            return new ArrayList<>(cached);
+        }
+        List<FileInfo<F>> files = super.list(path, deepFind, flatPrint, maxDepth);
+        if (files != null) {
+            store(key, new Entry(dir, null, new ArrayList<>(files)), generation[0]);
+        }
+        return files;
+    }
+
+    @Override
+    public FileInfo<F> peekFile(String path, String filename) {
+        if (path == null || filename == null) {
+            return super.peekFile(path, filename);
+        }
+        String dir = FileSystem.normalizeDirectory(path);
+        String key = "peek:" + dir + ":" + filename;
+        long[] generation = new long[1];
+        @SuppressWarnings("unchecked")
+        FileInfo<F> cached = (FileInfo<F>) lookup(key, generation);
+        if (cached != null) {
+            return cached;
+        }
+        FileInfo<F> info = super.peekFile(path, filename);
+        if (info != null) {
+            store(key, new Entry(dir, filename, info), generation[0]);
+        }
+        return info;
+    }
+
+    @Override
+    public boolean upload(InputStream input, StringBuffer path, StringBuffer filename) {
+        return invalidateAfter(super.upload(input, path, filename), path, filename);
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, StringBuffer path, StringBuffer filename) {
+        return invalidateAfter(super.upload(bytes, path, filename), path, filename);
+    }
+
+    @Override
+    public boolean upload(File file, StringBuffer path, StringBuffer filename) {
+        return invalidateAfter(super.upload(file, path, filename), path, filename);
+    }
+
+    @Override
+    public boolean upload(String base64, StringBuffer path, StringBuffer filename) {
+        return invalidateAfter(super.upload(base64, path, filename), path, filename);
+    }
+
+    @Override
+    public boolean upload(InputStream input, String path, String filename) {
+        return invalidateAfter(super.upload(input, path, filename), path, filename);
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, String path, String filename) {
+        return invalidateAfter(super.upload(bytes, path, filename), path, filename);
+    }
+
+    @Override
+    public boolean upload(File file, String path, String filename) {
+        return invalidateAfter(super.upload(file, path, filename), path, filename);
+    }
+
+    @Override
+    public boolean upload(String base64, String path, String filename) {
+        return invalidateAfter(super.upload(base64, path, filename), path, filename);
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, StringBuffer path, StringBuffer filename, String encoding) {
+        return invalidateAfter(super.uploadEncoded(input, path, filename, encoding), path, filename);
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, String path, String filename, String encoding) {
+        return invalidateAfter(super.uploadEncoded(input, path, filename, encoding), path, filename);
+    }
+
+    @Override
+    public List<BatchResult<UploadRequest>> uploadAll(Collection<UploadRequest> requests, int parallelism) {
+        try {
+            return super.uploadAll(requests, parallelism);
+        } finally {
+            if (requests != null) {
+                for (UploadRequest request : requests) {
+                    if (request != null) {
+                        invalidateFile(request.getPath(), request.getFilename());
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean appenderUpload(String base64, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return invalidateAfter(super.appenderUpload(base64, path, filename, fileSize, fileOffset), path, filename);
+    }
+
+    @Override
+    public boolean appenderUpload(byte[] bytes, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return invalidateAfter(super.appenderUpload(bytes, path, filename, fileSize, fileOffset), path, filename);
+    }
+
+    @Override
+    public boolean appenderUpload(InputStream input, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return invalidateAfter(super.appenderUpload(input, path, filename, fileSize, fileOffset), path, filename);
+    }
+
+    @Override
+    public boolean deleteFile(String path, String filename) {
+        return invalidateAfter(super.deleteFile(path, filename), path, filename);
+    }
+
+    @Override
+    public List<BatchResult<String>> deleteAll(Collection<String> paths, int parallelism) {
+        try {
+            return super.deleteAll(paths, parallelism);
+        } finally {
+            if (paths != null) {
+                for (String path : paths) {
+                    if (path != null) {
+                        String normalized = path.replace("\\", "/");
+                        int index = normalized.lastIndexOf('/');
+                        invalidateFile(index <= 0 ? "/" : normalized.substring(0, index), normalized.substring(index + 1));
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<BatchResult<String>> deleteByPrefix(String path) {
+        try {
+            return super.deleteByPrefix(path);
+        } finally {
+            invalidate(path);
+        }
+    }
+
+    @Override
+    public boolean createDirectory(String path) {
+        try {
+            return super.createDirectory(path);
+        } finally {
+            invalidate(path);
+        }
+    }
+
+    /**
+     * 使路径自身、其上级目录及其下所有文件(夹)的缓存失效
+     * @param path 绝对路径
+     */
+    public void invalidate(String path) {
+        if (path == null) {
+            return;
+        }
+        String dir = FileSystem.normalizeDirectory(path);
+        synchronized (cache) {
+            generation++;
+            cache.values().removeIf(entry -> isSameOrAncestor(entry.dir, dir) || isSameOrAncestor(dir, entry.dir));
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            generation++;
+            cache.clear();
+        }
+    }
+
+    /**
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return 未命中次数（包含已过期的条目）
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return 因超过最大条数或过期而淘汰的条目数
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return 命中率，尚无访问时为0
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * @return 当前缓存条数（可能包含已过期但尚未被访问的条目）
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getTtlMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(ttlNanos);
+    }
+
+    private Object lookup(String key, long[] generation) {
+        synchronized (cache) {
+            generation[0] = this.generation;
+            Entry entry = cache.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt < 0) {
+                    hits.increment();
+                    return entry.value;
+                }
+                cache.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    private void store(String key, Entry entry, long generation) {
+        synchronized (cache) {
+            if (this.generation == generation) {
+                cache.put(key, entry);
+            }
+        }
+    }
+
+    private boolean invalidateAfter(boolean result, Object path, Object filename) {
+        invalidateFile(path == null ? null : path.toString(), filename == null ? null : filename.toString());
+        return result;
+    }
+
+    /**
+     * 文件变更后使其自身及所在目录、上级目录的缓存失效（上传时可能创建了中间目录）
+     */
+    private void invalidateFile(String path, String filename) {
+        if (path == null) {
+            invalidateAll();
+            return;
+        }
+        String dir = FileSystem.normalizeDirectory(path);
+        synchronized (cache) {
+            generation++;
+            cache.values().removeIf(entry -> entry.filename == null
+                    ? isSameOrAncestor(entry.dir, dir)
+                    : entry.dir.equals(dir) && (filename == null || entry.filename.equals(filename)));
+        }
+    }
+
+    private static boolean isSameOrAncestor(String ancestor, String path) {
+        if (ancestor.isEmpty() || ancestor.equals(path)) {
+            return true;
+        }
+        return "/".equals(ancestor) ? path.startsWith("/") : path.startsWith(ancestor + "/");
+    }
+
+    private final class Entry {
+
+        private final String dir;
+        private final String filename;
+        private final Object value;
+        private final long expiresAt;
+
+        Entry(String dir, String filename, Object value) {
+            this.dir = dir;
+            this.filename = filename;
+            this.value = value;
+            this.expiresAt = System.nanoTime() + ttlNanos;
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 读取时更新 {@link TransferProgress} 的输入流，读取至末尾时成功结束，未读完即关闭时失败结束
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+final class ProgressInputStream extends FilterInputStream {
+
+    private final TransferProgress progress;
+    private long count = 0;
+
+    ProgressInputStream(InputStream in, TransferProgress progress) {
+        super(in);
+        this.progress = progress;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b;
+        try {
+            b = super.read();
+        } catch (IOException | RuntimeException e) {
+            progress.finish(false);
+            throw e;
+        }
+        if (b == -1) {
+            progress.finish(true);
+        } else {
+            progress.update(++count);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n;
+        try {
+            n = super.read(b, off, len);
+        } catch (IOException | RuntimeException e) {
+            progress.finish(false);
+            throw e;
+        }
+        if (n == -1) {
+            progress.finish(true);
+        } else if (n > 0) {
+            count += n;
+            progress.update(count);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            count += skipped;
+            progress.update(count);
+        }
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean complete = progress.getTotalBytes() >= 0 && count >= progress.getTotalBytes();
+        try {
+            super.close();
+        } catch (IOException | RuntimeException e) {
+            progress.finish(false);
+            throw e;
+        }
+        progress.finish(complete);
+    }
+
+}
@@ -0,0 +1,33 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+/**
+ * <p>传输进度监听器，通过 {@link FileSystem#addProgressListener(ProgressListener)} 注册</p>
+ * <p>进度按 {@link FileSystem#setProgressInterval(long)} 的间隔回调，开始与结束时各回调一次；
+ * 回调在执行传输的线程上同步调用，请避免耗时操作，抛出的异常会被记录并忽略</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public interface ProgressListener {
+
+    /**
+     * 传输开始
+     * @param progress 进度
+     */
+    default void started(TransferProgress progress) {
+    }
+
+    /**
+     * 传输过程中，按间隔回调
+     * @param progress 进度
+     */
+    void progressed(TransferProgress progress);
+
+    /**
+     * 传输结束
+     * @param progress 进度，{@link TransferProgress#isSuccess()} 为是否成功
+     */
+    default void completed(TransferProgress progress) {
+    }
+
+}
@@ -0,0 +1,70 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.io.Rewindable;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <p>记录上传流是否已被读取的输入流，供失败重试时判断能否再次上传</p>
+ * <p>未被读取过的流可直接重试；{@link java.io.ByteArrayInputStream} 及包装它的 {@link Rewindable} 在创建时记录位置，重试前回到该位置；
+ * 其他流一旦被读取即不可重试，见 {@link Rewindable#mark(InputStream)}</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+final class ReplayableInputStream extends FilterInputStream {
+
+    private final boolean markable;
+    private boolean consumed = false;
+
+    ReplayableInputStream(InputStream in) {
+        super(in);
+        this.markable = Rewindable.mark(in);
+    }
+
+    /**
+     * 准备再次读取
+     * @return 能否从头再次读取
+     */
+    boolean rewind() {
+        if (!consumed) {
+            return true;
+        }
+        if (!markable) {
+            return false;
+        }
+        try {
+            Rewindable.reset(in);
+        } catch (IOException e) {
+            return false;
+        }
+        consumed = false;
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        consumed = true;
+        return super.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        consumed = true;
+        return super.read(b, off, len);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        consumed = true;
+        return super.skip(n);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+}
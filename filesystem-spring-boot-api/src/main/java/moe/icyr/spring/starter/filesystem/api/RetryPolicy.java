@@ -0,0 +1,178 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.RetryProperty;
+
+import java.io.EOFException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ResourceBundle;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * <p>失败重试策略：最大尝试次数、带随机抖动的指数退避、可重试异常的判断</p>
+ * <p>第n次重试前的等待时长为 {@code min(maxBackoff, initialBackoff * multiplier^(n-1))}，再随机减少至多 {@code jitter} 比例，
+ * 避免多个客户端在服务端恢复时同时重试</p>
+ * <p>默认只有网络层的异常（{@link SocketException}、{@link SocketTimeoutException}、{@link EOFException}，包括作为原因被包装时）可重试，
+ * 各实现会在此之上追加其客户端的连接类异常；可继承该类或传入判断条件替换</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class RetryPolicy {
+
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+    private static final int MAX_CAUSE_DEPTH = 16;
+
+    /**
+     * 不重试
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, 1, 0, RetryPolicy::isTransient);
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final double multiplier;
+    private final double jitter;
+    private final Predicate<Throwable> retryable;
+
+    /**
+     * @param maxAttempts 最大尝试次数（含首次），需&gt;=1
+     * @param initialBackoffMillis 首次重试前的等待时长（毫秒），需&gt;=0
+     * @param maxBackoffMillis 等待时长的上限（毫秒），需&gt;=0
+     * @param multiplier 每次重试后等待时长的倍数，需&gt;=1
+     * @param jitter 随机抖动比例，取值0~1
+     * @param retryable 判断异常是否可重试
+     */
+    public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis, double multiplier, double jitter,
+                       Predicate<Throwable> retryable) {
+        if (maxAttempts < 1 || initialBackoffMillis < 0 || maxBackoffMillis < 0 || !(multiplier >= 1)
+                || !(jitter >= 0 && jitter <= 1) || retryable == null) {
+            throw new IllegalArgumentException(message.getString("fs.retry.valid.fail")
+                    .replace("${maxAttempts}", Integer.toString(maxAttempts))
+                    .replace("${initialBackoffMillis}", Long.toString(initialBackoffMillis))
+                    .replace("${maxBackoffMillis}", Long.toString(maxBackoffMillis))
+                    .replace("${multiplier}", Double.toString(multiplier))
+                    .replace("${jitter}", Double.toString(jitter)));
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.retryable = retryable;
+    }
+
+    /**
+     * 按配置创建，未配置的项使用默认值
+     * @param property 配置，为NULL时不重试
+     * @return 重试策略
+     */
+    public static RetryPolicy of(RetryProperty property) {
+        if (property == null) {
+            return NONE;
+        }
+        return new RetryPolicy(
+                property.getMaxAttempts() == null ? RetryProperty.DEFAULT_MAX_ATTEMPTS : property.getMaxAttempts(),
+                property.getInitialBackoffMillis() == null ? RetryProperty.DEFAULT_INITIAL_BACKOFF_MILLIS : property.getInitialBackoffMillis(),
+                property.getMaxBackoffMillis() == null ? RetryProperty.DEFAULT_MAX_BACKOFF_MILLIS : property.getMaxBackoffMillis(),
+                property.getMultiplier() == null ? RetryProperty.DEFAULT_MULTIPLIER : property.getMultiplier(),
+                property.getJitter() == null ? RetryProperty.DEFAULT_JITTER : property.getJitter(),
+                RetryPolicy::isTransient);
+    }
+
+    /**
+     * 默认的可重试判断，沿异常原因链查找网络层异常
+     * @param error 异常
+     * @return 可重试与否
+     */
+    public static boolean isTransient(Throwable error) {
+        return causedBy(error, SocketException.class, SocketTimeoutException.class, EOFException.class);
+    }
+
+    /**
+     * 沿异常原因链查找给定类型的异常
+     * @param error 异常
+     * @param types 异常类型
+     * @return 异常自身或其原因之一属于给定类型
+     */
+    @SafeVarargs
+    public static boolean causedBy(Throwable error, Class<? extends Throwable>... types) {
+        for (int depth = 0; error != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            for (Class<? extends Throwable> type : types) {
+                if (type.isInstance(error)) {
+                    return true;
+                }
+            }
+            error = error.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * 使用另外的可重试判断，其余配置不变
+     * @param retryable 判断异常是否可重试
+     * @return 新的重试策略
+     */
+    public RetryPolicy withRetryable(Predicate<Throwable> retryable) {
+        return new RetryPolicy(maxAttempts, initialBackoffMillis, maxBackoffMillis, multiplier, jitter, retryable);
+    }
+
+    /**
+     * @return 最大尝试次数（含首次）
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * @param error 失败时的异常
+     * @return 可重试与否
+     */
+    public boolean isRetryable(Throwable error) {
+        return retryable.test(error);
+    }
+
+    /**
+     * 计算重试前的等待时长
+     * @param retry 第几次重试，从1开始
+     * @return 等待时长（毫秒）
+     */
+    public long backoffMillis(int retry) {
+        double backoff = initialBackoffMillis * Math.pow(multiplier, Math.max(0, retry - 1));
+        long capped = (long) Math.min(maxBackoffMillis, backoff);
+        if (capped <= 0 || jitter == 0) {
+            return Math.max(0, capped);
+        }
+        return capped - (long) (capped * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", RetryPolicy.class.getSimpleName() + "[", "]")
+                .add("maxAttempts=" + maxAttempts)
+                .add("initialBackoffMillis=" + initialBackoffMillis)
+                .add("maxBackoffMillis=" + maxBackoffMillis)
+                .add("multiplier=" + multiplier)
+                .add("jitter=" + jitter)
+                .toString();
+    }
+
+}
@@ -0,0 +1,332 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
+import moe.icyr.spring.starter.filesystem.api.entity.ThrottleProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import moe.icyr.spring.starter.filesystem.api.io.Rewindable;
+import moe.icyr.spring.starter.filesystem.api.io.ThrottledInputStream;
+import moe.icyr.spring.starter.filesystem.api.io.ThrottledOutputStream;
+import moe.icyr.spring.starter.filesystem.api.io.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * <p>按令牌桶限制上传、下载速率的文件服务器，上传与下载共用同一限速</p>
+ * <p>所有传输均改为经过限速流转发至被装饰的实例：通过文件上传改为通过文件流上传，下载至文件或通道改为下载至输出流；
+ * 批量上传在打开各文件的流时包装，不影响批量操作的并行</p>
+ * <p>字节数组、Base64及文件的限速流可回到开头，不影响被装饰实例的失败重试（见 {@link Rewindable}）</p>
+ * <p>包装在缓存之内时，命中缓存的读取不受限速</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class ThrottlingFileSystem<T, F> extends ForwardingFileSystem<T, F> {
+
+    private static final Logger log = LoggerFactory.getLogger(ThrottlingFileSystem.class);
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    private final TokenBucket bucket;
+
+    /**
+     * 使用被装饰实例配置中的 {@link ThrottleProperty} 创建，开启共用时与指向同一主机的实例共用限速器
+     * @param delegate 被装饰的实例
+     */
+    public ThrottlingFileSystem(FileSystem<T, F> delegate) {
+        this(delegate, bucketOf(delegate));
+    }
+
+    /**
+     * @param delegate 被装饰的实例
+     * @param bucket 限速器，可由多个实例共用
+     */
+    public ThrottlingFileSystem(FileSystem<T, F> delegate, TokenBucket bucket) {
+        super(delegate);
+        if (bucket == null) {
+            throw new IllegalArgumentException(message.getString("fs.throttle.valid.fail")
+                    .replace("${bytesPerSecond}", "null")
+                    .replace("${burst}", "null"));
+        }
+        this.bucket = bucket;
+    }
+
+    private static TokenBucket bucketOf(FileSystem<?, ?> delegate) {
+        ThrottleProperty property = delegate == null ? null : delegate.property.getThrottle();
+        Long bytesPerSecond = property == null ? null : property.getBytesPerSecond();
+        Long burst = property == null || property.getBurst() == null ? bytesPerSecond : property.getBurst();
+        if (bytesPerSecond == null || bytesPerSecond <= 0 || burst == null || burst <= 0) {
+            throw new IllegalArgumentException(message.getString("fs.throttle.valid.fail")
+                    .replace("${bytesPerSecond}", String.valueOf(bytesPerSecond))
+                    .replace("${burst}", String.valueOf(burst)));
+        }
+        if (Boolean.TRUE.equals(property.getSharedByHost())) {
+            String host = delegate.property.getIp().trim().toLowerCase(Locale.ROOT);
+            TokenBucket bucket = TokenBucket.shared(host, bytesPerSecond, burst);
+            if (bucket.getBytesPerSecond() != bytesPerSecond || bucket.getCapacity() != burst) {
+                log.warn(message.getString("fs.throttle.shared.mismatch")
+                        .replace("${host}", host)
+                        .replace("${bytesPerSecond}", Long.toString(bucket.getBytesPerSecond()))
+                        .replace("${burst}", Long.toString(bucket.getCapacity())));
+            }
+            return bucket;
+        }
+        return new TokenBucket(bytesPerSecond, burst);
+    }
+
+    /**
+     * @return 限速器
+     */
+    public TokenBucket getBucket() {
+        return bucket;
+    }
+
+    @Override
+    public boolean upload(InputStream input, StringBuffer path, StringBuffer filename) {
+        return super.upload(throttle(input), path, filename);
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, StringBuffer path, StringBuffer filename) {
+        if (bytes == null) {
+            return super.upload(bytes, path, filename);
+        }
+        return super.upload(throttle(new ByteArrayInputStream(bytes)), path, filename);
+    }
+
+    @Override
+    public boolean upload(File file, StringBuffer path, StringBuffer filename) {
+        return uploadClosing(openFile(file, path, filename), input -> super.upload(input, path, filename));
+    }
+
+    @Override
+    public boolean upload(String base64, StringBuffer path, StringBuffer filename) {
+        return uploadClosing(_base64ToStream(base64, path, filename), input -> super.upload(input, path, filename));
+    }
+
+    @Override
+    public boolean upload(InputStream input, String path, String filename) {
+        return super.upload(throttle(input), path, filename);
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, String path, String filename) {
+        if (bytes == null) {
+            return super.upload(bytes, path, filename);
+        }
+        return super.upload(throttle(new ByteArrayInputStream(bytes)), path, filename);
+    }
+
+    @Override
+    public boolean upload(File file, String path, String filename) {
+        return uploadClosing(openFile(file, path, filename), input -> super.upload(input, path, filename));
+    }
+
+    @Override
+    public boolean upload(String base64, String path, String filename) {
+        return uploadClosing(_base64ToStream(base64, path, filename), input -> super.upload(input, path, filename));
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, StringBuffer path, StringBuffer filename, String encoding) {
+        return super.uploadEncoded(throttle(input), path, filename, encoding);
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, String path, String filename, String encoding) {
+        return super.uploadEncoded(throttle(input), path, filename, encoding);
+    }
+
+    @Override
+    public List<BatchResult<UploadRequest>> uploadAll(Collection<UploadRequest> requests, int parallelism) {
+        if (requests == null) {
+            return super.uploadAll(null, parallelism);
+        }
+        Map<UploadRequest, UploadRequest> originals = new IdentityHashMap<>(requests.size());
+        List<UploadRequest> throttled = new ArrayList<>(requests.size());
+        for (UploadRequest request : requests) {
+            UploadRequest wrapped = request == null ? null : new ThrottledUploadRequest(request);
+            originals.put(wrapped, request);
+            throttled.add(wrapped);
+        }
+        List<BatchResult<UploadRequest>> results = super.uploadAll(throttled, parallelism);
+        if (results == null) {
+            return null;
+        }
+        List<BatchResult<UploadRequest>> mapped = new ArrayList<>(results.size());
+        for (BatchResult<UploadRequest> result : results) {
+            UploadRequest original = originals.getOrDefault(result.getItem(), result.getItem());
+            mapped.add(new BatchResult<>(original, result.isSuccess(), result.getError()));
+        }
+        return mapped;
+    }
+
+    @Override
+    public boolean appenderUpload(String base64, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return uploadClosing(_base64ToStream(base64, path, filename), input -> super.appenderUpload(input, path, filename, fileSize, fileOffset));
+    }
+
+    @Override
+    public boolean appenderUpload(byte[] bytes, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        if (bytes == null) {
+            return super.appenderUpload(bytes, path, filename, fileSize, fileOffset);
+        }
+        return super.appenderUpload(throttle(new ByteArrayInputStream(bytes)), path, filename, fileSize, fileOffset);
+    }
+
+    @Override
+    public boolean appenderUpload(InputStream input, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return super.appenderUpload(throttle(input), path, filename, fileSize, fileOffset);
+    }
+
+    @Override
+    public File downloadFile(String path, String filename) {
+        File dest = createTempDownloadFile(filename);
+        if (dest == null) {
+            return null;
+        }
+        return downloadFile(path, filename, dest);
+    }
+
+    @Override
+    public File downloadFile(String path, String filename, File destFile) {
+        boolean created = false;
+        boolean success = false;
+        try (FileChannel channel = FileChannel.open(destFile.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            created = true;
+            success = download(path, filename, channel);
+        } catch (Exception e) {
+            log.error(message.getString("fs.download.fail.io"), e);
+        }
+        if (!success) {
+            if (created) {
+                try {
+                    Files.deleteIfExists(destFile.toPath());
+                } catch (Exception ignored) {}
+            }
+            return null;
+        }
+        return destFile;
+    }
+
+    /**
+     * 经过限速流写入通道，不关闭通道
+     */
+    @Override
+    public boolean download(String path, String filename, FileChannel channel) {
+        if (channel == null) {
+            return false;
+        }
+        return super.download(path, filename, new ThrottledOutputStream(Channels.newOutputStream(channel), bucket));
+    }
+
+    @Override
+    public boolean download(String path, String filename, OutputStream output) {
+        if (output == null) {
+            return false;
+        }
+        return super.download(path, filename, new ThrottledOutputStream(output, bucket));
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename) {
+        return throttle(super.openInputStream(path, filename));
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
+        return throttle(super.openInputStream(path, filename, offset, length));
+    }
+
+    /**
+     * 上传由该实例打开的流，完成后关闭
+     */
+    private boolean uploadClosing(InputStream input, UploadCall call) {
+        if (input == null) {
+            return false;
+        }
+        try {
+            return call.upload(throttle(input));
+        } finally {
+            try {
+                input.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    private InputStream throttle(InputStream input) {
+        return input == null ? null : new ThrottledInputStream(input, bucket);
+    }
+
+    private static InputStream openFile(File file, Object path, Object filename) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new RewindableFileInputStream(file);
+        } catch (IOException e) {
+            log.error(message.getString("fs.upload.fail.io")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename))
+                    .replace("${length}", Long.toString(file.length())), e);
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface UploadCall {
+        boolean upload(InputStream input);
+    }
+
+    /**
+     * 重试时通过通道回到文件开头的文件流
+     */
+    private static final class RewindableFileInputStream extends FileInputStream implements Rewindable {
+
+        RewindableFileInputStream(File file) throws FileNotFoundException {
+            super(file);
+        }
+
+        @Override
+        public boolean isRewindable() {
+            return true;
+        }
+
+        @Override
+        public void rewind() throws IOException {
+            getChannel().position(0);
+        }
+
+    }
+
+    /**
+     * 打开流时包装为限速流的上传请求
+     */
+    private final class ThrottledUploadRequest extends UploadRequest {
+
+        private final UploadRequest request;
+
+        ThrottledUploadRequest(UploadRequest request) {
+            this.request = request;
+            setPath(request.getPath());
+            setFilename(request.getFilename());
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return throttle(request.openStream());
+        }
+
+        @Override
+        public String toString() {
+            return request.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,237 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ResourceBundle;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>一次上传或下载的进度，传递给 {@link ProgressListener}</p>
+ * <p>同一传输的各回调收到的是同一实例，数值在回调时更新；非线程安全，请勿在回调之外读取</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public final class TransferProgress {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferProgress.class);
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    /**
+     * 传输方向
+     */
+    public enum Direction {
+        UPLOAD, DOWNLOAD
+    }
+
+    private final Direction direction;
+    private final String path;
+    private final String filename;
+    private final long totalBytes;
+    private final ProgressListener[] listeners;
+    private final long intervalNanos;
+    private final long startNanos;
+    private long transferredBytes = 0;
+    private long lastNanos;
+    private long lastBytes = 0;
+    private long nowNanos;
+    private double instantRate = 0;
+    private boolean finished = false;
+    private boolean success = false;
+
+    TransferProgress(Direction direction, String path, String filename, long totalBytes,
+                     ProgressListener[] listeners, long intervalNanos) {
+        this.direction = direction;
+        this.path = path;
+        this.filename = filename;
+        this.totalBytes = totalBytes < 0 ? -1 : totalBytes;
+        this.listeners = listeners;
+        this.intervalNanos = intervalNanos;
+        this.startNanos = System.nanoTime();
+        this.lastNanos = this.startNanos;
+        this.nowNanos = this.startNanos;
+        for (ProgressListener listener : listeners) {
+            try {
+                listener.started(this);
+            } catch (RuntimeException e) {
+                warn(listener, e);
+            }
+        }
+    }
+
+    /**
+     * 更新已传输字节数，距上次回调超过间隔时回调
+     * @param transferredBytes 已传输的总字节数
+     */
+    void update(long transferredBytes) {
+        if (finished || transferredBytes < this.transferredBytes) {
+            return;
+        }
+        this.transferredBytes = transferredBytes;
+        long now = System.nanoTime();
+        if (now - lastNanos < intervalNanos) {
+            return;
+        }
+        sample(now);
+        for (ProgressListener listener : listeners) {
+            try {
+                listener.progressed(this);
+            } catch (RuntimeException e) {
+                warn(listener, e);
+            }
+        }
+    }
+
+    /**
+     * 结束传输并回调，重复调用时忽略
+     * @param success 是否成功
+     */
+    void finish(boolean success) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        this.success = success;
+        long now = System.nanoTime();
+        if (transferredBytes != lastBytes) {
+            sample(now);
+        } else {
+            // 自上次回调后没有新数据时保留上次的瞬时速率
+            nowNanos = now;
+        }
+        for (ProgressListener listener : listeners) {
+            try {
+                listener.completed(this);
+            } catch (RuntimeException e) {
+                warn(listener, e);
+            }
+        }
+    }
+
+    private void sample(long now) {
+        long elapsed = now - lastNanos;
+        if (elapsed > 0) {
+            instantRate = (transferredBytes - lastBytes) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        }
+        lastNanos = now;
+        lastBytes = transferredBytes;
+        nowNanos = now;
+    }
+
+    private void warn(ProgressListener listener, RuntimeException e) {
+        log.warn(message.getString("fs.progress.callback.fail")
+                .replace("${listener}", listener.getClass().getName())
+                .replace("${path}", String.valueOf(path))
+                .replace("${filename}", String.valueOf(filename)), e);
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * @return 总字节数，未知时为-1
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * @return 已传输字节数
+     */
+    public long getTransferredBytes() {
+        return transferredBytes;
+    }
+
+    /**
+     * @return 已传输的百分比（0~100），总字节数未知时为-1
+     */
+    public double getPercentage() {
+        if (totalBytes < 0) {
+            return -1;
+        }
+        return totalBytes == 0 ? 100 : Math.min(100, transferredBytes * 100.0 / totalBytes);
+    }
+
+    /**
+     * @return 开始至本次回调的耗时（毫秒）
+     */
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nowNanos - startNanos);
+    }
+
+    /**
+     * @return 上次回调至本次回调之间的速率（字节/秒）
+     */
+    public double getInstantaneousRate() {
+        return instantRate;
+    }
+
+    /**
+     * @return 开始至本次回调的平均速率（字节/秒）
+     */
+    public double getAverageRate() {
+        long elapsed = nowNanos - startNanos;
+        return elapsed <= 0 ? 0 : transferredBytes * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    /**
+     * 按瞬时速率估算剩余时间，瞬时速率为0时按平均速率估算
+     * @return 预计剩余时间（毫秒），总字节数未知或无法估算时为-1，结束后为0
+     */
+    public long getEtaMillis() {
+        if (finished) {
+            return 0;
+        }
+        if (totalBytes < 0) {
+            return -1;
+        }
+        long remaining = Math.max(0, totalBytes - transferredBytes);
+        double rate = instantRate > 0 ? instantRate : getAverageRate();
+        if (rate <= 0) {
+            return remaining == 0 ? 0 : -1;
+        }
+        return (long) (remaining * 1000 / rate);
+    }
+
+    /**
+     * @return 是否已结束
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return 是否成功结束，结束前为false
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", TransferProgress.class.getSimpleName() + "[", "]")
+                .add("direction=" + direction)
+                .add("path='" + path + "'")
+                .add("filename='" + filename + "'")
+                .add("transferredBytes=" + transferredBytes)
+                .add("totalBytes=" + totalBytes)
+                .add("instantaneousRate=" + (long) instantRate)
+                .add("averageRate=" + (long) getAverageRate())
+                .add("etaMillis=" + getEtaMillis())
+                .add("finished=" + finished)
+                .add("success=" + success)
+                .toString();
+    }
+
+}
@@ -0,0 +1,91 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import java.lang.reflect.Method;
+import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>虚拟线程支持</p>
+ * <p>项目以Java 8编译，通过反射调用Java 21的虚拟线程接口；运行在低版本JDK时 {@link #isSupported()} 返回 {@code false}</p>
+ * <p>关于载体线程钉住（pinning）：本项目的串行化与排队均使用 {@code java.util.concurrent} 实现，不会在持有监视器锁时执行I/O；
+ * 但各客户端内部仍可能存在 {@code synchronized} 代码块，在JDK 21至23中会钉住载体线程，JDK 24起（JEP 491）不再钉住</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public final class VirtualThreads {
+
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            builderName = builder.getMethod("name", String.class, long.class);
+            builderFactory = builder.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException | LinkageError ignored) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return 当前JDK是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 创建虚拟线程工厂
+     * @param namePrefix 线程名前缀，线程名为前缀加从0开始的序号
+     * @return 线程工厂
+     * @throws IllegalStateException 当前JDK不支持虚拟线程
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException(message.getString("fs.virtual.not.supported")
+                    .replace("${version}", String.valueOf(System.getProperty("java.version"))));
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = BUILDER_NAME.invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(message.getString("fs.virtual.factory.fail"), e);
+        }
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的线程池
+     * @param namePrefix 线程名前缀
+     * @return 线程池
+     * @throws IllegalStateException 当前JDK不支持虚拟线程
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        ThreadFactory factory = newThreadFactory(namePrefix);
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(message.getString("fs.virtual.executor.fail"), e);
+        }
+    }
+
+}
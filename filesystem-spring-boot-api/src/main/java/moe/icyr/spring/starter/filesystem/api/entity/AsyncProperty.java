@@ -0,0 +1,95 @@
+package moe.icyr.spring.starter.filesystem.api.entity;
+
+import java.util.StringJoiner;
+
+/**
+ * 异步接口配置
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class AsyncProperty {
+
+    /**
+     * 默认线程数（仅线程安全的实现生效，非线程安全的实现固定串行执行）
+     */
+    public static final int DEFAULT_THREADS = 4;
+    /**
+     * 默认最大排队任务数
+     */
+    public static final int DEFAULT_MAX_PENDING = 256;
+
+    private String executor;
+    private Integer threads;
+    private Integer maxPending;
+    private Boolean virtualThreads;
+
+    public AsyncProperty() {
+    }
+
+    public AsyncProperty(AsyncProperty property) {
+        this.executor = property.getExecutor();
+        this.threads = property.getThreads();
+        this.maxPending = property.getMaxPending();
+        this.virtualThreads = property.getVirtualThreads();
+    }
+
+    /**
+     * @return 使用的线程池Bean名称（仅starter生效），为空则使用内部创建的线程池
+     */
+    public String getExecutor() {
+        return executor;
+    }
+
+    public AsyncProperty setExecutor(String executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * @return 内部线程池的线程数
+     */
+    public Integer getThreads() {
+        return threads;
+    }
+
+    public AsyncProperty setThreads(Integer threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * @return 已提交但未完成的任务上限，超出时直接拒绝
+     */
+    public Integer getMaxPending() {
+        return maxPending;
+    }
+
+    public AsyncProperty setMaxPending(Integer maxPending) {
+        this.maxPending = maxPending;
+        return this;
+    }
+
+    /**
+     * @return 内部线程池是否使用虚拟线程（需Java 21及以上，否则回退为普通线程池）
+     */
+    public Boolean getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public AsyncProperty setVirtualThreads(Boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", AsyncProperty.class.getSimpleName() + "[", "]")
+                .add("executor='" + executor + "'")
+                .add("threads=" + threads)
+                .add("maxPending=" + maxPending)
+                .add("virtualThreads=" + virtualThreads)
+                .toString();
+    }
+
+}
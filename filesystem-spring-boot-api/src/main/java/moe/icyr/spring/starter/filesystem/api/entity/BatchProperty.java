@@ -0,0 +1,61 @@
+package moe.icyr.spring.starter.filesystem.api.entity;
+
+import java.util.StringJoiner;
+
+/**
+ * 批量操作配置
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class BatchProperty {
+
+    /**
+     * 默认并发数
+     */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private Integer parallelism;
+    private Integer listParallelism;
+
+    public BatchProperty() {
+    }
+
+    public BatchProperty(BatchProperty property) {
+        this.parallelism = property.getParallelism();
+        this.listParallelism = property.getListParallelism();
+    }
+
+    /**
+     * @return 批量操作同时使用的连接（FTP）、通道（SFTP）或线程（MinIO、FastDFS）数量
+     */
+    public Integer getParallelism() {
+        return parallelism;
+    }
+
+    public BatchProperty setParallelism(Integer parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * @return 递归列出文件时同时使用的连接、通道或线程数量，为空或&lt;=1时按原方式在单个连接上依次列出
+     */
+    public Integer getListParallelism() {
+        return listParallelism;
+    }
+
+    public BatchProperty setListParallelism(Integer listParallelism) {
+        this.listParallelism = listParallelism;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", BatchProperty.class.getSimpleName() + "[", "]")
+                .add("parallelism=" + parallelism)
+                .add("listParallelism=" + listParallelism)
+                .toString();
+    }
+
+}
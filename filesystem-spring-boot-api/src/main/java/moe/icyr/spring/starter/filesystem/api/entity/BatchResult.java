@@ -0,0 +1,58 @@
+package moe.icyr.spring.starter.filesystem.api.entity;
+
+import java.util.StringJoiner;
+
+/**
+ * 批量操作中单项的执行结果
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class BatchResult<T> {
+
+    private final T item;
+    private final boolean success;
+    private final Throwable error;
+
+    public BatchResult(T item, boolean success, Throwable error) {
+        this.item = item;
+        this.success = success;
+        this.error = error;
+    }
+
+    public static <T> BatchResult<T> success(T item) {
+        return new BatchResult<>(item, true, null);
+    }
+
+    public static <T> BatchResult<T> failure(T item, Throwable error) {
+        return new BatchResult<>(item, false, error);
+    }
+
+    /**
+     * @return 对应的请求项
+     */
+    public T getItem() {
+        return item;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * @return 失败原因，实现仅返回 {@code false} 而无异常时为NULL（详情见日志）
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", BatchResult.class.getSimpleName() + "[", "]")
+                .add("item=" + item)
+                .add("success=" + success)
+                .add("error=" + error)
+                .toString();
+    }
+
+}
@@ -0,0 +1,61 @@
+package moe.icyr.spring.starter.filesystem.api.entity;
+
+import java.util.StringJoiner;
+
+/**
+ * 并发隔离配置
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class BulkheadProperty {
+
+    /**
+     * 默认等待时长（毫秒）
+     */
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 0;
+
+    private Integer maxConcurrent;
+    private Long maxWaitMillis;
+
+    public BulkheadProperty() {
+    }
+
+    public BulkheadProperty(BulkheadProperty property) {
+        this.maxConcurrent = property.getMaxConcurrent();
+        this.maxWaitMillis = property.getMaxWaitMillis();
+    }
+
+    /**
+     * @return 同时进行的最大操作数，为空或&lt;=0时不限制（仅starter生效，其他情况需自行使用 {@code BulkheadFileSystem} 包装）
+     */
+    public Integer getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public BulkheadProperty setMaxConcurrent(Integer maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+        return this;
+    }
+
+    /**
+     * @return 达到上限时的最长等待时长（毫秒），超时后拒绝；为0时立即拒绝
+     */
+    public Long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public BulkheadProperty setMaxWaitMillis(Long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", BulkheadProperty.class.getSimpleName() + "[", "]")
+                .add("maxConcurrent=" + maxConcurrent)
+                .add("maxWaitMillis=" + maxWaitMillis)
+                .toString();
+    }
+
+}
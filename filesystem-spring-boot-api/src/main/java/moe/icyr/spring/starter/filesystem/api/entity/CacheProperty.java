@@ -0,0 +1,80 @@
+package moe.icyr.spring.starter.filesystem.api.entity;
+
+import java.util.StringJoiner;
+
+/**
+ * 元数据缓存配置
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class CacheProperty {
+
+    /**
+     * 默认最大缓存条数
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+    /**
+     * 默认缓存有效时长（毫秒）
+     */
+    public static final long DEFAULT_TTL_MILLIS = 5000;
+
+    private Boolean enabled;
+    private Integer maximumSize;
+    private Long ttlMillis;
+
+    public CacheProperty() {
+    }
+
+    public CacheProperty(CacheProperty property) {
+        this.enabled = property.getEnabled();
+        this.maximumSize = property.getMaximumSize();
+        this.ttlMillis = property.getTtlMillis();
+    }
+
+    /**
+     * @return 是否缓存 {@code list}、{@code peekFile} 的结果（仅starter生效，其他情况需自行使用 {@code MetadataCachingFileSystem} 包装）
+     */
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public CacheProperty setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * @return 最大缓存条数，超出时淘汰最久未访问的条目
+     */
+    public Integer getMaximumSize() {
+        return maximumSize;
+    }
+
+    public CacheProperty setMaximumSize(Integer maximumSize) {
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * @return 缓存写入后的有效时长（毫秒），过期后下次访问时重新查询
+     */
+    public Long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public CacheProperty setTtlMillis(Long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CacheProperty.class.getSimpleName() + "[", "]")
+                .add("enabled=" + enabled)
+                .add("maximumSize=" + maximumSize)
+                .add("ttlMillis=" + ttlMillis)
+                .toString();
+    }
+
+}
@@ -0,0 +1,94 @@
+package moe.icyr.spring.starter.filesystem.api.entity;
+
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumAlgorithm;
+
+import java.util.StringJoiner;
+
+/**
+ * 带校验和的上传、下载结果
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class ChecksumResult {
+
+    private final boolean success;
+    private final ChecksumAlgorithm algorithm;
+    private final String checksum;
+    private final long bytes;
+    private final String expected;
+
+    public ChecksumResult(boolean success, ChecksumAlgorithm algorithm, String checksum, long bytes, String expected) {
+        this.success = success;
+        this.algorithm = algorithm;
+        this.checksum = checksum;
+        this.bytes = bytes;
+        this.expected = expected;
+    }
+
+    public static ChecksumResult failure(ChecksumAlgorithm algorithm) {
+        return new ChecksumResult(false, algorithm, null, 0, null);
+    }
+
+    /**
+     * @return 传输成功与否，不包含校验结果
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public ChecksumAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return 传输过程中计算的校验和，小写十六进制；传输失败时为NULL
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @return 传输的字节数
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return 文件服务器提供的校验和，小写十六进制；不支持该算法时为NULL
+     */
+    public String getExpected() {
+        return expected;
+    }
+
+    /**
+     * @return 与文件服务器提供的校验和是否一致，无法比对时为NULL
+     */
+    public Boolean getVerified() {
+        if (checksum == null || expected == null) {
+            return null;
+        }
+        return checksum.equalsIgnoreCase(expected);
+    }
+
+    /**
+     * @return 传输成功且未发现校验和不一致
+     */
+    public boolean isValid() {
+        return success && !Boolean.FALSE.equals(getVerified());
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ChecksumResult.class.getSimpleName() + "[", "]")
+                .add("success=" + success)
+                .add("algorithm=" + algorithm)
+                .add("checksum='" + checksum + "'")
+                .add("bytes=" + bytes)
+                .add("expected='" + expected + "'")
+                .add("verified=" + getVerified())
+                .toString();
+    }
+
+}
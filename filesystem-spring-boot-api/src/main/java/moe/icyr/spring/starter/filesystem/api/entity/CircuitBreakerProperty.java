@@ -0,0 +1,61 @@
+package moe.icyr.spring.starter.filesystem.api.entity;
+
+import java.util.StringJoiner;
+
+/**
+ * 熔断配置
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class CircuitBreakerProperty {
+
+    /**
+     * 默认打开后转为半开前的等待时长（毫秒）
+     */
+    public static final long DEFAULT_OPEN_MILLIS = 30_000;
+
+    private Integer failureThreshold;
+    private Long openMillis;
+
+    public CircuitBreakerProperty() {
+    }
+
+    public CircuitBreakerProperty(CircuitBreakerProperty property) {
+        this.failureThreshold = property.getFailureThreshold();
+        this.openMillis = property.getOpenMillis();
+    }
+
+    /**
+     * @return 打开前的连续失败次数，为空或&lt;=0时不熔断（仅starter生效，其他情况需自行使用 {@code CircuitBreakerFileSystem} 包装）
+     */
+    public Integer getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public CircuitBreakerProperty setFailureThreshold(Integer failureThreshold) {
+        this.failureThreshold = failureThreshold;
+        return this;
+    }
+
+    /**
+     * @return 打开后转为半开前的等待时长（毫秒），为空时为30000
+     */
+    public Long getOpenMillis() {
+        return openMillis;
+    }
+
+    public CircuitBreakerProperty setOpenMillis(Long openMillis) {
+        this.openMillis = openMillis;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CircuitBreakerProperty.class.getSimpleName() + "[", "]")
+                .add("failureThreshold=" + failureThreshold)
+                .add("openMillis=" + openMillis)
+                .toString();
+    }
+
+}
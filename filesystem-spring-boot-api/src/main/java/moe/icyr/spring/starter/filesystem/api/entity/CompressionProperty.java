@@ -0,0 +1,92 @@
+package moe.icyr.spring.starter.filesystem.api.entity;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * 传输压缩配置
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class CompressionProperty {
+
+    /**
+     * 默认压缩算法
+     */
+    public static final String DEFAULT_CODEC = "gzip";
+
+    private Boolean enabled;
+    private String codec;
+    private Integer level;
+    private List<String> skipExtensions;
+
+    public CompressionProperty() {
+    }
+
+    public CompressionProperty(CompressionProperty property) {
+        this.enabled = property.getEnabled();
+        this.codec = property.getCodec();
+        this.level = property.getLevel();
+        this.skipExtensions = property.getSkipExtensions();
+    }
+
+    /**
+     * @return 是否在上传时压缩、下载时解压（仅starter生效，其他情况需自行使用 {@code CompressingFileSystem} 包装）
+     */
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public CompressionProperty setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * @return 压缩算法：gzip、zstd（需引入zstd-jni）、lz4（需引入lz4-java），为空时为gzip，所需依赖不存在时回退为gzip
+     */
+    public String getCodec() {
+        return codec;
+    }
+
+    public CompressionProperty setCodec(String codec) {
+        this.codec = codec;
+        return this;
+    }
+
+    /**
+     * @return 压缩级别，为空时使用算法的默认级别；gzip取值1~9，zstd取值1~22，lz4不支持
+     */
+    public Integer getLevel() {
+        return level;
+    }
+
+    public CompressionProperty setLevel(Integer level) {
+        this.level = level;
+        return this;
+    }
+
+    /**
+     * @return 额外不压缩的文件后缀（不含点，不区分大小写），常见的压缩包、图片、音视频、Office文档已默认跳过
+     */
+    public List<String> getSkipExtensions() {
+        return skipExtensions;
+    }
+
+    public CompressionProperty setSkipExtensions(List<String> skipExtensions) {
+        this.skipExtensions = skipExtensions;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CompressionProperty.class.getSimpleName() + "[", "]")
+                .add("enabled=" + enabled)
+                .add("codec='" + codec + "'")
+                .add("level=" + level)
+                .add("skipExtensions=" + skipExtensions)
+                .toString();
+    }
+
+}
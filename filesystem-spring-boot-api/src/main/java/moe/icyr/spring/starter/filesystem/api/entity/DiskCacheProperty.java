@@ -0,0 +1,95 @@
+package moe.icyr.spring.starter.filesystem.api.entity;
+
+import java.util.StringJoiner;
+
+/**
+ * 下载本地磁盘缓存配置
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class DiskCacheProperty {
+
+    /**
+     * 默认缓存总大小上限（字节）
+     */
+    public static final long DEFAULT_MAXIMUM_SIZE = 1024L * 1024 * 1024;
+    /**
+     * 默认使用内存映射读取的文件大小阈值（字节）
+     */
+    public static final long DEFAULT_MMAP_THRESHOLD = 4L * 1024 * 1024;
+
+    private Boolean enabled;
+    private String directory;
+    private Long maximumSize;
+    private Long mmapThreshold;
+
+    public DiskCacheProperty() {
+    }
+
+    public DiskCacheProperty(DiskCacheProperty property) {
+        this.enabled = property.getEnabled();
+        this.directory = property.getDirectory();
+        this.maximumSize = property.getMaximumSize();
+        this.mmapThreshold = property.getMmapThreshold();
+    }
+
+    /**
+     * @return 是否将下载的文件缓存至本地磁盘（仅starter生效，其他情况需自行使用 {@code DiskCachingFileSystem} 包装）
+     */
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public DiskCacheProperty setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * @return 缓存目录，为空时使用临时目录下以别名命名的子目录；多个实例请勿共用同一目录
+     */
+    public String getDirectory() {
+        return directory;
+    }
+
+    public DiskCacheProperty setDirectory(String directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    /**
+     * @return 缓存总大小上限（字节），超出时淘汰最久未访问的文件，大于该值的文件不缓存
+     */
+    public Long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public DiskCacheProperty setMaximumSize(Long maximumSize) {
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * @return 命中的文件不小于该大小（字节）时使用内存映射读取
+     */
+    public Long getMmapThreshold() {
+        return mmapThreshold;
+    }
+
+    public DiskCacheProperty setMmapThreshold(Long mmapThreshold) {
+        this.mmapThreshold = mmapThreshold;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", DiskCacheProperty.class.getSimpleName() + "[", "]")
+                .add("enabled=" + enabled)
+                .add("directory='" + directory + "'")
+                .add("maximumSize=" + maximumSize)
+                .add("mmapThreshold=" + mmapThreshold)
+                .toString();
+    }
+
+}
@@ -0,0 +1,86 @@
+package moe.icyr.spring.starter.filesystem.api.entity;
+
+import java.util.StringJoiner;
+
+/**
+ * 客户端加密配置
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class EncryptionProperty {
+
+    private Boolean enabled;
+    private String key;
+    private Integer frameSize;
+    private Boolean allowPlaintext;
+
+    public EncryptionProperty() {
+    }
+
+    public EncryptionProperty(EncryptionProperty property) {
+        this.enabled = property.getEnabled();
+        this.key = property.getKey();
+        this.frameSize = property.getFrameSize();
+        this.allowPlaintext = property.getAllowPlaintext();
+    }
+
+    /**
+     * @return 是否在上传时加密、下载时解密（仅starter生效，其他情况需自行使用 {@code EncryptingFileSystem} 包装）
+     */
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public EncryptionProperty setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * @return Base64编码的AES密钥，长度为16、24或32字节；建议通过环境变量等占位符注入，不要写在配置文件中
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public EncryptionProperty setKey(String key) {
+        this.key = key;
+        return this;
+    }
+
+    /**
+     * @return 每帧明文长度（字节），为空时为64KB；范围读取以帧为单位解密，读取时使用文件头中记录的帧长度
+     */
+    public Integer getFrameSize() {
+        return frameSize;
+    }
+
+    public EncryptionProperty setFrameSize(Integer frameSize) {
+        this.frameSize = frameSize;
+        return this;
+    }
+
+    /**
+     * @return 是否允许读取未加密的文件（如开启加密前上传的文件），为空时不允许
+     */
+    public Boolean getAllowPlaintext() {
+        return allowPlaintext;
+    }
+
+    public EncryptionProperty setAllowPlaintext(Boolean allowPlaintext) {
+        this.allowPlaintext = allowPlaintext;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", EncryptionProperty.class.getSimpleName() + "[", "]")
+                .add("enabled=" + enabled)
+                .add("key='" + (key == null ? "null" : "***") + "'")
+                .add("frameSize=" + frameSize)
+                .add("allowPlaintext=" + allowPlaintext)
+                .toString();
+    }
+
+}
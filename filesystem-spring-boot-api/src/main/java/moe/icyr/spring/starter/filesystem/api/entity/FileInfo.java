@@ -18,6 +18,10 @@ public class FileInfo<T> {
     private boolean isDirectory;
     private Collection<FileInfo<T>> children;
     private T originalInfo;
+    /**
+     * 内容指纹，内容变化时随之变化，用于校验本地缓存；MinIO为ETag，FastDFS为CRC32，SFTP为大小与修改时间，不支持时为NULL
+     */
+    private String fingerprint;
 
     public String getAbsolutePath() {
         return absolutePath;
@@ -81,6 +85,15 @@ public class FileInfo<T> {
         this.originalInfo = originalInfo;
     }
 
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public FileInfo<T> setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+        return this;
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", FileInfo.class.getSimpleName() + "[", "]")
@@ -89,6 +102,7 @@ public class FileInfo<T> {
                 .add("size='" + size + "'")
                 .add("isFile=" + isFile)
                 .add("isDirectory=" + isDirectory)
+                .add("fingerprint='" + fingerprint + "'")
                 .add("children=" + children)
                 .toString();
     }
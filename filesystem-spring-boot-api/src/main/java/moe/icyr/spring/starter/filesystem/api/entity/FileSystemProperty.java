@@ -18,6 +18,16 @@ public class FileSystemProperty {
     private String username;
     private String password;
     private Map<String, Object> external;
+    private AsyncProperty async;
+    private BatchProperty batch;
+    private CacheProperty cache;
+    private DiskCacheProperty diskCache;
+    private ThrottleProperty throttle;
+    private BulkheadProperty bulkhead;
+    private RetryProperty retry;
+    private CircuitBreakerProperty circuitBreaker;
+    private CompressionProperty compression;
+    private EncryptionProperty encryption;
 
     public FileSystemProperty() {
     }
@@ -30,6 +40,16 @@ public class FileSystemProperty {
         this.port = property.getPort();
         this.username = property.getUsername();
         this.password = property.getPassword();
+        this.async = property.getAsync() == null ? null : new AsyncProperty(property.getAsync());
+        this.batch = property.getBatch() == null ? null : new BatchProperty(property.getBatch());
+        this.cache = property.getCache() == null ? null : new CacheProperty(property.getCache());
+        this.diskCache = property.getDiskCache() == null ? null : new DiskCacheProperty(property.getDiskCache());
+        this.throttle = property.getThrottle() == null ? null : new ThrottleProperty(property.getThrottle());
+        this.bulkhead = property.getBulkhead() == null ? null : new BulkheadProperty(property.getBulkhead());
+        this.retry = property.getRetry() == null ? null : new RetryProperty(property.getRetry());
+        this.circuitBreaker = property.getCircuitBreaker() == null ? null : new CircuitBreakerProperty(property.getCircuitBreaker());
+        this.compression = property.getCompression() == null ? null : new CompressionProperty(property.getCompression());
+        this.encryption = property.getEncryption() == null ? null : new EncryptionProperty(property.getEncryption());
     }
 
     public String getType() {
@@ -95,6 +115,96 @@ public class FileSystemProperty {
         return this;
     }
 
+    public AsyncProperty getAsync() {
+        return async;
+    }
+
+    public FileSystemProperty setAsync(AsyncProperty async) {
+        this.async = async;
+        return this;
+    }
+
+    public BatchProperty getBatch() {
+        return batch;
+    }
+
+    public FileSystemProperty setBatch(BatchProperty batch) {
+        this.batch = batch;
+        return this;
+    }
+
+    public CacheProperty getCache() {
+        return cache;
+    }
+
+    public FileSystemProperty setCache(CacheProperty cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    public DiskCacheProperty getDiskCache() {
+        return diskCache;
+    }
+
+    public FileSystemProperty setDiskCache(DiskCacheProperty diskCache) {
+        this.diskCache = diskCache;
+        return this;
+    }
+
+    public ThrottleProperty getThrottle() {
+        return throttle;
+    }
+
+    public FileSystemProperty setThrottle(ThrottleProperty throttle) {
+        this.throttle = throttle;
+        return this;
+    }
+
+    public BulkheadProperty getBulkhead() {
+        return bulkhead;
+    }
+
+    public FileSystemProperty setBulkhead(BulkheadProperty bulkhead) {
+        this.bulkhead = bulkhead;
+        return this;
+    }
+
+    public RetryProperty getRetry() {
+        return retry;
+    }
+
+    public FileSystemProperty setRetry(RetryProperty retry) {
+        this.retry = retry;
+        return this;
+    }
+
+    public CircuitBreakerProperty getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public FileSystemProperty setCircuitBreaker(CircuitBreakerProperty circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+        return this;
+    }
+
+    public CompressionProperty getCompression() {
+        return compression;
+    }
+
+    public FileSystemProperty setCompression(CompressionProperty compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    public EncryptionProperty getEncryption() {
+        return encryption;
+    }
+
+    public FileSystemProperty setEncryption(EncryptionProperty encryption) {
+        this.encryption = encryption;
+        return this;
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", FileSystemProperty.class.getSimpleName() + "[", "]")
@@ -104,6 +214,16 @@ public class FileSystemProperty {
                 .add("port=" + port)
                 .add("username='" + username + "'")
                 .add("password='" + (password == null ? "null" : "***") + "'")
+                .add("async=" + async)
+                .add("batch=" + batch)
+                .add("cache=" + cache)
+                .add("diskCache=" + diskCache)
+                .add("throttle=" + throttle)
+                .add("bulkhead=" + bulkhead)
+                .add("retry=" + retry)
+                .add("circuitBreaker=" + circuitBreaker)
+                .add("compression=" + compression)
+                .add("encryption=" + encryption)
                 .toString();
     }
 
@@ -0,0 +1,122 @@
+package moe.icyr.spring.starter.filesystem.api.entity;
+
+import java.util.StringJoiner;
+
+/**
+ * 失败重试配置
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class RetryProperty {
+
+    /**
+     * 默认最大尝试次数（含首次），即不重试
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 1;
+    /**
+     * 默认首次重试前的等待时长（毫秒）
+     */
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 200;
+    /**
+     * 默认最长等待时长（毫秒）
+     */
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 10_000;
+    /**
+     * 默认等待时长倍数
+     */
+    public static final double DEFAULT_MULTIPLIER = 2.0;
+    /**
+     * 默认随机抖动比例
+     */
+    public static final double DEFAULT_JITTER = 0.5;
+
+    private Integer maxAttempts;
+    private Long initialBackoffMillis;
+    private Long maxBackoffMillis;
+    private Double multiplier;
+    private Double jitter;
+
+    public RetryProperty() {
+    }
+
+    public RetryProperty(RetryProperty property) {
+        this.maxAttempts = property.getMaxAttempts();
+        this.initialBackoffMillis = property.getInitialBackoffMillis();
+        this.maxBackoffMillis = property.getMaxBackoffMillis();
+        this.multiplier = property.getMultiplier();
+        this.jitter = property.getJitter();
+    }
+
+    /**
+     * @return 最大尝试次数（含首次），为空时为1即不重试；FTP未配置时沿用 {@code external.retries}+1
+     */
+    public Integer getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public RetryProperty setMaxAttempts(Integer maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * @return 首次重试前的等待时长（毫秒），为空时为200
+     */
+    public Long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    public RetryProperty setInitialBackoffMillis(Long initialBackoffMillis) {
+        this.initialBackoffMillis = initialBackoffMillis;
+        return this;
+    }
+
+    /**
+     * @return 等待时长的上限（毫秒），为空时为10000
+     */
+    public Long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    public RetryProperty setMaxBackoffMillis(Long maxBackoffMillis) {
+        this.maxBackoffMillis = maxBackoffMillis;
+        return this;
+    }
+
+    /**
+     * @return 每次重试后等待时长的倍数，需&gt;=1，为空时为2
+     */
+    public Double getMultiplier() {
+        return multiplier;
+    }
+
+    public RetryProperty setMultiplier(Double multiplier) {
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    /**
+     * @return 随机抖动比例，取值0~1，实际等待时长在 [等待时长*(1-jitter), 等待时长] 之间随机，为空时为0.5
+     */
+    public Double getJitter() {
+        return jitter;
+    }
+
+    public RetryProperty setJitter(Double jitter) {
+        this.jitter = jitter;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", RetryProperty.class.getSimpleName() + "[", "]")
+                .add("maxAttempts=" + maxAttempts)
+                .add("initialBackoffMillis=" + initialBackoffMillis)
+                .add("maxBackoffMillis=" + maxBackoffMillis)
+                .add("multiplier=" + multiplier)
+                .add("jitter=" + jitter)
+                .toString();
+    }
+
+}
@@ -0,0 +1,71 @@
+package moe.icyr.spring.starter.filesystem.api.entity;
+
+import java.util.StringJoiner;
+
+/**
+ * 传输限速配置
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class ThrottleProperty {
+
+    private Long bytesPerSecond;
+    private Long burst;
+    private Boolean sharedByHost;
+
+    public ThrottleProperty() {
+    }
+
+    public ThrottleProperty(ThrottleProperty property) {
+        this.bytesPerSecond = property.getBytesPerSecond();
+        this.burst = property.getBurst();
+        this.sharedByHost = property.getSharedByHost();
+    }
+
+    /**
+     * @return 上传、下载合计的速率上限（字节/秒），为空或&lt;=0时不限速（仅starter生效，其他情况需自行使用 {@code ThrottlingFileSystem} 包装）
+     */
+    public Long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public ThrottleProperty setBytesPerSecond(Long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * @return 允许的突发字节数，即空闲后可立即传输的量，为空时与每秒速率相同
+     */
+    public Long getBurst() {
+        return burst;
+    }
+
+    public ThrottleProperty setBurst(Long burst) {
+        this.burst = burst;
+        return this;
+    }
+
+    /**
+     * @return 是否与指向同一主机的其他配置共用限速，共用时以最先创建的配置的速率为准
+     */
+    public Boolean getSharedByHost() {
+        return sharedByHost;
+    }
+
+    public ThrottleProperty setSharedByHost(Boolean sharedByHost) {
+        this.sharedByHost = sharedByHost;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ThrottleProperty.class.getSimpleName() + "[", "]")
+                .add("bytesPerSecond=" + bytesPerSecond)
+                .add("burst=" + burst)
+                .add("sharedByHost=" + sharedByHost)
+                .toString();
+    }
+
+}
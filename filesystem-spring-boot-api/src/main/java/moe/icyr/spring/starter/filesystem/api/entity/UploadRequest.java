@@ -0,0 +1,121 @@
+package moe.icyr.spring.starter.filesystem.api.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ResourceBundle;
+import java.util.StringJoiner;
+
+/**
+ * <p>批量上传中的单个文件</p>
+ * <p>内容可以是输入流、字节或文件之一；输入流在上传完成后由批量上传方法关闭</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class UploadRequest {
+
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    private InputStream input;
+    private byte[] bytes;
+    private File file;
+    private String path;
+    private String filename;
+
+    public UploadRequest() {
+    }
+
+    public static UploadRequest of(InputStream input, String path, String filename) {
+        return new UploadRequest().setInput(input).setPath(path).setFilename(filename);
+    }
+
+    public static UploadRequest of(byte[] bytes, String path, String filename) {
+        return new UploadRequest().setBytes(bytes).setPath(path).setFilename(filename);
+    }
+
+    public static UploadRequest of(File file, String path, String filename) {
+        return new UploadRequest().setFile(file).setPath(path).setFilename(filename);
+    }
+
+    /**
+     * 打开待上传内容的输入流
+     * @return 输入流
+     * @throws IOException 未设置内容或文件无法读取
+     */
+    public InputStream openStream() throws IOException {
+        if (input != null) {
+            return input;
+        } else if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        } else if (file != null) {
+            return new FileInputStream(file);
+        }
+        throw new IOException(message.getString("fs.batch.request.no.content")
+                .replace("${path}", String.valueOf(path))
+                .replace("${filename}", String.valueOf(filename)));
+    }
+
+    public InputStream getInput() {
+        return input;
+    }
+
+    public UploadRequest setInput(InputStream input) {
+        this.input = input;
+        return this;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public UploadRequest setBytes(byte[] bytes) {
+        this.bytes = bytes;
+        return this;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public UploadRequest setFile(File file) {
+        this.file = file;
+        return this;
+    }
+
+    /**
+     * @return 目标文件绝对路径
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public UploadRequest setPath(String path) {
+        this.path = path;
+        return this;
+    }
+
+    /**
+     * @return 目标文件名称
+     */
+    public String getFilename() {
+        return filename;
+    }
+
+    public UploadRequest setFilename(String filename) {
+        this.filename = filename;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", UploadRequest.class.getSimpleName() + "[", "]")
+                .add("path='" + path + "'")
+                .add("filename='" + filename + "'")
+                .add("source=" + (input != null ? "stream" : bytes != null ? "bytes(" + bytes.length + ")" : file != null ? "file(" + file + ")" : "null"))
+                .toString();
+    }
+
+}
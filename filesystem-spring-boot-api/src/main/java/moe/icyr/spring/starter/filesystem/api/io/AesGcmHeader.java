@@ -0,0 +1,208 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.ResourceBundle;
+
+/**
+ * <p>分帧AES-GCM加密文件的文件头，格式为：魔数 {@code FSE\1}（4字节）、每帧明文长度（4字节，大端）、
+ * 盐（16字节）、随机数前缀（8字节），共 {@value #LENGTH} 字节</p>
+ * <p>文件头之后为依次排列的帧，每帧为一段明文加密后的密文与 {@value #TAG_LENGTH} 字节的认证标签；
+ * 除最后一帧外明文长度均为帧长度，最后一帧可以为空。每个文件使用由主密钥、盐与文件头经HKDF-SHA256派生的密钥，
+ * 帧的IV为随机数前缀与帧序号，附加数据标记是否为最后一帧，帧被调换、截断或追加时均无法通过认证</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public final class AesGcmHeader {
+
+    /**
+     * 文件头长度
+     */
+    public static final int LENGTH = 32;
+    /**
+     * 魔数长度
+     */
+    public static final int MAGIC_LENGTH = 4;
+    /**
+     * 每帧认证标签长度
+     */
+    public static final int TAG_LENGTH = 16;
+    /**
+     * 默认帧长度
+     */
+    public static final int DEFAULT_FRAME_SIZE = 64 * 1024;
+    /**
+     * 最小帧长度
+     */
+    public static final int MIN_FRAME_SIZE = 1024;
+    /**
+     * 最大帧长度，读取时同样校验，避免损坏的文件头导致分配过大的缓冲区
+     */
+    public static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final byte[] MAGIC = {0x46, 0x53, 0x45, 0x01};
+    private static final int SALT_LENGTH = 16;
+    private static final int NONCE_PREFIX_LENGTH = 8;
+    private static final int IV_LENGTH = 12;
+    private static final long MAX_FRAMES = 0xffffffffL;
+    private static final SecureRandom random = new SecureRandom();
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    private final int frameSize;
+    private final byte[] salt;
+    private final byte[] noncePrefix;
+
+    private AesGcmHeader(int frameSize, byte[] salt, byte[] noncePrefix) {
+        this.frameSize = frameSize;
+        this.salt = salt;
+        this.noncePrefix = noncePrefix;
+    }
+
+    /**
+     * 生成使用随机盐与随机数前缀的文件头
+     * @param frameSize 帧长度
+     * @return 文件头
+     */
+    public static AesGcmHeader random(int frameSize) {
+        if (!isValidFrameSize(frameSize)) {
+            throw new IllegalArgumentException(message.getString("fs.encryption.frame.size.invalid")
+                    .replace("${frameSize}", Integer.toString(frameSize)));
+        }
+        byte[] salt = new byte[SALT_LENGTH];
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        random.nextBytes(salt);
+        random.nextBytes(noncePrefix);
+        return new AesGcmHeader(frameSize, salt, noncePrefix);
+    }
+
+    /**
+     * 解析文件头
+     * @param bytes 文件开头的数据
+     * @param length 有效长度
+     * @return 文件头
+     * @throws IOException 长度不足、魔数不符或帧长度无效
+     */
+    public static AesGcmHeader parse(byte[] bytes, int length) throws IOException {
+        if (length < LENGTH || !matches(bytes, length)) {
+            throw new IOException(message.getString("fs.encryption.header.invalid"));
+        }
+        int frameSize = ((bytes[4] & 0xff) << 24) | ((bytes[5] & 0xff) << 16) | ((bytes[6] & 0xff) << 8) | (bytes[7] & 0xff);
+        if (!isValidFrameSize(frameSize)) {
+            throw new IOException(message.getString("fs.encryption.frame.size.invalid")
+                    .replace("${frameSize}", Integer.toString(frameSize)));
+        }
+        return new AesGcmHeader(frameSize,
+                Arrays.copyOfRange(bytes, 8, 8 + SALT_LENGTH),
+                Arrays.copyOfRange(bytes, 8 + SALT_LENGTH, LENGTH));
+    }
+
+    /**
+     * @param head 文件开头的数据
+     * @param length 有效长度
+     * @return 是否以加密文件的魔数开头
+     */
+    public static boolean matches(byte[] head, int length) {
+        if (head == null || length < MAGIC_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC_LENGTH; i++) {
+            if (head[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param frameSize 帧长度
+     * @return 是否在 {@value #MIN_FRAME_SIZE} 与 {@value #MAX_FRAME_SIZE} 之间
+     */
+    public static boolean isValidFrameSize(int frameSize) {
+        return frameSize >= MIN_FRAME_SIZE && frameSize <= MAX_FRAME_SIZE;
+    }
+
+    /**
+     * 计算加密后的长度
+     * @param plainLength 明文长度
+     * @param frameSize 帧长度
+     * @return 文件头与所有帧的总长度
+     */
+    public static long encryptedLength(long plainLength, int frameSize) {
+        long frames = plainLength == 0 ? 1 : (plainLength + frameSize - 1) / frameSize;
+        return LENGTH + plainLength + frames * TAG_LENGTH;
+    }
+
+    /**
+     * @return 帧长度（每帧明文长度）
+     */
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    /**
+     * @param index 帧序号
+     * @return 该帧在文件中的起始位置
+     */
+    public long frameOffset(long index) {
+        return LENGTH + index * ((long) frameSize + TAG_LENGTH);
+    }
+
+    /**
+     * @return 文件头的字节表示
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[LENGTH];
+        System.arraycopy(MAGIC, 0, bytes, 0, MAGIC_LENGTH);
+        bytes[4] = (byte) (frameSize >>> 24);
+        bytes[5] = (byte) (frameSize >>> 16);
+        bytes[6] = (byte) (frameSize >>> 8);
+        bytes[7] = (byte) frameSize;
+        System.arraycopy(salt, 0, bytes, 8, SALT_LENGTH);
+        System.arraycopy(noncePrefix, 0, bytes, 8 + SALT_LENGTH, NONCE_PREFIX_LENGTH);
+        return bytes;
+    }
+
+    /**
+     * HKDF-SHA256派生该文件的密钥，长度与主密钥相同，info为魔数与帧长度
+     */
+    SecretKey deriveKey(SecretKey key) throws GeneralSecurityException {
+        byte[] master = key.getEncoded();
+        if (master == null || (master.length != 16 && master.length != 24 && master.length != 32)) {
+            throw new GeneralSecurityException(message.getString("fs.encryption.key.invalid"));
+        }
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(salt, "HmacSHA256"));
+        byte[] prk = mac.doFinal(master);
+        mac.init(new SecretKeySpec(prk, "HmacSHA256"));
+        mac.update(toBytes(), 0, 8);
+        mac.update((byte) 1);
+        byte[] okm = mac.doFinal();
+        return new SecretKeySpec(okm, 0, master.length, "AES");
+    }
+
+    /**
+     * @param index 帧序号
+     * @return 该帧的IV：随机数前缀与帧序号（4字节，大端）
+     */
+    byte[] iv(long index) throws IOException {
+        if (index < 0 || index > MAX_FRAMES) {
+            throw new IOException(message.getString("fs.encryption.frame.index.invalid")
+                    .replace("${index}", Long.toString(index)));
+        }
+        byte[] iv = Arrays.copyOf(noncePrefix, IV_LENGTH);
+        iv[8] = (byte) (index >>> 24);
+        iv[9] = (byte) (index >>> 16);
+        iv[10] = (byte) (index >>> 8);
+        iv[11] = (byte) index;
+        return iv;
+    }
+
+}
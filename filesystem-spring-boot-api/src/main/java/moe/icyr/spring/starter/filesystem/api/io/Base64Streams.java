@@ -0,0 +1,279 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Base64;
+import java.util.ResourceBundle;
+
+/**
+ * <p>Base64流式编解码工具</p>
+ * <p>解码时直接从字符串读取字符，编码时逐块写出，均不会产生与整个文件等大的中间数组</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public final class Base64Streams {
+
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    /**
+     * 识别Data URI前缀时最多检查的字符数
+     */
+    private static final int DATA_URI_HEAD_LIMIT = 256;
+    private static final String DATA_URI_SCHEME = "data:";
+    private static final String DATA_URI_BASE64_MARK = ";base64,";
+
+    private Base64Streams() {
+    }
+
+    /**
+     * <p>查找Base64数据的起始位置</p>
+     * <p>只检查字符串开头部分，以 {@code data:xxx;base64,} 开头时返回逗号之后的位置，否则返回0</p>
+     * @param base64 Base64字符串或Data URI
+     * @return 数据起始下标
+     */
+    public static int payloadOffset(CharSequence base64) {
+        if (base64.length() < DATA_URI_SCHEME.length()) {
+            return 0;
+        }
+        for (int i = 0; i < DATA_URI_SCHEME.length(); i++) {
+            if (Character.toLowerCase(base64.charAt(i)) != DATA_URI_SCHEME.charAt(i)) {
+                return 0;
+            }
+        }
+        int limit = Math.min(base64.length(), DATA_URI_HEAD_LIMIT);
+        for (int i = DATA_URI_SCHEME.length(); i <= limit - DATA_URI_BASE64_MARK.length(); i++) {
+            char c = base64.charAt(i);
+            if (c == ',') {
+                return 0;
+            }
+            if (c == ';' && regionMatches(base64, i, DATA_URI_BASE64_MARK)) {
+                return i + DATA_URI_BASE64_MARK.length();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * <p>创建解码流</p>
+     * <p>创建时会扫描一遍字符校验格式（不复制数据），格式错误则抛出异常，以免上传到一半才发现数据错误；
+     * 流的 {@link InputStream#available()} 返回剩余的解码后字节数，可作为上传长度使用；流可回到开头重新解码，见 {@link Rewindable}</p>
+     * @param base64 Base64字符串或Data URI
+     * @return 解码后的字节流
+     * @throws IllegalArgumentException Base64格式错误
+     */
+    public static InputStream decode(CharSequence base64) {
+        if (base64 == null) {
+            throw new IllegalArgumentException(message.getString("fs.base64.valid.not.null"));
+        }
+        int offset = payloadOffset(base64);
+        long decodedLength = validate(base64, offset);
+        return new DecodingInputStream(base64, offset, decodedLength);
+    }
+
+    /**
+     * 创建编码流，写入的字节编码后写入目标流；关闭时补齐末尾并刷新，但不会关闭目标流
+     * @param output 目标流
+     * @return 编码流，写入完成后必须关闭
+     */
+    public static OutputStream encode(OutputStream output) {
+        return Base64.getEncoder().wrap(new FilterOutputStream(output) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+    }
+
+    /**
+     * 创建编码流，写入的字节编码后以字符写入目标Writer；关闭时补齐末尾并刷新，但不会关闭目标Writer
+     * @param writer 目标Writer
+     * @return 编码流，写入完成后必须关闭
+     */
+    public static OutputStream encode(Writer writer) {
+        return encode(new AsciiWriterOutputStream(writer));
+    }
+
+    /**
+     * 校验Base64字符并计算解码后长度
+     */
+    private static long validate(CharSequence base64, int offset) {
+        int end = base64.length();
+        int padding = 0;
+        while (end > offset && base64.charAt(end - 1) == '=' && padding < 2) {
+            end--;
+            padding++;
+        }
+        for (int i = offset; i < end; i++) {
+            char c = base64.charAt(i);
+            if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '+' || c == '/')) {
+                throw new IllegalArgumentException(message.getString("fs.base64.illegal.character")
+                        .replace("${index}", Integer.toString(i)));
+            }
+        }
+        long length = end - offset;
+        int remainder = (int) (length % 4);
+        if (remainder == 1 || (padding > 0 && (length + padding) % 4 != 0)) {
+            throw new IllegalArgumentException(message.getString("fs.base64.illegal.length"));
+        }
+        return length / 4 * 3 + (remainder == 0 ? 0 : remainder - 1);
+    }
+
+    private static boolean regionMatches(CharSequence s, int offset, String other) {
+        for (int i = 0; i < other.length(); i++) {
+            if (Character.toLowerCase(s.charAt(offset + i)) != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 将字符序列按ASCII逐字节读取
+     */
+    private static final class CharSequenceInputStream extends InputStream {
+
+        private final CharSequence source;
+        private int position;
+
+        CharSequenceInputStream(CharSequence source, int offset) {
+            this.source = source;
+            this.position = offset;
+        }
+
+        @Override
+        public int read() {
+            return position < source.length() ? (source.charAt(position++) & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int n = Math.min(len, source.length() - position);
+            if (n <= 0) {
+                return -1;
+            }
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) source.charAt(position++);
+            }
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return source.length() - position;
+        }
+
+    }
+
+    /**
+     * 记录剩余解码长度的解码流，回到开头时从原字符串重新解码
+     */
+    private static final class DecodingInputStream extends InputStream implements Rewindable {
+
+        private final CharSequence source;
+        private final int offset;
+        private final long decodedLength;
+        private InputStream decoder;
+        private long remaining;
+
+        DecodingInputStream(CharSequence source, int offset, long decodedLength) {
+            this.source = source;
+            this.offset = offset;
+            this.decodedLength = decodedLength;
+            rewind();
+        }
+
+        @Override
+        public boolean isRewindable() {
+            return true;
+        }
+
+        @Override
+        public void rewind() {
+            this.decoder = Base64.getDecoder().wrap(new CharSequenceInputStream(source, offset));
+            this.remaining = decodedLength;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = decoder.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = decoder.read(b, off, len);
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0, remaining));
+        }
+
+        @Override
+        public void close() throws IOException {
+            decoder.close();
+        }
+
+    }
+
+    /**
+     * 将ASCII字节以字符写入Writer
+     */
+    private static final class AsciiWriterOutputStream extends OutputStream {
+
+        private final Writer writer;
+        private final char[] chars = new char[8192];
+
+        AsciiWriterOutputStream(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            writer.write(b & 0xFF);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, chars.length);
+                for (int i = 0; i < n; i++) {
+                    chars[i] = (char) (b[off + i] & 0xFF);
+                }
+                writer.write(chars, 0, n);
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+    }
+
+}
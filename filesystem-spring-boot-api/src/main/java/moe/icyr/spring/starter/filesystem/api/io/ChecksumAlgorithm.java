@@ -0,0 +1,126 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.lang.reflect.Constructor;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * <p>传输时计算的校验和算法</p>
+ * <p>CRC32C在Java 9及以上使用 {@code java.util.zip.CRC32C}，Java 8使用查表实现</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public enum ChecksumAlgorithm {
+
+    /**
+     * FastDFS记录的文件校验和
+     */
+    CRC32,
+    /**
+     * S3 {@code x-amz-checksum-crc32c}
+     */
+    CRC32C,
+    /**
+     * 非分片上传的S3对象ETag
+     */
+    MD5,
+    /**
+     * S3 {@code x-amz-checksum-sha256}
+     */
+    SHA256;
+
+    private static final Constructor<? extends Checksum> JDK_CRC32C = findJdkCrc32c();
+
+    @SuppressWarnings("unchecked")
+    private static Constructor<? extends Checksum> findJdkCrc32c() {
+        try {
+            return (Constructor<? extends Checksum>) Class.forName("java.util.zip.CRC32C").getConstructor();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return 新的计算器
+     */
+    Digest newDigest() {
+        switch (this) {
+            case CRC32:
+                return new Digest(new CRC32(), null);
+            case CRC32C:
+                Checksum crc32c = null;
+                if (JDK_CRC32C != null) {
+                    try {
+                        crc32c = JDK_CRC32C.newInstance();
+                    } catch (ReflectiveOperationException ignored) {
+                    }
+                }
+                return new Digest(crc32c == null ? new Crc32c() : crc32c, null);
+            case MD5:
+                return new Digest(null, messageDigest("MD5"));
+            case SHA256:
+            default:
+                return new Digest(null, messageDigest("SHA-256"));
+        }
+    }
+
+    private static MessageDigest messageDigest(String name) {
+        try {
+            return MessageDigest.getInstance(name);
+        } catch (NoSuchAlgorithmException e) {
+            // Java平台规范要求必须提供MD5与SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * CRC与摘要算法的统一封装，CRC结果按大端序输出4字节
+     */
+    static final class Digest {
+
+        private final Checksum checksum;
+        private final MessageDigest digest;
+
+        private Digest(Checksum checksum, MessageDigest digest) {
+            this.checksum = checksum;
+            this.digest = digest;
+        }
+
+        void update(int b) {
+            if (checksum != null) {
+                checksum.update(b);
+            } else {
+                digest.update((byte) b);
+            }
+        }
+
+        void update(byte[] b, int off, int len) {
+            if (checksum != null) {
+                checksum.update(b, off, len);
+            } else {
+                digest.update(b, off, len);
+            }
+        }
+
+        void reset() {
+            if (checksum != null) {
+                checksum.reset();
+            } else {
+                digest.reset();
+            }
+        }
+
+        byte[] value() {
+            if (checksum == null) {
+                return digest.digest();
+            }
+            long value = checksum.getValue();
+            return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+        }
+
+    }
+
+}
@@ -0,0 +1,133 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <p>在读取的同时计算校验和的输入流，不会额外缓存数据</p>
+ * <p>不支持 {@link #mark(int)}，{@link #skip(long)} 跳过的字节同样计入校验和；{@link #available()} 透传给原流</p>
+ * <p>被包装的流可回到开头时可回到开头（见 {@link Rewindable}），同时重新计算校验和</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class ChecksumInputStream extends FilterInputStream implements Rewindable {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int SKIP_BUFFER_SIZE = 8 * 1024;
+
+    private final ChecksumAlgorithm algorithm;
+    private final ChecksumAlgorithm.Digest digest;
+    private final boolean rewindable;
+    private long count = 0;
+    private String hex;
+
+    /**
+     * @param in 被包装的流
+     * @param algorithm 校验和算法
+     */
+    public ChecksumInputStream(InputStream in, ChecksumAlgorithm algorithm) {
+        super(in);
+        this.algorithm = algorithm;
+        this.digest = algorithm.newDigest();
+        this.rewindable = Rewindable.mark(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            digest.update(b);
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            digest.update(b, off, n);
+            count += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(SKIP_BUFFER_SIZE, Math.max(n, 0))];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    @Override
+    public boolean isRewindable() {
+        return rewindable;
+    }
+
+    @Override
+    public void rewind() throws IOException {
+        Rewindable.reset(in);
+        digest.reset();
+        count = 0;
+        hex = null;
+    }
+
+    public ChecksumAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return 已读取的字节数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 结束计算，之后读取的数据不再计入
+     * @return 已读取数据的校验和，小写十六进制，CRC为8位
+     */
+    public String getChecksum() {
+        if (hex == null) {
+            hex = toHex(digest.value());
+        }
+        return hex;
+    }
+
+    /**
+     * @param bytes 字节数组
+     * @return 小写十六进制字符串
+     */
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,127 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * <p>读取时压缩的输入流，读出的是原流经 {@link CompressionCodec} 压缩后的数据</p>
+ * <p>每次从原流读取一块写入压缩流，压缩结果暂存于内存中等待读出，不使用额外的线程，也不缓存整个文件；
+ * 原流读完时写入压缩格式的结尾。压缩后的长度未知，{@link #available()} 只返回已压缩未读出的字节数</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class CompressingInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final Buffer buffer = new Buffer();
+    private final OutputStream encoder;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int position = 0;
+    private boolean finished = false;
+    private long sourceBytes = 0;
+    private long compressedBytes = 0;
+
+    /**
+     * @param in 原始数据
+     * @param codec 压缩算法
+     * @param level 压缩级别，为NULL时使用默认级别
+     * @throws IOException 压缩流初始化失败
+     */
+    public CompressingInputStream(InputStream in, CompressionCodec codec, Integer level) throws IOException {
+        this.in = in;
+        this.encoder = codec.compress(buffer, level);
+    }
+
+    /**
+     * @return 已从原流读取的字节数
+     */
+    public long getSourceBytes() {
+        return sourceBytes;
+    }
+
+    /**
+     * @return 已读出的压缩后字节数
+     */
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n == -1 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position >= buffer.size()) {
+            if (finished) {
+                return -1;
+            }
+            fill();
+        }
+        int n = Math.min(len, buffer.size() - position);
+        System.arraycopy(buffer.array(), position, b, off, n);
+        position += n;
+        compressedBytes += n;
+        return n;
+    }
+
+    private void fill() throws IOException {
+        buffer.reset();
+        position = 0;
+        int n = in.read(chunk);
+        if (n < 0) {
+            finished = true;
+            encoder.close();
+        } else if (n > 0) {
+            sourceBytes += n;
+            encoder.write(chunk, 0, n);
+        }
+    }
+
+    @Override
+    public int available() {
+        return buffer.size() - position;
+    }
+
+    /**
+     * 关闭压缩流（释放本地库资源）与原流
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!finished) {
+                finished = true;
+                encoder.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 可直接访问内部数组的缓冲区，避免复制
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(CHUNK_SIZE);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+    }
+
+}
@@ -0,0 +1,204 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>传输压缩算法</p>
+ * <p>gzip使用JDK自带实现；zstd需引入 {@code com.github.luben:zstd-jni}，lz4需引入 {@code org.lz4:lz4-java}，
+ * 未引入时 {@link #isAvailable()} 为false，不会加载相关的类</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public enum CompressionCodec {
+
+    GZIP("gzip", new byte[]{0x1f, (byte) 0x8b}, 1, 9) {
+        @Override
+        boolean checkAvailable() {
+            return true;
+        }
+
+        @Override
+        public OutputStream compress(OutputStream output, Integer level) throws IOException {
+            return new LeveledGzipOutputStream(output, level);
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return new GZIPInputStream(input, BUFFER_SIZE);
+        }
+    },
+    ZSTD("zstd", new byte[]{0x28, (byte) 0xb5, 0x2f, (byte) 0xfd}, 1, 22) {
+        @Override
+        boolean checkAvailable() {
+            return ZstdStreams.isAvailable();
+        }
+
+        @Override
+        public OutputStream compress(OutputStream output, Integer level) throws IOException {
+            return ZstdStreams.compress(output, level);
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return ZstdStreams.decompress(input);
+        }
+    },
+    LZ4("lz4", new byte[]{0x04, 0x22, 0x4d, 0x18}, null, null) {
+        @Override
+        boolean checkAvailable() {
+            return Lz4Streams.isAvailable();
+        }
+
+        @Override
+        public OutputStream compress(OutputStream output, Integer level) throws IOException {
+            return Lz4Streams.compress(output);
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return Lz4Streams.decompress(input);
+        }
+    };
+
+    /**
+     * 识别压缩格式所需读取的文件头长度
+     */
+    public static final int MAGIC_LENGTH = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String name;
+    private final byte[] magic;
+    private final Integer minLevel;
+    private final Integer maxLevel;
+    private volatile Boolean available;
+
+    CompressionCodec(String name, byte[] magic, Integer minLevel, Integer maxLevel) {
+        this.name = name;
+        this.magic = magic;
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+    }
+
+    /**
+     * @return 算法名称，即记录在元数据或旁路文件中的值
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 所需的依赖是否存在且可用
+     */
+    public boolean isAvailable() {
+        Boolean result = available;
+        if (result == null) {
+            try {
+                result = checkAvailable();
+            } catch (LinkageError e) {
+                result = false;
+            }
+            available = result;
+        }
+        return result;
+    }
+
+    abstract boolean checkAvailable();
+
+    /**
+     * @param level 压缩级别
+     * @return 是否为该算法支持的级别：gzip为1~9，zstd为1~22，lz4不支持指定级别；为NULL时总是支持
+     */
+    public boolean isValidLevel(Integer level) {
+        if (level == null) {
+            return true;
+        }
+        return minLevel != null && level >= minLevel && level <= maxLevel;
+    }
+
+    /**
+     * 包装为压缩输出流，关闭时写入结尾并关闭原流
+     * @param output 写入压缩数据的流
+     * @param level 压缩级别，为NULL时使用默认级别，应满足 {@link #isValidLevel(Integer)}
+     * @return 写入原始数据的流
+     * @throws IOException 初始化失败
+     */
+    public abstract OutputStream compress(OutputStream output, Integer level) throws IOException;
+
+    /**
+     * 包装为解压输入流
+     * @param input 压缩数据
+     * @return 原始数据
+     * @throws IOException 文件头无效
+     */
+    public abstract InputStream decompress(InputStream input) throws IOException;
+
+    /**
+     * @param head 文件头
+     * @param length 文件头的有效长度
+     * @return 文件头是否为该算法的格式
+     */
+    public boolean matches(byte[] head, int length) {
+        if (head == null || length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (head[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param name 算法名称，不区分大小写
+     * @return 对应的算法，未知时为NULL
+     */
+    public static CompressionCodec of(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        for (CompressionCodec codec : values()) {
+            if (codec.name.equals(normalized)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据文件头识别压缩算法
+     * @param head 文件头
+     * @param length 文件头的有效长度
+     * @return 对应的算法，不是已知格式时为NULL
+     */
+    public static CompressionCodec detect(byte[] head, int length) {
+        for (CompressionCodec codec : values()) {
+            if (codec.matches(head, length)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 可指定压缩级别的gzip输出流
+     */
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+
+        LeveledGzipOutputStream(OutputStream out, Integer level) throws IOException {
+            super(out, BUFFER_SIZE);
+            if (level != null) {
+                def.setLevel(level);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,74 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>统计已读取字节数的输入流，每次读取后将本次读取的字节数通知监听器</p>
+ * <p>{@link #available()} 透传给原流，不影响以其作为上传长度的实现；{@link #skip(long)} 跳过的字节不计入</p>
+ * <p>被包装的流可回到开头时可回到开头（见 {@link Rewindable}），重试时再次读取的字节同样计入</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class CountingInputStream extends FilterInputStream implements Rewindable {
+
+    private final LongConsumer listener;
+    private final boolean rewindable;
+    private long count = 0;
+
+    /**
+     * @param in 被包装的流
+     * @param listener 接收每次读取的字节数，可为NULL
+     */
+    public CountingInputStream(InputStream in, LongConsumer listener) {
+        super(in);
+        this.listener = listener;
+        this.rewindable = Rewindable.mark(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            counted(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            counted(n);
+        }
+        return n;
+    }
+
+    private void counted(long n) {
+        count += n;
+        if (listener != null) {
+            listener.accept(n);
+        }
+    }
+
+    @Override
+    public boolean isRewindable() {
+        return rewindable;
+    }
+
+    @Override
+    public void rewind() throws IOException {
+        Rewindable.reset(in);
+    }
+
+    /**
+     * @return 已读取的字节数
+     */
+    public long getCount() {
+        return count;
+    }
+
+}
@@ -0,0 +1,54 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * 统计已写入字节数的输出流，每次写入后将本次写入的字节数通知监听器
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+    private final LongConsumer listener;
+    private long count = 0;
+
+    /**
+     * @param out 被包装的流
+     * @param listener 接收每次写入的字节数，可为NULL
+     */
+    public CountingOutputStream(OutputStream out, LongConsumer listener) {
+        super(out);
+        this.listener = listener;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        counted(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        counted(len);
+    }
+
+    private void counted(long n) {
+        count += n;
+        if (listener != null) {
+            listener.accept(n);
+        }
+    }
+
+    /**
+     * @return 已写入的字节数
+     */
+    public long getCount() {
+        return count;
+    }
+
+}
@@ -0,0 +1,51 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.util.zip.Checksum;
+
+/**
+ * Java 8下的CRC32C（Castagnoli）查表实现，Java 9及以上使用 {@code java.util.zip.CRC32C}
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+final class Crc32c implements Checksum {
+
+    private static final int[] TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int j = 0; j < 8; j++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ 0x82F63B78 : crc >>> 1;
+            }
+            TABLE[i] = crc;
+        }
+    }
+
+    private int crc = 0xFFFFFFFF;
+
+    @Override
+    public void update(int b) {
+        crc = (crc >>> 8) ^ TABLE[(crc ^ b) & 0xFF];
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        int c = crc;
+        for (int i = off, end = off + len; i < end; i++) {
+            c = (c >>> 8) ^ TABLE[(c ^ b[i]) & 0xFF];
+        }
+        crc = c;
+    }
+
+    @Override
+    public long getValue() {
+        return (~crc) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+        crc = 0xFFFFFFFF;
+    }
+
+}
@@ -0,0 +1,173 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.util.ResourceBundle;
+
+/**
+ * <p>读取时解密的输入流，原流为 {@link EncryptingInputStream} 加密的数据</p>
+ * <p>每次读取并认证一整帧后才返回其中的明文，认证失败（密钥错误、数据被修改、截断）时读取抛出 {@link IOException}，
+ * 已返回的明文均已通过认证；内存占用只与帧长度有关</p>
+ * <p>可以从任意一帧开始解密，用于范围读取：原流为从 {@link AesGcmHeader#frameOffset(long)} 开始的数据，
+ * 为判断最后一帧，原流应比所需的帧多读取一个字节</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class DecryptingInputStream extends InputStream {
+
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    private final InputStream in;
+    private final AesGcmHeader header;
+    private final SecretKey key;
+    private final Cipher cipher;
+    private final long firstFrame;
+    private final long maxFrames;
+    private final byte[] frame;
+    private byte[] buffer;
+    private int limit = 0;
+    private int position = 0;
+    private int lookahead = -1;
+    private long index;
+    private boolean finished = false;
+
+    /**
+     * 从原流读取文件头后解密整个文件
+     * @param in 加密的数据
+     * @param key AES密钥
+     * @throws IOException 文件头无效、密钥无效或读取失败
+     */
+    public DecryptingInputStream(InputStream in, SecretKey key) throws IOException {
+        this(in, readHeader(in), key, 0, -1);
+    }
+
+    /**
+     * 从指定的帧开始解密
+     * @param in 从该帧起始位置开始的加密数据
+     * @param header 文件头
+     * @param key AES密钥
+     * @param firstFrame 起始帧序号
+     * @param maxFrames 最多解密的帧数，&lt;0为解密至文件末尾
+     * @throws IOException 密钥无效
+     */
+    public DecryptingInputStream(InputStream in, AesGcmHeader header, SecretKey key, long firstFrame, long maxFrames) throws IOException {
+        this.in = in;
+        this.header = header;
+        try {
+            this.key = header.deriveKey(key);
+            this.cipher = Cipher.getInstance(AesGcmHeader.TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+        this.firstFrame = firstFrame;
+        this.maxFrames = maxFrames;
+        this.index = firstFrame;
+        this.frame = new byte[header.getFrameSize() + AesGcmHeader.TAG_LENGTH];
+        this.buffer = new byte[header.getFrameSize()];
+    }
+
+    private static AesGcmHeader readHeader(InputStream in) throws IOException {
+        byte[] bytes = new byte[AesGcmHeader.LENGTH];
+        int n = 0;
+        while (n < bytes.length) {
+            int read = in.read(bytes, n, bytes.length - n);
+            if (read < 0) {
+                break;
+            }
+            n += read;
+        }
+        return AesGcmHeader.parse(bytes, n);
+    }
+
+    /**
+     * @return 文件头
+     */
+    public AesGcmHeader getHeader() {
+        return header;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n == -1 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position >= limit) {
+            if (finished) {
+                return -1;
+            }
+            fill();
+        }
+        int n = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    private void fill() throws IOException {
+        position = 0;
+        limit = 0;
+        if (maxFrames >= 0 && index - firstFrame >= maxFrames) {
+            finished = true;
+            return;
+        }
+        int n = 0;
+        if (lookahead >= 0) {
+            frame[n++] = (byte) lookahead;
+            lookahead = -1;
+        }
+        while (n < frame.length) {
+            int read = in.read(frame, n, frame.length - n);
+            if (read < 0) {
+                break;
+            }
+            n += read;
+        }
+        if (n == 0 && index == firstFrame && firstFrame > 0) {
+            // 范围起始位置超出文件末尾
+            finished = true;
+            return;
+        }
+        if (n < AesGcmHeader.TAG_LENGTH) {
+            throw new IOException(message.getString("fs.encryption.frame.truncated")
+                    .replace("${index}", Long.toString(index)));
+        }
+        boolean last = n < frame.length || (lookahead = in.read()) < 0;
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(AesGcmHeader.TAG_LENGTH * 8, header.iv(index)));
+            cipher.updateAAD(new byte[]{(byte) (last ? 1 : 0)});
+            limit = cipher.doFinal(frame, 0, n, buffer, 0);
+        } catch (AEADBadTagException e) {
+            throw new IOException(message.getString("fs.encryption.frame.auth.fail")
+                    .replace("${index}", Long.toString(index)), e);
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+        index++;
+        finished = last;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        in.close();
+    }
+
+}
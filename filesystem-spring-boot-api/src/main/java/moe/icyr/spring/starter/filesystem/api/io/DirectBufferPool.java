@@ -0,0 +1,60 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>堆外缓冲区池</p>
+ * <p>用于流与文件通道之间的数据搬运，避免每次下载都申请新的缓冲区；池中最多保留 {@link #MAX_POOLED} 个缓冲区，超出部分用完即丢弃</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public final class DirectBufferPool {
+
+    /**
+     * 单个缓冲区大小
+     */
+    public static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * 池中最多保留的缓冲区数量
+     */
+    public static final int MAX_POOLED = 16;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooled = new AtomicInteger();
+
+    private DirectBufferPool() {
+    }
+
+    /**
+     * 借出一个已清空的缓冲区
+     * @return 缓冲区
+     */
+    public static ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * 归还缓冲区，归还后调用方不可再使用
+     * @param buffer 缓冲区
+     */
+    public static void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.capacity() != BUFFER_SIZE) {
+            return;
+        }
+        if (pooled.incrementAndGet() > MAX_POOLED) {
+            pooled.decrementAndGet();
+            return;
+        }
+        pool.offer(buffer);
+    }
+
+}
@@ -0,0 +1,150 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.util.ResourceBundle;
+
+/**
+ * <p>读取时加密的输入流，读出的是文件头 {@link AesGcmHeader} 与原流分帧AES-GCM加密后的数据</p>
+ * <p>每次从原流读取一帧加密，内存占用只与帧长度有关；为判断是否为最后一帧，整帧读满后会向后预读一个字节</p>
+ * <p>已知原流长度时，{@link #available()} 返回剩余的加密后字节数，可作为上传长度使用；
+ * 原流实际长度与之不符时读取抛出异常，避免上传长度与内容不一致</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class EncryptingInputStream extends InputStream {
+
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    private final InputStream in;
+    private final AesGcmHeader header;
+    private final SecretKey key;
+    private final Cipher cipher;
+    private final long sourceLength;
+    private final long encryptedLength;
+    private final byte[] plain;
+    private byte[] buffer;
+    private int limit;
+    private int position = 0;
+    private int lookahead = -1;
+    private long index = 0;
+    private boolean finished = false;
+    private long sourceBytes = 0;
+    private long encryptedBytes = 0;
+
+    /**
+     * @param in 原始数据
+     * @param key AES密钥（16、24或32字节）
+     * @param frameSize 帧长度
+     * @param sourceLength 原流长度，&lt;0为未知
+     * @throws IOException 密钥无效或加密初始化失败
+     */
+    public EncryptingInputStream(InputStream in, SecretKey key, int frameSize, long sourceLength) throws IOException {
+        this.in = in;
+        this.header = AesGcmHeader.random(frameSize);
+        try {
+            this.key = header.deriveKey(key);
+            this.cipher = Cipher.getInstance(AesGcmHeader.TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+        this.sourceLength = sourceLength;
+        this.encryptedLength = sourceLength < 0 ? -1 : AesGcmHeader.encryptedLength(sourceLength, frameSize);
+        this.plain = new byte[frameSize];
+        this.buffer = header.toBytes();
+        this.limit = buffer.length;
+    }
+
+    /**
+     * @return 已从原流读取的字节数
+     */
+    public long getSourceBytes() {
+        return sourceBytes;
+    }
+
+    /**
+     * @return 已读出的加密后字节数
+     */
+    public long getEncryptedBytes() {
+        return encryptedBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n == -1 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position >= limit) {
+            if (finished) {
+                return -1;
+            }
+            fill();
+        }
+        int n = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, n);
+        position += n;
+        encryptedBytes += n;
+        return n;
+    }
+
+    private void fill() throws IOException {
+        int n = 0;
+        if (lookahead >= 0) {
+            plain[n++] = (byte) lookahead;
+            lookahead = -1;
+        }
+        while (n < plain.length) {
+            int read = in.read(plain, n, plain.length - n);
+            if (read < 0) {
+                break;
+            }
+            n += read;
+        }
+        boolean last = n < plain.length || (lookahead = in.read()) < 0;
+        sourceBytes += n;
+        if (sourceLength >= 0 && (sourceBytes > sourceLength || (last && sourceBytes != sourceLength))) {
+            throw new IOException(message.getString("fs.encryption.source.length.mismatch")
+                    .replace("${length}", Long.toString(sourceLength)));
+        }
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(AesGcmHeader.TAG_LENGTH * 8, header.iv(index)));
+            cipher.updateAAD(new byte[]{(byte) (last ? 1 : 0)});
+            if (buffer.length < n + AesGcmHeader.TAG_LENGTH) {
+                buffer = new byte[plain.length + AesGcmHeader.TAG_LENGTH];
+            }
+            limit = cipher.doFinal(plain, 0, n, buffer, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+        position = 0;
+        index++;
+        finished = last;
+    }
+
+    @Override
+    public int available() {
+        if (encryptedLength >= 0) {
+            return (int) Math.min(Integer.MAX_VALUE, encryptedLength - encryptedBytes);
+        }
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        in.close();
+    }
+
+}
@@ -0,0 +1,35 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 隔离对lz4-java的引用，仅在 {@link CompressionCodec#LZ4} 可用时加载
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+final class Lz4Streams {
+
+    private Lz4Streams() {
+    }
+
+    static boolean isAvailable() {
+        // 无本地库时回退为纯Java实现，类存在即可用
+        return LZ4Factory.fastestInstance() != null;
+    }
+
+    static OutputStream compress(OutputStream output) throws IOException {
+        return new LZ4FrameOutputStream(output);
+    }
+
+    static InputStream decompress(InputStream input) throws IOException {
+        return new LZ4FrameInputStream(input);
+    }
+
+}
@@ -0,0 +1,129 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ResourceBundle;
+
+/**
+ * <p>最多读取指定长度的输入流，用于范围读取</p>
+ * <p>读满长度后返回-1，不会继续读取被包装的流；关闭时关闭被包装的流</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class RangeInputStream extends FilterInputStream {
+
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+
+    private long remaining;
+    private boolean eof = false;
+
+    /**
+     * @param in 被包装的流
+     * @param length 最多读取的字节数，需&gt;=0
+     */
+    public RangeInputStream(InputStream in, long length) {
+        super(in);
+        if (length < 0) {
+            throw new IllegalArgumentException(message.getString("fs.download.range.length.invalid")
+                    .replace("${length}", Long.toString(length)));
+        }
+        this.remaining = length;
+    }
+
+    /**
+     * 跳过流开头的指定字节数，流提前结束时停止
+     * @param in 输入流
+     * @param n 需跳过的字节数
+     * @return 实际跳过的字节数
+     * @throws IOException 读取异常
+     */
+    public static long skipFully(InputStream in, long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n) {
+            long s = in.skip(n - skipped);
+            if (s <= 0) {
+                // skip可能返回0而未到达末尾，读取一个字节确认
+                if (in.read() == -1) {
+                    break;
+                }
+                s = 1;
+            }
+            skipped += s;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int b = super.read();
+        if (b == -1) {
+            eof = true;
+        } else {
+            remaining--;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (remaining <= 0) {
+            return -1;
+        }
+        int n = super.read(b, off, (int) Math.min(len, remaining));
+        if (n == -1) {
+            eof = true;
+        } else {
+            remaining -= n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long s = super.skip(Math.min(n, remaining));
+        remaining -= s;
+        return s;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(super.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * @return 尚可读取的字节数
+     */
+    public long getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * @return 被包装的流是否已读取至末尾；读满长度而提前停止时为false
+     */
+    public boolean isEof() {
+        return eof;
+    }
+
+}
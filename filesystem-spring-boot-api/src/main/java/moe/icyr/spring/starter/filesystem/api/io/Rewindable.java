@@ -0,0 +1,58 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <p>可回到创建时的位置再次读取的输入流，供上传失败重试时判断能否再次上传</p>
+ * <p>包装其他流的实现在创建时以 {@link #mark(InputStream)} 记录被包装流的位置，被包装的流可回到该位置时才可回到开头</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public interface Rewindable {
+
+    /**
+     * @return 能否回到创建时的位置
+     */
+    boolean isRewindable();
+
+    /**
+     * 回到创建时的位置，并重置读取过程中累计的状态
+     * @throws IOException 无法回到创建时的位置
+     */
+    void rewind() throws IOException;
+
+    /**
+     * <p>记录流的当前位置，之后可由 {@link #reset(InputStream)} 回到该位置</p>
+     * <p>{@link ByteArrayInputStream} 使用 {@link InputStream#mark(int)} 记录，不会额外占用内存；
+     * 其他流不使用 {@link InputStream#mark(int)}，以免缓存整个文件</p>
+     * @param in 输入流
+     * @return 能否回到当前位置
+     */
+    static boolean mark(InputStream in) {
+        if (in instanceof Rewindable) {
+            return ((Rewindable) in).isRewindable();
+        }
+        if (in instanceof ByteArrayInputStream) {
+            in.mark(Integer.MAX_VALUE);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 回到 {@link #mark(InputStream)} 记录的位置
+     * @param in 输入流，{@link #mark(InputStream)} 需返回true
+     * @throws IOException 无法回到记录的位置
+     */
+    static void reset(InputStream in) throws IOException {
+        if (in instanceof Rewindable) {
+            ((Rewindable) in).rewind();
+        } else {
+            in.reset();
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <p>按 {@link TokenBucket} 限速的输入流</p>
+ * <p>单次读取不超过限速器的突发容量，读取后按实际读取的字节数取令牌；{@link #available()} 透传给原流</p>
+ * <p>被包装的流可回到开头时可回到开头（见 {@link Rewindable}），重试时再次读取同样限速</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class ThrottledInputStream extends FilterInputStream implements Rewindable {
+
+    private final TokenBucket bucket;
+    private final int maxChunk;
+    private final boolean rewindable;
+
+    /**
+     * @param in 被包装的流
+     * @param bucket 限速器
+     */
+    public ThrottledInputStream(InputStream in, TokenBucket bucket) {
+        super(in);
+        this.bucket = bucket;
+        this.maxChunk = (int) Math.min(Integer.MAX_VALUE, bucket.getCapacity());
+        this.rewindable = Rewindable.mark(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            bucket.acquire(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, Math.min(len, maxChunk));
+        if (n > 0) {
+            bucket.acquire(n);
+        }
+        return n;
+    }
+
+    @Override
+    public boolean isRewindable() {
+        return rewindable;
+    }
+
+    @Override
+    public void rewind() throws IOException {
+        Rewindable.reset(in);
+    }
+
+}
@@ -0,0 +1,46 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>按 {@link TokenBucket} 限速的输出流</p>
+ * <p>超过限速器突发容量的写入会被拆分，每段写入前取令牌</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class ThrottledOutputStream extends FilterOutputStream {
+
+    private final TokenBucket bucket;
+    private final int maxChunk;
+
+    /**
+     * @param out 被包装的流
+     * @param bucket 限速器
+     */
+    public ThrottledOutputStream(OutputStream out, TokenBucket bucket) {
+        super(out);
+        this.bucket = bucket;
+        this.maxChunk = (int) Math.min(Integer.MAX_VALUE, bucket.getCapacity());
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        bucket.acquire(1);
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, maxChunk);
+            bucket.acquire(n);
+            out.write(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+}
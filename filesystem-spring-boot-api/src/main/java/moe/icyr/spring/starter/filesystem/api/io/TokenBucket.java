@@ -0,0 +1,89 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import java.io.InterruptedIOException;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>令牌桶限速器，线程安全</p>
+ * <p>令牌按速率持续补充，最多积累至突发容量；取令牌时先扣除再按欠额等待，单次可取超过容量的数量，多个线程共用时按取令牌的先后顺序排队</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public final class TokenBucket {
+
+    private static final ResourceBundle message = ResourceBundle.getBundle("Message");
+    private static final ConcurrentMap<String, TokenBucket> SHARED = new ConcurrentHashMap<>();
+
+    private final long bytesPerSecond;
+    private final long capacity;
+    private double tokens;
+    private long lastNanos;
+
+    /**
+     * @param bytesPerSecond 每秒补充的令牌数，需&gt;0
+     * @param capacity 突发容量，需&gt;0
+     */
+    public TokenBucket(long bytesPerSecond, long capacity) {
+        if (bytesPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException(message.getString("fs.throttle.valid.fail")
+                    .replace("${bytesPerSecond}", Long.toString(bytesPerSecond))
+                    .replace("${burst}", Long.toString(capacity)));
+        }
+        this.bytesPerSecond = bytesPerSecond;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastNanos = System.nanoTime();
+    }
+
+    /**
+     * 获取以指定键共用的限速器，不存在时按参数创建；已存在时忽略参数
+     * @param key 键，如主机地址
+     * @param bytesPerSecond 每秒补充的令牌数
+     * @param capacity 突发容量
+     * @return 限速器
+     */
+    public static TokenBucket shared(String key, long bytesPerSecond, long capacity) {
+        return SHARED.computeIfAbsent(key, k -> new TokenBucket(bytesPerSecond, capacity));
+    }
+
+    /**
+     * 取出指定数量的令牌，不足时阻塞至补足
+     * @param permits 数量
+     * @throws InterruptedIOException 等待时被中断，中断标记会被保留
+     */
+    public void acquire(long permits) throws InterruptedIOException {
+        if (permits <= 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastNanos) * (double) bytesPerSecond / TimeUnit.SECONDS.toNanos(1));
+            lastNanos = now;
+            tokens -= permits;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond);
+        }
+        long deadline = System.nanoTime() + waitNanos;
+        while (waitNanos > 0) {
+            LockSupport.parkNanos(this, waitNanos);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException();
+            }
+            waitNanos = deadline - System.nanoTime();
+        }
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+}
@@ -0,0 +1,39 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.github.luben.zstd.util.Native;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 隔离对zstd-jni的引用，仅在 {@link CompressionCodec#ZSTD} 可用时加载
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+final class ZstdStreams {
+
+    private ZstdStreams() {
+    }
+
+    static boolean isAvailable() {
+        try {
+            Native.load();
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            return false;
+        }
+    }
+
+    static OutputStream compress(OutputStream output, Integer level) throws IOException {
+        return level == null ? new ZstdOutputStream(output) : new ZstdOutputStream(output, level);
+    }
+
+    static InputStream decompress(InputStream input) throws IOException {
+        return new ZstdInputStream(input);
+    }
+
+}
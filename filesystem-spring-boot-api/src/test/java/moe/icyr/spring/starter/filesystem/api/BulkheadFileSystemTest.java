@@ -0,0 +1,43 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadFileSystemTest {
+
+    @Test
+    void encodedUploadHoldsPermit() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BulkheadFileSystem<?, ?> fs = new BulkheadFileSystem<>(new InMemoryFileSystem(), 1, 0);
+        InputStream blocking = new ByteArrayInputStream(new byte[4]) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.read(b, off, len);
+            }
+        };
+        Thread uploader = new Thread(() -> fs.uploadEncoded(blocking, "/b", "a.bin", "gzip"));
+        uploader.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        assertEquals(1, fs.getActiveCount());
+        assertThrows(BulkheadFullException.class, () -> fs.uploadEncoded(new ByteArrayInputStream(new byte[1]), "/b", "b.bin", null));
+        assertThrows(BulkheadFullException.class, () -> fs.getContentEncoding("/b", "a.bin"));
+        release.countDown();
+        uploader.join(5000);
+        assertEquals(0, fs.getActiveCount());
+        assertTrue(fs.uploadEncoded(new ByteArrayInputStream(new byte[1]), "/b", "b.bin", null));
+    }
+
+}
@@ -0,0 +1,97 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean acquireOnOtherThread(CircuitBreaker breaker) throws Exception {
+        return executor.submit(breaker::tryAcquire).get(5, TimeUnit.SECONDS);
+    }
+
+    private static CircuitBreaker opened() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 0);
+        breaker.onFailure(new SocketException("Connection refused"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    @Test
+    void halfOpenAdmitsSingleProbe() throws Exception {
+        CircuitBreaker breaker = opened();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return breaker.tryAcquire();
+            }));
+        }
+        start.countDown();
+        int admitted = 0;
+        for (Future<Boolean> future : futures) {
+            if (future.get(5, TimeUnit.SECONDS)) {
+                admitted++;
+            }
+        }
+        assertEquals(1, admitted);
+        assertEquals(threads - 1, breaker.getRejectedCount());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void probeHandsOffOnSuccess() throws Exception {
+        CircuitBreaker breaker = opened();
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(acquireOnOtherThread(breaker));
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(acquireOnOtherThread(breaker));
+    }
+
+    @Test
+    void reacquiresWhenProbeAlreadyFinished() throws Exception {
+        CircuitBreaker breaker = opened();
+        // 转为半开后、取得探测许可前，探测已结束并关闭
+        breaker.addListener((b, from, to) -> {
+            if (to == CircuitBreaker.State.HALF_OPEN) {
+                b.onSuccess();
+            }
+        });
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getRejectedCount());
+        // 递归获取时已释放探测许可，其他线程可作为下一次探测
+        breaker.onFailure(new SocketException("Connection refused"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(acquireOnOtherThread(breaker));
+    }
+
+    @Test
+    void releaseByOtherThreadKeepsProbe() throws Exception {
+        CircuitBreaker breaker = opened();
+        assertTrue(breaker.tryAcquire());
+        executor.submit(breaker::release).get(5, TimeUnit.SECONDS);
+        assertFalse(acquireOnOtherThread(breaker));
+        breaker.release();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(acquireOnOtherThread(breaker));
+    }
+
+}
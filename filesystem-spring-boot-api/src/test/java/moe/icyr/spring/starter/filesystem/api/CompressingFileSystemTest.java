@@ -0,0 +1,176 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.CompressionProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import moe.icyr.spring.starter.filesystem.api.entity.FileSystemProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import moe.icyr.spring.starter.filesystem.api.io.CompressionCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressingFileSystemTest {
+
+    private static final byte[] TEXT = repeat("id,name,value\n1,foo,0.5\n", 200);
+
+    private static byte[] repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static InMemoryFileSystem backend(String codec, Integer level) {
+        return new InMemoryFileSystem(new FileSystemProperty()
+                .setCompression(new CompressionProperty().setEnabled(true).setCodec(codec).setLevel(level)));
+    }
+
+    @Test
+    void validatesLevelAgainstCodec() {
+        InMemoryFileSystem backend = new InMemoryFileSystem();
+        assertThrows(IllegalArgumentException.class, () -> new CompressingFileSystem<>(backend, CompressionCodec.GZIP, 19, null));
+        assertThrows(IllegalArgumentException.class, () -> new CompressingFileSystem<>(backend, CompressionCodec.GZIP, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> new CompressingFileSystem<>(backend, CompressionCodec.LZ4, 1, null));
+        assertEquals(9, new CompressingFileSystem<>(backend, CompressionCodec.GZIP, 9, null).getLevel());
+        assertNull(new CompressingFileSystem<>(backend, CompressionCodec.LZ4, null, null).getLevel());
+        assertTrue(CompressionCodec.ZSTD.isValidLevel(19));
+        assertFalse(CompressionCodec.ZSTD.isValidLevel(23));
+        assertThrows(IllegalArgumentException.class, () -> new CompressingFileSystem<>(backend("gzip", 19)));
+    }
+
+    @Test
+    void dropsLevelOnFallback() {
+        CompressingFileSystem<?, ?> fs = new CompressingFileSystem<>(backend("brotli", 19));
+        assertEquals(CompressionCodec.GZIP, fs.getCodec());
+        assertNull(fs.getLevel());
+        assertTrue(fs.upload(TEXT, "/c", "data.csv"));
+        assertArrayEquals(TEXT, fs.downloadBytes("/c", "data.csv"));
+    }
+
+    @Test
+    void keepsLevelOfAvailableCodec() {
+        CompressingFileSystem<?, ?> fs = new CompressingFileSystem<>(backend("zstd", 19));
+        assertEquals(CompressionCodec.ZSTD, fs.getCodec());
+        assertEquals(19, fs.getLevel());
+        assertTrue(fs.upload(TEXT, "/c", "data.csv"));
+        assertArrayEquals(TEXT, fs.downloadBytes("/c", "data.csv"));
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (OutputStream gzip = CompressionCodec.GZIP.compress(output, null)) {
+            gzip.write(bytes);
+        }
+        return output.toByteArray();
+    }
+
+    @Test
+    void removesStaleSidecarOnCompressedContent() throws IOException {
+        InMemoryFileSystem backend = new InMemoryFileSystem();
+        CompressingFileSystem<?, ?> fs = new CompressingFileSystem<>(backend, CompressionCodec.GZIP, null, null);
+        assertTrue(fs.upload(TEXT, "/c", "data.csv"));
+        assertNotNull(backend.getStored("/c", "data.csv" + CompressingFileSystem.SIDECAR_SUFFIX));
+        byte[] raw = gzip("already compressed".getBytes(StandardCharsets.UTF_8));
+        assertTrue(fs.upload(raw, "/c", "data.csv"));
+        assertNull(backend.getStored("/c", "data.csv" + CompressingFileSystem.SIDECAR_SUFFIX));
+        assertArrayEquals(raw, fs.downloadBytes("/c", "data.csv"));
+    }
+
+    @Test
+    void removesStaleSidecarOnSkippedExtension() {
+        InMemoryFileSystem backend = new InMemoryFileSystem();
+        assertTrue(new CompressingFileSystem<>(backend, CompressionCodec.GZIP, null, null).upload(TEXT, "/c", "app.log"));
+        CompressingFileSystem<?, ?> fs = new CompressingFileSystem<>(backend, CompressionCodec.GZIP, null, Collections.singleton("log"));
+        assertTrue(fs.upload(TEXT, "/c", "app.log"));
+        assertArrayEquals(TEXT, backend.getStored("/c", "app.log"));
+        assertNull(backend.getStored("/c", "app.log" + CompressingFileSystem.SIDECAR_SUFFIX));
+    }
+
+    @Test
+    void removesStaleSidecarInBatch() throws IOException {
+        InMemoryFileSystem backend = new InMemoryFileSystem();
+        CompressingFileSystem<?, ?> fs = new CompressingFileSystem<>(backend, CompressionCodec.GZIP, null, null);
+        assertTrue(fs.upload(TEXT, "/c", "data.csv"));
+        byte[] raw = gzip(TEXT);
+        assertTrue(fs.uploadAll(Collections.singletonList(UploadRequest.of(raw, "/c", "data.csv")), 1).get(0).isSuccess());
+        assertNull(backend.getStored("/c", "data.csv" + CompressingFileSystem.SIDECAR_SUFFIX));
+        assertArrayEquals(raw, fs.downloadBytes("/c", "data.csv"));
+    }
+
+    @Test
+    void removesStaleSidecarWithoutPeek() throws IOException {
+        InMemoryFileSystem backend = new InMemoryFileSystem() {
+            @Override
+            public FileInfo<byte[]> peekFile(String path, String filename) {
+                return null;
+            }
+        };
+        CompressingFileSystem<?, ?> fs = new CompressingFileSystem<>(backend, CompressionCodec.GZIP, null, null);
+        assertTrue(fs.upload(TEXT, "/c", "data.csv"));
+        byte[] raw = gzip(TEXT);
+        assertTrue(fs.upload(raw, "/c", "data.csv"));
+        assertNull(backend.getStored("/c", "data.csv" + CompressingFileSystem.SIDECAR_SUFFIX));
+        assertTrue(fs.upload(raw, "/c", "other.csv"));
+    }
+
+    @Test
+    void clearsRecordedEncoding() throws IOException {
+        EncodingFileSystem backend = new EncodingFileSystem();
+        CompressingFileSystem<?, ?> fs = new CompressingFileSystem<>(backend, CompressionCodec.GZIP, null, null);
+        assertTrue(fs.upload(TEXT, "/c", "data.csv"));
+        assertEquals("gzip", backend.getContentEncoding("/c", "data.csv"));
+        assertNull(backend.getStored("/c", "data.csv" + CompressingFileSystem.SIDECAR_SUFFIX));
+        byte[] raw = gzip(TEXT);
+        assertTrue(fs.upload(raw, "/c", "data.csv"));
+        assertNull(backend.getContentEncoding("/c", "data.csv"));
+        assertArrayEquals(raw, fs.downloadBytes("/c", "data.csv"));
+    }
+
+    /**
+     * 在文件上记录压缩编码的实现，普通上传不清除已记录的编码
+     */
+    private static final class EncodingFileSystem extends InMemoryFileSystem {
+
+        private final Map<String, String> encodings = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean isContentEncodingSupported() {
+            return true;
+        }
+
+        @Override
+        public boolean uploadEncoded(InputStream input, StringBuffer path, StringBuffer filename, String encoding) {
+            return uploadEncoded(input, path.toString(), filename.toString(), encoding);
+        }
+
+        @Override
+        public boolean uploadEncoded(InputStream input, String path, String filename, String encoding) {
+            if (!upload(input, path, filename)) {
+                return false;
+            }
+            if (encoding == null) {
+                encodings.remove(path + "/" + filename);
+            } else {
+                encodings.put(path + "/" + filename, encoding);
+            }
+            return true;
+        }
+
+        @Override
+        public String getContentEncoding(String path, String filename) {
+            return encodings.get(path + "/" + filename);
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.io.AesGcmHeader;
+import moe.icyr.spring.starter.filesystem.api.io.CompressionCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiskCachingFileSystemTest {
+
+    private static byte[] json() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"item").append(i).append("\"},");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void cachesPlainFile(@TempDir Path directory) {
+        InMemoryFileSystem backend = new InMemoryFileSystem();
+        DiskCachingFileSystem<?, ?> fs = new DiskCachingFileSystem<>(backend, directory, 1 << 20, 1 << 20);
+        byte[] data = json();
+        assertTrue(fs.upload(data, "/d", "a.json"));
+        assertArrayEquals(data, fs.downloadBytes("/d", "a.json"));
+        int opens = backend.getOpenCount();
+        assertArrayEquals(data, fs.downloadBytes("/d", "a.json"));
+        assertEquals(opens, backend.getOpenCount());
+        assertEquals(1, fs.getMissCount());
+        assertEquals(1, fs.getHitCount());
+    }
+
+    @Test
+    void cachesDecompressedFile(@TempDir Path directory) {
+        InMemoryFileSystem backend = new InMemoryFileSystem();
+        CompressingFileSystem<?, ?> compressing = new CompressingFileSystem<>(backend, CompressionCodec.GZIP, null, null);
+        DiskCachingFileSystem<?, ?> fs = new DiskCachingFileSystem<>(compressing, directory, 1 << 20, 1 << 20);
+        byte[] data = json();
+        assertTrue(fs.upload(data, "/d", "a.json"));
+        assertTrue(backend.getStored("/d", "a.json").length < data.length);
+
+        assertArrayEquals(data, fs.downloadBytes("/d", "a.json"));
+        int opens = backend.getOpenCount();
+        assertArrayEquals(data, fs.downloadBytes("/d", "a.json"));
+        assertArrayEquals(data, fs.downloadBytes("/d", "a.json"));
+        assertEquals(opens, backend.getOpenCount(), "cached downloads must not reach the backend");
+        assertEquals(1, fs.getMissCount());
+        assertEquals(2, fs.getHitCount());
+        assertEquals(data.length, fs.getCurrentSize());
+    }
+
+    @Test
+    void cachesDecryptedFile(@TempDir Path directory) {
+        InMemoryFileSystem backend = new InMemoryFileSystem();
+        EncryptingFileSystem<?, ?> encrypting = new EncryptingFileSystem<>(backend, new SecretKeySpec(new byte[32], "AES"),
+                AesGcmHeader.DEFAULT_FRAME_SIZE, false);
+        CompressingFileSystem<?, ?> compressing = new CompressingFileSystem<>(encrypting, CompressionCodec.GZIP, null, null);
+        DiskCachingFileSystem<?, ?> fs = new DiskCachingFileSystem<>(compressing, directory, 1 << 20, 1 << 20);
+        byte[] data = json();
+        assertTrue(fs.upload(data, "/d", "a.json"));
+
+        assertArrayEquals(data, fs.downloadBytes("/d", "a.json"));
+        int opens = backend.getOpenCount();
+        assertArrayEquals(data, fs.downloadBytes("/d", "a.json"));
+        assertArrayEquals(new String(data, StandardCharsets.UTF_8).substring(100, 200).getBytes(StandardCharsets.UTF_8),
+                fs.downloadRange("/d", "a.json", 100, 100));
+        assertEquals(opens, backend.getOpenCount(), "cached downloads must not reach the backend");
+        assertEquals(1, fs.getMissCount());
+        assertEquals(2, fs.getHitCount());
+    }
+
+}
@@ -0,0 +1,148 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import moe.icyr.spring.starter.filesystem.api.io.AesGcmHeader;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptingFileSystemTest {
+
+    private static final int FRAME = AesGcmHeader.MIN_FRAME_SIZE;
+    private static final int FRAME_LENGTH = FRAME + AesGcmHeader.TAG_LENGTH;
+
+    private InMemoryFileSystem backend;
+    private EncryptingFileSystem<?, ?> fs;
+    private byte[] data;
+
+    @BeforeEach
+    void setUp() {
+        backend = new InMemoryFileSystem();
+        fs = new EncryptingFileSystem<>(backend, new SecretKeySpec(new byte[16], "AES"), FRAME, false);
+        data = new byte[3 * FRAME + 500];
+        new Random(1).nextBytes(data);
+        assertTrue(fs.upload(data, "/e", "d.bin"));
+    }
+
+    @Test
+    void storesCiphertext() {
+        byte[] stored = backend.getStored("/e", "d.bin");
+        assertEquals(AesGcmHeader.encryptedLength(data.length, FRAME), stored.length);
+        assertTrue(AesGcmHeader.matches(stored, stored.length));
+        assertArrayEquals(data, fs.downloadBytes("/e", "d.bin"));
+    }
+
+    @Test
+    void uploadsFromEverySource() {
+        byte[] small = Arrays.copyOf(data, FRAME + 1);
+        assertTrue(fs.upload(new ByteArrayInputStream(small), "/e", "s.bin"));
+        assertTrue(fs.upload(Base64.getEncoder().encodeToString(small), "/e", "b.bin"));
+        assertTrue(fs.upload(new byte[0], "/e", "z.bin"));
+        List<BatchResult<UploadRequest>> results = fs.uploadAll(Arrays.asList(UploadRequest.of(small, "/e", "u.bin")), 1);
+        assertTrue(results.get(0).isSuccess());
+        for (String name : new String[]{"s.bin", "b.bin", "u.bin"}) {
+            assertArrayEquals(small, fs.downloadBytes("/e", name), name);
+        }
+        assertEquals(0, fs.downloadBytes("/e", "z.bin").length);
+    }
+
+    @Test
+    void rangesOnAndAcrossFrameBoundaries() {
+        long[][] ranges = {
+                {0, 10}, {0, FRAME}, {FRAME, FRAME}, {FRAME - 1, 2}, {FRAME - 1, FRAME + 2}, {FRAME + 1, FRAME - 2},
+                {2 * FRAME, -1}, {5, -1}, {data.length - 1, 1}, {data.length - 10, 100}, {3 * FRAME, 500},
+                {data.length, 10}, {data.length + 10, 10}, {data.length + 10, -1}, {10L * FRAME, 10}
+        };
+        for (long[] range : ranges) {
+            long offset = range[0];
+            long length = range[1];
+            int from = (int) Math.min(offset, data.length);
+            int to = length < 0 ? data.length : (int) Math.min(data.length, offset + length);
+            assertArrayEquals(Arrays.copyOfRange(data, from, to), fs.downloadRange("/e", "d.bin", offset, length),
+                    offset + "+" + length);
+        }
+    }
+
+    @Test
+    void rangeOnExactMultipleOfFrameSize() {
+        byte[] exact = Arrays.copyOf(data, 2 * FRAME);
+        assertTrue(fs.upload(exact, "/e", "x.bin"));
+        assertArrayEquals(Arrays.copyOfRange(exact, FRAME, 2 * FRAME), fs.downloadRange("/e", "x.bin", FRAME, FRAME));
+        assertArrayEquals(Arrays.copyOfRange(exact, FRAME - 5, FRAME + 5), fs.downloadRange("/e", "x.bin", FRAME - 5, 10));
+        assertEquals(0, fs.downloadRange("/e", "x.bin", 2 * FRAME, 10).length);
+    }
+
+    @Test
+    void rangeReadsOnlyCoveringFrames() {
+        long before = backend.getBytesRead();
+        assertArrayEquals(Arrays.copyOfRange(data, FRAME + 10, FRAME + 20), fs.downloadRange("/e", "d.bin", FRAME + 10, 10));
+        // 文件头、一帧与用于判断最后一帧的一个字节
+        assertEquals(AesGcmHeader.LENGTH + FRAME_LENGTH + 1, backend.getBytesRead() - before);
+    }
+
+    @Test
+    void tamperedFrameFailsOnlyWhereRead() {
+        byte[] stored = backend.getStored("/e", "d.bin").clone();
+        stored[AesGcmHeader.LENGTH + 2 * FRAME_LENGTH + 7] ^= 1;
+        backend.putStored("/e", "t.bin", stored);
+        assertNull(fs.downloadBytes("/e", "t.bin"));
+        assertNull(fs.downloadRange("/e", "t.bin", 2 * FRAME + 1, 10));
+        assertArrayEquals(Arrays.copyOfRange(data, 0, 100), fs.downloadRange("/e", "t.bin", 0, 100));
+    }
+
+    @Test
+    void truncatedFileFails() {
+        byte[] stored = backend.getStored("/e", "d.bin");
+        backend.putStored("/e", "t.bin", Arrays.copyOf(stored, AesGcmHeader.LENGTH + 2 * FRAME_LENGTH));
+        assertNull(fs.downloadBytes("/e", "t.bin"));
+        assertNull(fs.downloadRange("/e", "t.bin", FRAME + 1, 10));
+    }
+
+    @Test
+    void wrongKeyFails() {
+        EncryptingFileSystem<?, ?> other = new EncryptingFileSystem<>(backend, new SecretKeySpec(new byte[32], "AES"), FRAME, false);
+        assertNull(other.downloadBytes("/e", "d.bin"));
+        assertNull(other.downloadRange("/e", "d.bin", FRAME, 10));
+    }
+
+    @Test
+    void plaintextRejectedUnlessAllowed() {
+        backend.putStored("/e", "plain.txt", "hello".getBytes());
+        assertNull(fs.downloadBytes("/e", "plain.txt"));
+        assertNull(fs.downloadRange("/e", "plain.txt", 1, 2));
+        EncryptingFileSystem<?, ?> lenient = new EncryptingFileSystem<>(backend, new SecretKeySpec(new byte[16], "AES"), FRAME, true);
+        assertEquals("hello", new String(lenient.downloadBytes("/e", "plain.txt")));
+        assertEquals("el", new String(lenient.downloadRange("/e", "plain.txt", 1, 2)));
+        assertArrayEquals(data, lenient.downloadBytes("/e", "d.bin"));
+    }
+
+    @Test
+    void appenderUploadFails() {
+        assertFalse(fs.appenderUpload(new byte[10], new StringBuffer("/e"), new StringBuffer("d.bin"), 10, 0));
+        assertArrayEquals(data, fs.downloadBytes("/e", "d.bin"));
+    }
+
+    @Test
+    void checksumIsNotCompared() {
+        assertNull(fs.getChecksum("/e", "d.bin", ChecksumAlgorithm.MD5));
+    }
+
+    @Test
+    void rejectsInvalidConfig() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new EncryptingFileSystem<>(backend, new SecretKeySpec(new byte[15], "AES"), FRAME, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> new EncryptingFileSystem<>(backend, new SecretKeySpec(new byte[16], "AES"), FRAME - 1, false));
+    }
+
+}
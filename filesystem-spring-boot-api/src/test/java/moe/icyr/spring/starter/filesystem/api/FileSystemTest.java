@@ -0,0 +1,130 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumAlgorithm;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumInputStream;
+import moe.icyr.spring.starter.filesystem.api.io.CountingInputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemTest {
+
+    private static InMemoryFileSystem tree(String failingDirectory) {
+        InMemoryFileSystem fs = new InMemoryFileSystem() {
+            @Override
+            public List<FileInfo<byte[]>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+                return path.equals(failingDirectory) ? null : super.list(path, deepFind, flatPrint, maxDepth);
+            }
+        };
+        fs.putStored("/t", "1.txt", new byte[1]);
+        fs.putStored("/t/a", "2.txt", new byte[2]);
+        fs.putStored("/t/a/b", "3.txt", new byte[3]);
+        fs.putStored("/t/c", "4.txt", new byte[4]);
+        return fs;
+    }
+
+    /**
+     * 首次上传读取部分数据后以 {@link SocketException} 失败，之后正常上传
+     */
+    static InMemoryFileSystem flaky(AtomicInteger attempts) {
+        InMemoryFileSystem fs = new InMemoryFileSystem() {
+            @Override
+            public boolean upload(InputStream input, String path, String filename) {
+                try {
+                    return retry("upload", input, in -> {
+                        if (attempts.incrementAndGet() == 1) {
+                            in.read(new byte[2]);
+                            throw new SocketException("Connection reset");
+                        }
+                        return super.upload(in, path, filename);
+                    });
+                } catch (Exception e) {
+                    return false;
+                }
+            }
+        };
+        fs.setRetryPolicy(new RetryPolicy(3, 0, 0, 1, 0, RetryPolicy::isTransient));
+        return fs;
+    }
+
+    private static List<String> names(CloseableIterator<FileInfo<byte[]>> iterator) {
+        List<String> names = new ArrayList<>();
+        try (CloseableIterator<FileInfo<byte[]>> it = iterator) {
+            while (it.hasNext()) {
+                names.add(it.next().getFilename());
+            }
+        }
+        return names;
+    }
+
+    @Test
+    void iteratesInPreOrder() {
+        assertEquals(Arrays.asList("a", "b", "3.txt", "2.txt", "c", "4.txt", "1.txt"),
+                names(tree(null).listIterator("/t", true, -1)));
+        assertEquals(Arrays.asList("a", "b", "2.txt", "c", "4.txt", "1.txt"),
+                names(tree(null).listIterator("/t", true, 1)));
+        assertEquals(Arrays.asList("a", "c", "1.txt"), names(tree(null).listIterator("/t", false, -1)));
+    }
+
+    @Test
+    void failsWhenSubdirectoryCannotBeListed() {
+        CloseableIterator<FileInfo<byte[]>> iterator = tree("/t/a/b").listIterator("/t", true, -1);
+        assertEquals("a", iterator.next().getFilename());
+        assertEquals("b", iterator.next().getFilename());
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, iterator::hasNext);
+        assertTrue(e.getMessage().contains("/t/a/b"));
+        iterator.close();
+        assertNull(tree("/t").listIterator("/t", true, -1));
+    }
+
+    @Test
+    void retriesWrappedByteArrayUpload() throws IOException {
+        byte[] bytes = "hello, world".getBytes(StandardCharsets.UTF_8);
+        AtomicInteger attempts = new AtomicInteger();
+        InMemoryFileSystem fs = flaky(attempts);
+        CountingInputStream counted = new CountingInputStream(new ByteArrayInputStream(bytes), null);
+        ChecksumInputStream checked = new ChecksumInputStream(counted, ChecksumAlgorithm.SHA256);
+        assertTrue(fs.upload(checked, "/t", "a.txt"));
+        assertEquals(2, attempts.get());
+        assertArrayEquals(bytes, fs.getStored("/t", "a.txt"));
+        ChecksumInputStream expected = new ChecksumInputStream(new ByteArrayInputStream(bytes), ChecksumAlgorithm.SHA256);
+        while (expected.read() != -1) {
+            // 读取至末尾
+        }
+        assertEquals(expected.getChecksum(), checked.getChecksum());
+        assertEquals(bytes.length, checked.getCount());
+    }
+
+    @Test
+    void doesNotRetryConsumedStream() {
+        AtomicInteger attempts = new AtomicInteger();
+        InputStream input = new BufferedInputStream(new ByteArrayInputStream(new byte[16]));
+        assertFalse(flaky(attempts).upload(input, "/t", "a.txt"));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void sessionsInheritSettings() {
+        RetryPolicy policy = new RetryPolicy(5, 0, 0, 1, 0, RetryPolicy::isTransient);
+        CircuitBreaker breaker = new CircuitBreaker("memory", 3, 1000);
+        ProgressListener listener = progress -> {
+        };
+        InMemoryFileSystem fs = new InMemoryFileSystem();
+        fs.setRetryPolicy(policy).setCircuitBreaker(breaker).addProgressListener(listener).setProgressInterval(10);
+        InMemoryFileSystem session = fs.inheritSettings(new InMemoryFileSystem());
+        assertSame(policy, session.getRetryPolicy());
+        assertSame(breaker, session.getCircuitBreaker());
+        assertEquals(Arrays.asList(listener), session.getProgressListeners());
+        assertEquals(10, session.getProgressInterval());
+    }
+
+}
@@ -0,0 +1,192 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import moe.icyr.spring.starter.filesystem.api.entity.FileSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 测试用的内存文件服务器，记录打开读取流的次数与读取的字节数
+ */
+public class InMemoryFileSystem extends FileSystem<Map<String, byte[]>, byte[]> {
+
+    private final NavigableMap<String, byte[]> files = new ConcurrentSkipListMap<>();
+    private final Set<String> directories = Collections.synchronizedSet(new HashSet<>());
+    private final AtomicInteger opens = new AtomicInteger();
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    public InMemoryFileSystem() {
+        this(new FileSystemProperty());
+    }
+
+    public InMemoryFileSystem(FileSystemProperty property) {
+        super(property.setType("memory").setIp("localhost").setPort(0).setUsername("test").setAlias("memory"));
+    }
+
+    @Override
+    protected void init(FileSystemProperty property) {
+    }
+
+    @Override
+    protected boolean connect() {
+        return true;
+    }
+
+    @Override
+    public Map<String, byte[]> getFileSystemHolder() {
+        return files;
+    }
+
+    @Override
+    public void disconnect() {
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * @return 打开读取流的次数
+     */
+    public int getOpenCount() {
+        return opens.get();
+    }
+
+    /**
+     * @return 读取流读出的总字节数
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * @return 存储的原始内容，不存在时为NULL
+     */
+    public byte[] getStored(String path, String filename) {
+        return files.get(keyOf(path, filename));
+    }
+
+    /**
+     * 直接替换存储的内容，用于模拟文件被修改
+     */
+    public void putStored(String path, String filename, byte[] bytes) {
+        createDirectory(path);
+        files.put(keyOf(path, filename), bytes);
+    }
+
+    @Override
+    public List<FileInfo<byte[]>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+        String dir = normalizeDirectory(path);
+        if (!"/".equals(dir) && !directories.contains(dir)) {
+            return null;
+        }
+        List<FileInfo<byte[]>> out = new ArrayList<>();
+        listInto(dir, deepFind, flatPrint, maxDepth, 1, out);
+        return out;
+    }
+
+    private void listInto(String dir, boolean deepFind, boolean flatPrint, int maxDepth, int depth, List<FileInfo<byte[]>> out) {
+        String prefix = dir.endsWith("/") ? dir : dir + "/";
+        List<String> children = new ArrayList<>();
+        synchronized (directories) {
+            for (String directory : directories) {
+                if (directory.startsWith(prefix) && directory.length() > prefix.length() && directory.indexOf('/', prefix.length()) < 0) {
+                    children.add(directory);
+                }
+            }
+        }
+        Collections.sort(children);
+        for (String child : children) {
+            FileInfo<byte[]> info = new FileInfo<byte[]>().setAbsolutePath(dir).setFilename(child.substring(prefix.length())).setDirectory(true);
+            out.add(info);
+            if (deepFind && (maxDepth < 0 || depth <= maxDepth)) {
+                if (flatPrint) {
+                    listInto(child, true, true, maxDepth, depth + 1, out);
+                } else {
+                    List<FileInfo<byte[]>> nested = new ArrayList<>();
+                    listInto(child, true, false, maxDepth, depth + 1, nested);
+                    info.setChildren(nested);
+                }
+            }
+        }
+        for (Map.Entry<String, byte[]> entry : files.subMap(prefix, true, prefix + Character.MAX_VALUE, true).entrySet()) {
+            String name = entry.getKey().substring(prefix.length());
+            if (name.indexOf('/') < 0) {
+                out.add(infoOf(dir, name, entry.getValue()));
+            }
+        }
+    }
+
+    private static FileInfo<byte[]> infoOf(String dir, String name, byte[] bytes) {
+        return new FileInfo<byte[]>().setAbsolutePath(dir).setFilename(name).setFile(true)
+                .setSize((long) bytes.length).setFingerprint(Integer.toHexString(Arrays.hashCode(bytes)) + "-" + bytes.length);
+    }
+
+    @Override
+    public FileInfo<byte[]> peekFile(String path, String filename) {
+        byte[] bytes = getStored(path, filename);
+        return bytes == null ? null : infoOf(normalizeDirectory(path), filename, bytes);
+    }
+
+    @Override
+    public boolean upload(InputStream input, String path, String filename) {
+        if (input == null || path == null || filename == null) {
+            return false;
+        }
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            copy(input, output);
+            putStored(path, filename, output.toByteArray());
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean createDirectory(String path) {
+        String dir = normalizeDirectory(path);
+        while (dir != null && directories.add(dir)) {
+            int index = dir.lastIndexOf('/');
+            dir = index <= 0 ? "/" : dir.substring(0, index);
+        }
+        return true;
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename) {
+        return openInputStream(path, filename, 0, -1);
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
+        byte[] bytes = path == null || filename == null ? null : getStored(path, filename);
+        if (bytes == null || offset < 0) {
+            return null;
+        }
+        opens.incrementAndGet();
+        int from = (int) Math.min(offset, bytes.length);
+        int to = length < 0 ? bytes.length : (int) Math.min(bytes.length, offset + length);
+        bytesRead.addAndGet(to - from);
+        return new ByteArrayInputStream(bytes, from, to - from);
+    }
+
+    @Override
+    public boolean deleteFile(String path, String filename) {
+        return path != null && filename != null && files.remove(keyOf(path, filename)) != null;
+    }
+
+    private static String keyOf(String path, String filename) {
+        String dir = normalizeDirectory(path);
+        return (dir.endsWith("/") ? dir : dir + "/") + filename;
+    }
+
+}
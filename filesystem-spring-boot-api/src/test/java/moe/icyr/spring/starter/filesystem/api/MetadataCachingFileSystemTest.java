@@ -0,0 +1,28 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetadataCachingFileSystemTest {
+
+    @Test
+    void uploadsInvalidateCachedEntries() {
+        InMemoryFileSystem backend = new InMemoryFileSystem();
+        MetadataCachingFileSystem<?, ?> fs = new MetadataCachingFileSystem<>(backend, 100, 60_000);
+        assertTrue(fs.upload(new byte[1], "/m", "a.bin"));
+        assertEquals(1L, fs.peekFile("/m", "a.bin").getSize());
+        assertEquals(1, fs.list("/m").size());
+
+        assertTrue(fs.uploadEncoded(new ByteArrayInputStream(new byte[5]), "/m", "a.bin", "gzip"));
+        assertEquals(5L, fs.peekFile("/m", "a.bin").getSize());
+        assertTrue(fs.uploadEncoded(new ByteArrayInputStream(new byte[2]), new StringBuffer("/m"), new StringBuffer("b.bin"), null));
+        List<? extends FileInfo<?>> files = fs.list("/m");
+        assertEquals(2, files.size());
+    }
+
+}
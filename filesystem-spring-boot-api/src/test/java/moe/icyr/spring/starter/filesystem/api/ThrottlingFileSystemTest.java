@@ -0,0 +1,53 @@
+package moe.icyr.spring.starter.filesystem.api;
+
+import moe.icyr.spring.starter.filesystem.api.io.TokenBucket;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThrottlingFileSystemTest {
+
+    private static final byte[] CONTENT = "throttled upload content".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final InMemoryFileSystem backend = FileSystemTest.flaky(attempts);
+    private final ThrottlingFileSystem<?, ?> fs = new ThrottlingFileSystem<>(backend, new TokenBucket(1 << 20, 1 << 20));
+
+    @Test
+    void retriesByteArrayUpload() {
+        assertTrue(fs.upload(CONTENT, "/t", "a.bin"));
+        assertEquals(2, attempts.get());
+        assertArrayEquals(CONTENT, backend.getStored("/t", "a.bin"));
+    }
+
+    @Test
+    void retriesBase64Upload() {
+        assertTrue(fs.upload(Base64.getEncoder().encodeToString(CONTENT), "/t", "a.bin"));
+        assertEquals(2, attempts.get());
+        assertArrayEquals(CONTENT, backend.getStored("/t", "a.bin"));
+    }
+
+    @Test
+    void retriesFileUpload(@TempDir Path dir) throws IOException {
+        File file = Files.write(dir.resolve("a.bin"), CONTENT).toFile();
+        assertTrue(fs.upload(file, "/t", "a.bin"));
+        assertEquals(2, attempts.get());
+        assertArrayEquals(CONTENT, backend.getStored("/t", "a.bin"));
+    }
+
+    @Test
+    void rejectsInvalidBucket() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertTrue(e.getMessage().contains("[0]"));
+    }
+
+}
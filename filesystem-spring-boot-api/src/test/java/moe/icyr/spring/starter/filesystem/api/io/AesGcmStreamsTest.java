@@ -0,0 +1,185 @@
+package moe.icyr.spring.starter.filesystem.api.io;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AesGcmStreamsTest {
+
+    private static final int FRAME = AesGcmHeader.MIN_FRAME_SIZE;
+    private static final int FRAME_LENGTH = FRAME + AesGcmHeader.TAG_LENGTH;
+    private static final SecretKey KEY = new SecretKeySpec(bytes(32, 1), "AES");
+
+    private static byte[] bytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        try (InputStream in = input) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[777];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                output.write(buffer, 0, n);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    private static byte[] encrypt(byte[] plain, long declaredLength) throws IOException {
+        return readAll(new EncryptingInputStream(new ByteArrayInputStream(plain), KEY, FRAME, declaredLength));
+    }
+
+    private static byte[] decrypt(byte[] encrypted, SecretKey key) throws IOException {
+        return readAll(new DecryptingInputStream(new ByteArrayInputStream(encrypted), key));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, FRAME - 1, FRAME, FRAME + 1, 2 * FRAME, 5 * FRAME + 123})
+    void roundTrip(int size) throws IOException {
+        byte[] plain = bytes(size, size);
+        for (long declared : new long[]{-1, size}) {
+            byte[] encrypted = encrypt(plain, declared);
+            assertEquals(AesGcmHeader.encryptedLength(size, FRAME), encrypted.length);
+            assertArrayEquals(plain, decrypt(encrypted, KEY));
+        }
+    }
+
+    @Test
+    void availableReportsEncryptedLength() throws IOException {
+        int size = 3 * FRAME + 5;
+        EncryptingInputStream input = new EncryptingInputStream(new ByteArrayInputStream(new byte[size]), KEY, FRAME, size);
+        assertEquals(AesGcmHeader.encryptedLength(size, FRAME), input.available());
+        assertEquals(10, input.read(new byte[10]));
+        assertEquals(AesGcmHeader.encryptedLength(size, FRAME) - 10, input.available());
+    }
+
+    @Test
+    void declaredLengthMismatchFails() {
+        assertThrows(IOException.class, () -> encrypt(new byte[10], 11));
+        assertThrows(IOException.class, () -> encrypt(new byte[FRAME + 1], FRAME));
+    }
+
+    @Test
+    void sameInputEncryptsDifferently() throws IOException {
+        byte[] plain = bytes(100, 7);
+        assertFalse(Arrays.equals(encrypt(plain, -1), encrypt(plain, -1)));
+    }
+
+    @Test
+    void wrongKeyFails() throws IOException {
+        byte[] encrypted = encrypt(bytes(3 * FRAME, 3), -1);
+        assertThrows(IOException.class, () -> decrypt(encrypted, new SecretKeySpec(bytes(32, 2), "AES")));
+        assertThrows(IOException.class, () -> decrypt(encrypted, new SecretKeySpec(Arrays.copyOf(bytes(32, 1), 16), "AES")));
+    }
+
+    @Test
+    void tamperedFrameFails() throws IOException {
+        byte[] encrypted = encrypt(bytes(3 * FRAME, 3), -1);
+        for (int offset : new int[]{AesGcmHeader.LENGTH + 5, AesGcmHeader.LENGTH + FRAME_LENGTH + FRAME + 3, encrypted.length - 1}) {
+            byte[] tampered = encrypted.clone();
+            tampered[offset] ^= 1;
+            assertThrows(IOException.class, () -> decrypt(tampered, KEY), "offset " + offset);
+        }
+    }
+
+    @Test
+    void tamperedHeaderFails() throws IOException {
+        byte[] encrypted = encrypt(bytes(3 * FRAME, 3), -1);
+        for (int offset = AesGcmHeader.MAGIC_LENGTH; offset < AesGcmHeader.LENGTH; offset++) {
+            byte[] tampered = encrypted.clone();
+            tampered[offset] ^= 1;
+            assertThrows(IOException.class, () -> decrypt(tampered, KEY), "offset " + offset);
+        }
+    }
+
+    @Test
+    void truncationAtFrameBoundaryFails() throws IOException {
+        byte[] encrypted = encrypt(bytes(3 * FRAME + 10, 4), -1);
+        for (int frames = 0; frames < 4; frames++) {
+            byte[] truncated = Arrays.copyOf(encrypted, AesGcmHeader.LENGTH + frames * FRAME_LENGTH);
+            assertThrows(IOException.class, () -> decrypt(truncated, KEY), frames + " frames");
+        }
+        // 明文长度为帧长度整数倍时去掉最后一帧
+        byte[] exact = encrypt(bytes(3 * FRAME, 5), -1);
+        assertThrows(IOException.class, () -> decrypt(Arrays.copyOf(exact, exact.length - FRAME_LENGTH), KEY));
+        assertThrows(IOException.class, () -> decrypt(Arrays.copyOf(encrypted, AesGcmHeader.LENGTH - 1), KEY));
+    }
+
+    @Test
+    void reorderedFramesFail() throws IOException {
+        byte[] encrypted = encrypt(bytes(3 * FRAME, 6), -1);
+        byte[] reordered = encrypted.clone();
+        System.arraycopy(encrypted, AesGcmHeader.LENGTH, reordered, AesGcmHeader.LENGTH + FRAME_LENGTH, FRAME_LENGTH);
+        System.arraycopy(encrypted, AesGcmHeader.LENGTH + FRAME_LENGTH, reordered, AesGcmHeader.LENGTH, FRAME_LENGTH);
+        assertThrows(IOException.class, () -> decrypt(reordered, KEY));
+    }
+
+    @Test
+    void appendedFrameFails() throws IOException {
+        byte[] encrypted = encrypt(bytes(2 * FRAME, 8), -1);
+        byte[] appended = Arrays.copyOf(encrypted, encrypted.length + FRAME_LENGTH);
+        System.arraycopy(encrypted, AesGcmHeader.LENGTH, appended, encrypted.length, FRAME_LENGTH);
+        assertThrows(IOException.class, () -> decrypt(appended, KEY));
+    }
+
+    @Test
+    void framesFromAnotherFileFail() throws IOException {
+        byte[] plain = bytes(2 * FRAME, 9);
+        byte[] first = encrypt(plain, -1);
+        byte[] second = encrypt(plain, -1);
+        byte[] mixed = first.clone();
+        System.arraycopy(second, AesGcmHeader.LENGTH, mixed, AesGcmHeader.LENGTH, FRAME_LENGTH);
+        assertThrows(IOException.class, () -> decrypt(mixed, KEY));
+    }
+
+    @Test
+    void decryptsFromAnyFrame() throws IOException {
+        byte[] plain = bytes(4 * FRAME + 100, 10);
+        byte[] encrypted = encrypt(plain, -1);
+        AesGcmHeader header = AesGcmHeader.parse(encrypted, encrypted.length);
+        for (int first = 0; first <= 4; first++) {
+            int offset = (int) header.frameOffset(first);
+            // 至文件末尾
+            byte[] tail = Arrays.copyOfRange(encrypted, offset, encrypted.length);
+            assertArrayEquals(Arrays.copyOfRange(plain, first * FRAME, plain.length),
+                    readAll(new DecryptingInputStream(new ByteArrayInputStream(tail), header, KEY, first, -1)));
+            // 只解密一帧，多提供一个字节用于判断最后一帧
+            byte[] one = Arrays.copyOfRange(encrypted, offset, Math.min(encrypted.length, offset + FRAME_LENGTH + 1));
+            assertArrayEquals(Arrays.copyOfRange(plain, first * FRAME, Math.min(plain.length, (first + 1) * FRAME)),
+                    readAll(new DecryptingInputStream(new ByteArrayInputStream(one), header, KEY, first, 1)));
+        }
+        // 起始帧超出文件末尾时为空
+        assertEquals(0, readAll(new DecryptingInputStream(new ByteArrayInputStream(new byte[0]), header, KEY, 5, 1)).length);
+        // 帧序号与位置不符
+        byte[] second = Arrays.copyOfRange(encrypted, (int) header.frameOffset(1), encrypted.length);
+        assertThrows(IOException.class, () -> readAll(new DecryptingInputStream(new ByteArrayInputStream(second), header, KEY, 2, -1)));
+        // 不是最后一帧却缺少后续数据
+        byte[] cut = Arrays.copyOfRange(encrypted, (int) header.frameOffset(1), (int) header.frameOffset(2));
+        assertThrows(IOException.class, () -> readAll(new DecryptingInputStream(new ByteArrayInputStream(cut), header, KEY, 1, 1)));
+    }
+
+    @Test
+    void rejectsInvalidHeader() {
+        assertFalse(AesGcmHeader.matches(new byte[]{0x1f, (byte) 0x8b, 8, 0}, 4));
+        assertThrows(IOException.class, () -> decrypt("plain text".getBytes(), KEY));
+        byte[] header = AesGcmHeader.random(FRAME).toBytes();
+        header[4] = 0x7f;
+        assertThrows(IOException.class, () -> AesGcmHeader.parse(header, header.length));
+        assertThrows(IllegalArgumentException.class, () -> AesGcmHeader.random(FRAME - 1));
+    }
+
+}
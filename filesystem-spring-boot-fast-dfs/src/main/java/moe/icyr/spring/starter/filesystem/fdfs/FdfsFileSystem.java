@@ -5,25 +5,32 @@ import com.github.tobato.fastdfs.domain.conn.FdfsConnectionPool;
 import com.github.tobato.fastdfs.domain.conn.PooledConnectionFactory;
 import com.github.tobato.fastdfs.domain.conn.TrackerConnectionManager;
 import com.github.tobato.fastdfs.domain.fdfs.*;
+import com.github.tobato.fastdfs.domain.proto.storage.DownloadCallback;
 import com.github.tobato.fastdfs.domain.upload.FastFile;
 import com.github.tobato.fastdfs.domain.upload.ThumbImage;
 import com.github.tobato.fastdfs.exception.FdfsConnectException;
 import com.github.tobato.fastdfs.exception.FdfsServerException;
 import com.github.tobato.fastdfs.service.*;
 import moe.icyr.spring.starter.filesystem.api.FileSystem;
+import moe.icyr.spring.starter.filesystem.api.RetryPolicy;
 import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
 import moe.icyr.spring.starter.filesystem.api.entity.FileSystemProperty;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumAlgorithm;
 import moe.icyr.spring.starter.filesystem.fdfs.entity.FdfsProperty;
 import moe.icyr.spring.starter.filesystem.fdfs.entity.Holder;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
+import java.io.*;
 import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * FastDFS 连接客户端
@@ -35,6 +42,16 @@ public class FdfsFileSystem extends FileSystem<Holder, com.github.tobato.fastdfs
 
     private static final Logger log = LoggerFactory.getLogger(FdfsFileSystem.class);
     private static final ResourceBundle message = ResourceBundle.getBundle("MessageFdfs");
+    private static final int PIPE_BUFFER_SIZE = 64 * 1024;
+    /**
+     * 未设置 {@link #setAsyncExecutor(Executor)} 时共享的下载线程池的线程上限，每个未关闭的读取流占用一个线程
+     */
+    private static final int PUMP_MAX_THREADS = 64;
+    private static volatile ExecutorService sharedPumpExecutor;
+    /**
+     * 记录压缩编码的元数据名称
+     */
+    public static final String CONTENT_ENCODING_METADATA = "fs_content_codec";
 
     @SuppressWarnings("FieldCanBeLocal")
     private TrackerConnectionManager trackerConnManager;
@@ -167,7 +184,7 @@ public class FdfsFileSystem extends FileSystem<Holder, com.github.tobato.fastdfs
     protected boolean connect() {
         // 指令测试
         try {
-            List<GroupState> groupStates = trackerClient.listGroups();
+            List<GroupState> groupStates = retry("connect", trackerClient::listGroups);
             StringBuilder p = new StringBuilder();
             if (groupStates != null && !groupStates.isEmpty()) {
                 for (GroupState gs : groupStates) {
@@ -192,6 +209,14 @@ public class FdfsFileSystem extends FileSystem<Holder, com.github.tobato.fastdfs
         }
     }
 
+    /**
+     * 在重试策略之上，连接Tracker或存储服务器失败时也可重试；上传会生成新的文件，不重试
+     */
+    @Override
+    protected boolean isRetryable(Throwable error) {
+        return super.isRetryable(error) || RetryPolicy.causedBy(error, FdfsConnectException.class);
+    }
+
     @Override
     public Holder getFileSystemHolder() {
         return new Holder(trackerConnManager, trackerClient, storageConnManager, storageClient, appenderStorageClient);
@@ -201,6 +226,24 @@ public class FdfsFileSystem extends FileSystem<Holder, com.github.tobato.fastdfs
     public void disconnect() {
     }
 
+    /**
+     * 客户端自带连接池，可被多个线程同时调用
+     * @return true
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * 上传时以输入流的 {@link InputStream#available()} 作为文件长度
+     * @return true
+     */
+    @Override
+    public boolean isUploadLengthRequired() {
+        return true;
+    }
+
     @Override
     public List<FileInfo<com.github.tobato.fastdfs.domain.fdfs.FileInfo>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
         log.error(message.getString("fs.fdfs.ls.not.support"));
@@ -232,13 +275,16 @@ public class FdfsFileSystem extends FileSystem<Holder, com.github.tobato.fastdfs
         path = formats.get(0);
         filename = formats.get(1);
         try {
-            com.github.tobato.fastdfs.domain.fdfs.FileInfo info = storageClient.queryFileInfo(groupName, path.concat("/").concat(filename));
+            String filePath = path.concat("/").concat(filename);
+            com.github.tobato.fastdfs.domain.fdfs.FileInfo info = retry("peekFile", () -> storageClient.queryFileInfo(groupName, filePath));
             FileInfo<com.github.tobato.fastdfs.domain.fdfs.FileInfo> fileInfo = new FileInfo<>();
             fileInfo.setFilename(filename);
             fileInfo.setAbsolutePath("/".concat(groupName).concat("/").concat(path));
             fileInfo.setDirectory(false);
             fileInfo.setFile(true);
             fileInfo.setSize(info.getFileSize());
+            // appender文件修改后CRC32不一定更新，附加大小一同校验
+            fileInfo.setFingerprint(info.getCrc32() + ":" + info.getFileSize());
             fileInfo.setOriginalInfo(info);
             return fileInfo;
         } catch (Exception e) {
@@ -247,6 +293,61 @@ public class FdfsFileSystem extends FileSystem<Holder, com.github.tobato.fastdfs
         }
     }
 
+    /**
+     * <p>仅支持CRC32，取自服务端记录的文件CRC32</p>
+     * <p><b>appender文件修改后CRC32不一定更新，不应用于校验appender文件</b></p>
+     * @param path 组名+绝对路径
+     * @param filename 文件名
+     * @param algorithm 校验和算法
+     * @return 小写十六进制的CRC32，其他算法或查询失败时为NULL
+     */
+    @Override
+    public String getChecksum(String path, String filename, ChecksumAlgorithm algorithm) {
+        if (algorithm != ChecksumAlgorithm.CRC32 || (path == null && filename == null)) {
+            return null;
+        }
+        List<String> formats = formatPathAndFilename(path, filename);
+        if (formats.get(0) == null || formats.get(1) == null || formats.get(2) == null) {
+            return null;
+        }
+        String groupName = formats.get(2);
+        String filePath = formats.get(0).concat("/").concat(formats.get(1));
+        try {
+            com.github.tobato.fastdfs.domain.fdfs.FileInfo info = retry("getChecksum", () -> storageClient.queryFileInfo(groupName, filePath));
+            return info == null ? null : String.format("%08x", info.getCrc32() & 0xFFFFFFFFL);
+        } catch (Exception e) {
+            log.error(message.getString("fs.fdfs.ls.error"), e);
+            return null;
+        }
+    }
+
+    @Override
+    public String getContentEncoding(String path, String filename) {
+        if (path == null && filename == null) {
+            return null;
+        }
+        List<String> formats = formatPathAndFilename(path, filename);
+        if (formats.get(0) == null || formats.get(1) == null || formats.get(2) == null) {
+            return null;
+        }
+        String groupName = formats.get(2);
+        String filePath = formats.get(0).concat("/").concat(formats.get(1));
+        try {
+            Set<MetaData> metaDataSet = retry("getContentEncoding", () -> storageClient.getMetadata(groupName, filePath));
+            if (metaDataSet != null) {
+                for (MetaData metaData : metaDataSet) {
+                    if (CONTENT_ENCODING_METADATA.equals(metaData.getName())) {
+                        return metaData.getValue();
+                    }
+                }
+            }
+            return null;
+        } catch (Exception e) {
+            log.error(message.getString("fs.fdfs.ls.error"), e);
+            return null;
+        }
+    }
+
     /**
      * <p>上传文件</p>
      * <p><b>路径会被忽略，文件名用于识别后缀传输给FastDFS</b></p>
@@ -257,6 +358,29 @@ public class FdfsFileSystem extends FileSystem<Holder, com.github.tobato.fastdfs
      */
     @Override
     public boolean upload(InputStream input, StringBuffer path, StringBuffer filename) {
+        return uploadEncoded(input, path, filename, null);
+    }
+
+    /**
+     * 压缩编码记录在元数据 {@value #CONTENT_ENCODING_METADATA} 中
+     * @return true
+     */
+    @Override
+    public boolean isContentEncodingSupported() {
+        return true;
+    }
+
+    /**
+     * <p>上传已压缩的文件，并在元数据中记录压缩编码</p>
+     * <p><b>路径会被忽略，文件名用于识别后缀传输给FastDFS</b></p>
+     * @param input 流
+     * @param path 路径
+     * @param filename 文件名
+     * @param encoding 压缩编码，为NULL时不记录
+     * @return 成功与否
+     */
+    @Override
+    public boolean uploadEncoded(InputStream input, StringBuffer path, StringBuffer filename, String encoding) {
         if (input == null || path == null || filename == null)
             return false;
         try {
@@ -272,6 +396,9 @@ public class FdfsFileSystem extends FileSystem<Holder, com.github.tobato.fastdfs
             metaDataSet.add(new MetaData("file_size", String.valueOf(input.available())));
             metaDataSet.add(new MetaData("height", "0"));
             metaDataSet.add(new MetaData("width", "0"));
+            if (encoding != null) {
+                metaDataSet.add(new MetaData(CONTENT_ENCODING_METADATA, encoding));
+            }
             StorePath storePath = storageClient.uploadFile(new FastFile(input, input.available(), suffix, metaDataSet));
             return formatStorePath(path, filename, storePath);
         } catch (Exception e) {
@@ -294,15 +421,36 @@ public class FdfsFileSystem extends FileSystem<Holder, com.github.tobato.fastdfs
     }
 
     /**
-     * 下载文件
+     * 下载文件并写入给定的输出流
      * @param path 组名+绝对路径
      * @param filename 文件名
-     * @return 流
+     * @param output 目标输出流
+     * @return 成功与否
      */
     @Override
-    public ByteArrayOutputStream downloadStream(String path, String filename) {
+    public boolean download(String path, String filename, OutputStream output) {
+        if (output == null)
+            return false;
+        return downloadWithCallback(path, filename, ins -> IOUtils.copyLarge(ins, output));
+    }
+
+    /**
+     * 下载文件并写入给定的文件通道，在回调内直接将数据流写入通道
+     * @param path 组名+绝对路径
+     * @param filename 文件名
+     * @param channel 目标文件通道
+     * @return 成功与否
+     */
+    @Override
+    public boolean download(String path, String filename, FileChannel channel) {
+        if (channel == null)
+            return false;
+        return downloadWithCallback(path, filename, ins -> transfer(ins, channel));
+    }
+
+    private boolean downloadWithCallback(String path, String filename, DownloadCallback<Long> callback) {
         if (path == null && filename == null)
-            return null;
+            return false;
         try {
             List<String> formats = formatPathAndFilename(path, filename);
             if (formats.get(0) == null || formats.get(1) == null || formats.get(2) == null) {
@@ -310,32 +458,170 @@ public class FdfsFileSystem extends FileSystem<Holder, com.github.tobato.fastdfs
                         .replace("${path}", String.valueOf(formats.get(0)))
                         .replace("${filename}", String.valueOf(formats.get(1)))
                         .replace("${err}", "FORMAT ERROR"));
-                return null;
+                return false;
             }
             String groupName = formats.get(2);
             path = formats.get(0);
             filename = formats.get(1);
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            storageClient.downloadFile(groupName, path.concat("/").concat(filename), ins -> {
-                byte[] bytes = IOUtils.toByteArray(ins);
-                outputStream.write(bytes);
-                return bytes;
-            });
-            return outputStream;
+            String filePath = path.concat("/").concat(filename);
+            // 已开始写入输出时不再重试
+            AtomicBoolean started = new AtomicBoolean(false);
+            retry("download", () -> storageClient.downloadFile(groupName, filePath, ins -> {
+                started.set(true);
+                return callback.recv(ins);
+            }), () -> !started.get());
+            return true;
         } catch (IllegalArgumentException e) {
             log.error(message.getString("fs.fdfs.download.arguments.invalid")
                     .replace("${path}", String.valueOf(path))
                     .replace("${filename}", String.valueOf(filename))
                     .replace("${err}", e.getMessage()));
-            return null;
+            return false;
         } catch (FdfsServerException e) {
             log.error(message.getString("fs.fdfs.download.server.error")
                     .replace("${err}", e.getMessage()));
-            return null;
+            return false;
         } catch (Exception e) {
+            log.error(message.getString("fs.fdfs.download.error"), e);
+            return false;
+        }
+    }
+
+    /**
+     * <p>打开文件的读取流</p>
+     * <p>FastDFS客户端只在回调内提供数据流，故通过管道由后台线程将回调中的数据转交给调用方，内存中最多缓存一个管道缓冲区；
+     * 后台线程使用 {@link #getAsyncExecutor()}，未设置时使用最多 {@value #PUMP_MAX_THREADS} 个线程的共享线程池，线程已满时返回NULL</p>
+     * <p style="color:orange">读取流必须关闭：关闭时中止未完成的传输并归还存储服务器连接，未关闭的流会一直占用后台线程与连接</p>
+     * @param path 组名+绝对路径
+     * @param filename 文件名
+     * @return 读取流
+     */
+    @Override
+    public InputStream openInputStream(String path, String filename) {
+        return openInputStream(path, filename, 0, -1);
+    }
+
+    /**
+     * <p>由存储服务器从指定位置开始只发送指定长度的内容，后台线程同 {@link #openInputStream(String, String)}</p>
+     * <p style="color:orange">起始位置超出文件末尾时存储服务器会返回错误，读取时抛出异常；读取流必须关闭</p>
+     * @param path 组名+绝对路径
+     * @param filename 文件名
+     * @param offset 起始位置，需&gt;=0
+     * @param length 读取长度，&lt;0为读取至文件末尾
+     * @return 读取流
+     */
+    @Override
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
+        if (path == null && filename == null)
+            return null;
+        if (!isValidRange(offset))
+            return null;
+        if (length == 0)
+            return new ByteArrayInputStream(new byte[0]);
+        List<String> formats = formatPathAndFilename(path, filename);
+        if (formats.get(0) == null || formats.get(1) == null || formats.get(2) == null) {
+            log.error(message.getString("fs.fdfs.download.arguments.invalid")
+                    .replace("${path}", String.valueOf(formats.get(0)))
+                    .replace("${filename}", String.valueOf(formats.get(1)))
+                    .replace("${err}", "FORMAT ERROR"));
+            return null;
+        }
+        String groupName = formats.get(2);
+        String filePath = formats.get(0).concat("/").concat(formats.get(1));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        PipedInputStream pipedInput = new PipedInputStream(PIPE_BUFFER_SIZE);
+        PipedOutputStream pipedOutput;
+        try {
+            pipedOutput = new PipedOutputStream(pipedInput);
+        } catch (IOException e) {
             log.error(message.getString("fs.fdfs.download.error"), e);
             return null;
         }
+        Runnable pump = () -> {
+            try (OutputStream out = pipedOutput) {
+                // 协议中长度为0表示读取至文件末尾
+                AtomicBoolean started = new AtomicBoolean(false);
+                retry("openInputStream", () -> storageClient.downloadFile(groupName, filePath, offset, Math.max(length, 0), ins -> {
+                    started.set(true);
+                    return IOUtils.copyLarge(ins, out);
+                }), () -> !started.get());
+            } catch (Throwable e) {
+                failure.set(e);
+            } finally {
+                finished.countDown();
+            }
+        };
+        try {
+            pumpExecutor().execute(pump);
+        } catch (RejectedExecutionException e) {
+            IOUtils.closeQuietly(pipedOutput);
+            IOUtils.closeQuietly(pipedInput);
+            log.error(message.getString("fs.fdfs.download.pump.rejected")
+                    .replace("${path}", formats.get(0))
+                    .replace("${filename}", formats.get(1)), e);
+            return null;
+        }
+        return new FilterInputStream(pipedInput) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b == -1) {
+                    checkFailure();
+                }
+                return b;
+            }
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n == -1) {
+                    checkFailure();
+                }
+                return n;
+            }
+            @Override
+            public void close() throws IOException {
+                // 关闭管道的读取端，后台线程随后写入失败，结束下载并归还连接
+                super.close();
+            }
+            private void checkFailure() throws IOException {
+                try {
+                    finished.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                Throwable e = failure.get();
+                if (e != null) {
+                    throw new IOException(message.getString("fs.fdfs.download.error"), e);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return 转交读取流数据的线程池，优先使用 {@link #getAsyncExecutor()}
+     */
+    private Executor pumpExecutor() {
+        Executor executor = getAsyncExecutor();
+        if (executor != null) {
+            return executor;
+        }
+        ExecutorService shared = sharedPumpExecutor;
+        if (shared == null) {
+            synchronized (FdfsFileSystem.class) {
+                shared = sharedPumpExecutor;
+                if (shared == null) {
+                    AtomicInteger threadCount = new AtomicInteger();
+                    shared = new ThreadPoolExecutor(0, PUMP_MAX_THREADS, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+                        Thread thread = new Thread(r, "fdfs-download-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    sharedPumpExecutor = shared;
+                }
+            }
+        }
+        return shared;
     }
 
     /**
@@ -360,7 +646,11 @@ public class FdfsFileSystem extends FileSystem<Holder, com.github.tobato.fastdfs
             String groupName = formats.get(2);
             path = formats.get(0);
             filename = formats.get(1);
-            storageClient.deleteFile(groupName, path.concat("/").concat(filename));
+            String filePath = path.concat("/").concat(filename);
+            retry("deleteFile", () -> {
+                storageClient.deleteFile(groupName, filePath);
+                return true;
+            });
             return true;
         } catch (IllegalArgumentException e) {
             log.error(message.getString("fs.fdfs.delete.arguments.invalid")
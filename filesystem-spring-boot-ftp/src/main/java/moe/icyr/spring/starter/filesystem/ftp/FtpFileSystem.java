@@ -1,19 +1,28 @@
 package moe.icyr.spring.starter.filesystem.ftp;
 
 import moe.icyr.spring.starter.filesystem.api.FileSystem;
+import moe.icyr.spring.starter.filesystem.api.KnownDirectories;
+import moe.icyr.spring.starter.filesystem.api.RetryPolicy;
+import moe.icyr.spring.starter.filesystem.api.TransferProgress;
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
 import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
 import moe.icyr.spring.starter.filesystem.api.entity.FileSystemProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.RetryProperty;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import moe.icyr.spring.starter.filesystem.api.io.RangeInputStream;
 import moe.icyr.spring.starter.filesystem.ftp.entity.FtpProperty;
 import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPConnectionClosedException;
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPReply;
+import org.apache.commons.net.io.CopyStreamAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.net.ConnectException;
-import java.net.SocketException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -30,15 +39,19 @@ public class FtpFileSystem extends FileSystem<FTPClient, FTPFile> {
 
     private static final Logger log = LoggerFactory.getLogger(FtpFileSystem.class);
     private static final ResourceBundle message = ResourceBundle.getBundle("MessageFtp");
+    /**
+     * 默认流水线命令数
+     */
+    public static final int DEFAULT_PIPELINE_SIZE = 32;
 
     private FtpProperty property;
 
-    private FTPClient ftpClient;
+    private PipeliningFtpClient ftpClient;
 
     /**
-     * 剩余重连次数
+     * 已确认存在的目录，批量操作的会话之间共用
      */
-    protected int retryCountdown;
+    private KnownDirectories knownDirectories;
 
     /**
      * 验证配置并创建连接
@@ -64,63 +77,82 @@ public class FtpFileSystem extends FileSystem<FTPClient, FTPFile> {
         if (ftpProperty.getRetries() == null || ftpProperty.getRetries() < 0) {
             ftpProperty.setRetries(0);
         }
+        if (ftpProperty.getRetries() > 0 && (ftpProperty.getRetry() == null || ftpProperty.getRetry().getMaxAttempts() == null)) {
+            // 兼容原有的重连次数配置
+            RetryProperty retry = ftpProperty.getRetry() == null ? new RetryProperty() : new RetryProperty(ftpProperty.getRetry());
+            ftpProperty.setRetry(retry.setMaxAttempts(ftpProperty.getRetries() + 1));
+        }
+        if (ftpProperty.getPipelineSize() == null) {
+            ftpProperty.setPipelineSize(DEFAULT_PIPELINE_SIZE);
+        }
         return ftpProperty;
     }
 
     @Override
     protected void init(FileSystemProperty property) {
         this.property = (FtpProperty) property;
-        this.retryCountdown = this.property.getRetries();
+        this.knownDirectories = new KnownDirectories();
     }
 
     @Override
     protected boolean connect() {
-        if (this.retryCountdown < 0) {
-            log.error(message.getString("fs.ftp.connect.fail.retry.max")
-                    .replace("${retries}", Integer.toString(this.property.getRetries()))
+        try {
+            return retry("connect", this::connectOnce);
+        } catch (Exception e) {
+            log.error(message.getString("fs.ftp.connect.fail")
                     .replace("${ip}", this.property.getIp())
-                    .replace("${port}", Integer.toString(this.property.getPort())));
-            this.retryCountdown = this.property.getRetries();
+                    .replace("${port}", Integer.toString(this.property.getPort())), e);
+            if (getRetryPolicy().getMaxAttempts() > 1) {
+                log.error(message.getString("fs.ftp.connect.fail.retry.max")
+                        .replace("${retries}", Integer.toString(getRetryPolicy().getMaxAttempts() - 1))
+                        .replace("${ip}", this.property.getIp())
+                        .replace("${port}", Integer.toString(this.property.getPort())));
+            }
+            // 未登录成功的连接不可使用，下次调用时重新连接
+            disconnect();
             return false;
-        } else if (!this.property.getRetries().equals(this.retryCountdown)) {
-            log.debug(message.getString("fs.ftp.connect.retrying")
-                    .replace("${retried}", Integer.toString(this.property.getRetries() - this.retryCountdown))
-                    .replace("${retries}", Integer.toString(this.property.getRetries())));
         }
+    }
+
+    private boolean connectOnce() throws IOException {
         if (ftpClient == null) {
-            ftpClient = new FTPClient();
+            ftpClient = new PipeliningFtpClient();
         }
-        try {
-            ftpClient.connect(this.property.getIp(), this.property.getPort());
-            ftpClient.login(this.property.getUsername(), this.property.getPassword());
-            int replyCode = ftpClient.getReplyCode();
-            if (!FTPReply.isPositiveCompletion(replyCode)) {
-                log.debug(message.getString("fs.ftp.connect.fail.login")
-                        .replace("${ip}", this.property.getIp())
-                        .replace("${port}", Integer.toString(this.property.getPort())));
-                this.retryCountdown--;
-                return connect();
-            }
-            log.debug(message.getString("fs.ftp.connect.success")
-                    .replace("${ip}", this.property.getIp())
-                    .replace("${port}", Integer.toString(this.property.getPort())));
-            ftpClient.setControlEncoding(this.property.getCharset());
-            ftpClient.enterLocalPassiveMode();
-            this.retryCountdown = this.property.getRetries();
-            return true;
-        } catch (ConnectException e) {
-            log.error(message.getString("fs.ftp.connect.fail")
+        recordConnect();
+        ftpClient.connect(this.property.getIp(), this.property.getPort());
+        ftpClient.login(this.property.getUsername(), this.property.getPassword());
+        int replyCode = ftpClient.getReplyCode();
+        if (!FTPReply.isPositiveCompletion(replyCode)) {
+            throw new IOException(message.getString("fs.ftp.connect.fail.login")
                     .replace("${ip}", this.property.getIp())
                     .replace("${port}", Integer.toString(this.property.getPort())));
-            this.retryCountdown--;
-            return connect();
-        } catch (Exception e) {
-            log.error(message.getString("fs.ftp.connect.fail")
-                    .replace("${ip}", this.property.getIp())
-                    .replace("${port}", Integer.toString(this.property.getPort())), e);
-            this.retryCountdown--;
-            return connect();
         }
+        log.debug(message.getString("fs.ftp.connect.success")
+                .replace("${ip}", this.property.getIp())
+                .replace("${port}", Integer.toString(this.property.getPort())));
+        ftpClient.setControlEncoding(this.property.getCharset());
+        ftpClient.enterLocalPassiveMode();
+        return true;
+    }
+
+    private boolean ensureConnected() {
+        return (ftpClient != null && ftpClient.isConnected()) || connect();
+    }
+
+    /**
+     * 在重试策略之上，服务端关闭控制连接（如空闲超时）时也可重试
+     */
+    @Override
+    protected boolean isRetryable(Throwable error) {
+        return super.isRetryable(error) || RetryPolicy.causedBy(error, FTPConnectionClosedException.class);
+    }
+
+    /**
+     * 断开已失效的连接，再次尝试时重新连接
+     */
+    @Override
+    protected void prepareRetry(Throwable error) {
+        disconnect();
     }
 
     @Override
@@ -143,6 +175,9 @@ public class FtpFileSystem extends FileSystem<FTPClient, FTPFile> {
 
     @Override
     public List<FileInfo<FTPFile>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+        if (deepFind && isListParallel()) {
+            return listParallel(path, flatPrint, maxDepth);
+        }
         return list(path, deepFind, flatPrint, maxDepth, 0);
     }
 
@@ -153,55 +188,11 @@ public class FtpFileSystem extends FileSystem<FTPClient, FTPFile> {
         if (path == null || path.trim().isEmpty()) {
             return null;
         }
-        if (ftpClient == null || !ftpClient.isConnected() || (this.retryCountdown >= 0 && this.retryCountdown < this.property.getRetries())) {
-            if (!connect()) {
-                return null;
-            }
-        }
         if ("/".equals(path)) {
             log.warn(message.getString("fs.ftp.list.warn.from.root"));
         }
-        String oriPath = path;
         try {
-            path = path.replace("\\", "/");
-            path = new String(path.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
-            if (!ftpClient.changeWorkingDirectory(path)) {
-                return null;
-            }
-            FTPFile[] ftpFiles = ftpClient.listFiles();
-            List<FileInfo<FTPFile>> files = new ArrayList<>();
-            for (FTPFile file : ftpFiles) {
-                FileInfo<FTPFile> info = new FileInfo<>();
-                info.setAbsolutePath(oriPath);
-                info.setFilename(file.getName());
-                info.setSize(file.getSize());
-                info.setFile(file.isFile());
-                info.setDirectory(file.isDirectory());
-                info.setOriginalInfo(file);
-                files.add(info);
-                if (deepFind && file.isDirectory()) {
-                    String childPath;
-                    if ("/".equals(path)) {
-                        childPath = "/" + file.getName();
-                    } else if (path.endsWith("/")) {
-                        childPath = path + file.getName();
-                    } else {
-                        childPath = path + "/" + file.getName();
-                    }
-                    Collection<FileInfo<FTPFile>> list = list(childPath, true, flatPrint, maxDepth, nowDepth + 1);
-                    if (list != null) {
-                        if (flatPrint) {
-                            files.addAll(list);
-                        } else {
-                            info.setChildren(list);
-                        }
-                    }
-                }
-            }
-            return files;
-        } catch (SocketException e) {
-            this.retryCountdown--;
-            return list(path, deepFind, flatPrint, maxDepth, nowDepth);
+            return retry("list", () -> listOnce(path, deepFind, flatPrint, maxDepth, nowDepth));
         } catch (Exception e) {
             log.error(message.getString("fs.ftp.list.error")
                     .replace("${path}", path), e);
@@ -209,30 +200,100 @@ public class FtpFileSystem extends FileSystem<FTPClient, FTPFile> {
         }
     }
 
+    private List<FileInfo<FTPFile>> listOnce(String oriPath, boolean deepFind, boolean flatPrint, int maxDepth, int nowDepth) throws IOException {
+        if (!ensureConnected()) {
+            return null;
+        }
+        String path = oriPath.replace("\\", "/");
+        path = new String(path.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
+        if (!ftpClient.changeWorkingDirectory(path)) {
+            return null;
+        }
+        FTPFile[] ftpFiles = ftpClient.listFiles();
+        List<FileInfo<FTPFile>> files = new ArrayList<>();
+        for (FTPFile file : ftpFiles) {
+            FileInfo<FTPFile> info = new FileInfo<>();
+            info.setAbsolutePath(oriPath);
+            info.setFilename(file.getName());
+            info.setSize(file.getSize());
+            info.setFile(file.isFile());
+            info.setDirectory(file.isDirectory());
+            info.setOriginalInfo(file);
+            files.add(info);
+            if (deepFind && file.isDirectory()) {
+                String childPath;
+                if ("/".equals(path)) {
+                    childPath = "/" + file.getName();
+                } else if (path.endsWith("/")) {
+                    childPath = path + file.getName();
+                } else {
+                    childPath = path + "/" + file.getName();
+                }
+                Collection<FileInfo<FTPFile>> list = list(childPath, true, flatPrint, maxDepth, nowDepth + 1);
+                if (list != null) {
+                    if (flatPrint) {
+                        files.addAll(list);
+                    } else {
+                        info.setChildren(list);
+                    }
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 上传文件，连接失效时重新连接后再次上传，流已被读取且无法回到开头时不再重试
+     * @param input 流
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 成功与否
+     */
     @Override
-    @SuppressWarnings("DuplicatedCode")
     public boolean upload(InputStream input, String path, String filename) {
         if (input == null || path == null || path.trim().isEmpty() || filename == null || filename.trim().isEmpty())
             return false;
-        if (ftpClient == null || !ftpClient.isConnected() || (this.retryCountdown >= 0 && this.retryCountdown < this.property.getRetries())) {
-            if (!connect()) {
-                return false;
-            }
+        try {
+            return retry("upload", input, in -> uploadOnce(in, path, filename));
+        } catch (Exception e) {
+            log.error(message.getString("fs.ftp.upload.error")
+                    .replace("${path}", path)
+                    .replace("${filename}", filename)
+                    .replace("${stream}", Integer.toString(input.hashCode())), e);
+            return false;
+        }
+    }
+
+    @SuppressWarnings("DuplicatedCode")
+    private boolean uploadOnce(InputStream input, String oriPath, String oriName) throws IOException {
+        if (!ensureConnected()) {
+            return false;
         }
-        String oriPath = path;
-        String oriName = filename;
+        TransferProgress progress = null;
         try {
-            path = path.replace("\\", "/");
+            String path = oriPath.replace("\\", "/");
             path = new String(path.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
-            filename = new String(filename.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
-            if (!ftpClient.changeWorkingDirectory(path)) {
+            String filename = new String(oriName.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
+            // 已位于该目录时不再切换
+            if (!ftpClient.isWorkingDirectory(path) && !ftpClient.changeWorkingDirectory(path)) {
+                knownDirectories.remove(oriPath);
                 if (!createDirectory(oriPath)) {
                     return false; // 创建目录失败
                 }
             }
             ftpClient.setFileType(FTPClient.BINARY_FILE_TYPE);
             int len = input.available();
+            progress = startProgress(TransferProgress.Direction.UPLOAD, oriPath, oriName, len > 0 ? len : -1);
+            if (progress != null) {
+                ftpClient.setCopyStreamListener(new ProgressCopyStreamListener(progress));
+            }
             boolean b = ftpClient.storeFile(filename, input);
+            finishProgress(progress, b);
+            if (!b) {
+                // 目录可能已被删除，下次上传时重新确认
+                knownDirectories.remove(oriPath);
+                ftpClient.resetState();
+            }
             if (b) {
                 log.debug(message.getString("fs.ftp.upload.success")
                         .replace("${path}", oriPath)
@@ -245,157 +306,388 @@ public class FtpFileSystem extends FileSystem<FTPClient, FTPFile> {
                         .replace("${length}", Integer.toString(len)));
             }
             return b;
-        } catch (SocketException e) {
-            this.retryCountdown--;
-            return upload(input, path, filename);
-        } catch (Exception e) {
-            log.error(message.getString("fs.ftp.upload.error")
-                    .replace("${path}", oriPath)
-                    .replace("${filename}", oriName)
-                    .replace("${stream}", Integer.toString(input.hashCode())), e);
+        } catch (IOException | RuntimeException e) {
+            finishProgress(progress, false);
+            throw e;
+        } finally {
+            if (progress != null && ftpClient != null) {
+                ftpClient.setCopyStreamListener(null);
+            }
         }
-        return false;
     }
 
+    /**
+     * 创建使用独立FTP连接的实例，供批量操作并行使用
+     */
     @Override
-    @SuppressWarnings("DuplicatedCode")
-    public boolean createDirectory(String path) {
-        if (path == null || path.trim().isEmpty())
-            return false;
-        if (ftpClient == null || !ftpClient.isConnected() || (this.retryCountdown >= 0 && this.retryCountdown < this.property.getRetries())) {
-            if (!connect()) {
-                return false;
+    protected FileSystem<FTPClient, FTPFile> openSession() {
+        FtpFileSystem session = new FtpFileSystem(this.property);
+        if (session.ftpClient == null || !session.ftpClient.isConnected()) {
+            session.disconnect();
+            return null;
+        }
+        session.knownDirectories = this.knownDirectories;
+        return inheritSettings(session);
+    }
+
+    @Override
+    protected boolean prepareUploadDirectory(String path) {
+        return createDirectory(path);
+    }
+
+    /**
+     * 只切换一次工作目录并设置一次传输模式，随后逐个发送STOR；连接中断时重新连接并切换目录后继续
+     */
+    @Override
+    protected List<BatchResult<UploadRequest>> uploadGroup(String path, List<UploadRequest> requests) {
+        List<BatchResult<UploadRequest>> results = new ArrayList<>(requests.size());
+        boolean ready = false;
+        for (UploadRequest request : requests) {
+            if (!ready && !(ready = enterBatchDirectory(path))) {
+                results.add(BatchResult.failure(request, new IOException(message.getString("fs.ftp.batch.cwd.fail")
+                        .replace("${path}", path))));
+                continue;
+            }
+            InputStream input;
+            try {
+                input = request.openStream();
+            } catch (IOException e) {
+                results.add(BatchResult.failure(request, e));
+                continue;
+            }
+            try (InputStream stream = input) {
+                int len = stream.available();
+                String filename = new String(request.getFilename().getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
+                if (ftpClient.storeFile(filename, stream)) {
+                    log.debug(message.getString("fs.ftp.upload.success")
+                            .replace("${path}", path)
+                            .replace("${filename}", request.getFilename())
+                            .replace("${length}", Integer.toString(len)));
+                    results.add(BatchResult.success(request));
+                } else {
+                    log.error(message.getString("fs.ftp.upload.fail")
+                            .replace("${path}", path)
+                            .replace("${filename}", request.getFilename())
+                            .replace("${length}", Integer.toString(len)));
+                    results.add(BatchResult.failure(request, new IOException(String.valueOf(ftpClient.getReplyString()).trim())));
+                    knownDirectories.remove(path);
+                }
+            } catch (IOException e) {
+                log.error(message.getString("fs.ftp.upload.error")
+                        .replace("${path}", path)
+                        .replace("${filename}", request.getFilename())
+                        .replace("${stream}", Integer.toString(input.hashCode())), e);
+                results.add(BatchResult.failure(request, e));
+                ready = false;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 切换工作目录后以流水线方式发送DELE，每批只需一次往返
+     */
+    @Override
+    protected List<BatchResult<String>> deleteGroup(String path, List<String> filenames) {
+        List<BatchResult<String>> results = new ArrayList<>(filenames.size());
+        if (!enterBatchDirectory(path)) {
+            IOException error = new IOException(message.getString("fs.ftp.batch.cwd.fail")
+                    .replace("${path}", path));
+            for (String filename : filenames) {
+                results.add(BatchResult.failure(filename, error));
             }
+            return results;
         }
-        String oriPath = path;
-        String d;
         try {
-            path = path.replace("\\", "/");
-            // 目录编码，解决中文路径问题
-            d = new String(path.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
-            path = path.trim();
-            String[] arr = path.split("/");
-            StringBuilder sbfDir = new StringBuilder();
-            // 循环生成子目录
-            for (String s : arr) {
-                sbfDir.append("/");
-                sbfDir.append(s);
-                // 目录编码，解决中文路径问题，逐渐将d对象补全至oriDir路径
-                d = new String(sbfDir.toString().getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
-                // 尝试切入目录
-                if (ftpClient.changeWorkingDirectory(d)) {
-                    continue;
+            List<String> encoded = new ArrayList<>(filenames.size());
+            for (String filename : filenames) {
+                encoded.add(new String(filename.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1));
+            }
+            String[] replies = new String[filenames.size()];
+            boolean[] success;
+            if (this.property.getPipelineSize() > 1) {
+                success = ftpClient.pipeline("DELE", encoded, this.property.getPipelineSize(), replies);
+            } else {
+                success = new boolean[filenames.size()];
+                for (int i = 0; i < encoded.size(); i++) {
+                    success[i] = ftpClient.deleteFile(encoded.get(i));
+                    replies[i] = success[i] ? null : String.valueOf(ftpClient.getReplyString()).trim();
+                }
+            }
+            for (int i = 0; i < filenames.size(); i++) {
+                if (success[i]) {
+                    log.debug(message.getString("fs.ftp.delete.success")
+                            .replace("${path}", path)
+                            .replace("${filename}", filenames.get(i)));
+                    results.add(BatchResult.success(filenames.get(i)));
+                } else {
+                    log.debug(message.getString("fs.ftp.delete.error")
+                            .replace("${path}", path)
+                            .replace("${filename}", filenames.get(i)));
+                    results.add(BatchResult.failure(filenames.get(i), new IOException(replies[i])));
                 }
-                if (!ftpClient.makeDirectory(d)) {
+            }
+        } catch (IOException e) {
+            log.error(message.getString("fs.ftp.batch.delete.error")
+                    .replace("${path}", path), e);
+            // 应答与命令已无法对应，断开后由下次调用重新连接
+            disconnect();
+            for (int i = results.size(); i < filenames.size(); i++) {
+                results.add(BatchResult.failure(filenames.get(i), e));
+            }
+        }
+        return results;
+    }
+
+    private boolean enterBatchDirectory(String path) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (ftpClient == null || !ftpClient.isConnected()) {
+                if (!connect()) {
                     return false;
                 }
             }
-            // 将目录切换至指定路径
-            return ftpClient.changeWorkingDirectory(d);
-        } catch (SocketException e) {
-            this.retryCountdown--;
-            return createDirectory(path);
+            try {
+                String dir = new String(path.replace("\\", "/").getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
+                return (ftpClient.isWorkingDirectory(dir) || ftpClient.changeWorkingDirectory(dir))
+                        && ftpClient.setFileType(FTPClient.BINARY_FILE_TYPE);
+            } catch (IOException e) {
+                // 连接已失效，断开后重试一次
+                disconnect();
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean createDirectory(String path) {
+        if (path == null || path.trim().isEmpty())
+            return false;
+        try {
+            return retry("createDirectory", () -> createDirectoryOnce(path));
         } catch (Exception e) {
             log.error(message.getString("fs.ftp.mkdir.error")
-                    .replace("${path}", oriPath), e);
+                    .replace("${path}", path), e);
             return false;
         }
     }
 
+    private boolean createDirectoryOnce(String oriPath) throws IOException {
+        if (!ensureConnected()) {
+            return false;
+        }
+        String path = oriPath.replace("\\", "/");
+        // 目录编码，解决中文路径问题
+        String d = new String(path.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
+        if (knownDirectories.contains(path)) {
+            // 已确认存在的目录直接切入，失败时说明已被删除，重新逐级创建
+            if (ftpClient.isWorkingDirectory(d) || ftpClient.changeWorkingDirectory(d)) {
+                return true;
+            }
+            knownDirectories.remove(path);
+        }
+        path = path.trim();
+        if (makeDirectories(path, true)) {
+            return true;
+        }
+        // 记录的上级目录可能已被其他客户端删除，不使用记录重新逐级创建
+        knownDirectories.remove(path);
+        return makeDirectories(path, false);
+    }
+
+    /**
+     * 逐级切入或创建目录，最终切换至该目录
+     * @param path 目录绝对路径
+     * @param useKnown 是否跳过已确认存在的上级目录
+     * @return 成功与否
+     */
+    private boolean makeDirectories(String path, boolean useKnown) throws IOException {
+        String[] arr = path.split("/");
+        StringBuilder sbfDir = new StringBuilder();
+        String d = path;
+        // 循环生成子目录
+        for (String s : arr) {
+            sbfDir.append("/");
+            sbfDir.append(s);
+            // 目录编码，解决中文路径问题，逐渐将d对象补全至oriDir路径
+            d = new String(sbfDir.toString().getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
+            // 已确认存在的上级目录无需检查
+            if (useKnown && knownDirectories.contains(sbfDir.toString())) {
+                continue;
+            }
+            // 尝试切入目录
+            if (!ftpClient.changeWorkingDirectory(d) && !ftpClient.makeDirectory(d)) {
+                return false;
+            }
+            knownDirectories.add(sbfDir.toString());
+        }
+        // 将目录切换至指定路径
+        if (ftpClient.isWorkingDirectory(d) || ftpClient.changeWorkingDirectory(d)) {
+            return true;
+        }
+        knownDirectories.remove(path);
+        return false;
+    }
+
+    /**
+     * <p>打开文件的读取流</p>
+     * <p style="color:orange">FTP为单连接，流关闭之前数据连接一直占用，不可在同一实例上进行其他操作；流关闭时会等待服务端确认传输完成</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 读取流
+     */
+    @Override
+    public InputStream openInputStream(String path, String filename) {
+        return openInputStream(path, filename, 0, -1);
+    }
+
+    /**
+     * <p>通过REST命令从指定位置开始读取，读满长度后关闭数据连接</p>
+     * <p style="color:orange">FTP为单连接，流关闭之前数据连接一直占用，不可在同一实例上进行其他操作；未读取至文件末尾时关闭流会中止传输</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @param offset 起始位置，需&gt;=0
+     * @param length 读取长度，&lt;0为读取至文件末尾
+     * @return 读取流
+     */
     @Override
-    public ByteArrayOutputStream downloadStream(String path, String filename) {
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
         if (path == null || path.trim().isEmpty() || filename == null || filename.trim().isEmpty())
             return null;
-        if (ftpClient == null || !ftpClient.isConnected() || (this.retryCountdown >= 0 && this.retryCountdown < this.property.getRetries())) {
-            if (!connect()) {
-                return null;
-            }
+        if (!isValidRange(offset))
+            return null;
+        if (length == 0)
+            return new ByteArrayInputStream(new byte[0]);
+        try {
+            return retry("openInputStream", () -> openInputStreamOnce(path, filename, offset, length));
+        } catch (Exception e) {
+            log.error(message.getString("fs.ftp.download.error")
+                    .replace("${path}", path)
+                    .replace("${filename}", filename), e);
+            return null;
+        }
+    }
+
+    private InputStream openInputStreamOnce(String oriPath, String oriName, long offset, long length) throws IOException {
+        if (!ensureConnected()) {
+            return null;
         }
-        ByteArrayOutputStream outStream = null;
-        String oriPath = path;
-        String oriName = filename;
+        TransferProgress progress = null;
         try {
-            path = path.replace("\\", "/");
+            String path = oriPath.replace("\\", "/");
             path = new String(path.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
-            filename = new String(filename.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
+            String filename = new String(oriName.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
             ftpClient.changeWorkingDirectory(path);
             ftpClient.setFileType(FTPClient.BINARY_FILE_TYPE);
-            try (InputStream inputStream = ftpClient.retrieveFileStream(filename)) {
-                if (inputStream != null) {
-                    outStream = new ByteArrayOutputStream();
-                    byte[] buffer = new byte[1024];
-                    int len;
-                    while (-1 != (len = inputStream.read(buffer))) {
-                        outStream.write(buffer, 0, len);
+            if (!getProgressListeners().isEmpty()) {
+                // 仅在注册了监听器时查询文件大小，用于估算剩余时间，服务端不支持SIZE时为未知
+                long total = parseSize(ftpClient.getSize(filename));
+                total = total < 0 ? -1 : Math.max(0, total - offset);
+                progress = startProgress(TransferProgress.Direction.DOWNLOAD, oriPath, oriName,
+                        length < 0 || total < 0 ? total : Math.min(total, length));
+            }
+            ftpClient.setRestartOffset(offset);
+            InputStream inputStream = ftpClient.retrieveFileStream(filename);
+            if (inputStream == null) {
+                finishProgress(progress, false);
+                log.error(message.getString("fs.ftp.download.empty.in")
+                        .replace("${path}", oriPath)
+                        .replace("${filename}", oriName));
+                return null;
+            }
+            RangeInputStream range = length < 0 ? null : new RangeInputStream(inputStream, length);
+            return trackProgress(new FilterInputStream(range == null ? inputStream : range) {
+                private boolean closed = false;
+                @Override
+                public void close() throws IOException {
+                    if (closed) {
+                        return;
                     }
-                    if (outStream.size() > 0) {
-                        log.debug(message.getString("fs.ftp.download.success")
-                                .replace("${length}", Integer.toString(outStream.size())));
-                    } else {
-                        log.error(message.getString("fs.ftp.download.empty.out")
-                                .replace("${path}", oriPath)
-                                .replace("${filename}", oriName));
+                    closed = true;
+                    try {
+                        super.close();
+                    } finally {
+                        // 读满范围后提前关闭数据连接，服务端可能回复传输中止，不视为失败
+                        boolean aborted = range != null && !range.isEof();
+                        if (!ftpClient.completePendingCommand() && !aborted) {
+                            //noinspection ThrowFromFinallyBlock
+                            throw new IOException(message.getString("fs.ftp.download.not.complete")
+                                    .replace("${path}", oriPath)
+                                    .replace("${filename}", oriName)
+                                    .replace("${reply}", String.valueOf(ftpClient.getReplyString()).trim()));
+                        }
                     }
-                } else {
-                    log.error(message.getString("fs.ftp.download.empty.in")
-                            .replace("${path}", oriPath)
-                            .replace("${filename}", oriName));
                 }
-            }
-        } catch (SocketException e) {
-            this.retryCountdown--;
-            return downloadStream(path, filename);
-        } catch (Exception e) {
-            log.error(message.getString("fs.ftp.download.error")
-                    .replace("${path}", oriPath)
-                    .replace("${filename}", oriName), e);
-        } finally {
-            if (outStream != null) {
-                try {
-                    ftpClient.completePendingCommand();
-                } catch (Exception ignored) {}
-            }
+            }, progress);
+        } catch (IOException | RuntimeException e) {
+            finishProgress(progress, false);
+            throw e;
         }
-        return outStream;
     }
 
     @Override
     public boolean deleteFile(String path, String filename) {
         if (path == null || path.trim().isEmpty() || filename == null || filename.trim().isEmpty())
             return false;
-        if (ftpClient == null || !ftpClient.isConnected() || (this.retryCountdown >= 0 && this.retryCountdown < this.property.getRetries())) {
-            if (!connect()) {
-                return false;
-            }
-        }
-        boolean flag = false;
-        String oriPath = path;
-        String oriName = filename;
         try {
-            path = path.replace("\\", "/");
-            path = new String(path.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
-            filename = new String(filename.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
-            if (ftpClient.changeWorkingDirectory(path)) {
-                flag = ftpClient.deleteFile(filename);
-            }
-            if (flag) {
-                log.debug(message.getString("fs.ftp.delete.success")
-                        .replace("${path}", oriPath)
-                        .replace("${filename}", oriName));
-            } else {
-                log.debug(message.getString("fs.ftp.delete.error")
-                        .replace("${path}", oriPath)
-                        .replace("${filename}", oriName));
-            }
-        } catch (SocketException e) {
-            this.retryCountdown--;
-            return deleteFile(path, filename);
+            return retry("deleteFile", () -> deleteFileOnce(path, filename));
         } catch (Exception e) {
             log.error(message.getString("fs.ftp.delete.error")
+                    .replace("${path}", path)
+                    .replace("${filename}", filename), e);
+            return false;
+        }
+    }
+
+    private boolean deleteFileOnce(String oriPath, String oriName) throws IOException {
+        if (!ensureConnected()) {
+            return false;
+        }
+        boolean flag = false;
+        String path = oriPath.replace("\\", "/");
+        path = new String(path.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
+        String filename = new String(oriName.getBytes(this.property.getCharset()), StandardCharsets.ISO_8859_1);
+        if (ftpClient.changeWorkingDirectory(path)) {
+            flag = ftpClient.deleteFile(filename);
+        }
+        if (flag) {
+            log.debug(message.getString("fs.ftp.delete.success")
                     .replace("${path}", oriPath)
-                    .replace("${filename}", oriName), e);
+                    .replace("${filename}", oriName));
+        } else {
+            log.debug(message.getString("fs.ftp.delete.error")
+                    .replace("${path}", oriPath)
+                    .replace("${filename}", oriName));
         }
         return flag;
     }
 
+    private static long parseSize(String size) {
+        if (size == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(size.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 将commons-net的传输进度转发至 {@link TransferProgress}
+     */
+    private static final class ProgressCopyStreamListener extends CopyStreamAdapter {
+
+        private final TransferProgress progress;
+
+        ProgressCopyStreamListener(TransferProgress progress) {
+            this.progress = progress;
+        }
+
+        @Override
+        public void bytesTransferred(long totalBytesTransferred, int bytesTransferred, long streamSize) {
+            reportProgress(progress, totalBytesTransferred);
+        }
+
+    }
+
 }
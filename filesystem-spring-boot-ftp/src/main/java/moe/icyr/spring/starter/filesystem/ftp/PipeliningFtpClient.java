@@ -0,0 +1,135 @@
+package moe.icyr.spring.starter.filesystem.ftp;
+
+import moe.icyr.spring.starter.filesystem.api.KnownDirectories;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <p>支持命令流水线的FTP客户端</p>
+ * <p>连续发送多条命令后再依次读取应答，批量操作时每批只需一次往返</p>
+ * <p>同时记录当前工作目录与传输模式，切换至相同目录、设置相同模式时不再发送命令；连接或断开时重置</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+class PipeliningFtpClient extends FTPClient {
+
+    private String workingDirectory;
+    private int fileType = -1;
+
+    @Override
+    protected void _connectAction_() throws IOException {
+        resetState();
+        super._connectAction_();
+    }
+
+    @Override
+    public void disconnect() throws IOException {
+        resetState();
+        super.disconnect();
+    }
+
+    @Override
+    public int cwd(String directory) throws IOException {
+        workingDirectory = null;
+        return super.cwd(directory);
+    }
+
+    @Override
+    public int cdup() throws IOException {
+        workingDirectory = null;
+        return super.cdup();
+    }
+
+    @Override
+    public int rein() throws IOException {
+        resetState();
+        return super.rein();
+    }
+
+    @Override
+    public int type(int fileType) throws IOException {
+        this.fileType = -1;
+        return super.type(fileType);
+    }
+
+    @Override
+    public int type(int fileType, int formatOrByteSize) throws IOException {
+        this.fileType = -1;
+        return super.type(fileType, formatOrByteSize);
+    }
+
+    /**
+     * 切换工作目录，仅记录绝对路径
+     */
+    @Override
+    public boolean changeWorkingDirectory(String pathname) throws IOException {
+        workingDirectory = null;
+        boolean changed = super.changeWorkingDirectory(pathname);
+        if (changed && pathname != null && pathname.startsWith("/")) {
+            workingDirectory = KnownDirectories.normalize(pathname);
+        }
+        return changed;
+    }
+
+    /**
+     * @param pathname 已按控制连接编码转换的绝对路径
+     * @return 是否已确认位于该目录
+     */
+    boolean isWorkingDirectory(String pathname) {
+        return workingDirectory != null && pathname != null && workingDirectory.equals(KnownDirectories.normalize(pathname));
+    }
+
+    /**
+     * 服务端状态不可确认时（如上传失败）清除记录，下次操作重新发送命令
+     */
+    void resetState() {
+        workingDirectory = null;
+        fileType = -1;
+    }
+
+    @Override
+    public boolean setFileType(int fileType) throws IOException {
+        if (this.fileType == fileType) {
+            return true;
+        }
+        this.fileType = -1;
+        boolean set = super.setFileType(fileType);
+        if (set) {
+            this.fileType = fileType;
+        }
+        return set;
+    }
+
+    /**
+     * <p>流水线发送同一命令</p>
+     * <p>每发送 {@code window} 条命令后读取对应数量的应答，避免双方缓冲区写满；读写异常时连接状态不可预期，调用方应断开重连</p>
+     * @param command 命令，如 {@code DELE}
+     * @param args 每条命令的参数，需已按控制连接编码转换
+     * @param window 每批发送的命令数
+     * @param replies 每条命令的应答文本，成功时为NULL
+     * @return 每条命令是否成功
+     * @throws IOException 读写异常
+     */
+    boolean[] pipeline(String command, List<String> args, int window, String[] replies) throws IOException {
+        boolean[] success = new boolean[args.size()];
+        int size = Math.max(1, window);
+        for (int from = 0; from < args.size(); from += size) {
+            int to = Math.min(args.size(), from + size);
+            for (int i = from; i < to; i++) {
+                _controlOutput_.write(command + " " + args.get(i) + "\r\n");
+            }
+            _controlOutput_.flush();
+            for (int i = from; i < to; i++) {
+                int reply = getReply();
+                success[i] = FTPReply.isPositiveCompletion(reply);
+                replies[i] = success[i] ? null : String.valueOf(getReplyString()).trim();
+            }
+        }
+        return success;
+    }
+
+}
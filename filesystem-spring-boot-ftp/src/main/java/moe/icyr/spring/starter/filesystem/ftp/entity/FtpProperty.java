@@ -13,6 +13,7 @@ public class FtpProperty extends FileSystemProperty {
 
     private String charset;
     private Integer retries;
+    private Integer pipelineSize;
 
     public FtpProperty(FileSystemProperty property) {
         super(property);
@@ -22,6 +23,12 @@ public class FtpProperty extends FileSystemProperty {
         } catch (NumberFormatException e) {
             this.retries = null;
         }
+        Object pipelineSize = property.getExternal() == null ? null : (property.getExternal().get("pipelineSize") != null ? property.getExternal().get("pipelineSize") : property.getExternal().get("pipeline-size"));
+        try {
+            this.pipelineSize = pipelineSize == null ? null : Integer.valueOf(String.valueOf(pipelineSize));
+        } catch (NumberFormatException e) {
+            this.pipelineSize = null;
+        }
     }
 
     public String getCharset() {
@@ -33,6 +40,9 @@ public class FtpProperty extends FileSystemProperty {
         return this;
     }
 
+    /**
+     * @return 失败后的重试次数，未配置 {@code retry.maxAttempts} 时以该值+1作为最大尝试次数
+     */
     public Integer getRetries() {
         return retries;
     }
@@ -42,12 +52,25 @@ public class FtpProperty extends FileSystemProperty {
         return this;
     }
 
+    /**
+     * @return 批量删除时连续发送而不等待应答的命令数，&lt;=1时逐条等待应答
+     */
+    public Integer getPipelineSize() {
+        return pipelineSize;
+    }
+
+    public FtpProperty setPipelineSize(Integer pipelineSize) {
+        this.pipelineSize = pipelineSize;
+        return this;
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", FtpProperty.class.getSimpleName() + "[", "]")
                 .add(super.toString())
                 .add("charset='" + charset + "'")
                 .add("retries=" + retries)
+                .add("pipelineSize=" + pipelineSize)
                 .toString();
     }
 
@@ -0,0 +1,185 @@
+package moe.icyr.spring.starter.filesystem.minio;
+
+import io.minio.MinioAsyncClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * <p>对冲读取：请求在等待时长内未返回响应头时再发出一个相同的请求，采用先返回的结果，另一个返回后直接关闭</p>
+ * <p>等待时长取近期请求耗时的指定分位数，样本不足时使用配置的等待时长，且不低于该值</p>
+ * <p>未被采用的请求不调用 {@link CompletableFuture#cancel(boolean)}：MinIO异步客户端的future被取消后不会中止底层的HTTP请求，
+ * 之后到达的响应无法再交给丢弃回调关闭，会占用连接；因此等待其返回后再关闭</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+final class HedgedReads {
+
+    private static final Logger log = LoggerFactory.getLogger(HedgedReads.class);
+    private static final ResourceBundle message = ResourceBundle.getBundle("MessageMinio");
+    private static final int WINDOW_SIZE = 256;
+    private static final int MIN_SAMPLES = 20;
+    private static final int RECALCULATE_INTERVAL = 16;
+
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long[] samples = new long[WINDOW_SIZE];
+    private int sampleCount = 0;
+    private int sampleIndex = 0;
+    private int sinceRecalculate = 0;
+    private volatile long delayMillis;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+
+    /**
+     * @param percentile 作为等待时长的耗时分位数，取值(0,1)
+     * @param minDelayMillis 样本不足时的等待时长，也是等待时长的下限（毫秒）
+     */
+    HedgedReads(double percentile, long minDelayMillis) {
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        this.delayMillis = minDelayMillis;
+    }
+
+    long getDelayMillis() {
+        return delayMillis;
+    }
+
+    long getRequestCount() {
+        return requests.sum();
+    }
+
+    long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    long getWinCount() {
+        return wins.sum();
+    }
+
+    /**
+     * 执行读取请求，超过等待时长时向对冲客户端再发出一次
+     * @param operation 操作名称，用于日志
+     * @param primary 首先请求的客户端
+     * @param hedge 对冲请求的客户端
+     * @param call 请求
+     * @param discard 处理未被采用的结果，如关闭响应
+     * @return 先成功返回的结果
+     * @throws Exception 两次请求均失败时为后失败者的异常；对冲前首次请求即失败时为其异常
+     */
+    <R> R call(String operation, MinioAsyncClient primary, MinioAsyncClient hedge,
+               AsyncCall<R> call, Consumer<R> discard) throws Exception {
+        requests.increment();
+        CompletableFuture<R> first = timed(call, primary);
+        long delay = delayMillis;
+        try {
+            return first.get(delay, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (TimeoutException e) {
+            // 发出对冲请求
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            first.thenAccept(discard);
+            throw e;
+        }
+        hedges.increment();
+        log.debug(message.getString("fs.minio.hedge.fired")
+                .replace("${operation}", operation)
+                .replace("${delay}", Long.toString(delay)));
+        CompletableFuture<R> second = timed(call, hedge);
+        CompletableFuture<R> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        first.whenComplete((result, error) -> settle(winner, pending, result, error, discard, false));
+        second.whenComplete((result, error) -> settle(winner, pending, result, error, discard, true));
+        try {
+            return winner.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            winner.thenAccept(discard);
+            throw e;
+        }
+    }
+
+    private <R> void settle(CompletableFuture<R> winner, AtomicInteger pending, R result, Throwable error,
+                            Consumer<R> discard, boolean isHedge) {
+        if (error == null) {
+            if (winner.complete(result)) {
+                if (isHedge) {
+                    wins.increment();
+                }
+            } else {
+                // 落后的请求不取消，返回后在此关闭，见类说明
+                discard.accept(result);
+            }
+        } else if (pending.decrementAndGet() == 0) {
+            winner.completeExceptionally(error);
+        }
+    }
+
+    private <R> CompletableFuture<R> timed(AsyncCall<R> call, MinioAsyncClient client) {
+        long start = System.nanoTime();
+        CompletableFuture<R> future;
+        try {
+            future = call.call(client);
+        } catch (Exception e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        future.thenRun(() -> record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        return future;
+    }
+
+    private synchronized void record(long millis) {
+        samples[sampleIndex] = millis;
+        sampleIndex = (sampleIndex + 1) % WINDOW_SIZE;
+        if (sampleCount < WINDOW_SIZE) {
+            sampleCount++;
+        }
+        if (sampleCount < MIN_SAMPLES || ++sinceRecalculate < RECALCULATE_INTERVAL) {
+            return;
+        }
+        sinceRecalculate = 0;
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        int index = Math.min(sampleCount - 1, Math.max(0, (int) Math.ceil(percentile * sampleCount) - 1));
+        delayMillis = Math.max(minDelayMillis, sorted[index]);
+    }
+
+    /**
+     * 异步客户端的读取请求
+     */
+    @FunctionalInterface
+    interface AsyncCall<R> {
+        CompletableFuture<R> call(MinioAsyncClient client) throws Exception;
+    }
+
+    private static Exception unwrap(Throwable error) {
+        while ((error instanceof ExecutionException || error instanceof CompletionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof Exception) {
+            return (Exception) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        return new ExecutionException(error);
+    }
+
+}
@@ -2,11 +2,19 @@ package moe.icyr.spring.starter.filesystem.minio;
 
 import io.minio.*;
 import io.minio.errors.ErrorResponseException;
+import io.minio.errors.ServerException;
 import io.minio.messages.Bucket;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
 import io.minio.messages.Item;
+import moe.icyr.spring.starter.filesystem.api.CloseableIterator;
 import moe.icyr.spring.starter.filesystem.api.FileSystem;
+import moe.icyr.spring.starter.filesystem.api.RetryPolicy;
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
 import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
 import moe.icyr.spring.starter.filesystem.api.entity.FileSystemProperty;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumAlgorithm;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumInputStream;
 import moe.icyr.spring.starter.filesystem.minio.entity.MinIOProperty;
 import moe.icyr.spring.starter.filesystem.minio.entity.UploadReqParams;
 import okhttp3.OkHttpClient;
@@ -14,9 +22,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -33,10 +42,28 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
     private static final Logger log = LoggerFactory.getLogger(MinIOFileSystem.class);
     private static final ResourceBundle message = ResourceBundle.getBundle("MessageMinio");
     private static final Pattern protocolPrefix = Pattern.compile("^\\w+://");
+    private static final Pattern MD5_ETAG = Pattern.compile("^[0-9a-f]{32}$");
+    /**
+     * 记录压缩编码的用户元数据名称
+     */
+    public static final String CONTENT_ENCODING_METADATA = "fs-content-codec";
+    /**
+     * 单次批量删除请求的最大对象数，为S3接口限制
+     */
+    public static final int REMOVE_OBJECTS_MAX_KEYS = 1000;
+    /**
+     * 可重试的S3错误码
+     */
+    private static final Set<String> RETRYABLE_ERROR_CODES = new HashSet<>(Arrays.asList(
+            "InternalError", "ServiceUnavailable", "SlowDown", "RequestTimeout"));
 
     private MinIOProperty property;
 
     private MinioClient minioClient;
+    private OkHttpClient customHttpClient;
+    private volatile MinioAsyncClient minioAsyncClient;
+    private HedgedReads hedgedReads;
+    private volatile MinioAsyncClient hedgeAsyncClient;
 
     /**
      * 验证配置并创建连接
@@ -63,12 +90,28 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
             //noinspection HttpUrlsUsage
             minioProperty.setIp("http://" + minioProperty.getIp());
         }
+        if (minioProperty.isHedgeReads()) {
+            if (!(minioProperty.getHedgePercentile() > 0 && minioProperty.getHedgePercentile() < 1)
+                    || minioProperty.getHedgeDelayMillis() < 0) {
+                throw new IllegalArgumentException(message.getString("fs.minio.hedge.valid.fail")
+                        .replace("${percentile}", Double.toString(minioProperty.getHedgePercentile()))
+                        .replace("${delay}", Long.toString(minioProperty.getHedgeDelayMillis())));
+            }
+            String hedgeEndpoint = minioProperty.getHedgeEndpoint();
+            if (hedgeEndpoint != null && !hedgeEndpoint.trim().isEmpty() && !protocolPrefix.matcher(hedgeEndpoint).find()) {
+                //noinspection HttpUrlsUsage
+                minioProperty.setHedgeEndpoint("http://" + hedgeEndpoint);
+            }
+        }
         return minioProperty;
     }
 
     @Override
     protected void init(FileSystemProperty property) {
         this.property = (MinIOProperty) property;
+        if (this.property.isHedgeReads()) {
+            this.hedgedReads = new HedgedReads(this.property.getHedgePercentile(), this.property.getHedgeDelayMillis());
+        }
     }
 
     /**
@@ -103,6 +146,7 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
                 builder.httpClient(okHttpClient);
             }
             minioClient = builder.build();
+            customHttpClient = okHttpClient;
             return true;
         } catch (Exception e) {
             log.error(message.getString("fs.minio.connect.error")
@@ -116,6 +160,126 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
         return minioClient;
     }
 
+    /**
+     * <p>获取异步客户端，首次调用时按相同的连接参数创建</p>
+     * <p>未指定HttpClient时与同步客户端各自使用独立的连接池</p>
+     * @return 异步客户端，未连接时为NULL
+     * @since 1.4
+     */
+    public MinioAsyncClient getAsyncClient() {
+        MinioAsyncClient client = minioAsyncClient;
+        if (client == null && minioClient != null) {
+            synchronized (this) {
+                client = minioAsyncClient;
+                if (client == null) {
+                    MinioAsyncClient.Builder builder = MinioAsyncClient.builder()
+                            .endpoint(this.property.getIp())
+                            .credentials(this.property.getUsername(), this.property.getPassword());
+                    if (customHttpClient != null) {
+                        builder.httpClient(customHttpClient);
+                    }
+                    client = builder.build();
+                    minioAsyncClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * 对冲请求使用的异步客户端，未配置对冲地址时与 {@link #getAsyncClient()} 相同
+     */
+    private MinioAsyncClient getHedgeAsyncClient() {
+        String endpoint = this.property.getHedgeEndpoint();
+        if (endpoint == null || endpoint.trim().isEmpty()) {
+            return getAsyncClient();
+        }
+        MinioAsyncClient client = hedgeAsyncClient;
+        if (client == null && minioClient != null) {
+            synchronized (this) {
+                client = hedgeAsyncClient;
+                if (client == null) {
+                    MinioAsyncClient.Builder builder = MinioAsyncClient.builder()
+                            .endpoint(endpoint)
+                            .credentials(this.property.getUsername(), this.property.getPassword());
+                    if (customHttpClient != null) {
+                        builder.httpClient(customHttpClient);
+                    }
+                    client = builder.build();
+                    hedgeAsyncClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * @return 是否开启了对冲读取
+     * @since 1.4
+     */
+    public boolean isHedgeReads() {
+        return hedgedReads != null;
+    }
+
+    /**
+     * @return 经过对冲读取的请求数，未开启时为0
+     * @since 1.4
+     */
+    public long getHedgeRequestCount() {
+        return hedgedReads == null ? 0 : hedgedReads.getRequestCount();
+    }
+
+    /**
+     * @return 发出对冲请求的次数，与 {@link #getHedgeRequestCount()} 之比为对冲率
+     * @since 1.4
+     */
+    public long getHedgeCount() {
+        return hedgedReads == null ? 0 : hedgedReads.getHedgeCount();
+    }
+
+    /**
+     * @return 对冲请求先于原请求返回的次数
+     * @since 1.4
+     */
+    public long getHedgeWinCount() {
+        return hedgedReads == null ? 0 : hedgedReads.getWinCount();
+    }
+
+    /**
+     * @return 当前发出对冲请求前的等待时长（毫秒），未开启时为0
+     * @since 1.4
+     */
+    public long getHedgeDelayMillis() {
+        return hedgedReads == null ? 0 : hedgedReads.getDelayMillis();
+    }
+
+    private StatObjectResponse statObject(StatObjectArgs args) throws Exception {
+        if (hedgedReads == null) {
+            return minioClient.statObject(args);
+        }
+        return hedgedReads.call("statObject", getAsyncClient(), getHedgeAsyncClient(), c -> c.statObject(args), r -> {});
+    }
+
+    private GetObjectResponse getObject(GetObjectArgs args) throws Exception {
+        if (hedgedReads == null) {
+            return minioClient.getObject(args);
+        }
+        return hedgedReads.call("getObject", getAsyncClient(), getHedgeAsyncClient(), c -> c.getObject(args), r -> {
+            try {
+                r.close();
+            } catch (IOException ignored) {
+            }
+        });
+    }
+
+    /**
+     * @return 该实例的配置
+     * @since 1.4
+     */
+    public MinIOProperty getProperty() {
+        return property;
+    }
+
     @Override
     public void disconnect() {
         if (minioClient != null) {
@@ -125,6 +289,47 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
                 log.error(message.getString("fs.minio.disconnect.error"), e);
             }
         }
+        for (MinioAsyncClient asyncClient : new MinioAsyncClient[]{minioAsyncClient, hedgeAsyncClient}) {
+            if (asyncClient != null && customHttpClient == null) {
+                try {
+                    asyncClient.close();
+                } catch (Exception e) {
+                    log.error(message.getString("fs.minio.disconnect.error"), e);
+                }
+            }
+        }
+        minioAsyncClient = null;
+        hedgeAsyncClient = null;
+    }
+
+    /**
+     * 客户端自带连接池，可被多个线程同时调用
+     * @return true
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * 上传时以输入流的 {@link InputStream#available()} 作为文件长度
+     * @return true
+     */
+    @Override
+    public boolean isUploadLengthRequired() {
+        return true;
+    }
+
+    /**
+     * 在重试策略之上，服务端5xx错误与限流、超时类的错误码也可重试
+     */
+    @Override
+    protected boolean isRetryable(Throwable error) {
+        if (super.isRetryable(error) || RetryPolicy.causedBy(error, ServerException.class)) {
+            return true;
+        }
+        return error instanceof ErrorResponseException
+                && RETRYABLE_ERROR_CODES.contains(((ErrorResponseException) error).errorResponse().code());
     }
 
     /**
@@ -135,7 +340,7 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
      * @param filename filename
      * @return String[桶名称,对象路径]
      */
-    private String[] extractBucketAndObjectNameFromPathAndFilename(String path, String filename) {
+    public String[] extractBucketAndObjectNameFromPathAndFilename(String path, String filename) {
         String combine = path == null ? "" : (path.startsWith("/") ? path.substring(1) : path);
         if (filename != null) {
             if (combine.endsWith("/") && filename.startsWith("/")) {
@@ -170,10 +375,10 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
             return null;
         }
         try {
-            return minioClient.bucketExists(BucketExistsArgs.builder()
+            return retry("checkBucketExists", () -> minioClient.bucketExists(BucketExistsArgs.builder()
                     .bucket(bucketName)
                     .extraHeaders(this.property.getApiHeaders())
-                    .build());
+                    .build()));
         } catch (Exception e) {
             log.error(message.getString("fs.minio.bucket.exists.check.error"), e);
             return null;
@@ -223,6 +428,9 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
                 log.error(message.getString("fs.minio.list.bucket.error"), e);
             }
             return files;
+        } else if (deepFind && !flatPrint && !needVersions && isListParallel()) {
+            // 扁平化输出时已按前缀递归列出，只有树形输出需要逐个目录读取
+            return listParallel(path, false, maxDepth);
         } else {
             return list(path, deepFind, flatPrint, maxDepth, 0, needVersions);
         }
@@ -249,43 +457,231 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
             if (needVersions) {
                 builder.includeVersions(true);
             }
-            for (Result<Item> object : minioClient.listObjects(builder
-                    .build())) {
-                Item item = object.get();
-                if (needVersions && !item.isLatest()) {
-                    continue;
-                }
-                // 排除文件夹自身
-                if (objectName != null && (objectName + "/").equals(item.objectName())) {
-                    continue;
-                }
-                FileInfo<Item> fileInfo = new FileInfo<>();
-                String fullPath = bucketName + (objectName == null || objectName.isEmpty() ? "" : ("/" + objectName)) + "/" + (
-                        objectName != null && item.objectName().startsWith(objectName) ? item.objectName().substring(objectName.length() + 1) : item.objectName()
-                );
-                if (fullPath.endsWith("/")) {
-                    fullPath = fullPath.substring(0, fullPath.length() - 1);
+            ListObjectsArgs args = builder.build();
+            // 只重试当前目录的列出，子目录在重试之外逐个列出，各自重试
+            retry("list", () -> {
+                // 每次尝试都从头列出，全部失败时保留最后一次已列出的部分
+                files.clear();
+                for (Result<Item> object : minioClient.listObjects(args)) {
+                    Item item = object.get();
+                    if (needVersions && !item.isLatest()) {
+                        continue;
+                    }
+                    // 排除文件夹自身
+                    if (objectName != null && (objectName + "/").equals(item.objectName())) {
+                        continue;
+                    }
+                    files.add(toFileInfo(bucketName, objectName, item));
                 }
-                fileInfo.setAbsolutePath(fullPath.substring(0, fullPath.lastIndexOf("/")));
-                fileInfo.setFilename(fullPath.substring(fullPath.lastIndexOf("/") + 1));
-                fileInfo.setSize(item.size());
-                fileInfo.setFile(!item.isDir());
-                fileInfo.setDirectory(item.isDir());
-                fileInfo.setOriginalInfo(item);
-                files.add(fileInfo);
-                if (!flatPrint && deepFind && item.isDir()) {
+                return files;
+            });
+        } catch (Exception e) {
+            log.error(message.getString("fs.minio.list.error")
+                    .replace("${bucketName}", String.valueOf(bucketName))
+                    .replace("${objectName}", String.valueOf(objectName)), e);
+        }
+        if (!flatPrint && deepFind) {
+            for (FileInfo<Item> fileInfo : files) {
+                if (fileInfo.isDirectory()) {
+                    String fullPath = fileInfo.getAbsolutePath() + "/" + fileInfo.getFilename();
                     Collection<FileInfo<Item>> dir = list(fullPath, deepFind, flatPrint, maxDepth, nowDepth + 1, needVersions);
                     if (dir != null) {
                         fileInfo.setChildren(dir);
                     }
                 }
             }
+        }
+        return files;
+    }
+
+    /**
+     * <p>惰性列出文件(夹)</p>
+     * <p>不限制深度地读取子文件时直接按前缀递归列出，与 {@link #list(String, boolean, boolean, int)} 的扁平化输出一致，返回内容不包含文件夹；
+     * 结果按页（每页最多1000个对象）获取，迭代越过当前页后才请求下一页</p>
+     *
+     * @param path 桶名称/对象路径，为空时列出桶
+     * @param deepFind 是否读取子文件
+     * @param maxDepth 当deepFind为true时，限制最大深度，需&gt;=0，&lt;0为不限制
+     * @return 迭代器，需关闭；连接失败时返回NULL
+     */
+    @Override
+    public CloseableIterator<FileInfo<Item>> listIterator(String path, boolean deepFind, int maxDepth) {
+        if (path != null && !path.isEmpty() && deepFind && maxDepth < 0) {
+            return iterateObjects(path, true);
+        }
+        return super.listIterator(path, deepFind, maxDepth);
+    }
+
+    @Override
+    protected CloseableIterator<FileInfo<Item>> listDirectory(String path) {
+        if (path == null || path.isEmpty()) {
+            return super.listDirectory(path);
+        }
+        return iterateObjects(path, false);
+    }
+
+    private CloseableIterator<FileInfo<Item>> iterateObjects(String path, boolean recursive) {
+        if (minioClient == null) {
+            log.error(message.getString("fs.minio.not.connected"));
+            return null;
+        }
+        String[] extract = extractBucketAndObjectNameFromPathAndFilename(path, null);
+        String bucketName = extract[0];
+        String objectName = extract[1];
+        String prefix = (objectName == null || objectName.isEmpty()) ? "" : (objectName + "/");
+        Iterator<Result<Item>> results = minioClient.listObjects(ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .recursive(recursive)
+                .extraHeaders(this.property.getApiHeaders())
+                .build()).iterator();
+        return CloseableIterator.of(new Iterator<FileInfo<Item>>() {
+            private FileInfo<Item> next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && results.hasNext()) {
+                    Item item;
+                    try {
+                        item = results.next().get();
+                    } catch (Exception e) {
+                        throw new UncheckedIOException(message.getString("fs.minio.list.error")
+                                .replace("${bucketName}", String.valueOf(bucketName))
+                                .replace("${objectName}", String.valueOf(objectName)),
+                                e instanceof IOException ? (IOException) e : new IOException(e));
+                    }
+                    // 排除文件夹自身
+                    if (objectName != null && prefix.equals(item.objectName())) {
+                        continue;
+                    }
+                    next = toFileInfo(bucketName, objectName, item);
+                }
+                return next != null;
+            }
+
+            @Override
+            public FileInfo<Item> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                FileInfo<Item> current = next;
+                next = null;
+                return current;
+            }
+        }, null);
+    }
+
+    /**
+     * 将列出的对象转换为文件信息
+     * @param bucketName 桶名称
+     * @param objectName 列出时的对象路径（前缀），可为null
+     * @param item 对象
+     * @return 文件信息
+     * @since 1.4
+     */
+    public FileInfo<Item> toFileInfo(String bucketName, String objectName, Item item) {
+        FileInfo<Item> fileInfo = new FileInfo<>();
+        String fullPath = bucketName + (objectName == null || objectName.isEmpty() ? "" : ("/" + objectName)) + "/" + (
+                objectName != null && item.objectName().startsWith(objectName) ? item.objectName().substring(objectName.length() + 1) : item.objectName()
+        );
+        if (fullPath.endsWith("/")) {
+            fullPath = fullPath.substring(0, fullPath.length() - 1);
+        }
+        fileInfo.setAbsolutePath(fullPath.substring(0, fullPath.lastIndexOf("/")));
+        fileInfo.setFilename(fullPath.substring(fullPath.lastIndexOf("/") + 1));
+        fileInfo.setSize(item.size());
+        fileInfo.setFile(!item.isDir());
+        fileInfo.setDirectory(item.isDir());
+        fileInfo.setFingerprint(item.isDir() ? null : item.etag());
+        fileInfo.setOriginalInfo(item);
+        return fileInfo;
+    }
+
+    /**
+     * 查询对象信息，原始信息为NULL，指纹为对象的ETag
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 文件信息对象，对象不存在或查询失败时为NULL
+     */
+    @Override
+    public FileInfo<Item> peekFile(String path, String filename) {
+        if (minioClient == null) {
+            log.error(message.getString("fs.minio.not.connected"));
+            return null;
+        }
+        String[] extract = extractBucketAndObjectNameFromPathAndFilename(path, filename);
+        String bucketName = extract[0];
+        String objectName = extract[1];
+        try {
+            StatObjectResponse stat = retry("peekFile", () -> statObject(StatObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .extraHeaders(this.property.getApiHeaders())
+                    .build()));
+            FileInfo<Item> fileInfo = new FileInfo<>();
+            fileInfo.setAbsolutePath(path);
+            fileInfo.setFilename(filename);
+            fileInfo.setSize(stat.size());
+            fileInfo.setFile(true);
+            fileInfo.setDirectory(false);
+            fileInfo.setFingerprint(stat.etag());
+            return fileInfo;
         } catch (Exception e) {
-            log.error(message.getString("fs.minio.list.error")
+            if (e instanceof ErrorResponseException && ("NoSuchKey".equals(((ErrorResponseException) e).errorResponse().code())
+                    || "NoSuchBucket".equals(((ErrorResponseException) e).errorResponse().code()))) {
+                log.debug(message.getString("fs.minio.peek.not.found")
+                        .replace("${bucketName}", String.valueOf(bucketName))
+                        .replace("${objectName}", String.valueOf(objectName)));
+                return null;
+            }
+            log.error(message.getString("fs.minio.peek.error")
                     .replace("${bucketName}", String.valueOf(bucketName))
                     .replace("${objectName}", String.valueOf(objectName)), e);
+            return null;
+        }
+    }
+
+    /**
+     * <p>MD5取自ETag，仅非分片上传且未使用SSE-KMS/SSE-C加密的对象的ETag为内容的MD5，分片上传的ETag（含 {@code -}）不比对</p>
+     * <p>其他算法取自对象上记录的 {@code x-amz-checksum-*}，仅上传时附带了该校验和的对象才有</p>
+     * @param path 桶名称/对象路径
+     * @param filename 文件名
+     * @param algorithm 校验和算法
+     * @return 小写十六进制的校验和，对象上未记录或查询失败时为NULL
+     */
+    @Override
+    public String getChecksum(String path, String filename, ChecksumAlgorithm algorithm) {
+        if (minioClient == null || algorithm == null) {
+            return null;
+        }
+        String[] extract = extractBucketAndObjectNameFromPathAndFilename(path, filename);
+        String bucketName = extract[0];
+        String objectName = extract[1];
+        Map<String, String> headers = new HashMap<>();
+        if (this.property.getApiHeaders() != null) {
+            headers.putAll(this.property.getApiHeaders());
+        }
+        if (algorithm != ChecksumAlgorithm.MD5) {
+            headers.put("x-amz-checksum-mode", "ENABLED");
+        }
+        try {
+            StatObjectResponse stat = retry("getChecksum", () -> statObject(StatObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .extraHeaders(headers)
+                    .build()));
+            if (algorithm == ChecksumAlgorithm.MD5) {
+                String etag = stat.etag() == null ? null : stat.etag().replace("\"", "").toLowerCase();
+                return etag != null && MD5_ETAG.matcher(etag).matches() ? etag : null;
+            }
+            String value = stat.headers().get("x-amz-checksum-" + algorithm.name().toLowerCase());
+            return value == null ? null : ChecksumInputStream.toHex(Base64.getDecoder().decode(value.trim()));
+        } catch (Exception e) {
+            log.error(message.getString("fs.minio.peek.error")
+                    .replace("${bucketName}", String.valueOf(bucketName))
+                    .replace("${objectName}", String.valueOf(objectName)), e);
+            return null;
         }
-        return files;
     }
 
     @Override
@@ -303,6 +699,61 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
         return uploadWithMetadata(input, path, filename, UploadReqParams.builder().metaData(this.property.getApiUserMetadata()).build());
     }
 
+    /**
+     * 压缩编码记录在用户元数据 {@value #CONTENT_ENCODING_METADATA} 中
+     * @return true
+     */
+    @Override
+    public boolean isContentEncodingSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, StringBuffer path, StringBuffer filename, String encoding) {
+        return uploadEncoded(input, path.toString(), filename.toString(), encoding);
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, String path, String filename, String encoding) {
+        Map<String, String> metadata = new HashMap<>();
+        if (this.property.getApiUserMetadata() != null) {
+            metadata.putAll(this.property.getApiUserMetadata());
+        }
+        if (encoding != null) {
+            metadata.put(CONTENT_ENCODING_METADATA, encoding);
+        }
+        return uploadWithMetadata(input, path, filename, UploadReqParams.builder().metaData(metadata).build());
+    }
+
+    @Override
+    public String getContentEncoding(String path, String filename) {
+        if (minioClient == null) {
+            log.error(message.getString("fs.minio.not.connected"));
+            return null;
+        }
+        String[] extract = extractBucketAndObjectNameFromPathAndFilename(path, filename);
+        String bucketName = extract[0];
+        String objectName = extract[1];
+        try {
+            StatObjectResponse stat = retry("getContentEncoding", () -> statObject(StatObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .extraHeaders(this.property.getApiHeaders())
+                    .build()));
+            for (Map.Entry<String, String> entry : stat.userMetadata().entrySet()) {
+                if (CONTENT_ENCODING_METADATA.equalsIgnoreCase(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+            return null;
+        } catch (Exception e) {
+            log.error(message.getString("fs.minio.peek.error")
+                    .replace("${bucketName}", String.valueOf(bucketName))
+                    .replace("${objectName}", String.valueOf(objectName)), e);
+            return null;
+        }
+    }
+
     /**
      * <p>上传文件，通过文件对象</p>
      * <p>提供给特殊需求使用的方法</p>
@@ -331,7 +782,8 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
                     builder.userMetadata(params.getMetaData());
                 }
             }
-            minioClient.uploadObject(builder.build());
+            UploadObjectArgs args = builder.build();
+            retry("upload", () -> minioClient.uploadObject(args));
             log.debug(message.getString("fs.minio.upload.success")
                     .replace("${bucketName}", String.valueOf(bucketName))
                     .replace("${objectName}", String.valueOf(objectName))
@@ -355,7 +807,11 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
      * @return 上传成功与否
      */
     public boolean uploadWithMetadata(String base64, String path, String filename, UploadReqParams params) {
-        return uploadWithMetadata(super._base64ToBytes(base64, path, filename), path, filename, params);
+        InputStream input = super._base64ToStream(base64, path, filename);
+        if (input == null) {
+            return false;
+        }
+        return uploadWithMetadata(input, path, filename, params);
     }
 
     /**
@@ -388,18 +844,20 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
         String objectName = extract[1];
         try {
             int len = input.available();
-            PutObjectArgs.Builder builder = PutObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(objectName)
-                    .stream(input, len, params != null && params.getPartSize() > -1 ? params.getPartSize() : this.property.getUploadDefaultPartSize())
-                    .headers(this.property.getApiHeaders())
-                    .userMetadata(this.property.getApiUserMetadata());
-            if (params != null) {
-                if (params.getMetaData() != null) {
-                    builder.userMetadata(params.getMetaData());
+            retry("upload", input, in -> {
+                PutObjectArgs.Builder builder = PutObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .stream(in, len, params != null && params.getPartSize() > -1 ? params.getPartSize() : this.property.getUploadDefaultPartSize())
+                        .headers(this.property.getApiHeaders())
+                        .userMetadata(this.property.getApiUserMetadata());
+                if (params != null) {
+                    if (params.getMetaData() != null) {
+                        builder.userMetadata(params.getMetaData());
+                    }
                 }
-            }
-            minioClient.putObject(builder.build());
+                return minioClient.putObject(builder.build());
+            });
             log.debug(message.getString("fs.minio.upload.success")
                     .replace("${bucketName}", String.valueOf(bucketName))
                     .replace("${objectName}", String.valueOf(objectName))
@@ -454,24 +912,26 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
                 return true;
             } else {
                 try {
-                    try {
-                        minioClient.statObject(StatObjectArgs.builder()
+                    return retry("createDirectory", () -> {
+                        try {
+                            minioClient.statObject(StatObjectArgs.builder()
+                                    .bucket(bucketName)
+                                    .object(objectName)
+                                    .extraHeaders(this.property.getApiHeaders())
+                                    .build());
+                            return true;
+                        } catch (ErrorResponseException ignored) {
+                        }
+                        // not exist
+                        minioClient.putObject(PutObjectArgs.builder()
                                 .bucket(bucketName)
-                                .object(objectName)
+                                .object(objectName + "/")
+                                .stream(new ByteArrayInputStream(new byte[0]), 0, -1)
                                 .extraHeaders(this.property.getApiHeaders())
+                                .userMetadata(this.property.getApiUserMetadata())
                                 .build());
                         return true;
-                    } catch (ErrorResponseException ignored) {
-                    }
-                    // not exist
-                    minioClient.putObject(PutObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(objectName + "/")
-                            .stream(new ByteArrayInputStream(new byte[0]), 0, -1)
-                            .extraHeaders(this.property.getApiHeaders())
-                            .userMetadata(this.property.getApiUserMetadata())
-                            .build());
-                    return true;
+                    });
                 } catch (Exception e) {
                     log.error(message.getString("fs.minio.mkdir.error")
                             .replace("${bucketName}", String.valueOf(bucketName))
@@ -532,13 +992,16 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
         String bucketName = extract[0];
         String objectName = extract[1];
         try {
-            minioClient.downloadObject(DownloadObjectArgs.builder()
+            DownloadObjectArgs args = DownloadObjectArgs.builder()
                     .bucket(bucketName)
                     .object(objectName)
                     .filename(destFile.getCanonicalPath())
                     .extraHeaders(this.property.getApiHeaders())
-                    .build());
-            return destFile;
+                    .build();
+            return retry("downloadFile", () -> {
+                minioClient.downloadObject(args);
+                return destFile;
+            });
         } catch (Exception e) {
             log.error(message.getString("fs.minio.download.error")
                     .replace("${bucketName}", String.valueOf(bucketName))
@@ -547,27 +1010,61 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
         }
     }
 
+    /**
+     * 打开对象的读取流，流关闭时释放HTTP连接
+     * @param path 桶名称/对象路径
+     * @param filename 文件名
+     * @return 读取流
+     */
     @Override
-    public ByteArrayOutputStream downloadStream(String path, String filename) {
+    public InputStream openInputStream(String path, String filename) {
+        return openInputStream(path, filename, 0, -1);
+    }
+
+    /**
+     * 通过Range请求只读取对象的指定范围，流关闭时释放HTTP连接
+     * @param path 桶名称/对象路径
+     * @param filename 文件名
+     * @param offset 起始位置，需&gt;=0，超出对象末尾时返回空的流
+     * @param length 读取长度，&lt;0为读取至对象末尾
+     * @return 读取流
+     */
+    @Override
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
+        if (!isValidRange(offset)) {
+            return null;
+        }
         if (minioClient == null) {
             log.error(message.getString("fs.minio.not.connected"));
             return null;
         }
+        if (length == 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
         String[] extract = extractBucketAndObjectNameFromPathAndFilename(path, filename);
         String bucketName = extract[0];
         String objectName = extract[1];
-        try (InputStream stream = minioClient.getObject(GetObjectArgs.builder()
-                .bucket(bucketName)
-                .object(objectName)
-                .extraHeaders(this.property.getApiHeaders())
-                .build())) {
-            ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-            byte[] cache = new byte[4096];
-            int len;
-            while ((len = stream.read(cache)) != -1) {
-                outStream.write(cache, 0, len);
-            }
-            return outStream;
+        try {
+            GetObjectArgs.Builder builder = GetObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .extraHeaders(this.property.getApiHeaders());
+            if (offset > 0) {
+                builder.offset(offset);
+            }
+            if (length > 0) {
+                builder.offset(offset).length(length);
+            }
+            GetObjectArgs args = builder.build();
+            return retry("openInputStream", () -> getObject(args));
+        } catch (ErrorResponseException e) {
+            if ("InvalidRange".equals(e.errorResponse().code())) {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+            log.error(message.getString("fs.minio.download.error")
+                    .replace("${bucketName}", String.valueOf(bucketName))
+                    .replace("${objectName}", String.valueOf(objectName)), e);
+            return null;
         } catch (Exception e) {
             log.error(message.getString("fs.minio.download.error")
                     .replace("${bucketName}", String.valueOf(bucketName))
@@ -595,11 +1092,15 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
             }
         }
         try {
-            minioClient.removeObject(RemoveObjectArgs.builder()
+            RemoveObjectArgs args = RemoveObjectArgs.builder()
                     .bucket(bucketName)
                     .object(objectName)
                     .extraHeaders(this.property.getApiHeaders())
-                    .build());
+                    .build();
+            retry("deleteFile", () -> {
+                minioClient.removeObject(args);
+                return true;
+            });
             log.debug(message.getString("fs.minio.delete.success")
                     .replace("${bucketName}", String.valueOf(bucketName))
                     .replace("${objectName}", String.valueOf(objectName)));
@@ -613,35 +1114,193 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
     }
 
     private boolean deleteFileRecursive(String bucketName, String objectName) {
+        String objectNameAsPath = objectName.endsWith("/") ? objectName : (objectName + "/");
+        List<BatchResult<String>> results = removeObjectsByPrefix(bucketName, objectNameAsPath);
+        if (results == null) {
+            return false;
+        }
+        if (results.isEmpty()) {
+            // 不存在该前缀的对象，按单个对象删除
+            try {
+                minioClient.removeObject(RemoveObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .extraHeaders(this.property.getApiHeaders())
+                        .build());
+            } catch (Exception e) {
+                log.error(message.getString("fs.minio.delete.error")
+                        .replace("${bucketName}", String.valueOf(bucketName))
+                        .replace("${objectName}", String.valueOf(objectName)), e);
+                return false;
+            }
+        }
+        for (BatchResult<String> result : results) {
+            if (!result.isSuccess()) {
+                return false;
+            }
+        }
+        log.debug(message.getString("fs.minio.delete.success")
+                .replace("${bucketName}", String.valueOf(bucketName))
+                .replace("${objectName}", String.valueOf(objectName)));
+        return true;
+    }
+
+    /**
+     * <p>批量删除文件</p>
+     * <p>按桶分组，每次请求最多删除 {@link #REMOVE_OBJECTS_MAX_KEYS} 个对象，并发数参数不生效</p>
+     * @param paths 桶名称/对象路径
+     * @param parallelism 不生效
+     * @return 与传入顺序一致的逐项结果
+     */
+    @Override
+    public List<BatchResult<String>> deleteAll(Collection<String> paths, int parallelism) {
+        if (paths == null || paths.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> items = new ArrayList<>(paths);
+        List<BatchResult<String>> results = new ArrayList<>(Collections.nCopies(items.size(), null));
+        Map<String, List<Integer>> buckets = new LinkedHashMap<>();
+        List<String> objectNames = new ArrayList<>(Collections.nCopies(items.size(), null));
+        for (int i = 0; i < items.size(); i++) {
+            String item = items.get(i);
+            String[] extract = item == null || item.endsWith("/") ? new String[2] : extractBucketAndObjectNameFromPathAndFilename(item, null);
+            if (extract[0] == null || extract[1] == null) {
+                results.set(i, BatchResult.failure(item, new IllegalArgumentException(message.getString("fs.minio.batch.delete.invalid")
+                        .replace("${path}", String.valueOf(item)))));
+                continue;
+            }
+            objectNames.set(i, extract[1]);
+            buckets.computeIfAbsent(extract[0], k -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<String, List<Integer>> entry : buckets.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            for (int from = 0; from < indexes.size(); from += REMOVE_OBJECTS_MAX_KEYS) {
+                List<Integer> chunk = indexes.subList(from, Math.min(indexes.size(), from + REMOVE_OBJECTS_MAX_KEYS));
+                List<String> names = new ArrayList<>(chunk.size());
+                for (Integer index : chunk) {
+                    names.add(objectNames.get(index));
+                }
+                Throwable[] errors = removeObjects(entry.getKey(), names);
+                for (int i = 0; i < chunk.size(); i++) {
+                    String item = items.get(chunk.get(i));
+                    results.set(chunk.get(i), errors[i] == null ? BatchResult.success(item) : BatchResult.failure(item, errors[i]));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * <p>按对象名前缀删除</p>
+     * <p>边列出边删除，每次请求最多删除 {@link #REMOVE_OBJECTS_MAX_KEYS} 个对象，不会将全部对象名缓存；需开启 {@code canDeleteFolderRecursive}</p>
+     * <p style="color:orange">路径以/结尾时仅删除该目录下的对象，否则按对象名前缀匹配（如 {@code bucket/logs/2024-}）；仅有桶名称时删除桶内全部对象</p>
+     * @param path 桶名称/对象名前缀
+     * @return 逐项结果（桶名称/对象路径），列出失败或无权限时返回NULL
+     */
+    @Override
+    public List<BatchResult<String>> deleteByPrefix(String path) {
+        if (!this.property.isCanDeleteFolderRecursive()) {
+            log.error(message.getString("fs.minio.delete.reject")
+                    .replace("${alias}", String.valueOf(this.property.getAlias())));
+            return null;
+        }
+        String[] extract = extractBucketAndObjectNameFromPathAndFilename(path, null);
+        if (extract[0] == null) {
+            log.error(message.getString("fs.minio.empty.bucket.name"));
+            return null;
+        }
+        String prefix = extract[1] == null ? "" : (path.endsWith("/") ? extract[1] + "/" : extract[1]);
+        return removeObjectsByPrefix(extract[0], prefix);
+    }
+
+    private List<BatchResult<String>> removeObjectsByPrefix(String bucketName, String prefix) {
+        if (minioClient == null) {
+            log.error(message.getString("fs.minio.not.connected"));
+            return null;
+        }
+        List<BatchResult<String>> results = new ArrayList<>();
+        List<String> names = new ArrayList<>(REMOVE_OBJECTS_MAX_KEYS);
         try {
-            boolean isDir = false;
-            String objectNameAsPath = objectName.endsWith("/") ? objectName : (objectName + "/");
-            Iterable<Result<Item>> results = minioClient.listObjects(ListObjectsArgs.builder()
+            Iterable<Result<Item>> objects = minioClient.listObjects(ListObjectsArgs.builder()
                     .bucket(bucketName)
-                    .prefix(objectNameAsPath)
+                    .prefix(prefix)
+                    .recursive(true)
                     .extraHeaders(this.property.getApiHeaders())
                     .build());
-            for (Result<Item> listObject : results) {
-                isDir = true;
-                if (!objectNameAsPath.equals(listObject.get().objectName())) {
-                    deleteFileRecursive(bucketName, listObject.get().objectName());
+            for (Result<Item> object : objects) {
+                names.add(object.get().objectName());
+                if (names.size() == REMOVE_OBJECTS_MAX_KEYS) {
+                    collectRemoveResults(bucketName, names, results);
+                    names.clear();
                 }
             }
-            minioClient.removeObject(RemoveObjectArgs.builder()
+        } catch (Exception e) {
+            log.error(message.getString("fs.minio.list.error")
+                    .replace("${bucketName}", String.valueOf(bucketName))
+                    .replace("${objectName}", String.valueOf(prefix)), e);
+            return null;
+        }
+        if (!names.isEmpty()) {
+            collectRemoveResults(bucketName, names, results);
+        }
+        return results;
+    }
+
+    private void collectRemoveResults(String bucketName, List<String> names, List<BatchResult<String>> results) {
+        Throwable[] errors = removeObjects(bucketName, names);
+        for (int i = 0; i < names.size(); i++) {
+            String item = bucketName + "/" + names.get(i);
+            results.add(errors[i] == null ? BatchResult.success(item) : BatchResult.failure(item, errors[i]));
+        }
+    }
+
+    /**
+     * 单次请求删除多个对象
+     * @return 与 {@code objectNames} 顺序一致的失败原因，成功为NULL
+     */
+    private Throwable[] removeObjects(String bucketName, List<String> objectNames) {
+        Throwable[] errors = new Throwable[objectNames.size()];
+        if (minioClient == null) {
+            Arrays.fill(errors, new IllegalStateException(message.getString("fs.minio.not.connected")));
+            return errors;
+        }
+        List<DeleteObject> objects = new ArrayList<>(objectNames.size());
+        for (String objectName : objectNames) {
+            objects.add(new DeleteObject(objectName));
+        }
+        try {
+            // 结果为惰性迭代，遍历时才会发送请求
+            for (Result<DeleteError> result : minioClient.removeObjects(RemoveObjectsArgs.builder()
                     .bucket(bucketName)
-                    .object(isDir ? (objectName + "/") : objectName)
+                    .objects(objects)
                     .extraHeaders(this.property.getApiHeaders())
-                    .build());
-            log.debug(message.getString("fs.minio.delete.success")
+                    .build())) {
+                DeleteError error = result.get();
+                log.error(message.getString("fs.minio.batch.delete.item.error")
+                        .replace("${bucketName}", String.valueOf(bucketName))
+                        .replace("${objectName}", String.valueOf(error.objectName()))
+                        .replace("${code}", String.valueOf(error.code()))
+                        .replace("${reason}", String.valueOf(error.message())));
+                for (int i = 0; i < objectNames.size(); i++) {
+                    if (errors[i] == null && objectNames.get(i).equals(error.objectName())) {
+                        errors[i] = new IOException(error.code() + ": " + error.message());
+                    }
+                }
+            }
+            log.debug(message.getString("fs.minio.batch.delete.success")
                     .replace("${bucketName}", String.valueOf(bucketName))
-                    .replace("${objectName}", String.valueOf(objectName)));
-            return true;
+                    .replace("${count}", Integer.toString(objectNames.size())));
         } catch (Exception e) {
-            log.error(message.getString("fs.minio.delete.error")
+            log.error(message.getString("fs.minio.batch.delete.error")
                     .replace("${bucketName}", String.valueOf(bucketName))
-                    .replace("${objectName}", String.valueOf(objectName)), e);
-            return false;
+                    .replace("${count}", Integer.toString(objectNames.size())), e);
+            for (int i = 0; i < errors.length; i++) {
+                if (errors[i] == null) {
+                    errors[i] = e;
+                }
+            }
         }
+        return errors;
     }
 
     /**
@@ -659,12 +1318,16 @@ public class MinIOFileSystem extends FileSystem<MinioClient, Item> {
         String bucketName = extract[0];
         String objectName = extract[1];
         try {
-            minioClient.removeObject(RemoveObjectArgs.builder()
+            RemoveObjectArgs args = RemoveObjectArgs.builder()
                     .bucket(bucketName)
                     .object(objectName)
                     .versionId(version)
                     .extraHeaders(this.property.getApiHeaders())
-                    .build());
+                    .build();
+            retry("deleteFileVersioned", () -> {
+                minioClient.removeObject(args);
+                return true;
+            });
             log.debug(message.getString("fs.minio.delete.with.version.success")
                     .replace("${bucketName}", String.valueOf(bucketName))
                     .replace("${objectName}", String.valueOf(objectName))
@@ -10,6 +10,17 @@ import java.util.StringJoiner;
 
 public class MinIOProperty extends FileSystemProperty {
 
+    /**
+     * 默认对冲读取的耗时分位数
+     * @since 1.4
+     */
+    public static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+    /**
+     * 默认对冲读取的最短等待时长（毫秒）
+     * @since 1.4
+     */
+    public static final long DEFAULT_HEDGE_DELAY_MILLIS = 50;
+
     private static final Logger log = LoggerFactory.getLogger(MinIOProperty.class);
     private static final ResourceBundle message = ResourceBundle.getBundle("MessageMinio");
 
@@ -19,6 +30,10 @@ public class MinIOProperty extends FileSystemProperty {
     private boolean customHttpClient = false;
     private Map<String, String> apiHeaders;
     private Map<String, String> apiUserMetadata;
+    private boolean hedgeReads = false;
+    private double hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+    private long hedgeDelayMillis = DEFAULT_HEDGE_DELAY_MILLIS;
+    private String hedgeEndpoint;
 
     @SuppressWarnings("unchecked")
     public MinIOProperty(FileSystemProperty property) {
@@ -59,6 +74,26 @@ public class MinIOProperty extends FileSystemProperty {
                 } else if (property.getExternal().containsKey("user-metadata")) {
                     apiUserMetadata = (Map<String, String>) property.getExternal().get("user-metadata");
                 }
+                if (property.getExternal().containsKey("hedgeReads")) {
+                    hedgeReads = (boolean) property.getExternal().get("hedgeReads");
+                } else if (property.getExternal().containsKey("hedge-reads")) {
+                    hedgeReads = (boolean) property.getExternal().get("hedge-reads");
+                }
+                if (property.getExternal().containsKey("hedgePercentile")) {
+                    hedgePercentile = ((Number) property.getExternal().get("hedgePercentile")).doubleValue();
+                } else if (property.getExternal().containsKey("hedge-percentile")) {
+                    hedgePercentile = ((Number) property.getExternal().get("hedge-percentile")).doubleValue();
+                }
+                if (property.getExternal().containsKey("hedgeDelayMillis")) {
+                    hedgeDelayMillis = ((Number) property.getExternal().get("hedgeDelayMillis")).longValue();
+                } else if (property.getExternal().containsKey("hedge-delay-millis")) {
+                    hedgeDelayMillis = ((Number) property.getExternal().get("hedge-delay-millis")).longValue();
+                }
+                if (property.getExternal().containsKey("hedgeEndpoint")) {
+                    hedgeEndpoint = (String) property.getExternal().get("hedgeEndpoint");
+                } else if (property.getExternal().containsKey("hedge-endpoint")) {
+                    hedgeEndpoint = (String) property.getExternal().get("hedge-endpoint");
+                }
             } catch (Exception e) {
                 log.error(message.getString("fs.minio.init.wrong.properties")
                         .replace("${alias}", property.getAlias()), e);
@@ -114,6 +149,54 @@ public class MinIOProperty extends FileSystemProperty {
         this.apiUserMetadata = apiUserMetadata;
     }
 
+    /**
+     * @return 是否开启对冲读取（{@code statObject}、{@code getObject}）
+     * @since 1.4
+     */
+    public boolean isHedgeReads() {
+        return hedgeReads;
+    }
+
+    public void setHedgeReads(boolean hedgeReads) {
+        this.hedgeReads = hedgeReads;
+    }
+
+    /**
+     * @return 以近期请求耗时的该分位数作为发出对冲请求前的等待时长，取值(0,1)，默认0.95
+     * @since 1.4
+     */
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public void setHedgePercentile(double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    /**
+     * @return 样本不足时的等待时长，也是等待时长的下限（毫秒），默认50
+     * @since 1.4
+     */
+    public long getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    public void setHedgeDelayMillis(long hedgeDelayMillis) {
+        this.hedgeDelayMillis = hedgeDelayMillis;
+    }
+
+    /**
+     * @return 对冲请求发往的另一个地址（如同一集群的另一节点或副本），使用相同的账号；为空时发往原地址
+     * @since 1.4
+     */
+    public String getHedgeEndpoint() {
+        return hedgeEndpoint;
+    }
+
+    public void setHedgeEndpoint(String hedgeEndpoint) {
+        this.hedgeEndpoint = hedgeEndpoint;
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", MinIOProperty.class.getSimpleName() + "[", "]")
@@ -124,6 +207,10 @@ public class MinIOProperty extends FileSystemProperty {
                 .add("customHttpClient=" + customHttpClient)
                 .add("apiHeaders=" + apiHeaders)
                 .add("apiUserMetadata=" + apiUserMetadata)
+                .add("hedgeReads=" + hedgeReads)
+                .add("hedgePercentile=" + hedgePercentile)
+                .add("hedgeDelayMillis=" + hedgeDelayMillis)
+                .add("hedgeEndpoint=" + hedgeEndpoint)
                 .toString();
     }
 
@@ -0,0 +1,189 @@
+package moe.icyr.spring.starter.filesystem.reactive;
+
+import moe.icyr.spring.starter.filesystem.api.CloseableIterator;
+import moe.icyr.spring.starter.filesystem.api.FileSystem;
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+
+/**
+ * <p>基于同步接口的响应式适配</p>
+ * <p>阻塞调用运行在指定的 {@link Scheduler} 上（默认 {@link Schedulers#boundedElastic()}），下载按请求量逐块读取，上传按消费进度向上游请求数据</p>
+ * <p>非线程安全的实现（FTP、SFTP）同一时间只执行一个操作，下载会占用连接直到流结束或被取消</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class BlockingReactiveFileSystem<T, F> implements ReactiveFileSystem<T, F> {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockingReactiveFileSystem.class);
+    private static final ResourceBundle message = ResourceBundle.getBundle("MessageReactive");
+
+    /**
+     * 下载时每个数据块的大小
+     */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    protected final FileSystem<T, F> fileSystem;
+    protected final Scheduler scheduler;
+    protected final DataBufferFactory bufferFactory;
+    private final Semaphore permit;
+
+    public BlockingReactiveFileSystem(FileSystem<T, F> fileSystem) {
+        this(fileSystem, Schedulers.boundedElastic(), DefaultDataBufferFactory.sharedInstance);
+    }
+
+    public BlockingReactiveFileSystem(FileSystem<T, F> fileSystem, Scheduler scheduler, DataBufferFactory bufferFactory) {
+        this.fileSystem = fileSystem;
+        this.scheduler = scheduler;
+        this.bufferFactory = bufferFactory;
+        this.permit = fileSystem.isThreadSafe() ? null : new Semaphore(1, true);
+    }
+
+    @Override
+    public FileSystem<T, F> getFileSystem() {
+        return fileSystem;
+    }
+
+    /**
+     * 扁平化输出（或不读取子文件）时使用 {@link FileSystem#listIterator(String, boolean, int)} 按请求量逐个读取，取消订阅时停止列出
+     */
+    @Override
+    public Flux<FileInfo<F>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+        if (!deepFind || flatPrint) {
+            return Flux.using(
+                            this::acquire,
+                            ignored -> Flux.using(
+                                    () -> {
+                                        CloseableIterator<FileInfo<F>> iterator = fileSystem.listIterator(path, deepFind, maxDepth);
+                                        if (iterator == null) {
+                                            throw new IOException(message.getString("fs.reactive.list.fail")
+                                                    .replace("${path}", String.valueOf(path)));
+                                        }
+                                        return iterator;
+                                    },
+                                    iterator -> Flux.fromIterable(() -> iterator),
+                                    CloseableIterator::close),
+                            ignored -> release())
+                    .subscribeOn(scheduler);
+        }
+        return exclusive(() -> fileSystem.list(path, deepFind, flatPrint, maxDepth))
+                .switchIfEmpty(Mono.error(() -> new IOException(message.getString("fs.reactive.list.fail")
+                        .replace("${path}", String.valueOf(path)))))
+                .flatMapIterable(list -> list);
+    }
+
+    @Override
+    public Mono<FileInfo<F>> peekFile(String path, String filename) {
+        return exclusive(() -> fileSystem.peekFile(path, filename));
+    }
+
+    @Override
+    public Flux<DataBuffer> download(String path, String filename, long offset, long length) {
+        return Flux.using(
+                        this::acquire,
+                        ignored -> DataBufferUtils.readInputStream(() -> open(path, filename, offset, length), bufferFactory, BUFFER_SIZE),
+                        ignored -> release())
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Boolean> upload(Publisher<ByteBuffer> content, long size, String path, String filename) {
+        if (size < 0 && fileSystem.isUploadLengthRequired()) {
+            return exclusive(() -> uploadSpooled(content, path, filename));
+        }
+        return exclusive(() -> {
+            try (InputStream input = PublisherInputStream.subscribe(content, size)) {
+                return fileSystem.upload(input, path, filename);
+            }
+        });
+    }
+
+    @Override
+    public Mono<Boolean> deleteFile(String path, String filename) {
+        return exclusive(() -> fileSystem.deleteFile(path, filename));
+    }
+
+    /**
+     * 在调度器上执行阻塞调用，非线程安全的实现会与其他操作互斥
+     * @param call 阻塞调用，返回NULL时结果为空
+     * @param <R> 结果类型
+     * @return 结果
+     */
+    protected <R> Mono<R> exclusive(Callable<R> call) {
+        return Mono.using(this::acquire, ignored -> Mono.fromCallable(call), ignored -> release())
+                .subscribeOn(scheduler);
+    }
+
+    private boolean acquire() throws InterruptedException {
+        if (permit != null) {
+            permit.acquire();
+        }
+        return true;
+    }
+
+    private void release() {
+        if (permit != null) {
+            permit.release();
+        }
+    }
+
+    private InputStream open(String path, String filename, long offset, long length) throws IOException {
+        InputStream input = fileSystem.openInputStream(path, filename, offset, length);
+        if (input == null) {
+            throw new IOException(message.getString("fs.reactive.download.fail")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)));
+        }
+        return input;
+    }
+
+    /**
+     * 长度未知而实现需要长度时，先写入临时文件再上传
+     */
+    private boolean uploadSpooled(Publisher<ByteBuffer> content, String path, String filename) {
+        File temp = null;
+        try {
+            temp = File.createTempFile("FileSystemReactiveUpload", ".bin");
+            try (InputStream input = PublisherInputStream.subscribe(content, -1);
+                 OutputStream output = Files.newOutputStream(temp.toPath())) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int len;
+                while (-1 != (len = input.read(buffer))) {
+                    output.write(buffer, 0, len);
+                }
+            }
+            return fileSystem.upload(temp, path, filename);
+        } catch (IOException e) {
+            log.error(message.getString("fs.reactive.upload.spool.error")
+                    .replace("${path}", String.valueOf(path))
+                    .replace("${filename}", String.valueOf(filename)), e);
+            return false;
+        } finally {
+            if (temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+}
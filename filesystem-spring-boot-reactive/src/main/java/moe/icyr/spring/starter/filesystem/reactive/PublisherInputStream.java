@@ -0,0 +1,172 @@
+package moe.icyr.spring.starter.filesystem.reactive;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * <p>将 {@link Publisher} 转换为阻塞读取的输入流</p>
+ * <p>最多预取 {@link #PREFETCH} 个数据块，每消费一个再请求一个，上游速度不会超过上传速度</p>
+ * <p>已知总长度时 {@link #available()} 返回剩余长度，供依赖该值作为上传长度的实现使用</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class PublisherInputStream extends InputStream implements Subscriber<ByteBuffer> {
+
+    /**
+     * 预取的数据块数量
+     */
+    public static final int PREFETCH = 4;
+
+    private static final Object COMPLETE = new Object();
+
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private volatile Subscription subscription;
+    private volatile boolean closed = false;
+    private ByteBuffer current;
+    private boolean done = false;
+    private long remaining;
+
+    /**
+     * @param size 总长度，未知时传入-1
+     */
+    public PublisherInputStream(long size) {
+        this.remaining = size;
+    }
+
+    /**
+     * 订阅上游并返回输入流
+     * @param publisher 上游
+     * @param size 总长度，未知时传入-1
+     * @return 输入流
+     */
+    public static PublisherInputStream subscribe(Publisher<ByteBuffer> publisher, long size) {
+        PublisherInputStream stream = new PublisherInputStream(size);
+        publisher.subscribe(stream);
+        return stream;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (subscription != null || closed) {
+            s.cancel();
+            return;
+        }
+        subscription = s;
+        s.request(PREFETCH);
+    }
+
+    @Override
+    public void onNext(ByteBuffer buffer) {
+        queue.offer(buffer);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        queue.offer(new Failure(t));
+    }
+
+    @Override
+    public void onComplete() {
+        queue.offer(COMPLETE);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        if (remaining > 0) {
+            remaining--;
+        }
+        return current.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, current.remaining());
+        current.get(b, off, n);
+        if (remaining > 0) {
+            remaining = Math.max(0, remaining - n);
+        }
+        return n;
+    }
+
+    @Override
+    public int available() {
+        if (remaining >= 0) {
+            return (int) Math.min(Integer.MAX_VALUE, remaining);
+        }
+        return current == null ? 0 : current.remaining();
+    }
+
+    /**
+     * 关闭时取消对上游的订阅，阻塞在读取中的线程随即抛出 {@link IOException}
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Subscription s = subscription;
+        if (s != null) {
+            s.cancel();
+        }
+        queue.clear();
+        // 唤醒等待上游数据的读取线程，取消后上游不会再发出终止信号
+        queue.offer(new Failure(new CancellationException()));
+    }
+
+    private boolean fill() throws IOException {
+        while (current == null || !current.hasRemaining()) {
+            if (done) {
+                return false;
+            }
+            Object next;
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            if (next == COMPLETE) {
+                done = true;
+                return false;
+            }
+            if (next instanceof Failure) {
+                done = true;
+                throw new IOException(((Failure) next).error);
+            }
+            current = ((ByteBuffer) next).duplicate();
+            subscription.request(1);
+        }
+        return true;
+    }
+
+    private static final class Failure {
+
+        private final Throwable error;
+
+        Failure(Throwable error) {
+            this.error = error;
+        }
+
+    }
+
+}
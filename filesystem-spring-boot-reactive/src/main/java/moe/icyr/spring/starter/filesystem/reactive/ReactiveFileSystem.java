@@ -0,0 +1,108 @@
+package moe.icyr.spring.starter.filesystem.reactive;
+
+import moe.icyr.spring.starter.filesystem.api.FileSystem;
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>文件服务器响应式接口</p>
+ * <p>通过 {@link ReactiveFileSystems#of(FileSystem)} 获取；所有方法均为惰性，订阅后才会执行，阻塞调用不会运行在订阅方线程上</p>
+ * <p>与同步接口不同，无法返回NULL的场景（下载、列出文件）以错误信号结束；上传、删除仍以 {@code false} 表示失败</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public interface ReactiveFileSystem<T, F> {
+
+    /**
+     * @return 对应的同步实例
+     */
+    FileSystem<T, F> getFileSystem();
+
+    /**
+     * 列出文件(夹)
+     * @param path 绝对路径
+     * @return 文件(夹)信息
+     */
+    default Flux<FileInfo<F>> list(String path) {
+        return list(path, false, false, -1);
+    }
+
+    /**
+     * 列出文件(夹)
+     * @param path 绝对路径
+     * @param deepFind 是否读取子文件
+     * @param flatPrint 是否扁平化输出
+     * @param maxDepth 当deepFind为true时，限制最大深度，需&gt;=0，&lt;0为不限制
+     * @return 文件(夹)信息，非扁平化输出时按顶层元素发出，子元素位于 {@link FileInfo#getChildren()}
+     * @see FileSystem#list(String, boolean, boolean, int)
+     */
+    Flux<FileInfo<F>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth);
+
+    /**
+     * 查询文件
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 文件信息，不存在则为空
+     */
+    Mono<FileInfo<F>> peekFile(String path, String filename);
+
+    /**
+     * <p>下载文件</p>
+     * <p>按订阅方的请求量逐块读取，发出的 {@link DataBuffer} 需由订阅方释放</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 文件内容
+     */
+    default Flux<DataBuffer> download(String path, String filename) {
+        return download(path, filename, 0, -1);
+    }
+
+    /**
+     * <p>下载文件指定范围的内容，可用于响应HTTP Range请求</p>
+     * <p>按订阅方的请求量逐块读取，发出的 {@link DataBuffer} 需由订阅方释放</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @param offset 起始位置，需&gt;=0
+     * @param length 读取长度，&lt;0为读取至文件末尾
+     * @return 文件内容
+     * @see FileSystem#openInputStream(String, String, long, long)
+     */
+    Flux<DataBuffer> download(String path, String filename, long offset, long length);
+
+    /**
+     * 上传文件，长度未知
+     * @param content 文件内容
+     * @param path 目标文件绝对路径
+     * @param filename 目标文件名称
+     * @return 上传成功与否
+     */
+    default Mono<Boolean> upload(Publisher<ByteBuffer> content, String path, String filename) {
+        return upload(content, -1, path, filename);
+    }
+
+    /**
+     * <p>上传文件</p>
+     * <p>只会预取少量数据块，上传消费后再继续请求，不会将内容整体缓存</p>
+     * @param content 文件内容
+     * @param size 文件总长度，未知时传入-1
+     * @param path 目标文件绝对路径
+     * @param filename 目标文件名称
+     * @return 上传成功与否
+     */
+    Mono<Boolean> upload(Publisher<ByteBuffer> content, long size, String path, String filename);
+
+    /**
+     * 删除文件
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 成功与否
+     */
+    Mono<Boolean> deleteFile(String path, String filename);
+
+}
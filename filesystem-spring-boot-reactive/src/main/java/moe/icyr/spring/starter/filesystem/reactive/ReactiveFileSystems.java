@@ -0,0 +1,58 @@
+package moe.icyr.spring.starter.filesystem.reactive;
+
+import moe.icyr.spring.starter.filesystem.api.FileSystem;
+import moe.icyr.spring.starter.filesystem.minio.MinIOFileSystem;
+import moe.icyr.spring.starter.filesystem.reactive.minio.MinioReactiveFileSystem;
+import org.springframework.util.ClassUtils;
+
+import java.util.ResourceBundle;
+
+/**
+ * 响应式接口工厂
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class ReactiveFileSystems {
+
+    private static final ResourceBundle message = ResourceBundle.getBundle("MessageReactive");
+    private static final boolean minioPresent = ClassUtils.isPresent("io.minio.MinioAsyncClient", ReactiveFileSystems.class.getClassLoader())
+            && ClassUtils.isPresent("moe.icyr.spring.starter.filesystem.minio.MinIOFileSystem", ReactiveFileSystems.class.getClassLoader());
+
+    private ReactiveFileSystems() {
+    }
+
+    /**
+     * <p>获取响应式接口，支持原生异步的实现（MinIO）直接使用异步客户端，其他实现使用阻塞适配</p>
+     * <p>原生异步客户端只在传入的就是 {@code MinIOFileSystem} 时使用；经装饰的实例（如 {@code FileSystemFactory} 按配置开启了缓存、
+     * 压缩、加密、监控等）使用阻塞适配，原生客户端会绕过装饰器，压缩、加密的文件无法正确读写</p>
+     * @param fileSystem 同步实例
+     * @return 响应式接口
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, F> ReactiveFileSystem<T, F> of(FileSystem<T, F> fileSystem) {
+        if (fileSystem == null) {
+            throw new IllegalArgumentException(message.getString("fs.reactive.valid.not.null"));
+        }
+        if (minioPresent && MinioSupport.isMinio(fileSystem)) {
+            return (ReactiveFileSystem<T, F>) MinioSupport.create(fileSystem);
+        }
+        return new BlockingReactiveFileSystem<>(fileSystem);
+    }
+
+    /**
+     * 隔离对可选依赖的引用，未引入MinIO时不会加载
+     */
+    private static final class MinioSupport {
+
+        static boolean isMinio(FileSystem<?, ?> fileSystem) {
+            return fileSystem instanceof MinIOFileSystem;
+        }
+
+        static ReactiveFileSystem<?, ?> create(FileSystem<?, ?> fileSystem) {
+            return new MinioReactiveFileSystem((MinIOFileSystem) fileSystem);
+        }
+
+    }
+
+}
@@ -0,0 +1,169 @@
+package moe.icyr.spring.starter.filesystem.reactive.minio;
+
+import io.minio.*;
+import io.minio.messages.Item;
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import moe.icyr.spring.starter.filesystem.minio.MinIOFileSystem;
+import moe.icyr.spring.starter.filesystem.minio.entity.MinIOProperty;
+import moe.icyr.spring.starter.filesystem.reactive.BlockingReactiveFileSystem;
+import moe.icyr.spring.starter.filesystem.reactive.PublisherInputStream;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ResourceBundle;
+
+/**
+ * <p>基于 {@link MinioAsyncClient} 的响应式实现</p>
+ * <p>下载、上传与平铺列出直接使用异步客户端：请求的发送与响应等待不占用线程，仅读写数据体时在调度器上进行；
+ * 长度未知的上传以分片方式进行，无需缓存至临时文件</p>
+ * <p>树形列出、列出桶、查询与删除沿用同步实现</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class MinioReactiveFileSystem extends BlockingReactiveFileSystem<MinioClient, Item> {
+
+    private static final Logger log = LoggerFactory.getLogger(MinioReactiveFileSystem.class);
+    private static final ResourceBundle message = ResourceBundle.getBundle("MessageReactive");
+
+    /**
+     * 长度未知时使用的分片大小，为MinIO允许的最小值
+     */
+    public static final long UNKNOWN_SIZE_PART_SIZE = 5L * 1024 * 1024;
+
+    private final MinIOFileSystem minio;
+
+    public MinioReactiveFileSystem(MinIOFileSystem fileSystem) {
+        this(fileSystem, Schedulers.boundedElastic(), DefaultDataBufferFactory.sharedInstance);
+    }
+
+    public MinioReactiveFileSystem(MinIOFileSystem fileSystem, Scheduler scheduler, DataBufferFactory bufferFactory) {
+        super(fileSystem, scheduler, bufferFactory);
+        this.minio = fileSystem;
+    }
+
+    @Override
+    public Flux<FileInfo<Item>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+        if (path == null || path.isEmpty() || (deepFind && !flatPrint)) {
+            return super.list(path, deepFind, flatPrint, maxDepth);
+        }
+        return Flux.defer(() -> {
+            MinioAsyncClient client = minio.getAsyncClient();
+            if (client == null) {
+                return Flux.error(new IOException(message.getString("fs.reactive.minio.not.connected")));
+            }
+            String[] extract = minio.extractBucketAndObjectNameFromPathAndFilename(path, null);
+            String bucketName = extract[0];
+            String objectName = extract[1];
+            String prefix = (objectName == null || objectName.isEmpty()) ? "" : (objectName + "/");
+            Iterable<Result<Item>> results = client.listObjects(ListObjectsArgs.builder()
+                    .bucket(bucketName)
+                    .prefix(prefix)
+                    .recursive(deepFind)
+                    .extraHeaders(property().getApiHeaders())
+                    .build());
+            // 结果按页惰性获取，订阅方请求时才会拉取下一页
+            return Flux.fromIterable(results)
+                    .map(result -> {
+                        try {
+                            return result.get();
+                        } catch (Exception e) {
+                            throw new IllegalStateException(message.getString("fs.reactive.list.fail")
+                                    .replace("${path}", String.valueOf(path)), e);
+                        }
+                    })
+                    .filter(item -> objectName == null || !prefix.equals(item.objectName()))
+                    .map(item -> minio.toFileInfo(bucketName, objectName, item));
+        }).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<DataBuffer> download(String path, String filename, long offset, long length) {
+        if (offset < 0) {
+            return Flux.error(new IllegalArgumentException(message.getString("fs.reactive.download.range.invalid")
+                    .replace("${offset}", Long.toString(offset))));
+        }
+        if (length == 0) {
+            return Flux.empty();
+        }
+        return Mono.fromCallable(() -> {
+                    String[] extract = minio.extractBucketAndObjectNameFromPathAndFilename(path, filename);
+                    GetObjectArgs.Builder builder = GetObjectArgs.builder()
+                            .bucket(extract[0])
+                            .object(extract[1])
+                            .extraHeaders(property().getApiHeaders());
+                    if (offset > 0) {
+                        builder.offset(offset);
+                    }
+                    if (length > 0) {
+                        builder.offset(offset).length(length);
+                    }
+                    return client().getObject(builder.build());
+                })
+                .flatMap(Mono::fromFuture)
+                .flatMapMany(response -> DataBufferUtils.readInputStream(() -> response, bufferFactory, BUFFER_SIZE)
+                        .subscribeOn(scheduler));
+    }
+
+    @Override
+    public Mono<Boolean> upload(Publisher<ByteBuffer> content, long size, String path, String filename) {
+        String[] extract = minio.extractBucketAndObjectNameFromPathAndFilename(path, filename);
+        String bucketName = extract[0];
+        String objectName = extract[1];
+        return Mono.using(
+                        () -> PublisherInputStream.subscribe(content, size),
+                        input -> Mono.fromCallable(() -> {
+                                    long partSize = property().getUploadDefaultPartSize();
+                                    if (size < 0 && partSize < UNKNOWN_SIZE_PART_SIZE) {
+                                        partSize = UNKNOWN_SIZE_PART_SIZE;
+                                    }
+                                    return client().putObject(PutObjectArgs.builder()
+                                            .bucket(bucketName)
+                                            .object(objectName)
+                                            .stream(input, size, partSize)
+                                            .headers(property().getApiHeaders())
+                                            .userMetadata(property().getApiUserMetadata())
+                                            .build());
+                                })
+                                .subscribeOn(scheduler)
+                                .flatMap(Mono::fromFuture),
+                        PublisherInputStream::close)
+                .map(response -> {
+                    log.debug(message.getString("fs.reactive.minio.upload.success")
+                            .replace("${bucketName}", String.valueOf(bucketName))
+                            .replace("${objectName}", String.valueOf(objectName))
+                            .replace("${etag}", String.valueOf(response.etag())));
+                    return true;
+                })
+                .onErrorResume(e -> {
+                    log.error(message.getString("fs.reactive.minio.upload.error")
+                            .replace("${bucketName}", String.valueOf(bucketName))
+                            .replace("${objectName}", String.valueOf(objectName)), e);
+                    return Mono.just(false);
+                });
+    }
+
+    private MinioAsyncClient client() throws IOException {
+        MinioAsyncClient client = minio.getAsyncClient();
+        if (client == null) {
+            throw new IOException(message.getString("fs.reactive.minio.not.connected"));
+        }
+        return client;
+    }
+
+    private MinIOProperty property() {
+        return minio.getProperty();
+    }
+
+}
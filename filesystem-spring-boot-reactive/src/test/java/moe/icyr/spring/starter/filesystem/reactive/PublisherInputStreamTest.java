@@ -0,0 +1,81 @@
+package moe.icyr.spring.starter.filesystem.reactive;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PublisherInputStreamTest {
+
+    @Test
+    void readsAllChunks() throws IOException {
+        Flux<ByteBuffer> publisher = Flux.range(0, 10)
+                .map(i -> ByteBuffer.wrap(("chunk" + i).getBytes(StandardCharsets.UTF_8)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (PublisherInputStream input = PublisherInputStream.subscribe(publisher, 60)) {
+            assertEquals(60, input.available());
+            byte[] buffer = new byte[7];
+            int n;
+            while ((n = input.read(buffer)) >= 0) {
+                output.write(buffer, 0, n);
+            }
+            assertEquals(0, input.available());
+        }
+        assertTrue(output.toString("UTF-8").startsWith("chunk0chunk1"));
+        assertEquals(60, output.size());
+    }
+
+    @Test
+    void propagatesError() {
+        PublisherInputStream input = PublisherInputStream.subscribe(Flux.error(new IllegalStateException("boom")), -1);
+        IOException e = assertThrows(IOException.class, input::read);
+        assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    void closeWakesBlockedReader() throws InterruptedException {
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        Flux<ByteBuffer> never = Sinks.many().unicast().<ByteBuffer>onBackpressureBuffer().asFlux()
+                .doOnCancel(() -> cancelled.set(true));
+        PublisherInputStream input = PublisherInputStream.subscribe(never, -1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch reading = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            reading.countDown();
+            try {
+                input.read();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertTrue(reader.isAlive());
+        input.close();
+        reader.join(5000);
+        assertFalse(reader.isAlive());
+        assertTrue(cancelled.get());
+        assertTrue(failure.get() instanceof IOException);
+        assertTrue(failure.get().getCause() instanceof CancellationException);
+    }
+
+    @Test
+    void readAfterCloseFails() {
+        PublisherInputStream input = PublisherInputStream.subscribe(Flux.never(), -1);
+        input.close();
+        assertThrows(IOException.class, () -> input.read(new byte[4]));
+    }
+
+}
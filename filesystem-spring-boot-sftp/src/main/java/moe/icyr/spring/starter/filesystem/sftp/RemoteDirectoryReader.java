@@ -0,0 +1,82 @@
+package moe.icyr.spring.starter.filesystem.sftp;
+
+import net.schmizz.sshj.sftp.*;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>分批读取的远程目录</p>
+ * <p>{@link RemoteDirectory#scan(RemoteResourceFilter)} 会读完整个目录后才返回，此处每次只发送一个READDIR请求，
+ * 返回服务端本次给出的一批条目</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+class RemoteDirectoryReader extends RemoteResource {
+
+    private static final ResourceBundle message = ResourceBundle.getBundle("MessageSftp");
+
+    private final Charset charset;
+    private boolean eof = false;
+
+    private RemoteDirectoryReader(SFTPEngine requester, String path, byte[] handle) {
+        super(requester, path, handle);
+        this.charset = requester.getSubsystem().getRemoteCharset();
+    }
+
+    /**
+     * 打开远程目录
+     * @param engine SFTP引擎
+     * @param path 目录路径
+     * @return 目录
+     * @throws IOException 目录不存在或读取异常
+     */
+    static RemoteDirectoryReader open(SFTPEngine engine, String path) throws IOException {
+        byte[] handle = engine.request(engine.newRequest(PacketType.OPENDIR)
+                        .putString(path, engine.getSubsystem().getRemoteCharset()))
+                .retrieve(engine.getTimeoutMs(), TimeUnit.MILLISECONDS)
+                .ensurePacketTypeIs(PacketType.HANDLE)
+                .readBytes();
+        return new RemoteDirectoryReader(engine, path, handle);
+    }
+
+    /**
+     * 读取下一批条目
+     * @return 条目，已读完时返回NULL
+     * @throws IOException 读取异常
+     */
+    List<RemoteResourceInfo> readBatch() throws IOException {
+        if (eof) {
+            return null;
+        }
+        Response res = requester.request(newRequest(PacketType.READDIR))
+                .retrieve(requester.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        switch (res.getType()) {
+            case NAME:
+                int count = res.readUInt32AsInt();
+                List<RemoteResourceInfo> batch = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    String name = res.readString(charset);
+                    // longname，仅用于展示
+                    res.readString();
+                    FileAttributes attrs = res.readFileAttributes();
+                    batch.add(new RemoteResourceInfo(requester.getPathHelper().getComponents(path, name), attrs));
+                }
+                return batch;
+            case STATUS:
+                res.ensureStatusIs(Response.StatusCode.EOF);
+                eof = true;
+                return null;
+            default:
+                throw new SFTPException(message.getString("fs.sftp.list.unexpected.packet")
+                        .replace("${type}", String.valueOf(res.getType()))
+                        .replace("${path}", path));
+        }
+    }
+
+}
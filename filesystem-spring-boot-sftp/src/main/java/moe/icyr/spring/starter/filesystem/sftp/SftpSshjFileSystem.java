@@ -1,25 +1,36 @@
 package moe.icyr.spring.starter.filesystem.sftp;
 
+import moe.icyr.spring.starter.filesystem.api.CloseableIterator;
 import moe.icyr.spring.starter.filesystem.api.FileSystem;
+import moe.icyr.spring.starter.filesystem.api.KnownDirectories;
+import moe.icyr.spring.starter.filesystem.api.RetryPolicy;
+import moe.icyr.spring.starter.filesystem.api.TransferProgress;
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
 import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
 import moe.icyr.spring.starter.filesystem.api.entity.FileSystemProperty;
-import moe.icyr.spring.starter.filesystem.sftp.entity.InMemoryFile;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import moe.icyr.spring.starter.filesystem.api.io.RangeInputStream;
 import moe.icyr.spring.starter.filesystem.sftp.entity.SftpProperty;
+import net.schmizz.concurrent.Promise;
 import net.schmizz.keepalive.KeepAliveProvider;
 import net.schmizz.sshj.DefaultConfig;
 import net.schmizz.sshj.SSHClient;
-import net.schmizz.sshj.sftp.FileMode;
-import net.schmizz.sshj.sftp.RemoteResourceInfo;
-import net.schmizz.sshj.sftp.SFTPClient;
+import net.schmizz.sshj.common.StreamCopier;
+import net.schmizz.sshj.connection.ConnectionException;
+import net.schmizz.sshj.sftp.*;
+import net.schmizz.sshj.transport.TransportException;
 import net.schmizz.sshj.transport.verification.HostKeyVerifier;
 import net.schmizz.sshj.userauth.keyprovider.KeyProvider;
 import net.schmizz.sshj.xfer.InMemorySourceFile;
+import net.schmizz.sshj.xfer.TransferListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.security.PublicKey;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * SFTP文件服务连接器
@@ -31,11 +42,27 @@ public class SftpSshjFileSystem extends FileSystem<SFTPClient, RemoteResourceInf
 
     private static final Logger log = LoggerFactory.getLogger(SftpSshjFileSystem.class);
     private static final ResourceBundle message = ResourceBundle.getBundle("MessageSftp");
+    /**
+     * 预读取时允许同时未确认的读请求数量，与sshj文件传输的默认值一致
+     */
+    private static final int READ_AHEAD_MAX_UNCONFIRMED = 16;
+    /**
+     * 批量删除时允许同时未确认的请求数量
+     */
+    private static final int REMOVE_MAX_UNCONFIRMED = 64;
 
     private SftpProperty property;
 
     private SSHClient sshClient;
     private SFTPClient sftpClient;
+    /**
+     * 是否为共用其他实例SSH连接的会话，会话只管理自己的SFTP通道
+     */
+    private boolean shared;
+    /**
+     * 已确认存在的目录，批量操作的会话之间共用
+     */
+    private KnownDirectories knownDirectories;
 
     /**
      * 验证配置并创建连接
@@ -46,6 +73,19 @@ public class SftpSshjFileSystem extends FileSystem<SFTPClient, RemoteResourceInf
         super(property);
     }
 
+    /**
+     * 在已有的SSH连接上打开新的SFTP通道
+     *
+     * @param property 配置文件
+     * @param sshClient 已连接的SSH客户端
+     */
+    private SftpSshjFileSystem(SftpProperty property, SSHClient sshClient) {
+        super(property, false);
+        this.sshClient = sshClient;
+        this.shared = true;
+        this.connect();
+    }
+
     @Override
     public SftpProperty validateProperty(FileSystemProperty property) {
         super.validateProperty(property);
@@ -70,26 +110,28 @@ public class SftpSshjFileSystem extends FileSystem<SFTPClient, RemoteResourceInf
     @Override
     protected void init(FileSystemProperty property) {
         this.property = (SftpProperty) property;
+        this.knownDirectories = new KnownDirectories();
     }
 
     @Override
     protected boolean connect() {
-        if (sshClient == null || !sshClient.isConnected()) {
-            DefaultConfig config = new DefaultConfig();
-            config.setKeepAliveProvider(KeepAliveProvider.KEEP_ALIVE);
-            sshClient = new SSHClient(config);
-            sshClient.addHostKeyVerifier(new HostKeyVerifier() {
-                @Override
-                public boolean verify(String ip, int port, PublicKey publicKey) {
-                    return true;
-                }
-                @Override
-                public List<String> findExistingAlgorithms(String ip, int port) {
-                    return null;
+        if (shared) {
+            if (sshClient == null || !sshClient.isConnected()) {
+                return false;
+            }
+            if (sftpClient == null) {
+                try {
+                    sftpClient = sshClient.newSFTPClient();
+                } catch (IOException e) {
+                    log.error(message.getString("fs.sftp.connect.fail.sftp.channel"), e);
+                    return false;
                 }
-            });
+            }
+            return true;
+        }
+        if (sshClient == null || !sshClient.isConnected()) {
             try {
-                sshClient.connect(this.property.getIp(), this.property.getPort());
+                retry("connect", this::openSshClient);
             } catch (Exception e) {
                 log.error(message.getString("fs.sftp.connect.fail")
                         .replace("${ip}", this.property.getIp())
@@ -145,6 +187,56 @@ public class SftpSshjFileSystem extends FileSystem<SFTPClient, RemoteResourceInf
         return true;
     }
 
+    private boolean openSshClient() throws IOException {
+        recordConnect();
+        DefaultConfig config = new DefaultConfig();
+        config.setKeepAliveProvider(KeepAliveProvider.KEEP_ALIVE);
+        sshClient = new SSHClient(config);
+        sshClient.addHostKeyVerifier(new HostKeyVerifier() {
+            @Override
+            public boolean verify(String ip, int port, PublicKey publicKey) {
+                return true;
+            }
+            @Override
+            public List<String> findExistingAlgorithms(String ip, int port) {
+                return null;
+            }
+        });
+        sshClient.connect(this.property.getIp(), this.property.getPort());
+        return true;
+    }
+
+    private boolean ensureConnected() {
+        return (sftpClient != null && sshClient != null && sshClient.isConnected()) || connect();
+    }
+
+    /**
+     * 在重试策略之上，SSH连接层的异常也可重试；SFTP状态错误（如文件不存在）不重试
+     */
+    @Override
+    protected boolean isRetryable(Throwable error) {
+        return super.isRetryable(error) || RetryPolicy.causedBy(error, TransportException.class, ConnectionException.class);
+    }
+
+    /**
+     * 断开已失效的连接，再次尝试时重新连接；共用SSH连接的会话只重新打开SFTP通道
+     */
+    @Override
+    protected void prepareRetry(Throwable error) {
+        if (shared) {
+            try {
+                if (sftpClient != null) {
+                    sftpClient.close();
+                }
+            } catch (Exception e) {
+                log.warn(message.getString("fs.sftp.disconnect.fail"), e);
+            }
+            sftpClient = null;
+        } else {
+            disconnect();
+        }
+    }
+
     @Override
     public SFTPClient getFileSystemHolder() {
         return sftpClient;
@@ -158,7 +250,7 @@ public class SftpSshjFileSystem extends FileSystem<SFTPClient, RemoteResourceInf
                 sftpClient = null;
             }
             if (sshClient != null) {
-                if (sshClient.isConnected()) {
+                if (!shared && sshClient.isConnected()) {
                     sshClient.close();
                 }
                 sshClient = null;
@@ -170,6 +262,9 @@ public class SftpSshjFileSystem extends FileSystem<SFTPClient, RemoteResourceInf
 
     @Override
     public List<FileInfo<RemoteResourceInfo>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+        if (deepFind && isListParallel()) {
+            return listParallel(path, flatPrint, maxDepth);
+        }
         return list(path, deepFind, flatPrint, maxDepth, 0);
     }
 
@@ -180,71 +275,225 @@ public class SftpSshjFileSystem extends FileSystem<SFTPClient, RemoteResourceInf
         if (path == null || path.trim().isEmpty()) {
             return null;
         }
-        path = path.replace("\\", "/");
-        if (sftpClient == null || sshClient == null || !sshClient.isConnected()) {
-            if (!connect()) {
-                return null;
-            }
-        }
-        if ("/".equals(path)) {
+        String dir = path.replace("\\", "/");
+        if ("/".equals(dir)) {
             log.warn(message.getString("fs.sftp.list.warn.from.root"));
         }
         try {
-            List<RemoteResourceInfo> ls = sftpClient.ls(path);
-            List<FileInfo<RemoteResourceInfo>> files = new ArrayList<>();
-            for (RemoteResourceInfo file : ls) {
-                if (".".equals(file.getName()) || "..".equals(file.getName())) {
-                    continue;
+            return retry("list", () -> listOnce(dir, deepFind, flatPrint, maxDepth, nowDepth));
+        } catch (Exception e) {
+            log.error(message.getString("fs.sftp.list.error")
+                    .replace("${path}", dir), e);
+            return null;
+        }
+    }
+
+    private List<FileInfo<RemoteResourceInfo>> listOnce(String path, boolean deepFind, boolean flatPrint, int maxDepth, int nowDepth) throws IOException {
+        if (!ensureConnected()) {
+            return null;
+        }
+        List<RemoteResourceInfo> ls = sftpClient.ls(path);
+        List<FileInfo<RemoteResourceInfo>> files = new ArrayList<>();
+        for (RemoteResourceInfo file : ls) {
+            if (".".equals(file.getName()) || "..".equals(file.getName())) {
+                continue;
+            }
+            FileInfo<RemoteResourceInfo> info = toFileInfo(path, file);
+            files.add(info);
+            if (deepFind && file.isDirectory()) {
+                String childPath;
+                if ("/".equals(path)) {
+                    childPath = "/" + file.getName();
+                } else if (path.endsWith("/")) {
+                    childPath = path + file.getName();
+                } else {
+                    childPath = path + "/" + file.getName();
                 }
-                FileInfo<RemoteResourceInfo> info = new FileInfo<>();
-                info.setAbsolutePath(path);
-                info.setFilename(file.getName());
-                info.setSize(file.getAttributes().getSize());
-                info.setFile(file.isRegularFile());
-                info.setDirectory(file.isDirectory());
-                files.add(info);
-                if (deepFind && file.isDirectory()) {
-                    String childPath;
-                    if ("/".equals(path)) {
-                        childPath = "/" + file.getName();
-                    } else if (path.endsWith("/")) {
-                        childPath = path + file.getName();
-                    } else {
-                        childPath = path + "/" + file.getName();
-                    }
-                    Collection<FileInfo<RemoteResourceInfo>> list = list(childPath, true, flatPrint, maxDepth, nowDepth + 1);
-                    if (flatPrint) {
+                Collection<FileInfo<RemoteResourceInfo>> list = list(childPath, true, flatPrint, maxDepth, nowDepth + 1);
+                if (flatPrint) {
+                    if (list != null) {
                         files.addAll(list);
-                    } else {
-                        info.setChildren(list);
                     }
+                } else {
+                    info.setChildren(list);
                 }
             }
-            return files;
+        }
+        return files;
+    }
+
+    /**
+     * 每次只向服务端请求一批目录条目，迭代越过当前批次后才请求下一批；迭代器关闭时关闭远程目录句柄
+     */
+    @Override
+    protected CloseableIterator<FileInfo<RemoteResourceInfo>> listDirectory(String path) {
+        if (path == null || path.trim().isEmpty()) {
+            return null;
+        }
+        String dir = path.replace("\\", "/");
+        RemoteDirectoryReader reader;
+        try {
+            reader = retry("listDirectory", () -> ensureConnected() ? RemoteDirectoryReader.open(sftpClient.getSFTPEngine(), dir) : null);
         } catch (Exception e) {
             log.error(message.getString("fs.sftp.list.error")
-                    .replace("${path}", path), e);
+                    .replace("${path}", dir), e);
+            return null;
+        }
+        if (reader == null) {
+            return null;
+        }
+        return new CloseableIterator<FileInfo<RemoteResourceInfo>>() {
+            private Iterator<RemoteResourceInfo> batch = Collections.emptyIterator();
+            private FileInfo<RemoteResourceInfo> next;
+            private boolean closed = false;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && !closed) {
+                    if (batch.hasNext()) {
+                        RemoteResourceInfo file = batch.next();
+                        if (!".".equals(file.getName()) && !"..".equals(file.getName())) {
+                            next = toFileInfo(dir, file);
+                        }
+                        continue;
+                    }
+                    List<RemoteResourceInfo> files;
+                    try {
+                        files = reader.readBatch();
+                    } catch (IOException e) {
+                        close();
+                        throw new UncheckedIOException(message.getString("fs.sftp.list.error")
+                                .replace("${path}", dir), e);
+                    }
+                    if (files == null) {
+                        close();
+                    } else {
+                        batch = files.iterator();
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public FileInfo<RemoteResourceInfo> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                FileInfo<RemoteResourceInfo> current = next;
+                next = null;
+                return current;
+            }
+
+            @Override
+            public void close() {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    log.warn(message.getString("fs.sftp.list.close.fail")
+                            .replace("${path}", dir), e);
+                }
+            }
+        };
+    }
+
+    private static FileInfo<RemoteResourceInfo> toFileInfo(String path, RemoteResourceInfo file) {
+        FileInfo<RemoteResourceInfo> info = new FileInfo<>();
+        info.setAbsolutePath(path);
+        info.setFilename(file.getName());
+        info.setSize(file.getAttributes().getSize());
+        info.setFile(file.isRegularFile());
+        info.setDirectory(file.isDirectory());
+        info.setFingerprint(file.isRegularFile() ? fingerprintOf(file.getAttributes()) : null);
+        info.setOriginalInfo(file);
+        return info;
+    }
+
+    /**
+     * SFTP无内容摘要，以大小与修改时间作为指纹
+     */
+    private static String fingerprintOf(FileAttributes attributes) {
+        return attributes.getSize() + ":" + attributes.getMtime();
+    }
+
+    @Override
+    public FileInfo<RemoteResourceInfo> peekFile(String path, String filename) {
+        if (path == null || path.trim().isEmpty() || filename == null || filename.trim().isEmpty())
+            return null;
+        String dir = path.replace("\\", "/");
+        String filePath;
+        if ("/".equals(dir)) {
+            filePath = "/" + filename;
+        } else if (dir.endsWith("/")) {
+            filePath = dir + filename;
+        } else {
+            filePath = dir + "/" + filename;
+        }
+        try {
+            return retry("peekFile", () -> {
+                if (!ensureConnected()) {
+                    return null;
+                }
+                FileAttributes attributes = sftpClient.statExistence(filePath);
+                if (attributes == null) {
+                    return null;
+                }
+                return toFileInfo(dir, new RemoteResourceInfo(sftpClient.getSFTPEngine().getPathHelper().getComponents(filePath), attributes));
+            });
+        } catch (Exception e) {
+            log.error(message.getString("fs.sftp.peek.error")
+                    .replace("${path}", dir)
+                    .replace("${filename}", filename), e);
             return null;
         }
     }
 
+    /**
+     * 上传文件，连接失效时重新连接后再次上传，流已被读取且无法回到开头时不再重试
+     * @param input 流
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 成功与否
+     */
     @Override
     public boolean upload(InputStream input, String path, String filename) {
         if (input == null || path == null || path.trim().isEmpty() || filename == null || filename.trim().isEmpty())
             return false;
-        path = path.replace("\\", "/");
-        if (sftpClient == null || sshClient == null || !sshClient.isConnected()) {
-            if (!connect()) {
-                return false;
-            }
+        String dir = path.replace("\\", "/");
+        try {
+            return retry("upload", input, in -> uploadOnce(in, dir, filename));
+        } catch (Exception e) {
+            // 目录可能已被删除，下次上传时重新确认
+            knownDirectories.remove(dir);
+            log.error(message.getString("fs.sftp.upload.error")
+                    .replace("${path}", dir)
+                    .replace("${filename}", filename)
+                    .replace("${stream}", Integer.toString(input.hashCode())), e);
+            return false;
+        }
+    }
+
+    private boolean uploadOnce(InputStream input, String path, String filename) throws IOException {
+        if (!ensureConnected()) {
+            return false;
         }
         boolean cd = createDirectory(path);
         if (!cd) {
             return false;
         }
+        TransferProgress progress = null;
+        SFTPFileTransfer transfer = sftpClient.getFileTransfer();
+        TransferListener listener = transfer.getTransferListener();
         try {
             int len = input.available();
-            sftpClient.getFileTransfer().upload(new InMemorySourceFile() {
+            progress = startProgress(TransferProgress.Direction.UPLOAD, path, filename, len > 0 ? len : -1);
+            if (progress != null) {
+                transfer.setTransferListener(new ProgressTransferListener(progress));
+            }
+            transfer.upload(new InMemorySourceFile() {
                 @Override
                 public String getName() {
                     return filename;
@@ -258,97 +507,297 @@ public class SftpSshjFileSystem extends FileSystem<SFTPClient, RemoteResourceInf
                     return input;
                 }
             }, path);
+            finishProgress(progress, true);
             log.debug(message.getString("fs.sftp.upload.success")
                     .replace("${path}", path)
                     .replace("${filename}", filename)
                     .replace("${length}", Integer.toString(len)));
             return true;
-        } catch (Exception e) {
-            log.error(message.getString("fs.sftp.upload.error")
-                    .replace("${path}", path)
-                    .replace("${filename}", filename)
-                    .replace("${stream}", Integer.toString(input.hashCode())), e);
-            return false;
+        } catch (IOException | RuntimeException e) {
+            finishProgress(progress, false);
+            throw e;
+        } finally {
+            if (progress != null) {
+                transfer.setTransferListener(listener);
+            }
         }
     }
 
+    /**
+     * 在同一SSH连接上打开独立的SFTP通道，供批量操作并行使用
+     */
     @Override
-    public boolean createDirectory(String path) {
-        if (path == null || path.trim().isEmpty())
-            return false;
-        path = path.replace("\\", "/");
+    protected FileSystem<SFTPClient, RemoteResourceInfo> openSession() {
         if (sftpClient == null || sshClient == null || !sshClient.isConnected()) {
             if (!connect()) {
-                return false;
+                return null;
             }
         }
-        if ("/".equals(path)) {
-            return true;
+        SftpSshjFileSystem session = new SftpSshjFileSystem(this.property, sshClient);
+        if (session.sftpClient == null) {
+            return null;
         }
-        String[] paths = path.split("/");
-        try {
-            StringBuilder pathBuilder = new StringBuilder("/");
-            for (String dir : paths) {
-                if (dir.trim().isEmpty()) {
+        session.knownDirectories = this.knownDirectories;
+        return inheritSettings(session);
+    }
+
+    @Override
+    protected boolean prepareUploadDirectory(String path) {
+        return createDirectory(path);
+    }
+
+    /**
+     * 目录已预先创建，逐个上传时不再逐级检查目录
+     */
+    @Override
+    protected List<BatchResult<UploadRequest>> uploadGroup(String path, List<UploadRequest> requests) {
+        String dir = path.replace("\\", "/");
+        List<BatchResult<UploadRequest>> results = new ArrayList<>(requests.size());
+        for (UploadRequest request : requests) {
+            if (sftpClient == null || sshClient == null || !sshClient.isConnected()) {
+                if (!connect()) {
+                    results.add(BatchResult.failure(request, new IOException(message.getString("fs.sftp.connect.fail")
+                            .replace("${ip}", this.property.getIp())
+                            .replace("${port}", Integer.toString(this.property.getPort())))));
                     continue;
                 }
-                Boolean exists = false;
-                List<RemoteResourceInfo> ls = sftpClient.ls(pathBuilder.toString());
-                for (RemoteResourceInfo file : ls) {
-                    if (".".equals(file.getName()) || "..".equals(file.getName())) {
-                        continue;
+            }
+            InputStream input;
+            try {
+                input = request.openStream();
+            } catch (IOException e) {
+                results.add(BatchResult.failure(request, e));
+                continue;
+            }
+            try (InputStream stream = input) {
+                int len = stream.available();
+                String filename = request.getFilename();
+                sftpClient.getFileTransfer().upload(new InMemorySourceFile() {
+                    @Override
+                    public String getName() {
+                        return filename;
                     }
-                    if (dir.equals(file.getName())) {
-                        exists = true;
-                        if (!file.isDirectory() && file.getAttributes().getType() != FileMode.Type.SYMLINK) {
-                            exists = null;
-                        }
-                        break;
+                    @Override
+                    public long getLength() {
+                        return len;
                     }
+                    @Override
+                    public InputStream getInputStream() {
+                        return stream;
+                    }
+                }, dir);
+                log.debug(message.getString("fs.sftp.upload.success")
+                        .replace("${path}", dir)
+                        .replace("${filename}", filename)
+                        .replace("${length}", Integer.toString(len)));
+                results.add(BatchResult.success(request));
+            } catch (Exception e) {
+                knownDirectories.remove(dir);
+                log.error(message.getString("fs.sftp.upload.error")
+                        .replace("${path}", dir)
+                        .replace("${filename}", request.getFilename())
+                        .replace("${stream}", Integer.toString(input.hashCode())), e);
+                results.add(BatchResult.failure(request, e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 在当前通道上连续发送REMOVE请求后再等待应答，每批只需一次往返；并行时各会话使用独立通道
+     */
+    @Override
+    protected List<BatchResult<String>> deleteGroup(String path, List<String> filenames) {
+        String dir = path.replace("\\", "/");
+        List<BatchResult<String>> results = new ArrayList<>(filenames.size());
+        if (sftpClient == null || sshClient == null || !sshClient.isConnected()) {
+            if (!connect()) {
+                IOException error = new IOException(message.getString("fs.sftp.connect.fail")
+                        .replace("${ip}", this.property.getIp())
+                        .replace("${port}", Integer.toString(this.property.getPort())));
+                for (String filename : filenames) {
+                    results.add(BatchResult.failure(filename, error));
                 }
-                if (exists == null) {
-                    log.error(message.getString("fs.sftp.mkdir.fail.exists.not.directory")
-                            .replace("${path}", pathBuilder.toString()));
-                    return false;
+                return results;
+            }
+        }
+        SFTPEngine engine = sftpClient.getSFTPEngine();
+        Charset charset = engine.getSubsystem().getRemoteCharset();
+        for (int from = 0; from < filenames.size(); from += REMOVE_MAX_UNCONFIRMED) {
+            int to = Math.min(filenames.size(), from + REMOVE_MAX_UNCONFIRMED);
+            List<Object> pending = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                String filePath = "/".equals(dir) ? "/" + filenames.get(i) : dir.endsWith("/") ? dir + filenames.get(i) : dir + "/" + filenames.get(i);
+                try {
+                    pending.add(engine.request(engine.newRequest(PacketType.REMOVE).putString(filePath, charset)));
+                } catch (IOException e) {
+                    pending.add(e);
                 }
-                pathBuilder.append(dir).append("/");
-                if (!exists) {
-                    sftpClient.mkdir(pathBuilder.toString());
+            }
+            for (int i = from; i < to; i++) {
+                Object request = pending.get(i - from);
+                String filename = filenames.get(i);
+                try {
+                    if (request instanceof IOException) {
+                        throw (IOException) request;
+                    }
+                    @SuppressWarnings("unchecked")
+                    Promise<Response, SFTPException> promise = (Promise<Response, SFTPException>) request;
+                    promise.retrieve(engine.getTimeoutMs(), TimeUnit.MILLISECONDS).ensureStatusPacketIsOK();
+                    log.debug(message.getString("fs.sftp.delete.success")
+                            .replace("${path}", dir)
+                            .replace("${filename}", filename));
+                    results.add(BatchResult.success(filename));
+                } catch (IOException e) {
+                    log.error(message.getString("fs.sftp.delete.error")
+                            .replace("${path}", dir)
+                            .replace("${filename}", filename), e);
+                    results.add(BatchResult.failure(filename, e));
                 }
             }
+        }
+        return results;
+    }
+
+    @Override
+    public boolean createDirectory(String path) {
+        if (path == null || path.trim().isEmpty())
+            return false;
+        String dir = path.replace("\\", "/");
+        if ("/".equals(dir)) {
             return true;
+        }
+        if (knownDirectories.contains(dir)) {
+            return true;
+        }
+        try {
+            return retry("createDirectory", () -> {
+                if (!ensureConnected()) {
+                    return false;
+                }
+                try {
+                    return makeDirectories(dir, true);
+                } catch (SFTPException e) {
+                    // 记录的上级目录可能已被其他客户端删除，不使用记录重新逐级创建
+                    knownDirectories.remove(dir);
+                    return makeDirectories(dir, false);
+                }
+            });
         } catch (Exception e) {
             log.error(message.getString("fs.sftp.mkdir.error")
-                    .replace("${path}", path), e);
+                    .replace("${path}", dir), e);
             return false;
         }
     }
 
+    /**
+     * 逐级检查并创建目录
+     * @param path 目录绝对路径
+     * @param useKnown 是否跳过已确认存在的上级目录
+     * @return 成功与否
+     */
+    private boolean makeDirectories(String path, boolean useKnown) throws IOException {
+        String[] paths = path.split("/");
+        StringBuilder pathBuilder = new StringBuilder();
+        for (String dir : paths) {
+            if (dir.trim().isEmpty()) {
+                continue;
+            }
+            String parent = pathBuilder.length() == 0 ? "/" : pathBuilder.toString();
+            pathBuilder.append("/").append(dir);
+            String current = pathBuilder.toString();
+            // 已确认存在的上级目录无需检查
+            if (useKnown && knownDirectories.contains(current)) {
+                continue;
+            }
+            // 只查询该目录自身（跟随符号链接），不列出上级目录的全部内容
+            FileAttributes attributes = sftpClient.statExistence(current);
+            if (attributes == null) {
+                sftpClient.mkdir(current);
+            } else if (attributes.getType() != FileMode.Type.DIRECTORY) {
+                log.error(message.getString("fs.sftp.mkdir.fail.exists.not.directory")
+                        .replace("${path}", parent));
+                return false;
+            }
+            knownDirectories.add(current);
+        }
+        return true;
+    }
+
+    /**
+     * <p>打开文件的读取流，使用预读取方式并发请求数据块</p>
+     * <p style="color:orange">流关闭时会同时关闭远程文件句柄</p>
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @return 读取流
+     */
+    @Override
+    public InputStream openInputStream(String path, String filename) {
+        return openInputStream(path, filename, 0, -1);
+    }
+
+    /**
+     * 从指定位置开始预读，预读不会超出范围
+     * @param path 绝对路径
+     * @param filename 文件名
+     * @param offset 起始位置，需&gt;=0，超出文件末尾时返回空的流
+     * @param length 读取长度，&lt;0为读取至文件末尾
+     * @return 读取流
+     */
     @Override
-    public ByteArrayOutputStream downloadStream(String path, String filename) {
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
         if (path == null || path.trim().isEmpty() || filename == null || filename.trim().isEmpty())
             return null;
-        path = path.replace("\\", "/");
-        if (sftpClient == null || sshClient == null || !sshClient.isConnected()) {
-            if (!connect()) {
+        if (!isValidRange(offset))
+            return null;
+        if (length == 0)
+            return new ByteArrayInputStream(new byte[0]);
+        String dir = path.replace("\\", "/");
+        String filePath;
+        if ("/".equals(dir)) {
+            filePath = "/" + filename;
+        } else if (dir.endsWith("/")) {
+            filePath = dir + filename;
+        } else {
+            filePath = dir + "/" + filename;
+        }
+        RemoteFile remoteFile;
+        try {
+            remoteFile = retry("openInputStream", () -> ensureConnected() ? sftpClient.open(filePath) : null);
+            if (remoteFile == null) {
                 return null;
             }
+        } catch (Exception e) {
+            log.error(message.getString("fs.sftp.download.error")
+                    .replace("${path}", dir)
+                    .replace("${filename}", filename), e);
+            return null;
         }
         try {
-            String filePath;
-            if ("/".equals(path)) {
-                filePath = "/" + filename;
-            } else if (path.endsWith("/")) {
-                filePath = path + filename;
-            } else {
-                filePath = path + "/" + filename;
+            InputStream input = remoteFile.new ReadAheadRemoteFileInputStream(READ_AHEAD_MAX_UNCONFIRMED, offset, length);
+            TransferProgress progress = null;
+            if (!getProgressListeners().isEmpty()) {
+                // 仅在注册了监听器时查询文件大小，用于估算剩余时间
+                long total = Math.max(0, remoteFile.length() - offset);
+                progress = startProgress(TransferProgress.Direction.DOWNLOAD, dir, filename,
+                        length < 0 ? total : Math.min(total, length));
             }
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            sftpClient.getFileTransfer().download(filePath, new InMemoryFile(outputStream));
-            return outputStream;
+            return trackProgress(new FilterInputStream(length < 0 ? input : new RangeInputStream(input, length)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        remoteFile.close();
+                    }
+                }
+            }, progress);
         } catch (Exception e) {
+            try {
+                remoteFile.close();
+            } catch (IOException ignored) {}
             log.error(message.getString("fs.sftp.download.error")
-                    .replace("${path}", path)
+                    .replace("${path}", dir)
                     .replace("${filename}", filename), e);
             return null;
         }
@@ -358,32 +807,58 @@ public class SftpSshjFileSystem extends FileSystem<SFTPClient, RemoteResourceInf
     public boolean deleteFile(String path, String filename) {
         if (path == null || path.trim().isEmpty() || filename == null || filename.trim().isEmpty())
             return false;
-        path = path.replace("\\", "/");
-        if (sftpClient == null || sshClient == null || !sshClient.isConnected()) {
-            if (!connect()) {
-                return false;
-            }
+        String dir = path.replace("\\", "/");
+        String filePath;
+        if ("/".equals(dir)) {
+            filePath = "/" + filename;
+        } else if (dir.endsWith("/")) {
+            filePath = dir + filename;
+        } else {
+            filePath = dir + "/" + filename;
         }
         try {
-            String filePath;
-            if ("/".equals(path)) {
-                filePath = "/" + filename;
-            } else if (path.endsWith("/")) {
-                filePath = path + filename;
-            } else {
-                filePath = path + "/" + filename;
+            if (!retry("deleteFile", () -> {
+                if (!ensureConnected()) {
+                    return false;
+                }
+                sftpClient.rm(filePath);
+                return true;
+            })) {
+                return false;
             }
-            sftpClient.rm(filePath);
             log.debug(message.getString("fs.sftp.delete.success")
-                    .replace("${path}", path)
+                    .replace("${path}", dir)
                     .replace("${filename}", filename));
             return true;
         } catch (Exception e) {
             log.error(message.getString("fs.sftp.delete.error")
-                    .replace("${path}", path)
+                    .replace("${path}", dir)
                     .replace("${filename}", filename), e);
             return false;
         }
     }
 
+    /**
+     * 将sshj的传输进度转发至 {@link TransferProgress}
+     */
+    private static final class ProgressTransferListener implements TransferListener {
+
+        private final TransferProgress progress;
+
+        ProgressTransferListener(TransferProgress progress) {
+            this.progress = progress;
+        }
+
+        @Override
+        public TransferListener directory(String name) {
+            return this;
+        }
+
+        @Override
+        public StreamCopier.Listener file(String name, long size) {
+            return transferred -> reportProgress(progress, transferred);
+        }
+
+    }
+
 }
@@ -0,0 +1,38 @@
+package moe.icyr.spring.starter.filesystem;
+
+import moe.icyr.spring.starter.filesystem.api.VirtualThreads;
+import moe.icyr.spring.starter.filesystem.entity.FileSystemProfile;
+import moe.icyr.spring.starter.filesystem.factory.FileSystemFactory;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnJava;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * <p>虚拟线程自动配置类</p>
+ * <p>Java 21及以上且开启 {@code spring.threads.virtual.enabled} 时，注册名为 {@value FileSystemFactory#DEFAULT_ASYNC_EXECUTOR_BEAN_NAME} 的虚拟线程池，
+ * 未单独指定 {@code async.executor} 的配置均使用该线程池执行异步接口任务</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+@Configuration
+@AutoConfigureAfter(FileSystemAutoConfiguration.class)
+@ConditionalOnBean(FileSystemProfile.class)
+@ConditionalOnJava(JavaVersion.TWENTY_ONE)
+@ConditionalOnProperty(prefix = "spring.threads.virtual", value = "enabled", havingValue = "true")
+public class FileSystemVirtualThreadAutoConfiguration {
+
+    @Bean(name = FileSystemFactory.DEFAULT_ASYNC_EXECUTOR_BEAN_NAME, destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = FileSystemFactory.DEFAULT_ASYNC_EXECUTOR_BEAN_NAME)
+    public ExecutorService fileSystemAsyncExecutor() {
+        return VirtualThreads.newVirtualThreadPerTaskExecutor("fs-async-");
+    }
+
+}
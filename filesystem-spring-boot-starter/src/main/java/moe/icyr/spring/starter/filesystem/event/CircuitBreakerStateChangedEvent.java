@@ -0,0 +1,59 @@
+package moe.icyr.spring.starter.filesystem.event;
+
+import moe.icyr.spring.starter.filesystem.api.CircuitBreaker;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * <p>文件服务器的熔断器状态变化时发布的事件，由配置了 {@code circuit-breaker} 的实例在引起变化的线程中同步发布</p>
+ * <p>可通过 {@code @EventListener} 监听，如在打开时告警</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class CircuitBreakerStateChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String alias;
+    private final CircuitBreaker.State from;
+    private final CircuitBreaker.State to;
+
+    public CircuitBreakerStateChangedEvent(CircuitBreaker source, CircuitBreaker.State from, CircuitBreaker.State to) {
+        super(source);
+        this.alias = source.getName();
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public CircuitBreaker getSource() {
+        return (CircuitBreaker) super.getSource();
+    }
+
+    /**
+     * @return 配置别名
+     */
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * @return 原状态
+     */
+    public CircuitBreaker.State getFrom() {
+        return from;
+    }
+
+    /**
+     * @return 新状态
+     */
+    public CircuitBreaker.State getTo() {
+        return to;
+    }
+
+    @Override
+    public String toString() {
+        return CircuitBreakerStateChangedEvent.class.getSimpleName() + "[alias='" + alias + "', from=" + from + ", to=" + to + "]";
+    }
+
+}
@@ -1,19 +1,36 @@
 package moe.icyr.spring.starter.filesystem.factory;
 
 import moe.icyr.spring.starter.filesystem.FileSystemAutoConfiguration;
+import moe.icyr.spring.starter.filesystem.api.BulkheadFileSystem;
+import moe.icyr.spring.starter.filesystem.api.CircuitBreakerFileSystem;
+import moe.icyr.spring.starter.filesystem.api.CompressingFileSystem;
+import moe.icyr.spring.starter.filesystem.api.DiskCachingFileSystem;
+import moe.icyr.spring.starter.filesystem.api.EncryptingFileSystem;
 import moe.icyr.spring.starter.filesystem.api.FileSystem;
+import moe.icyr.spring.starter.filesystem.api.FileSystemInterceptor;
+import moe.icyr.spring.starter.filesystem.api.InterceptingFileSystem;
+import moe.icyr.spring.starter.filesystem.api.MetadataCachingFileSystem;
+import moe.icyr.spring.starter.filesystem.api.ProgressListener;
+import moe.icyr.spring.starter.filesystem.api.ThrottlingFileSystem;
 import moe.icyr.spring.starter.filesystem.api.entity.FileSystemProperty;
 import moe.icyr.spring.starter.filesystem.entity.FileSystemProfile;
+import moe.icyr.spring.starter.filesystem.event.CircuitBreakerStateChangedEvent;
 import moe.icyr.spring.starter.filesystem.fdfs.FdfsFileSystem;
 import moe.icyr.spring.starter.filesystem.ftp.FtpFileSystem;
+import moe.icyr.spring.starter.filesystem.metrics.FileSystemMetrics;
 import moe.icyr.spring.starter.filesystem.minio.MinIOFileSystem;
 import moe.icyr.spring.starter.filesystem.sftp.SftpSshjFileSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.util.ClassUtils;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 /**
  * 工厂类
@@ -26,8 +43,28 @@ public class FileSystemFactory {
     private static final Logger log = LoggerFactory.getLogger(FileSystemFactory.class);
     private static final ResourceBundle message = ResourceBundle.getBundle("MessageStarter");
 
-    @SuppressWarnings("unchecked")
+    /**
+     * 未在配置中指定线程池时，若存在该名称的 {@link Executor} Bean则作为异步接口的线程池
+     */
+    public static final String DEFAULT_ASYNC_EXECUTOR_BEAN_NAME = "fileSystemAsyncExecutor";
+    /**
+     * 是否记录指标的配置项，默认开启，仅在引入Micrometer且容器中存在 {@code MeterRegistry} 时生效
+     */
+    public static final String METRICS_ENABLED_PROPERTY = "file-system.metrics.enabled";
+
+    private static final boolean MICROMETER_PRESENT = ClassUtils.isPresent(
+            "io.micrometer.core.instrument.MeterRegistry", FileSystemFactory.class.getClassLoader());
+
     public static <T, F> FileSystem<T, F> make(FileSystemProperty property) {
+        FileSystem<T, F> fs = applyMetrics(applyInterceptors(applyCircuitBreaker(applyBulkhead(
+                applyDiskCache(applyCache(applyCompression(applyEncryption(applyThrottle(build(property), property), property), property), property), property), property), property)));
+        applyProgressListeners(fs);
+        applyAsyncExecutor(fs, property);
+        return fs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, F> FileSystem<T, F> build(FileSystemProperty property) {
         if (property == null || property.getType() == null) {
             throw new IllegalArgumentException(message.getString("fs.starter.not.specified.type"));
         }
@@ -78,4 +115,166 @@ public class FileSystemFactory {
         return fs;
     }
 
+    /**
+     * 开启元数据缓存时使用 {@link MetadataCachingFileSystem} 包装，可通过 {@link MetadataCachingFileSystem#getDelegate()} 获取原实例
+     */
+    private static <T, F> FileSystem<T, F> applyCache(FileSystem<T, F> fs, FileSystemProperty property) {
+        if (property.getCache() == null || !Boolean.TRUE.equals(property.getCache().getEnabled())) {
+            return fs;
+        }
+        try {
+            return new MetadataCachingFileSystem<>(fs);
+        } catch (IllegalArgumentException e) {
+            fs.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 配置了限速时使用 {@link ThrottlingFileSystem} 包装在最内层，命中缓存的读取不受限速
+     */
+    private static <T, F> FileSystem<T, F> applyThrottle(FileSystem<T, F> fs, FileSystemProperty property) {
+        if (property.getThrottle() == null || property.getThrottle().getBytesPerSecond() == null
+                || property.getThrottle().getBytesPerSecond() <= 0) {
+            return fs;
+        }
+        try {
+            return new ThrottlingFileSystem<>(fs);
+        } catch (IllegalArgumentException e) {
+            fs.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 开启加密时使用 {@link EncryptingFileSystem} 包装在限速之外、压缩之内，先压缩再加密；缓存中为解密后的数据
+     */
+    private static <T, F> FileSystem<T, F> applyEncryption(FileSystem<T, F> fs, FileSystemProperty property) {
+        if (property.getEncryption() == null || !Boolean.TRUE.equals(property.getEncryption().getEnabled())) {
+            return fs;
+        }
+        try {
+            return new EncryptingFileSystem<>(fs);
+        } catch (IllegalArgumentException e) {
+            fs.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 开启压缩时使用 {@link CompressingFileSystem} 包装在限速之外，限速按压缩后的字节计算；缓存中为解压后的数据
+     */
+    private static <T, F> FileSystem<T, F> applyCompression(FileSystem<T, F> fs, FileSystemProperty property) {
+        if (property.getCompression() == null || !Boolean.TRUE.equals(property.getCompression().getEnabled())) {
+            return fs;
+        }
+        try {
+            return new CompressingFileSystem<>(fs);
+        } catch (IllegalArgumentException e) {
+            fs.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 开启本地磁盘缓存时使用 {@link DiskCachingFileSystem} 包装在元数据缓存之外，校验用的 {@code peekFile} 可命中元数据缓存；
+     * 同时开启压缩、加密时缓存的是解压、解密后的数据，只依据指纹校验
+     */
+    private static <T, F> FileSystem<T, F> applyDiskCache(FileSystem<T, F> fs, FileSystemProperty property) {
+        if (property.getDiskCache() == null || !Boolean.TRUE.equals(property.getDiskCache().getEnabled())) {
+            return fs;
+        }
+        try {
+            return new DiskCachingFileSystem<>(fs);
+        } catch (IllegalArgumentException e) {
+            fs.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 配置了最大并发数时使用 {@link BulkheadFileSystem} 包装在缓存之外，命中缓存的操作不占用名额；拒绝时抛出的异常会被指标记录
+     */
+    private static <T, F> FileSystem<T, F> applyBulkhead(FileSystem<T, F> fs, FileSystemProperty property) {
+        if (property.getBulkhead() == null || property.getBulkhead().getMaxConcurrent() == null
+                || property.getBulkhead().getMaxConcurrent() <= 0) {
+            return fs;
+        }
+        try {
+            return new BulkheadFileSystem<>(fs);
+        } catch (IllegalArgumentException e) {
+            fs.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 配置了连续失败次数时使用 {@link CircuitBreakerFileSystem} 包装在并发隔离之外，打开期间不占用名额；
+     * 状态变化时发布 {@link CircuitBreakerStateChangedEvent}
+     */
+    private static <T, F> FileSystem<T, F> applyCircuitBreaker(FileSystem<T, F> fs, FileSystemProperty property) {
+        if (property.getCircuitBreaker() == null || property.getCircuitBreaker().getFailureThreshold() == null
+                || property.getCircuitBreaker().getFailureThreshold() <= 0) {
+            return fs;
+        }
+        CircuitBreakerFileSystem<T, F> breaker;
+        try {
+            breaker = new CircuitBreakerFileSystem<>(fs);
+        } catch (IllegalArgumentException e) {
+            fs.close();
+            throw e;
+        }
+        ApplicationContext context = FileSystemAutoConfiguration.getContext();
+        breaker.getBreaker().addListener((source, from, to) ->
+                context.publishEvent(new CircuitBreakerStateChangedEvent(source, from, to)));
+        return breaker;
+    }
+
+    /**
+     * 容器中存在 {@link FileSystemInterceptor} Bean时使用 {@link InterceptingFileSystem} 包装，按 {@code @Order} 排序；
+     * 包装在缓存之外，命中缓存的操作同样会被拦截
+     */
+    private static <T, F> FileSystem<T, F> applyInterceptors(FileSystem<T, F> fs) {
+        List<FileSystemInterceptor> interceptors = FileSystemAutoConfiguration.getContext()
+                .getBeanProvider(FileSystemInterceptor.class).orderedStream().collect(Collectors.toList());
+        if (interceptors.isEmpty()) {
+            return fs;
+        }
+        return new InterceptingFileSystem<>(fs, interceptors);
+    }
+
+    /**
+     * 存在 {@code MeterRegistry} 时使用 {@link FileSystemMetrics} 包装在最外层，未引入Micrometer时不做任何处理
+     */
+    private static <T, F> FileSystem<T, F> applyMetrics(FileSystem<T, F> fs) {
+        ApplicationContext context = FileSystemAutoConfiguration.getContext();
+        if (!MICROMETER_PRESENT || !context.getEnvironment().getProperty(METRICS_ENABLED_PROPERTY, Boolean.class, true)) {
+            return fs;
+        }
+        return FileSystemMetrics.instrument(fs, context);
+    }
+
+    /**
+     * 注册容器中的 {@link ProgressListener} Bean，按 {@code @Order} 排序
+     */
+    private static void applyProgressListeners(FileSystem<?, ?> fs) {
+        FileSystemAutoConfiguration.getContext().getBeanProvider(ProgressListener.class)
+                .orderedStream().forEach(fs::addProgressListener);
+    }
+
+    private static void applyAsyncExecutor(FileSystem<?, ?> fs, FileSystemProperty property) {
+        ApplicationContext context = FileSystemAutoConfiguration.getContext();
+        String beanName = property.getAsync() == null ? null : property.getAsync().getExecutor();
+        if (beanName != null && !beanName.trim().isEmpty()) {
+            if (!context.containsBean(beanName)) {
+                fs.close();
+                throw new IllegalArgumentException(message.getString("fs.starter.async.executor.not.found")
+                        .replace("${bean}", beanName));
+            }
+            fs.setAsyncExecutor(context.getBean(beanName, Executor.class));
+        } else if (context.containsBean(DEFAULT_ASYNC_EXECUTOR_BEAN_NAME)) {
+            fs.setAsyncExecutor(context.getBean(DEFAULT_ASYNC_EXECUTOR_BEAN_NAME, Executor.class));
+        }
+    }
+
 }
@@ -0,0 +1,33 @@
+package moe.icyr.spring.starter.filesystem.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import moe.icyr.spring.starter.filesystem.api.FileSystem;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * <p>指标接入</p>
+ * <p>Micrometer为可选依赖，调用方需先确认其存在；该类的方法签名不引用Micrometer的类型，避免未引入时加载失败</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public final class FileSystemMetrics {
+
+    private FileSystemMetrics() {
+    }
+
+    /**
+     * 容器中存在唯一的 {@code MeterRegistry} 时使用 {@link MeteredFileSystem} 包装，否则原样返回
+     * @param fs 实例
+     * @param context 容器
+     * @return 包装后的实例
+     */
+    public static <T, F> FileSystem<T, F> instrument(FileSystem<T, F> fs, ApplicationContext context) {
+        MeterRegistry registry = context.getBeanProvider(MeterRegistry.class).getIfUnique();
+        if (registry == null) {
+            return fs;
+        }
+        return new MeteredFileSystem<>(fs, registry);
+    }
+
+}
@@ -0,0 +1,459 @@
+package moe.icyr.spring.starter.filesystem.metrics;
+
+import io.micrometer.core.instrument.*;
+import moe.icyr.spring.starter.filesystem.api.BulkheadFileSystem;
+import moe.icyr.spring.starter.filesystem.api.CircuitBreaker;
+import moe.icyr.spring.starter.filesystem.api.CircuitBreakerFileSystem;
+import moe.icyr.spring.starter.filesystem.api.CloseableIterator;
+import moe.icyr.spring.starter.filesystem.api.FileSystem;
+import moe.icyr.spring.starter.filesystem.api.ForwardingFileSystem;
+import moe.icyr.spring.starter.filesystem.api.entity.BatchResult;
+import moe.icyr.spring.starter.filesystem.api.entity.FileInfo;
+import moe.icyr.spring.starter.filesystem.api.entity.UploadRequest;
+import moe.icyr.spring.starter.filesystem.api.io.ChecksumAlgorithm;
+import moe.icyr.spring.starter.filesystem.api.io.CountingInputStream;
+import moe.icyr.spring.starter.filesystem.api.io.CountingOutputStream;
+import moe.icyr.spring.starter.filesystem.minio.MinIOFileSystem;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * <p>向Micrometer记录各项操作指标的文件服务器</p>
+ * <p>所有指标均带有 {@code alias}（配置别名）与 {@code type}（实现类型）标签：</p>
+ * <ul>
+ *     <li>{@value #OPERATIONS}：操作耗时（含p50/p95/p99），标签 {@code operation}、{@code outcome}（success/failure）、{@code exception}</li>
+ *     <li>{@value #ERRORS}：失败次数，标签 {@code operation}、{@code exception}；实现内部捕获异常后返回失败时 {@code exception} 为 {@value #NO_EXCEPTION}</li>
+ *     <li>{@value #BYTES}：传输字节数，标签 {@code direction}（upload/download）；Base64上传不计入</li>
+ *     <li>{@value #RECONNECTS}：重新连接次数，见 {@link FileSystem#getReconnectCount()}</li>
+ *     <li>{@value #RETRIES}：失败重试的次数与重试前累计等待的时长，见 {@link FileSystem#getRetryCount()}、{@link FileSystem#getRetryDelayMillis()}</li>
+ *     <li>{@value #BULKHEAD_ACTIVE}、{@value #BULKHEAD_WAITING}、{@value #BULKHEAD_REJECTIONS}：被装饰的实例中包含 {@link BulkheadFileSystem} 时，
+ *     记录进行中的操作数、等待空位的调用数与拒绝次数</li>
+ *     <li>{@value #CIRCUIT_STATE}、{@value #CIRCUIT_OPENED}、{@value #CIRCUIT_REJECTIONS}：被装饰的实例中包含 {@link CircuitBreakerFileSystem} 时，
+ *     记录熔断器状态（标签 {@code state}，当前状态为1，其余为0）、打开次数与拒绝次数</li>
+ *     <li>{@value #HEDGE_REQUESTS}、{@value #HEDGE_FIRED}、{@value #HEDGE_WINS}、{@value #HEDGE_DELAY}：{@link MinIOFileSystem} 开启对冲读取时，
+ *     记录经过对冲读取的请求数、发出对冲请求的次数、对冲请求先返回的次数与当前等待时长</li>
+ * </ul>
+ * <p>读取流的耗时只包含打开流，传输字节数在读取时计入</p>
+ *
+ * @author IceLitty
+ * @since 1.4
+ */
+public class MeteredFileSystem<T, F> extends ForwardingFileSystem<T, F> {
+
+    public static final String OPERATIONS = "filesystem.operations";
+    public static final String ERRORS = "filesystem.errors";
+    public static final String BYTES = "filesystem.bytes";
+    public static final String RECONNECTS = "filesystem.reconnects";
+    public static final String RETRIES = "filesystem.retries";
+    public static final String BULKHEAD_ACTIVE = "filesystem.bulkhead.active";
+    public static final String BULKHEAD_WAITING = "filesystem.bulkhead.waiting";
+    public static final String BULKHEAD_REJECTIONS = "filesystem.bulkhead.rejections";
+    public static final String CIRCUIT_STATE = "filesystem.circuit.state";
+    public static final String CIRCUIT_OPENED = "filesystem.circuit.opened";
+    public static final String CIRCUIT_REJECTIONS = "filesystem.circuit.rejections";
+    public static final String HEDGE_REQUESTS = "filesystem.hedge.requests";
+    public static final String HEDGE_FIRED = "filesystem.hedge.fired";
+    public static final String HEDGE_WINS = "filesystem.hedge.wins";
+    public static final String HEDGE_DELAY = "filesystem.hedge.delay";
+    public static final String NO_EXCEPTION = "None";
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+    private final Counter uploadBytes;
+    private final Counter downloadBytes;
+    private final FunctionCounter reconnects;
+    private final FunctionTimer retries;
+    private final List<Meter> bulkheadMeters = new ArrayList<>(3);
+    private final List<Meter> circuitMeters = new ArrayList<>(5);
+    private final List<Meter> hedgeMeters = new ArrayList<>(4);
+
+    /**
+     * @param delegate 被装饰的实例
+     * @param registry 指标注册中心
+     */
+    public MeteredFileSystem(FileSystem<T, F> delegate, MeterRegistry registry) {
+        super(delegate);
+        this.registry = Objects.requireNonNull(registry, "registry");
+        this.tags = Tags.of(
+                "alias", this.property.getAlias() == null ? "" : this.property.getAlias(),
+                "type", this.property.getType() == null ? "" : this.property.getType().toLowerCase());
+        this.uploadBytes = Counter.builder(BYTES)
+                .tags(tags)
+                .tag("direction", "upload")
+                .baseUnit("bytes")
+                .register(registry);
+        this.downloadBytes = Counter.builder(BYTES)
+                .tags(tags)
+                .tag("direction", "download")
+                .baseUnit("bytes")
+                .register(registry);
+        this.reconnects = FunctionCounter.builder(RECONNECTS, delegate, FileSystem::getReconnectCount)
+                .tags(tags)
+                .register(registry);
+        this.retries = FunctionTimer.builder(RETRIES, delegate, FileSystem::getRetryCount,
+                        FileSystem::getRetryDelayMillis, TimeUnit.MILLISECONDS)
+                .tags(tags)
+                .register(registry);
+        BulkheadFileSystem<?, ?> bulkhead = findBulkhead(delegate);
+        if (bulkhead != null) {
+            bulkheadMeters.add(Gauge.builder(BULKHEAD_ACTIVE, bulkhead, BulkheadFileSystem::getActiveCount)
+                    .tags(tags)
+                    .register(registry));
+            bulkheadMeters.add(Gauge.builder(BULKHEAD_WAITING, bulkhead, BulkheadFileSystem::getWaitingCount)
+                    .tags(tags)
+                    .register(registry));
+            bulkheadMeters.add(FunctionCounter.builder(BULKHEAD_REJECTIONS, bulkhead, BulkheadFileSystem::getRejectedCount)
+                    .tags(tags)
+                    .register(registry));
+        }
+        CircuitBreakerFileSystem<?, ?> circuit = findCircuitBreaker(delegate);
+        if (circuit != null) {
+            CircuitBreaker breaker = circuit.getBreaker();
+            for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+                circuitMeters.add(Gauge.builder(CIRCUIT_STATE, breaker, b -> b.getState() == state ? 1 : 0)
+                        .tags(tags)
+                        .tag("state", state.name().toLowerCase())
+                        .register(registry));
+            }
+            circuitMeters.add(FunctionCounter.builder(CIRCUIT_OPENED, breaker, CircuitBreaker::getOpenedCount)
+                    .tags(tags)
+                    .register(registry));
+            circuitMeters.add(FunctionCounter.builder(CIRCUIT_REJECTIONS, breaker, CircuitBreaker::getRejectedCount)
+                    .tags(tags)
+                    .register(registry));
+        }
+        FileSystem<?, ?> origin = delegate;
+        while (origin instanceof ForwardingFileSystem) {
+            origin = ((ForwardingFileSystem<?, ?>) origin).getDelegate();
+        }
+        if (origin instanceof MinIOFileSystem && ((MinIOFileSystem) origin).isHedgeReads()) {
+            MinIOFileSystem minio = (MinIOFileSystem) origin;
+            hedgeMeters.add(FunctionCounter.builder(HEDGE_REQUESTS, minio, MinIOFileSystem::getHedgeRequestCount)
+                    .tags(tags)
+                    .register(registry));
+            hedgeMeters.add(FunctionCounter.builder(HEDGE_FIRED, minio, MinIOFileSystem::getHedgeCount)
+                    .tags(tags)
+                    .register(registry));
+            hedgeMeters.add(FunctionCounter.builder(HEDGE_WINS, minio, MinIOFileSystem::getHedgeWinCount)
+                    .tags(tags)
+                    .register(registry));
+            hedgeMeters.add(Gauge.builder(HEDGE_DELAY, minio, MinIOFileSystem::getHedgeDelayMillis)
+                    .tags(tags)
+                    .baseUnit("milliseconds")
+                    .register(registry));
+        }
+    }
+
+    private static BulkheadFileSystem<?, ?> findBulkhead(FileSystem<?, ?> fs) {
+        while (fs instanceof ForwardingFileSystem) {
+            if (fs instanceof BulkheadFileSystem) {
+                return (BulkheadFileSystem<?, ?>) fs;
+            }
+            fs = ((ForwardingFileSystem<?, ?>) fs).getDelegate();
+        }
+        return null;
+    }
+
+    private static CircuitBreakerFileSystem<?, ?> findCircuitBreaker(FileSystem<?, ?> fs) {
+        while (fs instanceof ForwardingFileSystem) {
+            if (fs instanceof CircuitBreakerFileSystem) {
+                return (CircuitBreakerFileSystem<?, ?>) fs;
+            }
+            fs = ((ForwardingFileSystem<?, ?>) fs).getDelegate();
+        }
+        return null;
+    }
+
+    @Override
+    public List<FileInfo<F>> list(String path, boolean deepFind, boolean flatPrint, int maxDepth) {
+        return time("list", () -> super.list(path, deepFind, flatPrint, maxDepth));
+    }
+
+    @Override
+    public CloseableIterator<FileInfo<F>> listIterator(String path, boolean deepFind, int maxDepth) {
+        return time("listIterator", () -> super.listIterator(path, deepFind, maxDepth));
+    }
+
+    @Override
+    public List<FileInfo<F>> listParallel(String path, boolean flatPrint, int maxDepth, int parallelism) {
+        return time("listParallel", () -> super.listParallel(path, flatPrint, maxDepth, parallelism));
+    }
+
+    @Override
+    public FileInfo<F> peekFile(String path, String filename) {
+        return time("peekFile", () -> super.peekFile(path, filename));
+    }
+
+    @Override
+    public boolean upload(InputStream input, StringBuffer path, StringBuffer filename) {
+        return uploadCounted(input, counted -> super.upload(counted, path, filename));
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, StringBuffer path, StringBuffer filename) {
+        return uploaded(time("upload", () -> super.upload(bytes, path, filename)), bytes == null ? 0 : bytes.length);
+    }
+
+    @Override
+    public boolean upload(File file, StringBuffer path, StringBuffer filename) {
+        return uploaded(time("upload", () -> super.upload(file, path, filename)), file == null ? 0 : file.length());
+    }
+
+    @Override
+    public boolean upload(String base64, StringBuffer path, StringBuffer filename) {
+        return time("upload", () -> super.upload(base64, path, filename));
+    }
+
+    @Override
+    public boolean upload(InputStream input, String path, String filename) {
+        return uploadCounted(input, counted -> super.upload(counted, path, filename));
+    }
+
+    @Override
+    public boolean upload(byte[] bytes, String path, String filename) {
+        return uploaded(time("upload", () -> super.upload(bytes, path, filename)), bytes == null ? 0 : bytes.length);
+    }
+
+    @Override
+    public boolean upload(File file, String path, String filename) {
+        return uploaded(time("upload", () -> super.upload(file, path, filename)), file == null ? 0 : file.length());
+    }
+
+    @Override
+    public boolean upload(String base64, String path, String filename) {
+        return time("upload", () -> super.upload(base64, path, filename));
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, StringBuffer path, StringBuffer filename, String encoding) {
+        return uploadCounted(input, counted -> super.uploadEncoded(counted, path, filename, encoding));
+    }
+
+    @Override
+    public boolean uploadEncoded(InputStream input, String path, String filename, String encoding) {
+        return uploadCounted(input, counted -> super.uploadEncoded(counted, path, filename, encoding));
+    }
+
+    @Override
+    public List<BatchResult<UploadRequest>> uploadAll(Collection<UploadRequest> requests, int parallelism) {
+        return time("uploadAll", () -> super.uploadAll(requests, parallelism));
+    }
+
+    @Override
+    public boolean appenderUpload(String base64, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return time("appenderUpload", () -> super.appenderUpload(base64, path, filename, fileSize, fileOffset));
+    }
+
+    @Override
+    public boolean appenderUpload(byte[] bytes, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return uploaded(time("appenderUpload", () -> super.appenderUpload(bytes, path, filename, fileSize, fileOffset)),
+                bytes == null ? 0 : bytes.length);
+    }
+
+    @Override
+    public boolean appenderUpload(InputStream input, StringBuffer path, StringBuffer filename, long fileSize, long fileOffset) {
+        return uploaded(time("appenderUpload", () -> super.appenderUpload(input, path, filename, fileSize, fileOffset)),
+                Math.max(fileSize, 0));
+    }
+
+    @Override
+    public List<BatchResult<String>> deleteAll(Collection<String> paths, int parallelism) {
+        return time("deleteAll", () -> super.deleteAll(paths, parallelism));
+    }
+
+    @Override
+    public List<BatchResult<String>> deleteByPrefix(String path) {
+        return time("deleteByPrefix", () -> super.deleteByPrefix(path));
+    }
+
+    @Override
+    public boolean deleteFile(String path, String filename) {
+        return time("deleteFile", () -> super.deleteFile(path, filename));
+    }
+
+    @Override
+    public boolean createDirectory(String path) {
+        return time("createDirectory", () -> super.createDirectory(path));
+    }
+
+    @Override
+    public File downloadFile(String path, String filename) {
+        return downloaded(time("downloadFile", () -> super.downloadFile(path, filename)));
+    }
+
+    @Override
+    public File downloadFile(String path, String filename, File destFile) {
+        return downloaded(time("downloadFile", () -> super.downloadFile(path, filename, destFile)));
+    }
+
+    @Override
+    public boolean download(String path, String filename, FileChannel channel) {
+        long start = positionOf(channel);
+        boolean success = time("download", () -> super.download(path, filename, channel));
+        if (success && start >= 0) {
+            long end = positionOf(channel);
+            if (end > start) {
+                downloadBytes.increment(end - start);
+            }
+        }
+        return success;
+    }
+
+    @Override
+    public boolean download(String path, String filename, OutputStream output) {
+        if (output == null) {
+            return super.download(path, filename, (OutputStream) null);
+        }
+        CountingOutputStream counted = new CountingOutputStream(output, null);
+        try {
+            return time("download", () -> super.download(path, filename, counted));
+        } finally {
+            downloadBytes.increment(counted.getCount());
+        }
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename) {
+        return counted(time("openInputStream", () -> super.openInputStream(path, filename)));
+    }
+
+    @Override
+    public InputStream openInputStream(String path, String filename, long offset, long length) {
+        return counted(time("openInputStream", () -> super.openInputStream(path, filename, offset, length)));
+    }
+
+    @Override
+    public String getChecksum(String path, String filename, ChecksumAlgorithm algorithm) {
+        return time("getChecksum", () -> super.getChecksum(path, filename, algorithm));
+    }
+
+    @Override
+    public String getContentEncoding(String path, String filename) {
+        return time("getContentEncoding", () -> super.getContentEncoding(path, filename));
+    }
+
+    /**
+     * 关闭时从注册中心移除该实例的指标
+     */
+    @Override
+    public void close() {
+        try {
+            super.close();
+        } finally {
+            for (Timer timer : timers.values()) {
+                registry.remove(timer);
+            }
+            for (Counter counter : errors.values()) {
+                registry.remove(counter);
+            }
+            registry.remove(uploadBytes);
+            registry.remove(downloadBytes);
+            registry.remove(reconnects);
+            registry.remove(retries);
+            for (Meter meter : bulkheadMeters) {
+                registry.remove(meter);
+            }
+            for (Meter meter : circuitMeters) {
+                registry.remove(meter);
+            }
+            for (Meter meter : hedgeMeters) {
+                registry.remove(meter);
+            }
+        }
+    }
+
+    private boolean time(String operation, BooleanSupplier call) {
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            success = call.getAsBoolean();
+        } catch (RuntimeException | Error e) {
+            record(operation, start, e.getClass().getSimpleName());
+            throw e;
+        }
+        record(operation, start, success ? null : NO_EXCEPTION);
+        return success;
+    }
+
+    private <R> R time(String operation, Supplier<R> call) {
+        long start = System.nanoTime();
+        R result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            record(operation, start, e.getClass().getSimpleName());
+            throw e;
+        }
+        record(operation, start, result != null ? null : NO_EXCEPTION);
+        return result;
+    }
+
+    /**
+     * @param exception 失败时的异常名称，成功时为NULL
+     */
+    private void record(String operation, long start, String exception) {
+        long elapsed = System.nanoTime() - start;
+        String outcome = exception == null ? "success" : "failure";
+        String tag = exception == null ? NO_EXCEPTION : exception;
+        timers.computeIfAbsent(operation + ':' + outcome + ':' + tag, key -> Timer.builder(OPERATIONS)
+                        .tags(tags)
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .tag("exception", tag)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry))
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        if (exception != null) {
+            errors.computeIfAbsent(operation + ':' + tag, key -> Counter.builder(ERRORS)
+                            .tags(tags)
+                            .tag("operation", operation)
+                            .tag("exception", tag)
+                            .register(registry))
+                    .increment();
+        }
+    }
+
+    private boolean uploaded(boolean success, long bytes) {
+        if (success && bytes > 0) {
+            uploadBytes.increment(bytes);
+        }
+        return success;
+    }
+
+    private File downloaded(File file) {
+        if (file != null) {
+            downloadBytes.increment(file.length());
+        }
+        return file;
+    }
+
+    /**
+     * 包装输入流计数，{@link InputStream#available()} 仍透传给原流，不影响以其作为上传长度的实现
+     */
+    private boolean uploadCounted(InputStream input, UploadCall call) {
+        InputStream counted = input == null ? null : new CountingInputStream(input, uploadBytes::increment);
+        return time("upload", () -> call.upload(counted));
+    }
+
+    private InputStream counted(InputStream input) {
+        return input == null ? null : new CountingInputStream(input, downloadBytes::increment);
+    }
+
+    @FunctionalInterface
+    private interface UploadCall {
+        boolean upload(InputStream input);
+    }
+
+}